@@ -2,35 +2,53 @@ package com.jccdex.rpc;
 
 import com.alibaba.fastjson.JSONObject;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.jccdex.core.client.Wallet;
 import com.jccdex.core.client.WalletSM;
 import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.config.NodeHealth;
+import com.jccdex.rpc.config.NodeSelector;
 import com.jccdex.rpc.config.RpcNode;
+import com.jccdex.rpc.confirm.ConfirmationTracker;
+import com.jccdex.rpc.confirm.TransactionExpiredException;
 import com.jccdex.rpc.core.coretypes.AccountID;
 import com.jccdex.rpc.core.coretypes.Amount;
 import com.jccdex.rpc.core.coretypes.Currency;
+import com.jccdex.rpc.core.coretypes.STObject;
 import com.jccdex.rpc.core.coretypes.uint.UInt32;
 import com.jccdex.rpc.core.serialized.enums.EngineResult;
+import com.jccdex.rpc.core.types.known.tx.Transaction;
 import com.jccdex.rpc.core.types.known.tx.signed.SignedTransaction;
 import com.jccdex.rpc.core.types.known.tx.txns.OfferCancel;
 import com.jccdex.rpc.core.types.known.tx.txns.OfferCreate;
 import com.jccdex.rpc.core.types.known.tx.txns.Payment;
-import com.jccdex.rpc.http.OkhttpUtil;
+import com.jccdex.rpc.http.OkhttpTransport;
+import com.jccdex.rpc.http.RequestTemplate;
+import com.jccdex.rpc.http.SingleFlight;
+import com.jccdex.rpc.http.Transport;
+import com.jccdex.rpc.res.LedgerResult;
+import com.jccdex.rpc.res.SubmitResult;
+import com.jccdex.rpc.res.TxResult;
+import com.jccdex.rpc.sequence.SequenceManager;
 import com.jccdex.rpc.utils.Utils;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 井通公链、联盟链RPC开发接口
  * @author xdjiang, shuonimei
  */
-public class JccJingtum {
+public class JccJingtum implements AutoCloseable {
     private final RpcNode rpcNode;
     /**
      * 重复请求次数
@@ -38,20 +56,85 @@ public class JccJingtum {
     private int tryTimes;
     private final String SUCCESS_CODE = "success";
 
-    private final Map<String, UInt32> seqList = new HashMap<>();
+    /**
+     * 交易重试、交易确认的间隔(毫秒)
+     */
+    private static final long RETRY_DELAY = 2500;
+
+    /**
+     * 重试定时器,所有实例共用,只负责调度,不执行网络请求
+     */
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "jingtum-retry-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 等待下一个账本验证的间隔(毫秒)
+     */
+    private static final long LEDGER_POLL_DELAY = 1000;
+
+    /**
+     * 交易最多等待确认的账本数: 需要确认的交易签名时把LastLedgerSequence设为当前已验证账本之后的第几个账本,
+     * 未设置LastLedgerSequence的交易按登记确认后的账本数计算
+     */
+    private static final int CONFIRM_LEDGERS = 5;
+
+    private final SequenceManager sequenceManager = new SequenceManager(this::loadSequence);
+
+    private final ConfirmationTracker confirmationTracker = new ConfirmationTracker(this::requestAsync, timer, LEDGER_POLL_DELAY, CONFIRM_LEDGERS);
 
     private Boolean guomi;
 
+    private final Transport transport;
+
+    /**
+     * 由本实例创建的传输层,close时关闭;外部传入的传输层由调用者关闭
+     */
+    private final OkhttpTransport ownedTransport;
+
+    private final SingleFlight<String, Long> accountInfoRequests = new SingleFlight<>("account_info");
+
+    private final SingleFlight<String, String> txRequests = new SingleFlight<>("tx");
+
+    private final SingleFlight<String, Long> ledgerRequests = new SingleFlight<>("ledger");
+
     /**
      * @param rpcNodes rpc节点服务器地址列表
      * @param guomi    是否国密链
      */
     public JccJingtum(Boolean guomi, ArrayList<String> rpcNodes) {
+        this(guomi, rpcNodes, new OkhttpTransport(), true);
+    }
+
+    /**
+     * @param rpcNodes rpc节点服务器地址列表
+     * @param guomi    是否国密链
+     * @param transport 传输层,可设置连接池、超时与并发,或替换为进程内实现
+     */
+    public JccJingtum(Boolean guomi, ArrayList<String> rpcNodes, Transport transport) {
+        this(guomi, rpcNodes, transport, false);
+    }
+
+    private JccJingtum(Boolean guomi, ArrayList<String> rpcNodes, Transport transport, boolean owned) {
         this.guomi = guomi;
         this.tryTimes = rpcNodes.size() > 5 ? rpcNodes.size(): 5;
+        this.transport = transport;
+        this.ownedTransport = owned ? (OkhttpTransport) transport : null;
         rpcNode = new RpcNode(rpcNodes);
     }
 
+    /**
+     * 关闭由本实例创建的传输层(连接池与请求线程),外部传入的传输层不受影响
+     */
+    @Override
+    public void close() {
+        if (ownedTransport != null) {
+            ownedTransport.close();
+        }
+    }
+
     /**
      * 井通公链、联盟链RPC服务构造函数
      * @param fee 每笔交易燃料费(fee取值范围为10-1000000000的整数,燃料费计算公式=fee/1000000,)
@@ -213,69 +296,153 @@ public class JccJingtum {
         this.tryTimes = tryTimes;
     }
 
+    /**
+     * 从account_info的返回中获取sequence
+     * @param res account_info接口返回的json字符串
+     * @return sequence
+     * @throws Exception 抛出异常
+     */
+    private String parseSequence(String res) throws Exception {
+        JSONObject result = JSONObject.parseObject(res).getJSONObject("result");
+        if(SUCCESS_CODE.equals(result.getString("status"))) {
+            String sequence = result.getJSONObject("account_data").getString("Sequence");
+            return sequence;
+        } else {
+            throw  new Exception(res);
+        }
+    }
+
     /**
      * 获取sequence
      * @param address 钱包地址
      * @return sequence
      * @throws Exception 抛出异常
      */
-    private String getSequence(String address, String rpcNode) throws Exception {
+    public long getSequence(String address) throws Exception {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode data = mapper.createObjectNode();
-            ObjectNode object = mapper.createObjectNode();
-            object.put("account", address);
-            ArrayList<ObjectNode> params = new ArrayList<>();
-            params.add(object);
-            ArrayNode array = mapper.valueToTree(params);
-            data.put("method", "account_info");
-            data.set("params", array);
-
-            String res = OkhttpUtil.post(rpcNode, data.toString());
-            String code = JSONObject.parseObject(res).getJSONObject("result").getString("status");
-            if(SUCCESS_CODE.equals(code)) {
-                String sequence = JSONObject.parseObject(res).getJSONObject("result").getJSONObject("account_data").getString("Sequence");
-                return sequence;
-            } else {
-                throw  new Exception(res);
+            if(!this.isValidAddress(address)) {
+                throw new Exception("钱包地址不合法");
             }
+
+            return sequenceManager.current(address);
         } catch (Exception e) {
             throw e;
         }
     }
 
     /**
-     * 获取sequence
+     * 查询当前已验证账本序号,同时只有一个请求在途,其他调用者共享其结果
+     * @return 已验证账本序号
+     * @throws Exception 抛出异常
+     */
+    private long validatedLedger() throws Exception {
+        return await(ledgerRequests.execute("validated", () -> this.requestAsync(RequestTemplate.LEDGER_VALIDATED.render()).thenApply(res -> {
+            try {
+                LedgerResult ledger = LedgerResult.fromResponse(res);
+                if (!ledger.isConfirmed()) {
+                    throw new CompletionException(new Exception(res));
+                }
+                return ledger.getLedgerIndex();
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        })));
+    }
+
+    /**
+     * 从rpc节点获取链上的sequence,同一地址同时只有一个account_info请求在途,
+     * 其他调用者共享其结果
      * @param address 钱包地址
      * @return sequence
      * @throws Exception 抛出异常
      */
-    public long getSequence(String address) throws Exception {
+    private long loadSequence(String address) throws Exception {
+        return await(accountInfoRequests.execute(address, () -> this.fetchSequence(address)));
+    }
+
+    /**
+     * 依次向候选节点异步查询account_info,直到有一个节点返回sequence
+     */
+    private CompletableFuture<Long> fetchSequence(String address) {
+        List<String> urls;
         try {
-            if(!this.isValidAddress(address)) {
-                throw new Exception("钱包地址不合法");
-            }
+            urls = rpcNode.candidateUrls();
+        } catch (Exception e) {
+            return failed(e);
+        }
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        this.fetchSequence(RequestTemplate.ACCOUNT_INFO.render(address), urls, 0, new Exception("获取sequence失败"), future);
+        return future;
+    }
 
-            UInt32 seq = seqList.get(address);
-            if(seq != null) {
-                return seq.value().longValue();
-            } else {
-                ArrayList<String> list = rpcNode.getUrls();
-                Iterator it = list.iterator();
-                while(it.hasNext()) {
-                    String url = (String) it.next();
-                    String sequence = this.getSequence(address,url);
+    private void fetchSequence(byte[] data, List<String> urls, int index, Throwable lastError, CompletableFuture<Long> future) {
+        if (index >= urls.size()) {
+            future.completeExceptionally(lastError);
+            return;
+        }
+        this.postAsync(urls.get(index), data).whenComplete((res, err) -> {
+            Throwable error = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+            if (error == null) {
+                try {
+                    String sequence = this.parseSequence(res);
                     if (!sequence.isEmpty()) {
-                        seq = new UInt32(sequence);
-                        break;
+                        future.complete(new UInt32(sequence).value().longValue());
+                        return;
                     }
+                } catch (Exception e) {
+                    error = e;
                 }
-                seqList.put(address, seq);
-                return seq.value().longValue();
             }
-        } catch (Exception e) {
-            throw e;
-        }
+            this.fetchSequence(data, urls, index + 1, error == null ? lastError : error, future);
+        });
+    }
+
+    /**
+     * 设置rpc节点选择策略
+     * @param selector 节点选择策略,如NodeSelector.POWER_OF_TWO、NodeSelector.EWMA
+     */
+    public void setNodeSelector(NodeSelector selector) {
+        rpcNode.setSelector(selector);
+    }
+
+    /**
+     * 获取各rpc节点的健康状况(延迟、在途请求、失败次数、熔断状态)
+     * @return 节点健康状况列表
+     */
+    public List<NodeHealth> getNodeStats() {
+        return rpcNode.getNodes();
+    }
+
+    /**
+     * 获取相同请求合并的统计(account_info与tx的调用数、合并命中率)
+     * @return 合并统计列表
+     */
+    public List<SingleFlight<String, ?>> getCoalescingStats() {
+        return Arrays.asList(accountInfoRequests, txRequests, ledgerRequests);
+    }
+
+    /**
+     * 获取传输层
+     * @return 传输层
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * 获取交易确认器,可直接登记已提交交易的hash等待确认
+     * @return 交易确认器
+     */
+    public ConfirmationTracker getConfirmationTracker() {
+        return confirmationTracker;
+    }
+
+    /**
+     * 获取账号sequence管理器
+     * @return sequence管理器
+     */
+    public SequenceManager getSequenceManager() {
+        return sequenceManager;
     }
 
     /**
@@ -295,42 +462,50 @@ public class JccJingtum {
                 throw new Exception("sequence不合法,sequence不能小于0");
             }
 
-            seqList.put(address,new UInt32(pSequence));
+            sequenceManager.set(address, pSequence);
         } catch (Exception e) {
             throw e;
         }
     }
 
     /**
-     * 向指定的rpc节点服务器获取获取交易详情
+     * 向rpc节点服务器异步获取交易详情,当前节点未确认时依次向下一个节点查询
      * @param hash 交易hash
-     * @param rpcNode rpc节点服务器
-     * @return 交易详情 json格式
-     * @throws Exception 抛出异常
+     * @return 已确认的交易详情 json格式
      */
-    private String requestTx(String hash, String rpcNode) throws Exception {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode data = mapper.createObjectNode();
-            ObjectNode object = mapper.createObjectNode();
-            object.put("transaction", hash);
-            object.put("binary", false);
-            ArrayList<ObjectNode> params = new ArrayList();
-            params.add(object);
-            ArrayNode array = (ArrayNode) mapper.valueToTree(params);
-            data.put("method", "tx");
-            data.set("params", array);
-            String res = OkhttpUtil.post(rpcNode, data.toString());
-            String status = JSONObject.parseObject(res).getJSONObject("result").getString("status");
-            Boolean validated = JSONObject.parseObject(res).getJSONObject("result").getBoolean("validated");
-            if (SUCCESS_CODE.equals(status) && validated) {
-                return res;
-            } else {
-                throw new Exception(res);
+    public CompletableFuture<String> requestTxAsync(String hash) {
+        return txRequests.execute(hash.toUpperCase(), () -> {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            try {
+                this.requestTx(RequestTemplate.TX.render(hash), rpcNode.candidateUrls(), 0, "", future);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
             }
-        }catch (Exception e) {
-            throw e;
+            return future;
+        });
+    }
+
+    private void requestTx(byte[] data, List<String> urls, int index, String lastRes, CompletableFuture<String> future) {
+        if (index >= urls.size()) {
+            future.completeExceptionally(new Exception(lastRes));
+            return;
         }
+
+        this.postAsync(urls.get(index), data).whenComplete((res, err) -> {
+            if (err != null) {
+                this.requestTx(data, urls, index + 1, lastRes, future);
+                return;
+            }
+            try {
+                if (TxResult.fromResponse(res).isConfirmed()) {
+                    future.complete(res);
+                    return;
+                }
+            } catch (Exception e) {
+                // 返回内容无法解析,继续查询下一个节点
+            }
+            this.requestTx(data, urls, index + 1, res, future);
+        });
     }
 
     /**
@@ -340,21 +515,7 @@ public class JccJingtum {
      * @throws Exception 抛出异常
      */
     public String requestTx(String hash) throws Exception {
-        String tx = "";
-        try {
-            ArrayList<String> list = rpcNode.getUrls();
-            Iterator it = list.iterator();
-            while(it.hasNext()) {
-                String url = (String) it.next();
-                tx = this.requestTx(hash,url);
-                if (!tx.isEmpty()) {
-                    break;
-                }
-            }
-        }catch (Exception e) {
-            throw e;
-        }
-        return tx;
+        return await(this.requestTxAsync(hash));
     }
 
     /**
@@ -401,65 +562,25 @@ public class JccJingtum {
      * @throws Exception 抛出异常
      */
     public String paymentWithCheck(String secret, String receiver, String pToken, String pAmount, String pIssuer,String memos) throws Exception {
-        try {
-            if(!this.isValidSecret(secret)) {
-                throw new Exception("钱包密钥不合法");
-            }
-
-            if(!this.isValidAddress(receiver)) {
-                throw new Exception("钱包地址不合法");
-            }
-
-            if(!this.isValidAddress(pIssuer)) {
-                throw new Exception("银关地址不合法");
-            }
-
-            if(pToken.isEmpty()) {
-                throw new Exception("token名称不合法");
-            }
-
-            if(pAmount.isEmpty()) {
-                throw new Exception("数量不合法");
-            }
-
-            String sender = this.getAddress(secret);
-            long sequence = this.getSequence(sender);
-
-            ObjectMapper mapper = new ObjectMapper();
-            String token = pToken.toUpperCase();
-            Amount amount;
-            Payment payment = new Payment(this.guomi);
-            payment.as(AccountID.Account, sender);
-            payment.as(AccountID.Destination, receiver);
-
-            BigDecimal bigDecimal = new BigDecimal(pAmount);
-            if(bigDecimal.compareTo(new BigDecimal(0)) < 1){
-                throw new Exception("token数量不能小于等于0");
-            }
-
-            if(Config.CURRENCY.equals(token)) {
-                amount = new Amount(bigDecimal);
-            } else {
-                amount = new Amount(bigDecimal, Currency.fromString(token), AccountID.fromString(pIssuer));
-            }
-
-
-            payment.as(Amount.Amount, amount);
-            payment.as(Amount.Fee, String.valueOf(Config.FEE));
-            payment.sequence(new UInt32(sequence));
-            payment.flags(new UInt32(0));
-
-            if (memos.length() > 0) {
-                ArrayList<String> memoList = new ArrayList<>(1);
-                memoList.add(memos);
-                payment.addMemo(memoList);
-            }
+        return await(this.paymentWithCheckAsync(secret, receiver, pToken, pAmount, pIssuer, memos)).getResponse();
+    }
 
-            SignedTransaction tx = payment.sign(secret);
-            String res = this.submitWithCheck(tx.tx_blob, tx.hash.toHex());
-            return res;
+    /**
+     *  异步转账并校验，交易提交成功后等待交易被确认
+     * @param secret 发送者钱包密钥
+     * @param receiver 接收者钱包地址
+     * @param pToken 转账Token
+     * @param pAmount 转账数量
+     * @param pIssuer 银关地址
+     * @param memos  交易备注(无就传"")
+     * @return 交易提交结果
+     */
+    public CompletableFuture<SubmitResult> paymentWithCheckAsync(String secret, String receiver, String pToken, String pAmount, String pIssuer,String memos) {
+        try {
+            SignedTransaction tx = this.signPayment(secret, receiver, pToken, pAmount, pIssuer, memos, true);
+            return this.invalidateOnFailure(tx, this.submitWithCheckAsync(tx.tx_blob, tx.hash.toHex()));
         } catch (Exception e) {
-            throw e;
+            return failed(e);
         }
     }
 
@@ -494,64 +615,148 @@ public class JccJingtum {
      * @throws Exception 抛出异常
      */
     public String paymentNoCheck(String secret, String receiver, String pToken, String pAmount, String pIssuer, String memos) throws Exception {
+        return await(this.paymentAsync(secret, receiver, pToken, pAmount, pIssuer, memos)).getResponse();
+    }
+
+    /**
+     *  异步快速转账，不占用调用者线程，交易提交成功即返回，不校验交易是否被确认
+     * @param secret 发送者钱包密钥
+     * @param receiver 接收者钱包地址
+     * @param pToken 转账Token
+     * @param pAmount 转账数量
+     * @param memos  交易备注(无就传"")
+     * @return 交易提交结果
+     */
+    public CompletableFuture<SubmitResult> paymentAsync(String secret, String receiver, String pToken, String pAmount, String memos) {
+        return this.paymentAsync(secret, receiver, pToken, pAmount, Config.ISSUER, memos);
+    }
+
+    /**
+     *  异步快速转账，不占用调用者线程，交易提交成功即返回，不校验交易是否被确认
+     * @param secret 发送者钱包密钥
+     * @param receiver 接收者钱包地址
+     * @param pToken 转账Token
+     * @param pAmount 转账数量
+     * @param pIssuer 银关地址
+     * @param memos  交易备注(无就传"")
+     * @return 交易提交结果
+     */
+    public CompletableFuture<SubmitResult> paymentAsync(String secret, String receiver, String pToken, String pAmount, String pIssuer, String memos) {
         try {
-            if(!this.isValidSecret(secret)) {
-                throw new Exception("钱包密钥不合法");
-            }
-            if(!this.isValidAddress(receiver)) {
-                throw new Exception("钱包地址不合法");
-            }
+            SignedTransaction tx = this.signPayment(secret, receiver, pToken, pAmount, pIssuer, memos, false);
+            return this.invalidateOnFailure(tx, this.submitAsync(tx.tx_blob));
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
 
-            if(!this.isValidAddress(pIssuer)) {
-                throw new Exception("银关地址不合法");
-            }
+    /**
+     * 校验转账参数,占用一个sequence并签名
+     * @param confirm 交易需要确认,设置LastLedgerSequence
+     * @return 签名后的交易
+     * @throws Exception 抛出异常
+     */
+    private SignedTransaction signPayment(String secret, String receiver, String pToken, String pAmount, String pIssuer, String memos, boolean confirm) throws Exception {
+        if(!this.isValidSecret(secret)) {
+            throw new Exception("钱包密钥不合法");
+        }
 
-            if(pToken.isEmpty()) {
-                throw new Exception("token名称不合法");
-            }
+        String sender = this.getAddress(secret);
+        Payment payment = this.buildPayment(sender, receiver, pToken, pAmount, pIssuer, memos);
+        return this.reserveAndSign(payment, sender, secret, confirm);
+    }
 
-            if(pAmount.isEmpty()) {
-                throw new Exception("数量不合法");
-            }
+    /**
+     * 为交易占用一个sequence并签名,签名失败时释放该sequence
+     * @param txn 未设置sequence的交易
+     * @param sender 发送者钱包地址
+     * @param secret 发送者钱包密钥
+     * @return 签名后的交易
+     * @throws Exception 抛出异常
+     */
+    private SignedTransaction reserveAndSign(Transaction txn, String sender, String secret) throws Exception {
+        return this.reserveAndSign(txn, sender, secret, false);
+    }
 
-            String sender = this.getAddress(secret);
-            long sequence = this.getSequence(sender);
+    /**
+     * 为交易占用一个sequence并签名,签名失败时释放该sequence
+     * @param txn 未设置sequence的交易
+     * @param sender 发送者钱包地址
+     * @param secret 发送者钱包密钥
+     * @param confirm 交易需要确认: 把LastLedgerSequence设为当前已验证账本之后CONFIRM_LEDGERS个账本,
+     *                确认超时后可以确定交易是否还会上链
+     * @return 签名后的交易
+     * @throws Exception 抛出异常
+     */
+    private SignedTransaction reserveAndSign(Transaction txn, String sender, String secret, boolean confirm) throws Exception {
+        if (confirm) {
+            txn.lastLedgerSequence(new UInt32(this.validatedLedger() + CONFIRM_LEDGERS));
+        }
+        long sequence = sequenceManager.reserve(sender);
+        try {
+            txn.sequence(new UInt32(sequence));
+            return txn.sign(secret);
+        } catch (Exception e) {
+            sequenceManager.released(sender, sequence);
+            throw e;
+        }
+    }
 
-            ObjectMapper mapper = new ObjectMapper();
-            String token = pToken.toUpperCase();
-            Amount amount;
-            Payment payment = new Payment(this.guomi);
-            payment.as(AccountID.Account, sender);
-            payment.as(AccountID.Destination, receiver);
+    /**
+     * 校验转账参数并构造转账交易(不含sequence)
+     * @param sender 发送者钱包地址
+     * @param receiver 接收者钱包地址
+     * @param pToken 转账Token
+     * @param pAmount 转账数量
+     * @param pIssuer 银关地址
+     * @param memos  交易备注(无就传"")
+     * @return 未签名的转账交易
+     * @throws Exception 抛出异常
+     */
+    public Payment buildPayment(String sender, String receiver, String pToken, String pAmount, String pIssuer, String memos) throws Exception {
+        if(!this.isValidAddress(receiver)) {
+            throw new Exception("钱包地址不合法");
+        }
 
-            BigDecimal bigDecimal = new BigDecimal(pAmount);
-            if(bigDecimal.compareTo(new BigDecimal(0)) < 1){
-                throw new Exception("token数量不能小于等于0");
-            }
+        if(!this.isValidAddress(pIssuer)) {
+            throw new Exception("银关地址不合法");
+        }
 
-            if(Config.CURRENCY.equals(token)) {
-                amount = new Amount(bigDecimal);
-            } else {
-                amount = new Amount(bigDecimal, Currency.fromString(token), AccountID.fromString(pIssuer));
-            }
+        if(pToken.isEmpty()) {
+            throw new Exception("token名称不合法");
+        }
 
-            payment.as(Amount.Amount, amount);
-            payment.as(Amount.Fee, String.valueOf(Config.FEE));
-            payment.sequence(new UInt32(sequence));
-            payment.flags(new UInt32(0));
+        if(pAmount.isEmpty()) {
+            throw new Exception("数量不合法");
+        }
 
-            if (memos.length() > 0) {
-                ArrayList<String> memoList = new ArrayList<>(1);
-                memoList.add(memos);
-                payment.addMemo(memoList);
-            }
+        String token = pToken.toUpperCase();
+        Amount amount;
+        Payment payment = new Payment(this.guomi);
+        payment.as(AccountID.Account, sender);
+        payment.as(AccountID.Destination, receiver);
 
-            SignedTransaction tx = payment.sign(secret);
-            String res = this.submitNoCheck(tx.tx_blob);
-            return res;
-        } catch (Exception e) {
-            throw e;
+        BigDecimal bigDecimal = new BigDecimal(pAmount);
+        if(bigDecimal.compareTo(new BigDecimal(0)) < 1){
+            throw new Exception("token数量不能小于等于0");
         }
+
+        if(Config.CURRENCY.equals(token)) {
+            amount = new Amount(bigDecimal);
+        } else {
+            amount = new Amount(bigDecimal, Currency.fromString(token), AccountID.fromString(pIssuer));
+        }
+
+        payment.as(Amount.Amount, amount);
+        payment.as(Amount.Fee, String.valueOf(Config.FEE));
+        payment.flags(new UInt32(0));
+
+        if (memos.length() > 0) {
+            ArrayList<String> memoList = new ArrayList<>(1);
+            memoList.add(memos);
+            payment.addMemo(memoList);
+        }
+        return payment;
     }
 
     /**
@@ -644,16 +849,13 @@ public class JccJingtum {
 
             offerCreate.as(Amount.Fee, String.valueOf(Config.FEE));
 
-            long sequence = this.getSequence(address);
-            offerCreate.sequence(new UInt32(sequence));
-
             if (memos.length() > 0) {
                 ArrayList<String> memoList = new ArrayList<>(1);
                 memoList.add(memos);
                 offerCreate.addMemo(memoList);
             }
 
-            SignedTransaction tx = offerCreate.sign(secret);
+            SignedTransaction tx = this.reserveAndSign(offerCreate, address, secret, true);
             String res = this.submitWithCheck(tx.tx_blob, tx.hash.toHex());
             return res;
         } catch (Exception e) {
@@ -751,16 +953,13 @@ public class JccJingtum {
 
             offerCreate.as(Amount.Fee, String.valueOf(Config.FEE));
 
-            long sequence = this.getSequence(address);
-            offerCreate.sequence(new UInt32(sequence));
-
             if (memos.length() > 0) {
                 ArrayList<String> memoList = new ArrayList<>(1);
                 memoList.add(memos);
                 offerCreate.addMemo(memoList);
             }
 
-            SignedTransaction tx = offerCreate.sign(secret);
+            SignedTransaction tx = this.reserveAndSign(offerCreate, address, secret);
             String res = this.submitNoCheck(tx.tx_blob);
             return res;
         } catch (Exception e) {
@@ -790,10 +989,7 @@ public class JccJingtum {
             offerCancel.as(AccountID.Account, address);
             offerCancel.as(UInt32.OfferSequence, pSequence);
             offerCancel.as(Amount.Fee, String.valueOf(Config.FEE));
-            long sequence = this.getSequence(address);
-            offerCancel.sequence(new UInt32(sequence));
-
-            SignedTransaction tx = offerCancel.sign(secret);
+            SignedTransaction tx = this.reserveAndSign(offerCancel, address, secret);
             String res = this.submitNoCheck(tx.tx_blob);
             return res;
         } catch (Exception e) {
@@ -835,9 +1031,7 @@ public class JccJingtum {
             }
 
             String sender = this.getAddress(secret);
-            long sequence = this.getSequence(sender);
 
-            ObjectMapper mapper = new ObjectMapper();
             String token = pToken.toUpperCase();
             Amount amount;
             Payment payment = new Payment(this.guomi);
@@ -858,7 +1052,6 @@ public class JccJingtum {
 
             payment.as(Amount.Amount, amount);
             payment.as(Amount.Fee, String.valueOf(Config.FEE));
-            payment.sequence(new UInt32(sequence));
             payment.flags(new UInt32(0));
 
             if (memos.length() > 0) {
@@ -867,7 +1060,7 @@ public class JccJingtum {
                 payment.addMemo(memoList);
             }
 
-            SignedTransaction tx = payment.sign(secret);
+            SignedTransaction tx = this.reserveAndSign(payment, sender, secret, true);
             String res = this.submitWithCheck(tx.tx_blob, tx.hash.toHex());
             return res;
         } catch (Exception e) {
@@ -883,129 +1076,240 @@ public class JccJingtum {
      * @throws Exception 抛出异常
      */
     public String submitWithCheck(String txBlob, String hash) throws Exception {
-        try {
-            int times = this.tryTimes;
-            String resTx = "";
-            String res = "";
-            String successRes = "";
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode data = mapper.createObjectNode();
-            ObjectNode object = mapper.createObjectNode();
-            object.put("tx_blob", txBlob);
-            ArrayList<ObjectNode> params = new ArrayList<>();
-            params.add(object);
-            ArrayNode array = mapper.valueToTree(params);
-
-            data.put("method", "submit");
-            data.set("params", array);
-
-            do{
-                times--;
-                try {
-                    String url = rpcNode.randomUrl();
-                    res = OkhttpUtil.post(url, data.toString());
-                    String sender = JSONObject.parseObject(res).getJSONObject("result").getJSONObject("tx_json").getString("Account");
-                    int engine_result_code = JSONObject.parseObject(res).getJSONObject("result").getIntValue("engine_result_code");
-                    EngineResult engineResult = EngineResult.fromNumber(engine_result_code);
-
-                    if(EngineResult.isPastSeq(engineResult)) {
-                        seqList.remove(sender);
-                        break;
-                    }
-
-                    if(!EngineResult.isRetry(engineResult)) {
-                        break;
-                    }
+        return await(this.submitWithCheckAsync(txBlob, hash)).getResponse();
+    }
 
-                    if(EngineResult.isSuccess(engineResult)) {
-                        successRes = res;
-                        long sequence = JSONObject.parseObject(res).getJSONObject("result").getJSONObject("tx_json").getLongValue("Sequence");
-                        this.setSequence(sender,++sequence);
-                    }
+    /**
+     * 向节点发送交易请求
+     * @param txBlob 交易信息
+     * @return 交易信息
+     * @throws Exception 抛出异常
+     */
+    public String submitNoCheck(String txBlob) throws Exception {
+        return await(this.submitAsync(txBlob)).getResponse();
+    }
 
-                    //延时1000毫秒
-                    Thread.sleep(500);
-                }catch (Exception e) {
-                    continue;
+    /**
+     * 异步向节点发送交易请求，提交成功后根据签名得到的hash进行交易确认。
+     * 交易设置了LastLedgerSequence时,该账本验证后仍未上链才释放其sequence;
+     * 未设置时确认超时只能说明暂未上链,sequence不会复用
+     * @param txBlob 交易信息
+     * @param hash hash
+     * @return 交易提交结果,交易被确认后完成
+     */
+    public CompletableFuture<SubmitResult> submitWithCheckAsync(String txBlob, String hash) {
+        Transaction txn = parseBlob(txBlob);
+        long lastLedgerSequence = txn == null || txn.lastLedgerSequence() == null ? 0 : txn.lastLedgerSequence().longValue();
+        return this.submitAsync(txBlob).thenCompose(result -> confirmationTracker.track(hash, lastLedgerSequence).handle((ledger, err) -> {
+            if (err != null) {
+                Throwable cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+                if (cause instanceof TransactionExpiredException) {
+                    //LastLedgerSequence已过,交易不会再上链
+                    this.release(txBlob);
+                } else {
+                    //交易仍可能上链
+                    this.invalidate(txBlob);
                 }
-                //延时1000毫秒
-                Thread.sleep(2000);
-            }while(times > 0);
+                throw err instanceof CompletionException ? (CompletionException) err : new CompletionException(err);
+            }
+            return result;
+        }));
+    }
+
+    /**
+     * 异步向节点发送交易请求，不占用调用者线程，失败时由定时器调度重试
+     * @param txBlob 交易信息
+     * @return 交易提交结果
+     */
+    public CompletableFuture<SubmitResult> submitAsync(String txBlob) {
+        CompletableFuture<SubmitResult> future = new CompletableFuture<>();
+        this.submit(txBlob, RequestTemplate.SUBMIT.render(txBlob), this.tryTimes, "", future);
+        return future;
+    }
+
+    private void submit(String txBlob, byte[] data, int times, String lastRes, CompletableFuture<SubmitResult> future) {
+        if (times <= 0) {
+            //此前的请求可能已被节点接受,sequence不能复用
+            this.invalidate(txBlob);
+            future.completeExceptionally(new Exception(lastRes));
+            return;
+        }
 
-            resTx = this.requestTx(hash);
-            if(!resTx.isEmpty()) {
-                return successRes;
+        String url;
+        try {
+            url = rpcNode.selectUrl();
+        } catch (Exception e) {
+            if (times == this.tryTimes) {
+                //交易还没有发出
+                this.release(txBlob);
             } else {
-                throw  new Exception(res);
+                this.invalidate(txBlob);
             }
-        } catch (Exception e) {
-            throw e;
+            future.completeExceptionally(e);
+            return;
         }
+
+        this.postAsync(url, data).whenComplete((res, err) -> {
+            try {
+                this.onSubmitted(txBlob, data, times, lastRes, res, err, future);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
     }
 
     /**
-     * 向节点发送交易请求，并且根据签名得到的hash进行交易确认
-     * @param txBlob 交易信息
-     * @return 交易信息
-     * @throws Exception 抛出异常
+     * 处理节点对submit请求的响应,按交易结果完成future或安排重试
      */
-    public String submitNoCheck(String txBlob) throws Exception {
+    private void onSubmitted(String txBlob, byte[] data, int times, String lastRes, String res, Throwable err,
+                             CompletableFuture<SubmitResult> future) {
+        if (err != null) {
+            //网络异常立即重试
+            this.submit(txBlob, data, times - 1, lastRes, future);
+            return;
+        }
+
+        SubmitResult result;
         try {
-            int times = this.tryTimes;
-            String resTx = "";
-            String res = "";
-            String successRes = "";
-            ObjectMapper mapper = new ObjectMapper();
-            ObjectNode data = mapper.createObjectNode();
-            ObjectNode object = mapper.createObjectNode();
-            object.put("tx_blob", txBlob);
-            ArrayList<ObjectNode> params = new ArrayList<>();
-            params.add(object);
-            ArrayNode array = mapper.valueToTree(params);
-
-            data.put("method", "submit");
-            data.set("params", array);
-
-            do{
-                times--;
-                try {
-                    String url = rpcNode.randomUrl();
-                    res = OkhttpUtil.post(url, data.toString());
-                    String sender = JSONObject.parseObject(res).getJSONObject("result").getJSONObject("tx_json").getString("Account");
-                    int engine_result_code = JSONObject.parseObject(res).getJSONObject("result").getIntValue("engine_result_code");
-                    EngineResult engineResult = EngineResult.fromNumber(engine_result_code);
-
-                    if(EngineResult.isPastSeq(engineResult)) {
-                        seqList.remove(sender);
-                        break;
-                    }
+            result = SubmitResult.fromResponse(res);
+        } catch (Exception e) {
+            this.submit(txBlob, data, times - 1, res, future);
+            return;
+        }
 
-                    if(!EngineResult.isRetry(engineResult)) {
-                        break;
-                    }
+        EngineResult engineResult = result.getEngineResult();
+        if (engineResult == null) {
+            //tooBusy、noCurrent、noNetwork、slowDown等没有交易结果,稍后重试
+            timer.schedule(() -> this.submit(txBlob, data, times - 1, res, future), RETRY_DELAY, TimeUnit.MILLISECONDS);
+            return;
+        }
 
-                    if(EngineResult.isSuccess(engineResult)) {
-                        successRes = res;
-                        long sequence = JSONObject.parseObject(res).getJSONObject("result").getJSONObject("tx_json").getLongValue("Sequence");
-                        this.setSequence(sender,++sequence);
-                        break;
-                    }
+        String sender = result.getAccount();
+        //terPRE_SEQ多为同一发送者的前序交易尚未到达该节点,按可重试处理
+        if (engineResult == EngineResult.tefPAST_SEQ) {
+            if (sender != null) {
+                //sequence已被链上的交易消耗
+                sequenceManager.applied(sender, result.getSequence());
+                sequenceManager.invalidate(sender);
+            }
+            future.completeExceptionally(new Exception(res));
+            return;
+        }
 
-                    //延时1000毫秒
-                    Thread.sleep(500);
-                }catch (Exception e) {
-                    continue;
+        if (!EngineResult.isRetry(engineResult)) {
+            if (sender != null) {
+                if (EngineResult.isClaimed(engineResult)) {
+                    sequenceManager.applied(sender, result.getSequence());
+                } else {
+                    sequenceManager.released(sender, result.getSequence());
                 }
-                //延时1000毫秒
-                Thread.sleep(2000);
-            }while(times > 0);
+            }
+            future.completeExceptionally(new Exception(res));
+            return;
+        }
+
+        if (EngineResult.isSuccess(engineResult)) {
+            if (sender != null) {
+                sequenceManager.applied(sender, result.getSequence());
+            }
+            future.complete(result);
+            return;
+        }
+
+        timer.schedule(() -> this.submit(txBlob, data, times - 1, res, future), RETRY_DELAY, TimeUnit.MILLISECONDS);
+    }
 
-            if(!successRes.isEmpty()) {
-                return successRes;
+    /**
+     * 向节点异步发送请求,并记录节点的延迟与失败次数
+     */
+    private CompletableFuture<String> postAsync(String url, byte[] data) {
+        NodeHealth node = rpcNode.node(url);
+        long start = node.start();
+        return transport.postAsync(url, data).whenComplete((res, err) -> {
+            if (err == null) {
+                node.success(start);
             } else {
-                throw  new Exception(res);
+                node.failure(start);
             }
+        });
+    }
+
+    /**
+     * 向按选择策略选中的节点异步发送请求
+     */
+    private CompletableFuture<String> requestAsync(byte[] data) {
+        try {
+            return this.postAsync(rpcNode.selectUrl(), data);
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
+
+    /**
+     * 交易确定没有上链时释放其sequence,并标记发送者需要重新同步
+     * @param txBlob 交易信息
+     */
+    private void release(String txBlob) {
+        Transaction txn = parseBlob(txBlob);
+        if (txn != null) {
+            String sender = txn.account().address();
+            sequenceManager.released(sender, txn.sequence().longValue());
+            sequenceManager.invalidate(sender);
+        }
+    }
+
+    /**
+     * 交易可能已被节点接受时,只标记发送者需要重新同步,不复用其sequence
+     * @param txBlob 交易信息
+     */
+    private void invalidate(String txBlob) {
+        Transaction txn = parseBlob(txBlob);
+        if (txn != null) {
+            sequenceManager.invalidate(txn.account().address());
+        }
+    }
+
+    /**
+     * @return 交易,无法解析(没有占用sequence)时返回null
+     */
+    private static Transaction parseBlob(String txBlob) {
+        try {
+            Transaction txn = (Transaction) STObject.fromHex(txBlob);
+            return txn.account() == null || txn.sequence() == null ? null : txn;
         } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 交易失败时标记发送者的sequence需要重新同步
+     */
+    private CompletableFuture<SubmitResult> invalidateOnFailure(SignedTransaction tx, CompletableFuture<SubmitResult> future) {
+        String sender = tx.txn.account().address();
+        return future.whenComplete((result, err) -> {
+            if (err != null) {
+                sequenceManager.invalidate(sender);
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> failed(Exception e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    /**
+     * 等待异步结果,并还原异步过程中抛出的异常
+     */
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
             throw e;
         }
     }
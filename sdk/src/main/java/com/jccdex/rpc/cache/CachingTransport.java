@@ -0,0 +1,127 @@
+package com.jccdex.rpc.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jccdex.rpc.http.Transport;
+import com.jccdex.rpc.res.LedgerResult;
+import com.jccdex.rpc.res.TxResult;
+
+/**
+ * 在传输层前缓存不可变的返回数据: 已验证的tx查询结果,以及按序号或hash查询的已验证账本。
+ * 以请求内容为key,与请求发往哪个节点无关;其他请求直接交给下层传输层。
+ */
+public class CachingTransport implements Transport {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final Transport transport;
+    private final ResponseCache cache;
+
+    /**
+     * @param transport 下层传输层
+     * @param cache 缓存
+     */
+    public CachingTransport(Transport transport, ResponseCache cache) {
+        this.transport = transport;
+        this.cache = cache;
+    }
+
+    @Override
+    public String post(String url, byte[] body) throws IOException {
+        Method method = method(body);
+        if (method == Method.OTHER) {
+            return transport.post(url, body);
+        }
+        String key = new String(body, StandardCharsets.UTF_8);
+        String res = cache.get(key);
+        if (res == null) {
+            res = transport.post(url, body);
+            this.store(method, key, res);
+        }
+        return res;
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(String url, byte[] body) {
+        Method method = method(body);
+        if (method == Method.OTHER) {
+            return transport.postAsync(url, body);
+        }
+        String key = new String(body, StandardCharsets.UTF_8);
+        String res = cache.get(key);
+        if (res != null) {
+            return CompletableFuture.completedFuture(res);
+        }
+        return transport.postAsync(url, body).whenComplete((value, err) -> {
+            if (err == null) {
+                this.store(method, key, value);
+            }
+        });
+    }
+
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    private void store(Method method, String key, String res) {
+        try {
+            boolean confirmed = method == Method.TX ? TxResult.fromResponse(res).isConfirmed() : LedgerResult.fromResponse(res).isConfirmed();
+            if (confirmed) {
+                cache.put(key, res);
+            }
+        } catch (IOException e) {
+            // 无法解析的返回数据不缓存
+        }
+    }
+
+    private enum Method {
+        TX, LEDGER, OTHER
+    }
+
+    /**
+     * tx请求都可缓存;ledger请求只有指定了数字序号或ledger_hash时才可缓存,
+     * "validated"、"current"等会随时间变化
+     */
+    private static Method method(byte[] body) {
+        try (JsonParser parser = FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Method.OTHER;
+            }
+            String method = null;
+            boolean fixedLedger = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("method".equals(name)) {
+                    method = parser.getValueAsString();
+                } else if ("params".equals(name) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String param = parser.getCurrentName();
+                            JsonToken value = parser.nextToken();
+                            if ("ledger_hash".equals(param) || ("ledger_index".equals(param) && value == JsonToken.VALUE_NUMBER_INT)) {
+                                fixedLedger = true;
+                            }
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if ("tx".equals(method)) {
+                return Method.TX;
+            }
+            if ("ledger".equals(method) && fixedLedger) {
+                return Method.LEDGER;
+            }
+        } catch (IOException e) {
+            // 交给下层传输层处理
+        }
+        return Method.OTHER;
+    }
+}
@@ -0,0 +1,345 @@
+package com.jccdex.rpc.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 不可变rpc返回数据的缓存,按条数和占用内存限制大小
+ *
+ * 淘汰策略:
+ * <ul>
+ *     <li>LRU: 超出限制时淘汰最久未访问的条目</li>
+ *     <li>TINY_LFU: W-TinyLFU的简化实现,新条目先进入占1%容量的窗口LRU,
+ *     离开窗口时与主区最久未访问的条目比较近期访问频率(count-min sketch),频率高者留下,
+ *     避免一次性扫描大量hash时冲掉常用条目</li>
+ * </ul>
+ * 设置了溢出目录时,被淘汰的条目写入磁盘,内存未命中时再从磁盘读取。
+ * 溢出目录中的文件不会自动清理,缓存的数据不可变,因此不存在过期问题。
+ */
+public class ResponseCache {
+    public enum Eviction {
+        LRU, TINY_LFU
+    }
+
+    /**
+     * 每个条目除字符串外的估计开销(字节)
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Eviction eviction;
+    private final File spillDir;
+
+    private final LinkedHashMap<String, String> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, String> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long windowBytes;
+    private long mainBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries 最大条目数
+     * @param maxBytes 最大占用内存(字节,按字符串长度估算)
+     */
+    public ResponseCache(int maxEntries, long maxBytes) {
+        this(maxEntries, maxBytes, Eviction.TINY_LFU, null);
+    }
+
+    /**
+     * @param maxEntries 最大条目数
+     * @param maxBytes 最大占用内存(字节,按字符串长度估算)
+     * @param eviction 淘汰策略
+     * @param spillDir 溢出目录,为null时淘汰的条目直接丢弃
+     */
+    public ResponseCache(int maxEntries, long maxBytes, Eviction eviction, File spillDir) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.eviction = eviction;
+        this.spillDir = spillDir;
+        this.sketch = eviction == Eviction.TINY_LFU ? new FrequencySketch(maxEntries) : null;
+        if (spillDir != null) {
+            spillDir.mkdirs();
+        }
+    }
+
+    /**
+     * @param key 请求内容
+     * @return 缓存的返回数据,未命中返回null
+     */
+    public String get(String key) {
+        String value;
+        synchronized (this) {
+            if (sketch != null) {
+                sketch.increment(key);
+            }
+            value = window.get(key);
+            if (value == null) {
+                value = main.get(key);
+            }
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+
+        value = this.readSpill(key);
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        diskHits.increment();
+        this.put(key, value);
+        return value;
+    }
+
+    /**
+     * @param key 请求内容
+     * @param value 不可变的返回数据
+     */
+    public void put(String key, String value) {
+        long weight = weight(key, value);
+        if (weight > maxBytes) {
+            return;
+        }
+        List<Map.Entry<String, String>> evicted = new ArrayList<>();
+        synchronized (this) {
+            if (window.containsKey(key) || main.containsKey(key)) {
+                return;
+            }
+            if (eviction == Eviction.LRU) {
+                main.put(key, value);
+                mainBytes += weight;
+                this.evictMain(0, 0, evicted);
+            } else {
+                window.put(key, value);
+                windowBytes += weight;
+                this.drainWindow(evicted);
+            }
+        }
+        evictions.add(evicted.size());
+        for (Map.Entry<String, String> entry : evicted) {
+            this.writeSpill(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * 清空内存中的条目,不删除溢出文件
+     */
+    public synchronized void clear() {
+        window.clear();
+        main.clear();
+        windowBytes = 0;
+        mainBytes = 0;
+    }
+
+    public synchronized int size() {
+        return window.size() + main.size();
+    }
+
+    /**
+     * @return 估计占用内存(字节)
+     */
+    public synchronized long weight() {
+        return windowBytes + mainBytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 从溢出目录读到的次数
+     */
+    public long getDiskHits() {
+        return diskHits.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return 命中率(含磁盘命中)
+     */
+    public double getHitRate() {
+        long hit = hits.sum() + diskHits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: size=%d weight=%d hits=%d diskHits=%d misses=%d evictions=%d hitRate=%.2f%%",
+                eviction, size(), weight(), getHits(), getDiskHits(), getMisses(), getEvictions(), getHitRate() * 100);
+    }
+
+    /**
+     * 窗口超出1%容量时,把最久未访问的条目交给主区准入
+     */
+    private void drainWindow(List<Map.Entry<String, String>> evicted) {
+        long windowMaxBytes = Math.max(1, maxBytes / 100);
+        int windowMaxEntries = Math.max(1, maxEntries / 100);
+        Iterator<Map.Entry<String, String>> it = window.entrySet().iterator();
+        while (it.hasNext() && (windowBytes > windowMaxBytes || window.size() > windowMaxEntries)) {
+            Map.Entry<String, String> candidate = it.next();
+            it.remove();
+            long weight = weight(candidate.getKey(), candidate.getValue());
+            windowBytes -= weight;
+
+            if (this.admit(candidate.getKey(), weight)) {
+                this.evictMain(1, weight, evicted);
+                main.put(candidate.getKey(), candidate.getValue());
+                mainBytes += weight;
+            } else {
+                evicted.add(candidate);
+            }
+        }
+    }
+
+    /**
+     * 主区有空间或候选者比将被淘汰的条目访问更频繁时准入
+     */
+    private boolean admit(String key, long weight) {
+        long bytesLimit = maxBytes - windowBytes;
+        int entriesLimit = maxEntries - window.size();
+        if (mainBytes + weight <= bytesLimit && main.size() + 1 <= entriesLimit) {
+            return true;
+        }
+        if (main.isEmpty()) {
+            return weight <= bytesLimit;
+        }
+        String victim = main.keySet().iterator().next();
+        return sketch.frequency(key) > sketch.frequency(victim);
+    }
+
+    /**
+     * 淘汰主区最久未访问的条目,直到能再放下entries条、共bytes字节
+     */
+    private void evictMain(int entries, long bytes, List<Map.Entry<String, String>> evicted) {
+        Iterator<Map.Entry<String, String>> it = main.entrySet().iterator();
+        while (it.hasNext() && (mainBytes + windowBytes + bytes > maxBytes || main.size() + window.size() + entries > maxEntries)) {
+            Map.Entry<String, String> victim = it.next();
+            it.remove();
+            mainBytes -= weight(victim.getKey(), victim.getValue());
+            evicted.add(victim);
+        }
+    }
+
+    private String readSpill(String key) {
+        if (spillDir == null) {
+            return null;
+        }
+        File file = new File(spillDir, fileName(key));
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeSpill(String key, String value) {
+        if (spillDir == null) {
+            return;
+        }
+        File file = new File(spillDir, fileName(key));
+        if (file.isFile()) {
+            return;
+        }
+        try {
+            File tmp = File.createTempFile("spill", ".tmp", spillDir);
+            Files.write(tmp.toPath(), value.getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // 溢出失败只影响之后能否命中
+        }
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long weight(String key, String value) {
+        return 2L * (key.length() + value.length()) + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * 4位计数的count-min sketch,计数总数达到样本数时全部减半,使频率反映近期访问
+     */
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x97cb3127, 0xb0e8a9b3, 0x2c5e7f1d, 0xe6546b64};
+
+        private final byte[] table;
+        private final int mask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int maxEntries) {
+            int size = Integer.highestOneBit(Math.max(16, Math.min(maxEntries, 1 << 26)) * 4 - 1) << 1;
+            this.table = new byte[size];
+            this.mask = size - 1;
+            this.sampleSize = 10 * Math.max(16, maxEntries);
+        }
+
+        int frequency(String key) {
+            int hash = key.hashCode();
+            int frequency = Integer.MAX_VALUE;
+            for (int seed : SEEDS) {
+                frequency = Math.min(frequency, table[index(hash, seed)]);
+            }
+            return frequency;
+        }
+
+        void increment(String key) {
+            int hash = key.hashCode();
+            for (int seed : SEEDS) {
+                int index = index(hash, seed);
+                if (table[index] < 15) {
+                    table[index]++;
+                }
+            }
+            if (++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) {
+                    table[i] >>= 1;
+                }
+                additions >>= 1;
+            }
+        }
+
+        private int index(int hash, int seed) {
+            int h = (hash ^ seed) * 0x9e3779b9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -1,17 +1,49 @@
 package com.jccdex.rpc.config;
 
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 public abstract class AServerNode {
+    /**
+     * 连续失败多少次后熔断
+     */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    /**
+     * 熔断多久后重新探测(毫秒)
+     */
+    public static final long DEFAULT_OPEN_MILLIS = 10000;
+
     /**
      * 服务器地址
      */
     private ArrayList<String> urls;
 
+    private final Map<String, NodeHealth> nodes = new LinkedHashMap<>();
+
+    private volatile NodeSelector selector;
+
     public AServerNode(ArrayList<String> _urls) {
-        this.urls = new ArrayList<String>();
+        this(_urls, NodeSelector.POWER_OF_TWO, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+    }
+
+    /**
+     * @param _urls 服务器地址
+     * @param selector 节点选择策略
+     * @param failureThreshold 连续失败多少次后熔断
+     * @param openMillis 熔断多久后重新探测(毫秒)
+     */
+    public AServerNode(ArrayList<String> _urls, NodeSelector selector, int failureThreshold, long openMillis) {
         this.urls = (ArrayList<String>) _urls.clone();
+        this.selector = selector;
+        for (String url : this.urls) {
+            nodes.put(url, new NodeHealth(url, failureThreshold, openMillis));
+        }
     }
 
     /**
@@ -21,14 +53,99 @@ public abstract class AServerNode {
      */
     public String randomUrl() throws Exception{
         try {
-            Random random = new Random();
-            int index = random.nextInt(this.urls.size());
+            int index = ThreadLocalRandom.current().nextInt(this.urls.size());
             return this.urls.get(index);
         } catch (Exception e) {
             throw e;
         }
     }
 
+    /**
+     * 按选择策略从未熔断的服务器中获取一个服务器地址,全部熔断时按列表顺序返回第一个没有探测在途的服务器。
+     * 熔断时间已过的服务器优先返回给一个调用者用于探测
+     * @return 服务器地址
+     * @throws Exception
+     */
+    public String selectUrl() throws Exception {
+        NodeHealth probe = this.probe();
+        if (probe != null) {
+            return probe.getUrl();
+        }
+        List<NodeHealth> available = this.available();
+        if (!available.isEmpty()) {
+            return selector.select(available).getUrl();
+        }
+        return this.candidateUrls().get(0);
+    }
+
+    /**
+     * 获取按选择策略排序的服务器地址,用于依次尝试: 由本次调用探测的服务器与策略选中的服务器在前,
+     * 其余未熔断的服务器按延迟排序,熔断的服务器在最后。其他调用者正在探测的服务器不在列表中
+     * @return 服务器地址列表
+     * @throws Exception 服务器列表为空,或全部服务器都在探测中
+     */
+    public List<String> candidateUrls() throws Exception {
+        NodeHealth probe = this.probe();
+        List<NodeHealth> available = this.available();
+        List<NodeHealth> open = new ArrayList<>(nodes.size());
+        for (NodeHealth node : nodes.values()) {
+            if (node != probe && !available.contains(node) && !node.isProbing()) {
+                open.add(node);
+            }
+        }
+
+        List<String> candidates = new ArrayList<>(nodes.size());
+        if (probe != null) {
+            candidates.add(probe.getUrl());
+        }
+        if (!available.isEmpty()) {
+            NodeHealth first = selector.select(available);
+            candidates.add(first.getUrl());
+            available.remove(first);
+            // 分数随请求变化,排序前先取快照
+            Map<NodeHealth, Double> scores = new IdentityHashMap<>();
+            for (NodeHealth node : available) {
+                scores.put(node, node.score());
+            }
+            Collections.sort(available, Comparator.comparing(scores::get));
+            for (NodeHealth node : available) {
+                candidates.add(node.getUrl());
+            }
+        }
+        for (NodeHealth node : open) {
+            candidates.add(node.getUrl());
+        }
+        if (candidates.isEmpty()) {
+            throw new Exception(nodes.isEmpty() ? "服务器列表为空" : "没有可用的服务器");
+        }
+        return candidates;
+    }
+
+    /**
+     * 获取服务器的健康状况,用于记录请求结果
+     * @param url 服务器地址
+     * @return 健康状况,不在列表中的地址返回null
+     */
+    public NodeHealth node(String url) {
+        return nodes.get(url);
+    }
+
+    /**
+     * 获取所有服务器的健康状况
+     * @return 健康状况列表
+     */
+    public List<NodeHealth> getNodes() {
+        return new ArrayList<>(nodes.values());
+    }
+
+    /**
+     * 设置节点选择策略
+     * @param selector 节点选择策略
+     */
+    public void setSelector(NodeSelector selector) {
+        this.selector = selector;
+    }
+
     /**
      * 获取rpc服务器列表
      * @return 获取rpc服务器列表
@@ -37,4 +154,26 @@ public abstract class AServerNode {
     public ArrayList<String> getUrls() throws Exception {
         return this.urls;
     }
+
+    /**
+     * @return 由调用者负责探测的熔断服务器,没有则返回null
+     */
+    private NodeHealth probe() {
+        for (NodeHealth node : nodes.values()) {
+            if (node.tryProbe()) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    private List<NodeHealth> available() {
+        List<NodeHealth> available = new ArrayList<>(nodes.size());
+        for (NodeHealth node : nodes.values()) {
+            if (node.isAvailable()) {
+                available.add(node);
+            }
+        }
+        return available;
+    }
 }
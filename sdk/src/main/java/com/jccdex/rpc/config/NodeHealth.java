@@ -0,0 +1,169 @@
+package com.jccdex.rpc.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个服务器节点的健康状况: 延迟(EWMA)、在途请求数以及熔断状态
+ *
+ * 连续失败达到阈值后熔断(OPEN),熔断期间不再被选中;熔断时间结束后由第一个选到它的请求
+ * 通过tryProbe()把它置为HALF_OPEN并负责探测,探测期间其他请求不选择该节点,
+ * 探测成功恢复(CLOSED),失败则重新熔断。
+ */
+public class NodeHealth {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * EWMA平滑系数,越大越偏向最近的请求
+     */
+    private static final double ALPHA = 0.3;
+
+    /**
+     * 失败的请求至少按该延迟计入EWMA,避免从未成功的节点因延迟为0而总被优先选中
+     */
+    private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String url;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    private volatile double latencyNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    NodeHealth(String url, int failureThreshold, long openMillis) {
+        this.url = url;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    }
+
+    /**
+     * 节点当前是否可以按选择策略接收请求(未熔断),不改变熔断状态
+     * @return 可用返回true
+     */
+    public synchronized boolean isAvailable() {
+        return state == State.CLOSED;
+    }
+
+    /**
+     * 熔断时间已过且没有探测在途时,把节点置为HALF_OPEN,由调用者发出探测请求。
+     * 同一时间只有一个调用者成功
+     * @return 调用者负责探测返回true
+     */
+    public synchronized boolean tryProbe() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return 探测请求在途(HALF_OPEN),此时不应再把节点交给其他请求
+     */
+    public synchronized boolean isProbing() {
+        return state == State.HALF_OPEN;
+    }
+
+    /**
+     * 请求开始
+     * @return 请求开始时间,用于计算延迟
+     */
+    public long start() {
+        outstanding.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * 请求成功
+     * @param start start()返回的开始时间
+     */
+    public void success(long start) {
+        long elapsed = System.nanoTime() - start;
+        outstanding.decrementAndGet();
+        successes.increment();
+        synchronized (this) {
+            record(elapsed);
+            consecutiveFailures = 0;
+            state = State.CLOSED;
+        }
+    }
+
+    /**
+     * 请求失败(网络错误或节点异常)
+     * @param start start()返回的开始时间
+     */
+    public void failure(long start) {
+        long elapsed = System.nanoTime() - start;
+        outstanding.decrementAndGet();
+        failures.increment();
+        synchronized (this) {
+            record(Math.max(elapsed, FAILURE_PENALTY_NANOS));
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                state = State.OPEN;
+                openedAt = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * 调用者持有锁
+     */
+    private void record(long elapsed) {
+        latencyNanos = latencyNanos == 0 ? elapsed : latencyNanos + ALPHA * (elapsed - latencyNanos);
+    }
+
+    /**
+     * 选择节点时使用的分数,越小越好: 延迟 * (在途请求数 + 1),未测得延迟的节点优先
+     * @return 分数
+     */
+    public double score() {
+        return latencyNanos * (outstanding.get() + 1);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return 平均延迟(毫秒, EWMA)
+     */
+    public double getLatencyMillis() {
+        return latencyNanos / 1e6;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public long getSuccesses() {
+        return successes.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: state=%s latency=%.1fms outstanding=%d success=%d failure=%d",
+                url, getState(), getLatencyMillis(), getOutstanding(), getSuccesses(), getFailures());
+    }
+}
@@ -0,0 +1,67 @@
+package com.jccdex.rpc.config;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 服务器节点选择策略
+ */
+public interface NodeSelector {
+
+    /**
+     * 从可用节点中选择一个
+     * @param nodes 可用节点,不为空
+     * @return 选中的节点
+     */
+    NodeHealth select(List<NodeHealth> nodes);
+
+    /**
+     * 随机选择
+     */
+    NodeSelector RANDOM = nodes -> nodes.get(ThreadLocalRandom.current().nextInt(nodes.size()));
+
+    /**
+     * 选择在途请求最少的节点
+     */
+    NodeSelector LEAST_OUTSTANDING = nodes -> {
+        NodeHealth best = nodes.get(0);
+        for (NodeHealth node : nodes) {
+            if (node.getOutstanding() < best.getOutstanding()) {
+                best = node;
+            }
+        }
+        return best;
+    };
+
+    /**
+     * 选择 延迟(EWMA) * 在途请求数 最小的节点
+     */
+    NodeSelector EWMA = nodes -> {
+        NodeHealth best = nodes.get(0);
+        for (NodeHealth node : nodes) {
+            if (node.score() < best.score()) {
+                best = node;
+            }
+        }
+        return best;
+    };
+
+    /**
+     * 随机取两个节点,选择其中 延迟(EWMA) * 在途请求数 较小的一个,避免所有请求集中到同一个节点
+     */
+    NodeSelector POWER_OF_TWO = nodes -> {
+        int size = nodes.size();
+        if (size == 1) {
+            return nodes.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        NodeHealth a = nodes.get(first);
+        NodeHealth b = nodes.get(second);
+        return a.score() <= b.score() ? a : b;
+    };
+}
@@ -12,4 +12,14 @@ public class RpcNode extends AServerNode {
     {
         super(rpcNodes);
     }
+
+    /**
+     *
+     * @param rpcNodes RPC服务器地址
+     * @param selector 节点选择策略
+     */
+    public RpcNode(ArrayList<String> rpcNodes, NodeSelector selector)
+    {
+        super(rpcNodes, selector, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+    }
 }
@@ -0,0 +1,266 @@
+package com.jccdex.rpc.confirm;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import com.jccdex.rpc.http.RequestTemplate;
+import com.jccdex.rpc.res.LedgerResult;
+
+/**
+ * 批量交易确认
+ *
+ * 待确认的交易hash集中登记,按账本逐个拉取已验证账本的交易列表(ledger, transactions:true),
+ * 一次匹配所有待确认交易,确认成本与账本数量相关而与交易数量无关。
+ * 超过LastLedgerSequence(未指定时为登记后expiryLedgers个账本)仍未出现,或登记后超过maxWaitMillis
+ * 仍未确认的交易以失败结束。连续多次拉取不到下一个账本(节点缺少该账本或请求失败)时,
+ * 改为查询当前已验证账本,若该账本已被验证则跳过它,其中的交易按时间超时。
+ * 只有交易自带的LastLedgerSequence已过、且期间没有跳过账本时,才以TransactionExpiredException结束,
+ * 表示交易确定不会上链;其他失败时交易仍可能上链。
+ * 没有待确认交易时停止拉取。
+ */
+public class ConfirmationTracker {
+    /**
+     * 默认的最长等待时间(毫秒)
+     */
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 120000;
+
+    /**
+     * 连续多少次拉取不到下一个账本后查询当前已验证账本
+     */
+    private static final int MAX_MISSES = 10;
+
+    private final Function<byte[], CompletableFuture<String>> rpc;
+    private final ScheduledExecutorService timer;
+    private final long pollMillis;
+    private final int expiryLedgers;
+    private final long maxWaitNanos;
+
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean polling = new AtomicBoolean();
+    /**
+     * 已处理的最后一个账本,只在拉取过程中访问,-1表示尚未确定起始账本
+     */
+    private volatile long lastLedger = -1;
+    /**
+     * 连续拉取不到下一个账本的次数,只在拉取过程中访问
+     */
+    private volatile int misses;
+
+    /**
+     * @param rpc 发送json-rpc请求并返回响应
+     * @param timer 拉取定时器
+     * @param pollMillis 下一个账本尚未验证时的等待时间(毫秒)
+     * @param expiryLedgers 未指定LastLedgerSequence的交易最多等待的账本数
+     */
+    public ConfirmationTracker(Function<byte[], CompletableFuture<String>> rpc, ScheduledExecutorService timer, long pollMillis, int expiryLedgers) {
+        this(rpc, timer, pollMillis, expiryLedgers, DEFAULT_MAX_WAIT_MILLIS);
+    }
+
+    /**
+     * @param rpc 发送json-rpc请求并返回响应
+     * @param timer 拉取定时器
+     * @param pollMillis 下一个账本尚未验证时的等待时间(毫秒)
+     * @param expiryLedgers 未指定LastLedgerSequence的交易最多等待的账本数
+     * @param maxWaitMillis 交易登记后最长等待的时间(毫秒),与账本无关
+     */
+    public ConfirmationTracker(Function<byte[], CompletableFuture<String>> rpc, ScheduledExecutorService timer, long pollMillis, int expiryLedgers, long maxWaitMillis) {
+        this.rpc = rpc;
+        this.timer = timer;
+        this.pollMillis = pollMillis;
+        this.expiryLedgers = expiryLedgers;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    }
+
+    /**
+     * 登记待确认的交易
+     * @param hash 交易hash
+     * @return 交易所在的已验证账本序号
+     */
+    public CompletableFuture<Long> track(String hash) {
+        return this.track(hash, 0);
+    }
+
+    /**
+     * 登记待确认的交易
+     * @param hash 交易hash
+     * @param lastLedgerSequence 交易的LastLedgerSequence,0表示未指定
+     * @return 交易所在的已验证账本序号
+     */
+    public CompletableFuture<Long> track(String hash, long lastLedgerSequence) {
+        Pending entry = pending.computeIfAbsent(hash.toUpperCase(), key -> new Pending(lastLedgerSequence, System.nanoTime() + maxWaitNanos));
+        this.start();
+        return entry.future;
+    }
+
+    /**
+     * @return 待确认的交易数
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    private void start() {
+        if (polling.compareAndSet(false, true)) {
+            timer.schedule(this::poll, pollMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void poll() {
+        this.expire();
+        if (pending.isEmpty()) {
+            lastLedger = -1;
+            misses = 0;
+            polling.set(false);
+            // 停止前有新的交易登记
+            if (!pending.isEmpty()) {
+                this.start();
+            }
+            return;
+        }
+
+        boolean anchor = lastLedger < 0 || misses >= MAX_MISSES;
+        CompletableFuture<String> request;
+        try {
+            request = rpc.apply(anchor ? RequestTemplate.LEDGER_VALIDATED.render() : RequestTemplate.LEDGER_TRANSACTIONS.render(lastLedger + 1));
+        } catch (Exception e) {
+            misses++;
+            this.later();
+            return;
+        }
+
+        request.whenComplete((res, err) -> {
+            boolean processed = false;
+            try {
+                if (err == null) {
+                    processed = anchor ? this.anchor(res) : this.process(res);
+                }
+            } catch (Exception e) {
+                // 返回内容无法解析,下次重试
+            }
+            if (processed) {
+                misses = 0;
+                this.poll();
+            } else {
+                misses++;
+                this.later();
+            }
+        });
+    }
+
+    private void later() {
+        timer.schedule(this::poll, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 以当前已验证账本确定从哪个账本继续拉取
+     * @return 确定了下一个要拉取的账本返回true,下一个账本尚未验证返回false
+     */
+    private boolean anchor(String res) throws IOException {
+        LedgerResult ledger = LedgerResult.fromResponse(res);
+        if (!ledger.isConfirmed()) {
+            return false;
+        }
+
+        long index = ledger.getLedgerIndex();
+        if (lastLedger < 0) {
+            // 从当前已验证账本开始,登记前刚提交的交易也可能已在其中
+            lastLedger = index - 1;
+            return true;
+        }
+        if (index > lastLedger) {
+            // 下一个账本已被验证但一直拉取不到,跳过它,待确认的交易可能在其中
+            for (Pending entry : pending.values()) {
+                entry.skipped = true;
+            }
+            lastLedger++;
+            return true;
+        }
+        // 下一个账本尚未验证,只是需要继续等待
+        misses = 0;
+        return false;
+    }
+
+    /**
+     * @return 处理了一个已验证账本返回true,账本尚不存在或未验证返回false
+     */
+    private boolean process(String res) throws IOException {
+        LedgerResult ledger = LedgerResult.fromResponse(res);
+        if (!ledger.isConfirmed()) {
+            return false;
+        }
+
+        long index = ledger.getLedgerIndex();
+
+        for (String hash : ledger.getTransactions()) {
+            Pending entry = pending.remove(hash.toUpperCase());
+            if (entry != null) {
+                entry.future.complete(index);
+            }
+        }
+
+        Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Pending> next = it.next();
+            Pending entry = next.getValue();
+            if (entry.lastLedgerSequence == 0) {
+                entry.lastLedgerSequence = index + expiryLedgers;
+            } else if (entry.lastLedgerSequence <= index) {
+                it.remove();
+                if (entry.limited && !entry.skipped) {
+                    entry.future.completeExceptionally(new TransactionExpiredException(next.getKey(), entry.lastLedgerSequence));
+                } else {
+                    entry.future.completeExceptionally(new Exception("交易在账本" + entry.lastLedgerSequence + "之前未被确认: " + next.getKey()));
+                }
+            }
+        }
+
+        lastLedger = index;
+        return true;
+    }
+
+    /**
+     * 超过最长等待时间的交易以失败结束
+     */
+    private void expire() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Pending> next = it.next();
+            Pending entry = next.getValue();
+            if (now - entry.deadline >= 0) {
+                it.remove();
+                entry.future.completeExceptionally(new Exception("交易在" + TimeUnit.NANOSECONDS.toSeconds(maxWaitNanos) + "秒内未被确认: " + next.getKey()));
+            }
+        }
+    }
+
+    private static class Pending {
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+        volatile long lastLedgerSequence;
+        /**
+         * lastLedgerSequence是交易自带的,过了该账本交易不会再上链
+         */
+        final boolean limited;
+        /**
+         * 等待期间有账本被跳过
+         */
+        volatile boolean skipped;
+        /**
+         * 最长等待到的时间(System.nanoTime)
+         */
+        final long deadline;
+
+        Pending(long lastLedgerSequence, long deadline) {
+            this.lastLedgerSequence = lastLedgerSequence;
+            this.limited = lastLedgerSequence != 0;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.jccdex.rpc.confirm;
+
+/**
+ * 交易的LastLedgerSequence对应的账本已被验证,且此前的账本中都没有该交易,交易不会再上链,
+ * 其sequence可以复用
+ */
+public class TransactionExpiredException extends Exception {
+    private final long lastLedgerSequence;
+
+    public TransactionExpiredException(String hash, long lastLedgerSequence) {
+        super("交易在账本" + lastLedgerSequence + "之前未被确认: " + hash);
+        this.lastLedgerSequence = lastLedgerSequence;
+    }
+
+    public long getLastLedgerSequence() {
+        return lastLedgerSequence;
+    }
+}
@@ -79,6 +79,9 @@ public class STReader {
     public STObject vlStObject() {
         return STObject.translate.fromParser(parser, parser.readVLLength());
     }
+    public STObject lazyVlStObject() {
+        return STObject.lazy(parser.read(parser.readVLLength()));
+    }
 
     public HashPrefix hashPrefix() {
         byte[] read = parser.read(4);
@@ -102,9 +105,17 @@ public class STReader {
     }
 
     public TransactionResult readTransactionResult(UInt32 ledgerIndex) {
+        return readTransactionResult(ledgerIndex, false);
+    }
+
+    /**
+     * @param lazy decode the tx and meta fields on first read (see STObject.lazy),
+     *             in which case a malformed field only throws when it is read
+     */
+    public TransactionResult readTransactionResult(UInt32 ledgerIndex, boolean lazy) {
         Hash256 hash = hash256();
-        Transaction txn = (Transaction) vlStObject();
-        TransactionMeta meta = (TransactionMeta) vlStObject();
+        Transaction txn = (Transaction) (lazy ? lazyVlStObject() : vlStObject());
+        TransactionMeta meta = (TransactionMeta) (lazy ? lazyVlStObject() : vlStObject());
         return new TransactionResult(ledgerIndex.longValue(), hash, txn, meta);
     }
 
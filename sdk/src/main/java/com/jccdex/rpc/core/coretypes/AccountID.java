@@ -1,15 +1,18 @@
 package com.jccdex.rpc.core.coretypes;
 
-import static com.jccdex.rpc.config.Config.getB58IdentiferCodecs;
-
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.jccdex.core.client.Wallet;
 import com.jccdex.core.crypto.ecdsa.IKeyPair;
 import com.jccdex.core.crypto.ecdsa.Seed;
+import com.jccdex.core.encoding.B58IdentiferCodecs;
+import com.jccdex.core.encoding.base58.B58;
 import com.jccdex.core.encoding.common.B16;
 import com.jccdex.core.serialized.BytesSink;
+import com.jccdex.rpc.config.Config;
 import com.jccdex.rpc.core.coretypes.hash.Hash160;
 import com.jccdex.rpc.core.coretypes.hash.Hash256;
 import com.jccdex.rpc.core.coretypes.hash.Index;
@@ -35,16 +38,29 @@ public class AccountID extends Hash160 {
 	// this is currently only used for tests, and not recommended to be used
 	// elsewhere.
 	public static Map<String, AccountID> aliases = new HashMap<String, AccountID>();
+	// Issuers, gateways and the like repeat all through a ledger, so the
+	// from* constructors share instances, keyed by their bytes.
+	private static final Interner<AccountID> interned = new Interner<AccountID>(4096);
+	// fromAddress results, so repeated lookups skip the base58 decode. A slot is
+	// picked by the address and only reused under the same alphabet, as the
+	// same string decodes to other bytes under another one.
+	private static final AtomicReferenceArray<AccountID> byAddress = new AtomicReferenceArray<AccountID>(4096);
+	private static final Map<String, B58IdentiferCodecs> codecs = new ConcurrentHashMap<String, B58IdentiferCodecs>();
 	//
 	public static AccountID NEUTRAL = fromInteger(1), XRP_ISSUER1 = fromInteger(0), SWT_ISSUER = fromInteger(0);//SWT
-	final public String address;
+	// Config.Alphabet at construction; the address is always encoded with it,
+	// and shared instances are only handed out again under the same alphabet.
+	private final String alphabet;
+	// Encoded on first use, most parsed accounts are never printed
+	private volatile String address;
 	
 	public AccountID(byte[] bytes) {
-		this(bytes, encodeAddress(bytes));
+		this(bytes, null);
 	}
 	
 	public AccountID(byte[] bytes, String address) {
 		super(bytes);
+		this.alphabet = Config.Alphabet;
 		this.address = address;
 	}
 	
@@ -65,13 +81,23 @@ public class AccountID extends Hash160 {
 	}
 	
 	static public AccountID fromAddress(String address) {
-		byte[] bytes = getB58IdentiferCodecs().decodeAddress(address);
-		return new AccountID(bytes, address);
+		String alphabet = Config.Alphabet;
+		int slot = (address.hashCode() ^ address.hashCode() >>> 16) & byAddress.length() - 1;
+		AccountID parsed = byAddress.get(slot);
+		if (parsed != null && parsed.alphabet.equals(alphabet) && address.equals(parsed.address)) {
+			return parsed;
+		}
+		byte[] bytes = codecs(alphabet).decodeAddress(address);
+		parsed = cached(bytes);
+		if (parsed == null || !address.equals(parsed.address())) {
+			parsed = interned.intern(new AccountID(bytes, address));
+		}
+		byAddress.lazySet(slot, parsed);
+		return parsed;
 	}
 	
 	public static AccountID fromKeyPair(IKeyPair kp) {
-		byte[] bytes = kp.pub160Hash();
-		return new AccountID(bytes, encodeAddress(bytes));
+		return fromBytes(kp.pub160Hash());
 	}
 	
 	public static AccountID fromPassPhrase(String phrase) {
@@ -92,21 +118,43 @@ public class AccountID extends Hash160 {
 	}
 	
 	public static AccountID fromBytes(byte[] bytes) {
-		return new AccountID(bytes, encodeAddress(bytes));
+		if (bytes.length != 20) {
+			return new AccountID(bytes);
+		}
+		AccountID cached = cached(bytes);
+		if (cached != null) {
+			return cached;
+		}
+		return interned.intern(new AccountID(bytes));
+	}
+	
+	private static AccountID cached(byte[] bytes) {
+		AccountID cached = interned.get(bytes);
+		if (cached != null && cached.alphabet.equals(Config.Alphabet)) {
+			return cached;
+		}
+		return null;
 	}
 	
 	static public AccountID fromAddressBytes(byte[] bytes) {
 		return fromBytes(bytes);
 	}
 	
-	@Override
-	public int hashCode() {
-		return address.hashCode();
+	/**
+	 * The address, encoded with the alphabet that was configured when this was created
+	 */
+	public String address() {
+		String encoded = address;
+		if (encoded == null) {
+			encoded = codecs(alphabet).encodeAddress(bytes());
+			address = encoded;
+		}
+		return encoded;
 	}
 	
 	@Override
 	public String toString() {
-		return address;
+		return address();
 	}
 	
 	public Issue issue(String code) {
@@ -178,8 +226,14 @@ public class AccountID extends Hash160 {
 	static public Translator translate = new Translator();
 	
 	// helpers
-	private static String encodeAddress(byte[] a) {
-		return getB58IdentiferCodecs().encodeAddress(a);
+	// Not Config.getB58IdentiferCodecs(), which follows setAlphabet
+	private static B58IdentiferCodecs codecs(String alphabet) {
+		B58IdentiferCodecs codec = codecs.get(alphabet);
+		if (codec == null) {
+			codec = new B58IdentiferCodecs(new B58(alphabet, false));
+			codecs.put(alphabet, codec);
+		}
+		return codec;
 	}
 	
 	public static AccountID addAliasFromPassPhrase(String n, String n2) {
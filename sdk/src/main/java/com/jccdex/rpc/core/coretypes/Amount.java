@@ -53,9 +53,34 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	public static final UInt64 BINARY_FLAG_IS_IOU = new UInt64("8000000000000000", 16);
 	public static final UInt64 BINARY_FLAG_IS_NON_NEGATIVE_NATIVE = new UInt64("4000000000000000", 16);
 	public static final Amount ONE_XRP = fromString("1.0");
+	// Largest native amount in drops, MAX_NATIVE_VALUE
+	private static final long MAX_NATIVE_DROPS = 100000000000000000L;
+	// TAKER_PAYS_FOR_THAT_DAMN_OFFER in drops
+	private static final long TAKER_PAYS_FOR_THAT_DAMN_OFFER_DROPS = 1000000000000000100L;
+	// Bounds of a normalised IOU mantissa, [10^15, 10^16)
+	private static final long MIN_IOU_MANTISSA = 1000000000000000L;
+	private static final long MAX_IOU_MANTISSA = 10000000000000000L;
+	private static final long[] POW10 = new long[19];
+	static {
+		POW10[0] = 1;
+		for (int i = 1; i < POW10.length; i++) {
+			POW10[i] = POW10[i - 1] * 10;
+		}
+	}
 	// The quantity of XRP or Issue(currency/issuer pairing)
 	// When native, the value unit is XRP, not drops.
+	// Computed lazily from the fixed point form below, unless the
+	// amount doesn't fit it (see `fixed`).
 	private BigDecimal value;
+	// The fixed point form, as per the binary format: drops for native
+	// amounts, or a signed mantissa normalised to 16 digits (0 for zero)
+	// scaled by `exponent` for IOUs. Arithmetic, comparison and
+	// serialization work on this form and round exactly as the BigDecimal
+	// versions would.
+	private long signedMantissa;
+	// Only unbounded amounts, e.g. an IOU with more than 16 digits, can't
+	// be held in the fixed point form and fall back to BigDecimal throughout.
+	private boolean fixed;
 	private Currency currency;
 	// If the currency is XRP
 	private boolean isNative;
@@ -70,12 +95,7 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	// amounts. In practice the issuer is never used when an
 	// amount is native.
 	private AccountID issuer;
-	// While internally the value is stored as a BigDecimal
-	// the mantissa and exponent, as per the binary
-	// format can be computed.
-	// The mantissa is computed lazily, then cached
-	private UInt64 mantissa = null;
-	// The exponent is always calculated.
+	// -6 for native amounts (compared to drops)
 	private int exponent;
 	
 	// -----------------新增------------------
@@ -137,6 +157,49 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 		this.setAndCheckValue(value);
 	}
 	
+	/**
+	 * From the fixed point form, which must already be normalised and in bounds
+	 */
+	private Amount(long signedMantissa, int exponent, Currency currency, AccountID issuer, boolean isNative) {
+		this.signedMantissa = signedMantissa;
+		this.exponent = exponent;
+		this.currency = currency;
+		this.issuer = issuer;
+		this.isNative = isNative;
+		this.fixed = true;
+	}
+	
+	/**
+	 * @param drops signed
+	 */
+	public static Amount fromDrops(long drops) {
+		long abs = Math.abs(drops);
+		if (abs > MAX_NATIVE_DROPS && abs != TAKER_PAYS_FOR_THAT_DAMN_OFFER_DROPS) {
+			// throws the usual bounds error
+			return new Amount(BigDecimal.valueOf(drops, MAXIMUM_NATIVE_SCALE));
+		}
+		return new Amount(drops, -6, Currency.SWT, AccountID.SWT_ISSUER, true);
+	}
+	
+	/**
+	 * An IOU worth mantissa * 10^exponent
+	 */
+	public static Amount fromIOU(long mantissa, int exponent, Currency currency, AccountID issuer) {
+		if (mantissa == 0) {
+			return new Amount(0, -15, currency, issuer, false);
+		}
+		long abs = Math.abs(mantissa);
+		if (abs >= MAX_IOU_MANTISSA) {
+			// more than 16 digits, throws the usual precision error
+			return new Amount(BigDecimal.valueOf(mantissa, -exponent), currency, issuer, false);
+		}
+		while (abs < MIN_IOU_MANTISSA) {
+			abs *= 10;
+			exponent--;
+		}
+		return new Amount(mantissa < 0 ? -abs : abs, exponent, currency, issuer, false);
+	}
+	
 	private void setAndCheckValue(BigDecimal value) {
 		this.value = value.stripTrailingZeros();
 		initialize();
@@ -150,13 +213,23 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 			}
 			// Offset is unused for native amounts
 			exponent = -6; // compared to drops.
+			if (value.scale() <= MAXIMUM_NATIVE_SCALE && value.precision() - value.scale() <= 12) {
+				signedMantissa = value.movePointRight(MAXIMUM_NATIVE_SCALE).longValueExact();
+				fixed = true;
+			}
 		} else {
 			issuer = AccountID.NEUTRAL;
 			exponent = calculateExponent();
-			if (value.precision() > MAXIMUM_IOU_PRECISION && !unbounded) {
-				String err = "value precision of " + value.precision() + " is greater than maximum " + "iou precision of "
-				        + MAXIMUM_IOU_PRECISION;
-				throw new PrecisionError(err, this);
+			int precision = value.precision();
+			if (precision > MAXIMUM_IOU_PRECISION) {
+				if (!unbounded) {
+					String err = "value precision of " + precision + " is greater than maximum " + "iou precision of "
+					        + MAXIMUM_IOU_PRECISION;
+					throw new PrecisionError(err, this);
+				}
+			} else {
+				signedMantissa = value.unscaledValue().longValue() * POW10[MAXIMUM_IOU_PRECISION - precision];
+				fixed = true;
 			}
 		}
 	}
@@ -178,6 +251,9 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	
 	/* Getters and Setters */
 	public BigDecimal value() {
+		if (value == null) {
+			value = BigDecimal.valueOf(signedMantissa, -exponent).stripTrailingZeros();
+		}
 		return value;
 	}
 	
@@ -195,10 +271,10 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	}
 	
 	public UInt64 mantissa() {
-		if (mantissa == null) {
-			mantissa = calculateMantissa();
+		if (fixed) {
+			return new UInt64(Math.abs(signedMantissa));
 		}
-		return mantissa;
+		return calculateMantissa();
 	}
 	
 	public int exponent() {
@@ -237,15 +313,21 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	}
 	
 	public BigInteger bigIntegerIOUMantissa() {
+		if (fixed) {
+			return BigInteger.valueOf(Math.abs(signedMantissa));
+		}
 		return exactBigIntegerScaledByPowerOfTen(-exponent).abs();
 	}
 	
 	private BigInteger bigIntegerDrops() {
+		if (fixed) {
+			return BigInteger.valueOf(signedMantissa);
+		}
 		return exactBigIntegerScaledByPowerOfTen(MAXIMUM_NATIVE_SCALE);
 	}
 	
 	private BigInteger exactBigIntegerScaledByPowerOfTen(int n) {
-		return value.scaleByPowerOfTen(n).toBigIntegerExact();
+		return value().scaleByPowerOfTen(n).toBigIntegerExact();
 	}
 	
 	/* Equality testing */
@@ -271,22 +353,40 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	
 	@Override
 	public int compareTo(Amount amount) {
-		return value.compareTo(amount.value);
+		if (fixed && amount.fixed && isNative == amount.isNative) {
+			if (isNative) {
+				return Long.compare(signedMantissa, amount.signedMantissa);
+			}
+			int signum = Long.signum(signedMantissa);
+			int other = Long.signum(amount.signedMantissa);
+			if (signum != other || signum == 0) {
+				return Integer.compare(signum, other);
+			}
+			// normalised mantissas of the same sign: the exponent decides first
+			int cmp = exponent != amount.exponent ? Integer.compare(exponent, amount.exponent)
+			        : Long.compare(Math.abs(signedMantissa), Math.abs(amount.signedMantissa));
+			return signum * cmp;
+		}
+		return value().compareTo(amount.value());
 	}
 	
 	public boolean isZero() {
-		return value.signum() == 0;
+		return signum() == 0;
 	}
 	
 	public boolean isNegative() {
-		return value.signum() == -1;
+		return signum() == -1;
 	}
 	
 	// Maybe you want !isNegative()
 	// Any amount that !isNegative() isn't necessarily positive
 	// Is a zero amount strictly positive? no
 	public boolean isPositive() {
-		return value.signum() == 1;
+		return signum() == 1;
+	}
+	
+	private int signum() {
+		return fixed ? Long.signum(signedMantissa) : value.signum();
 	}
 	
 	/**
@@ -309,11 +409,14 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	 * 
 	 */
 	public Amount add(BigDecimal augend) {
-		return newValue(value.add(augend), true);
+		return newValue(value().add(augend), true);
 	}
 	
 	public Amount add(Amount augend) {
-		return add(augend.value);
+		if (fixed && augend.fixed && isNative == augend.isNative) {
+			return addFixed(augend.signedMantissa, augend.exponent);
+		}
+		return add(augend.value());
 	}
 	
 	public Amount add(Number augend) {
@@ -321,11 +424,14 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	}
 	
 	public Amount subtract(BigDecimal subtrahend) {
-		return newValue(value.subtract(subtrahend), true);
+		return newValue(value().subtract(subtrahend), true);
 	}
 	
 	public Amount subtract(Amount subtrahend) {
-		return subtract(subtrahend.value);
+		if (fixed && subtrahend.fixed && isNative == subtrahend.isNative) {
+			return addFixed(-subtrahend.signedMantissa, subtrahend.exponent);
+		}
+		return subtract(subtrahend.value());
 	}
 	
 	public Amount subtract(Number subtrahend) {
@@ -333,11 +439,17 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	}
 	
 	public Amount multiply(BigDecimal divisor) {
-		return newValue(value.multiply(divisor, MATH_CONTEXT), true);
+		return newValue(value().multiply(divisor, MATH_CONTEXT), true);
 	}
 	
 	public Amount multiply(Amount multiplicand) {
-		return multiply(multiplicand.value);
+		if (fixedOperands(multiplicand)) {
+			Amount product = multiplyFixed(multiplicand);
+			if (product != null) {
+				return product;
+			}
+		}
+		return multiply(multiplicand.value());
 	}
 	
 	public Amount multiply(Number multiplicand) {
@@ -345,11 +457,17 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	}
 	
 	public Amount divide(BigDecimal divisor) {
-		return newValue(value.divide(divisor, MATH_CONTEXT), true);
+		return newValue(value().divide(divisor, MATH_CONTEXT), true);
 	}
 	
 	public Amount divide(Amount divisor) {
-		return divide(divisor.value);
+		if (fixedOperands(divisor) && divisor.signedMantissa != 0) {
+			Amount quotient = divideFixed(divisor);
+			if (quotient != null) {
+				return quotient;
+			}
+		}
+		return divide(divisor.value());
 	}
 	
 	public Amount divide(Number divisor) {
@@ -357,10 +475,16 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	}
 	
 	public Amount negate() {
+		if (fixed) {
+			return new Amount(-signedMantissa, exponent, currency, issuer, isNative);
+		}
 		return newValue(value.negate());
 	}
 	
 	public Amount abs() {
+		if (fixed) {
+			return new Amount(Math.abs(signedMantissa), exponent, currency, issuer, isNative);
+		}
 		return newValue(value.abs());
 	}
 	
@@ -372,9 +496,228 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 		return (compareTo(val) >= 0 ? this : val);
 	}
 	
+	/* Fixed point arithmetic
+	 *
+	 * Each method gives exactly what its BigDecimal counterpart gives: the
+	 * exact sum, or the product/quotient rounded to 16 digits (MATH_CONTEXT),
+	 * then roundValue() for the receiver's kind of amount. Rounding is
+	 * HALF_UP on the magnitude throughout.
+	 */
+	
+	/**
+	 * Adds mantissa * 10^exponent, of the same kind of amount as this one
+	 */
+	private Amount addFixed(long mantissa, int exponent) {
+		if (isNative) {
+			return nativeResult(signedMantissa + mantissa);
+		}
+		long m1 = signedMantissa;
+		int e1 = this.exponent;
+		long m2 = mantissa;
+		int e2 = exponent;
+		if (m2 == 0) {
+			return iouResult(m1, e1, 0);
+		}
+		if (m1 == 0) {
+			return iouResult(m2, e2, 0);
+		}
+		if (e1 < e2) {
+			long m = m1;
+			m1 = m2;
+			m2 = m;
+			int e = e1;
+			e1 = e2;
+			e2 = e;
+		}
+		int shift = e1 - e2;
+		if (shift <= 2) {
+			// exact: at most 18 digits
+			return iouResult(m1 * POW10[shift] + m2, e2, 0);
+		}
+		// keep two guard digits of the smaller operand and remember the
+		// sign of whatever was truncated below them
+		shift -= 2;
+		long kept = shift < POW10.length ? m2 / POW10[shift] : 0;
+		long dropped = shift < POW10.length ? m2 % POW10[shift] : m2;
+		return iouResult(m1 * 100 + kept, e1 - 2, Long.signum(dropped));
+	}
+	
+	private boolean fixedOperands(Amount other) {
+		// keeps both magnitudes under 10^17 so the long arithmetic can't overflow
+		return fixed && other.fixed && Math.abs(signedMantissa) <= MAX_NATIVE_DROPS
+		        && Math.abs(other.signedMantissa) <= MAX_NATIVE_DROPS;
+	}
+	
+	/**
+	 * @return null if the result doesn't fit the fixed point form
+	 */
+	private Amount multiplyFixed(Amount multiplicand) {
+		long a = Math.abs(signedMantissa);
+		long b = Math.abs(multiplicand.signedMantissa);
+		int sign = Long.signum(signedMantissa) * Long.signum(multiplicand.signedMantissa);
+		if (sign == 0) {
+			return isNative ? nativeResult(0) : iouResult(0, 0, 0);
+		}
+		// the exact product as hi * 10^18 + lo
+		long e9 = POW10[9];
+		long a1 = a / e9;
+		long a0 = a % e9;
+		long b1 = b / e9;
+		long b0 = b % e9;
+		long mid = a1 * b0 + a0 * b1;
+		long lo = (mid % e9) * e9 + a0 * b0;
+		long hi = a1 * b1 + mid / e9 + lo / POW10[18];
+		lo %= POW10[18];
+		int exponent = this.exponent + multiplicand.exponent;
+		
+		// round to 16 digits
+		long q;
+		boolean up;
+		int dropped;
+		if (hi == 0) {
+			dropped = Math.max(0, digits(lo) - MAXIMUM_IOU_PRECISION);
+			q = lo / POW10[dropped];
+			up = dropped > 0 && lo % POW10[dropped] >= POW10[dropped] / 2;
+		} else {
+			// hi is under 10^16, so this drops 2 to 18 digits
+			dropped = digits(hi) + 18 - MAXIMUM_IOU_PRECISION;
+			q = hi * POW10[18 - dropped] + lo / POW10[dropped];
+			up = lo % POW10[dropped] >= POW10[dropped] / 2;
+		}
+		exponent += dropped;
+		if (up && ++q == MAX_IOU_MANTISSA) {
+			q = MIN_IOU_MANTISSA;
+			exponent++;
+		}
+		return roundedResult(sign * q, exponent);
+	}
+	
+	/**
+	 * @return null if the result doesn't fit the fixed point form
+	 */
+	private Amount divideFixed(Amount divisor) {
+		long a = Math.abs(signedMantissa);
+		long b = Math.abs(divisor.signedMantissa);
+		int sign = Long.signum(signedMantissa) * Long.signum(divisor.signedMantissa);
+		if (sign == 0) {
+			return isNative ? nativeResult(0) : iouResult(0, 0, 0);
+		}
+		int exponent = this.exponent - divisor.exponent;
+		long q = a / b;
+		long r = a % b;
+		if (q >= MAX_IOU_MANTISSA) {
+			// more than 16 digits already, a remainder can only push a tie further up
+			int dropped = digits(q) - MAXIMUM_IOU_PRECISION;
+			long p = POW10[dropped];
+			boolean up = q % p >= p / 2;
+			q /= p;
+			exponent += dropped;
+			if (up && ++q == MAX_IOU_MANTISSA) {
+				q = MIN_IOU_MANTISSA;
+				exponent++;
+			}
+			return roundedResult(sign * q, exponent);
+		}
+		// long division, one digit at a time until there are 16
+		while (q < MIN_IOU_MANTISSA) {
+			r *= 10;
+			q = q * 10 + r / b;
+			r %= b;
+			exponent--;
+		}
+		if (r >= b - r && ++q == MAX_IOU_MANTISSA) {
+			q = MIN_IOU_MANTISSA;
+			exponent++;
+		}
+		return roundedResult(sign * q, exponent);
+	}
+	
+	/**
+	 * A product or quotient already rounded to 16 digits, then rounded as
+	 * roundValue() would for this kind of amount
+	 *
+	 * @return null if a native result doesn't fit a long
+	 */
+	private Amount roundedResult(long mantissa, int exponent) {
+		if (!isNative) {
+			return iouResult(mantissa, exponent, 0);
+		}
+		int scale = exponent + MAXIMUM_NATIVE_SCALE;
+		long abs = Math.abs(mantissa);
+		long drops;
+		if (scale >= 0) {
+			if (scale >= POW10.length || abs > Long.MAX_VALUE / POW10[scale]) {
+				return null;
+			}
+			drops = abs * POW10[scale];
+		} else if (-scale >= POW10.length) {
+			drops = 0;
+		} else {
+			long p = POW10[-scale];
+			drops = abs / p;
+			if (abs % p >= p / 2) {
+				drops++;
+			}
+		}
+		return nativeResult(mantissa < 0 ? -drops : drops);
+	}
+	
+	private Amount nativeResult(long drops) {
+		long abs = Math.abs(drops);
+		if (abs > MAX_NATIVE_DROPS && abs != TAKER_PAYS_FOR_THAT_DAMN_OFFER_DROPS) {
+			// throws the usual bounds error
+			return newValue(BigDecimal.valueOf(drops, MAXIMUM_NATIVE_SCALE));
+		}
+		return new Amount(drops, -6, currency, issuer, true);
+	}
+	
+	/**
+	 * Rounds mantissa * 10^exponent to 16 digits and normalises it.
+	 *
+	 * @param dropped the sign of any value truncated below the mantissa, so
+	 *                that ties are only rounded up when they really are ties
+	 */
+	private Amount iouResult(long mantissa, int exponent, int dropped) {
+		if (mantissa == 0) {
+			return new Amount(0, -15, currency, issuer, false);
+		}
+		long abs = Math.abs(mantissa);
+		int n = digits(abs);
+		if (n > MAXIMUM_IOU_PRECISION) {
+			int k = n - MAXIMUM_IOU_PRECISION;
+			long p = POW10[k];
+			long r = abs % p;
+			long half = p / 2;
+			abs /= p;
+			exponent += k;
+			// positive when the truncated part makes the magnitude bigger
+			int below = mantissa < 0 ? -dropped : dropped;
+			if (r > half || r == half && below >= 0) {
+				abs++;
+			}
+			if (abs == MAX_IOU_MANTISSA) {
+				abs = MIN_IOU_MANTISSA;
+				exponent++;
+			}
+		}
+		while (abs < MIN_IOU_MANTISSA) {
+			abs *= 10;
+			exponent--;
+		}
+		return new Amount(mantissa < 0 ? -abs : abs, exponent, currency, issuer, false);
+	}
+	
+	private static int digits(long abs) {
+		int n = 1;
+		while (n < POW10.length && abs >= POW10[n]) {
+			n++;
+		}
+		return n;
+	}
+	
 	/* Offer related helpers */
 	public BigDecimal computeQuality(Amount toExchangeThisWith) {
-		return value.divide(toExchangeThisWith.value, MathContext.DECIMAL128);
+		return value().divide(toExchangeThisWith.value(), MathContext.DECIMAL128);
 	}
 	
 	/**
@@ -424,6 +767,25 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	
 	@Override
 	public void toBytesSink(BytesSink to) {
+		if (fixed) {
+			long packed;
+			long abs = Math.abs(signedMantissa);
+			if (isNative()) {
+				packed = signedMantissa < 0 ? abs : abs | 0x4000000000000000L;
+			} else if (abs == 0) {
+				packed = 0x8000000000000000L;
+			} else {
+				packed = abs | (long) (512 + (signedMantissa < 0 ? 0 : 256) + 97 + exponent) << 64 - 10;
+			}
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				to.add((byte) (packed >>> shift));
+			}
+			if (!isNative()) {
+				to.add(currency.bytes());
+				to.add(issuer.bytes());
+			}
+			return;
+		}
 		UInt64 man = mantissa();
 		if (isNative()) {
 			if (!isNegative()) {
@@ -461,24 +823,17 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 		
 		@Override
 		public Amount fromParser(BinaryParser parser, Integer hint) {
-			BigDecimal value;
-			byte[] mantissa = parser.read(8);
-			byte b1 = mantissa[0], b2 = mantissa[1];
-			boolean isIOU = (b1 & 0x80) != 0;
-			boolean isPositive = (b1 & 0x40) != 0;
+			long mantissa = parser.readUInt64();
+			boolean isIOU = (mantissa & 0x8000000000000000L) != 0;
+			boolean isPositive = (mantissa & 0x4000000000000000L) != 0;
 			int sign = isPositive ? 1 : -1;
 			if (isIOU) {
-				mantissa[0] = 0;
 				Currency curr = Currency.translate.fromParser(parser);
 				AccountID issuer = AccountID.translate.fromParser(parser);
-				int exponent = ((b1 & 0x3F) << 2) + ((b2 & 0xff) >> 6) - 97;
-				mantissa[1] &= 0x3F;
-				value = new BigDecimal(new BigInteger(sign, mantissa), -exponent);
-				return new Amount(value, curr, issuer, false);
+				int exponent = (int) ((mantissa >>> 54) & 0xFF) - 97;
+				return fromIOU(sign * (mantissa & 0x3FFFFFFFFFFFFFL), exponent, curr, issuer);
 			} else {
-				mantissa[0] &= 0x3F;
-				value = xrpFromDropsMantissa(mantissa, sign);
-				return new Amount(value);
+				return fromDrops(sign * (mantissa & 0x3FFFFFFFFFFFFFFFL));
 			}
 		}
 		
@@ -510,33 +865,36 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	/* Number overides */
 	@Override
 	public int intValue() {
-		return value.intValueExact();
+		return value().intValueExact();
 	}
 	
 	@Override
 	public long longValue() {
-		return value.longValueExact();
+		return value().longValueExact();
 	}
 	
 	@Override
 	public float floatValue() {
-		return value.floatValue();
+		return value().floatValue();
 	}
 	
 	@Override
 	public double doubleValue() {
-		return value.doubleValue();
+		return value().doubleValue();
 	}
 	
 	public BigInteger bigIntegerValue() {
-		return value.toBigIntegerExact();
+		return value().toBigIntegerExact();
 	}
 	
 	public Amount newIssuer(AccountID issuer) {
-		return new Amount(value, currency, issuer);
+		return new Amount(value(), currency, issuer);
 	}
 	
 	public Amount copy() {
+		if (fixed) {
+			return new Amount(signedMantissa, exponent, currency, issuer, isNative);
+		}
 		return new Amount(value, currency, issuer, isNative, unbounded);
 	}
 	
@@ -630,7 +988,7 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	 * @return A String containing the value as a decimal number (in XRP scale)
 	 */
 	public String valueText() {
-		return value.signum() == 0 ? "0" : value().toPlainString();
+		return isZero() ? "0" : value().toPlainString();
 	}
 	
 	public void checkLowerDropBound(BigDecimal val) {
@@ -654,7 +1012,7 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	}
 	
 	public void checkXRPBounds() {
-		BigDecimal v = value.abs();
+		BigDecimal v = value().abs();
 		if (v.compareTo(TAKER_PAYS_FOR_THAT_DAMN_OFFER) == 0) {
 			return;
 		}
@@ -668,7 +1026,7 @@ public class Amount extends Number implements SerializedType, Comparable<Amount>
 	}
 	
 	public int significantDigits() {
-		return significantDigits(value);
+		return significantDigits(value());
 	}
 	
 	public static void checkDropsValueWhole(String drops) {
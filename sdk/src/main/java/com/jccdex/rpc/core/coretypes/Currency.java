@@ -20,9 +20,11 @@ import com.jccdex.rpc.core.serialized.BinaryParser;
  * https://gist.github.com/justmoon/8597643
  */
 public class Currency extends Hash160 {
-	public static final Currency NEUTRAL = new Currency(BigInteger.ONE.toByteArray());
+	// Shared instances for parsed currencies, keyed by bytes
+	private static final Interner<Currency> interned = new Interner<Currency>(1024);
+	public static final Currency NEUTRAL = interned.intern(new Currency(BigInteger.ONE.toByteArray()));
 //	public static final Currency XRP = new Currency(BigInteger.ZERO.toByteArray());
-	public static final Currency SWT = new Currency(BigInteger.ZERO.toByteArray());
+	public static final Currency SWT = interned.intern(new Currency(BigInteger.ZERO.toByteArray()));
 	public static final String CURRENCY_SWT="SWT";
 	
 	@Override
@@ -130,7 +132,14 @@ public class Currency extends Hash160 {
 		
 		@Override
 		public Currency newInstance(byte[] b) {
-			return new Currency(b);
+			if (b.length != 20) {
+				return new Currency(b);
+			}
+			Currency cached = interned.get(b);
+			if (cached != null) {
+				return cached;
+			}
+			return interned.intern(new Currency(b));
 		}
 		
 		@Override
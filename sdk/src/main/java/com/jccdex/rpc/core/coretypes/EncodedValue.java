@@ -0,0 +1,207 @@
+package com.jccdex.rpc.core.coretypes;
+
+import java.util.Arrays;
+
+import com.jccdex.core.encoding.common.B16;
+import com.jccdex.core.serialized.BytesSink;
+import com.jccdex.rpc.core.fields.Field;
+import com.jccdex.rpc.core.fields.Type;
+import com.jccdex.rpc.core.serialized.BinaryParser;
+import com.jccdex.rpc.core.serialized.ByteArraySink;
+import com.jccdex.rpc.core.serialized.SerializedType;
+
+/**
+ * A field value that hasn't been decoded yet: the field and where its encoding
+ * sits in the source bytes (without VL prefix or end marker).
+ *
+ * These only ever live inside a FieldArrayMap, which swaps them for the decoded
+ * value the first time the field is read. Serializing writes the source bytes
+ * back untouched.
+ */
+final class EncodedValue implements SerializedType {
+	private final Field field;
+	private final byte[] bytes;
+	private final int offset;
+	private final int length;
+
+	private EncodedValue(Field field, byte[] bytes, int offset, int length) {
+		this.field = field;
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	SerializedType decode() {
+		switch (field.getType()) {
+			case STObject:
+				return STObject.lazy(bytes, offset, length);
+			case STArray:
+				return STArray.lazy(bytes, offset, length);
+			default:
+				BinaryParser parser = new BinaryParser(bytes, offset, length);
+				SerializedType value = STObject.Translators.forField(field).fromParser(parser, field.isVLEncoded() ? length : null);
+				if (value == null) {
+					throw new IllegalStateException("Parsed " + field + " as null");
+				}
+				return value;
+		}
+	}
+
+	/**
+	 * Records the offset of every field of an object without decoding any of them.
+	 * Stops at the end of the range or at an ObjectEndMarker.
+	 */
+	static void index(STObject so, byte[] bytes, int offset, int length) {
+		BinaryParser parser = new BinaryParser(bytes, offset, length);
+		while (!parser.end()) {
+			Field field = parser.readField();
+			if (field == Field.ObjectEndMarker) {
+				break;
+			}
+			int start;
+			int end;
+			if (field.isVLEncoded()) {
+				int size = parser.readVLLength();
+				start = parser.pos();
+				parser.skip(size);
+				end = start + size;
+			} else {
+				start = parser.pos();
+				end = skip(field, parser);
+			}
+			so.put(field, new EncodedValue(field, bytes, start, end - start));
+		}
+	}
+
+	/**
+	 * Splits an array into its (wrapper field, inner object) elements, leaving the
+	 * inner objects encoded. Stops at the end of the range or at an ArrayEndMarker.
+	 */
+	static void index(STArray array, byte[] bytes, int offset, int length) {
+		BinaryParser parser = new BinaryParser(bytes, offset, length);
+		while (!parser.end()) {
+			Field field = parser.readField();
+			if (field == Field.ArrayEndMarker) {
+				break;
+			}
+			int start = parser.pos();
+			int end = skip(field, parser);
+			STObject outer = new STObject();
+			outer.put(field, new EncodedValue(field, bytes, start, end - start));
+			array.add(STObject.formatted(outer));
+		}
+	}
+
+	/**
+	 * Skips a non VL encoded value.
+	 *
+	 * @return where the value ends, excluding any end marker
+	 */
+	private static int skip(Field field, BinaryParser parser) {
+		switch (field.getType()) {
+			case UInt8:
+				parser.skip(1);
+				break;
+			case UInt16:
+				parser.skip(2);
+				break;
+			case UInt32:
+				parser.skip(4);
+				break;
+			case UInt64:
+				parser.skip(8);
+				break;
+			case Hash128:
+				parser.skip(16);
+				break;
+			case Hash160:
+				parser.skip(20);
+				break;
+			case Hash256:
+				parser.skip(32);
+				break;
+			case Amount:
+				// the first bit flags an IOU: mantissa, currency and issuer
+				parser.skip((parser.readOne() & 0x80) != 0 ? 47 : 7);
+				break;
+			case PathSet:
+				skipPathSet(parser);
+				break;
+			case STObject:
+				return skipUntil(parser, Field.ObjectEndMarker);
+			case STArray:
+				return skipUntil(parser, Field.ArrayEndMarker);
+			default:
+				throw new IllegalStateException("Can't skip " + field + " of type " + field.getType());
+		}
+		return parser.pos();
+	}
+
+	private static int skipUntil(BinaryParser parser, Field marker) {
+		while (!parser.end()) {
+			int end = parser.pos();
+			Field field = parser.readField();
+			if (field == marker) {
+				return end;
+			}
+			if (field.isVLEncoded()) {
+				parser.skip(parser.readVLLength());
+			} else {
+				skip(field, parser);
+			}
+		}
+		return parser.pos();
+	}
+
+	private static void skipPathSet(BinaryParser parser) {
+		while (!parser.end()) {
+			byte type = parser.readOne();
+			if (type == PathSet.PATHSET_END_BYTE) {
+				break;
+			}
+			if (type == PathSet.PATH_SEPARATOR_BYTE) {
+				continue;
+			}
+			int hop = 0;
+			if ((type & PathSet.Hop.TYPE_ACCOUNT) != 0) {
+				hop += 20;
+			}
+			if ((type & PathSet.Hop.TYPE_CURRENCY) != 0) {
+				hop += 20;
+			}
+			if ((type & PathSet.Hop.TYPE_ISSUER) != 0) {
+				hop += 20;
+			}
+			parser.skip(hop);
+		}
+	}
+
+	@Override
+	public Object toJSON() {
+		return decode().toJSON();
+	}
+
+	@Override
+	public byte[] toBytes() {
+		return Arrays.copyOfRange(bytes, offset, offset + length);
+	}
+
+	@Override
+	public String toHex() {
+		return B16.toString(toBytes());
+	}
+
+	@Override
+	public void toBytesSink(BytesSink to) {
+		if (to instanceof ByteArraySink) {
+			((ByteArraySink) to).add(bytes, offset, length);
+		} else {
+			to.add(toBytes());
+		}
+	}
+
+	@Override
+	public Type type() {
+		return field.getType();
+	}
+}
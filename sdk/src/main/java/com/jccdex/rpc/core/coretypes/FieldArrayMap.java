@@ -0,0 +1,425 @@
+package com.jccdex.rpc.core.coretypes;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+
+import com.jccdex.rpc.core.fields.Field;
+import com.jccdex.rpc.core.serialized.SerializedType;
+
+/**
+ * Field map stored as two parallel arrays sorted by Field.ordinal().
+ *
+ * Fields are declared in canonical serialization order, so iteration is already
+ * canonical. Objects hold a handful of fields, so a binary search over a short
+ * int array beats a TreeMap walk, and fields arriving in canonical order (the
+ * common case when parsing) are appended without shifting or per-entry allocation.
+ *
+ * Values may be left encoded (see STObject.lazy) and are decoded on first read.
+ * Decoding writes the value back, so while any value is still encoded, reads go
+ * through the map's lock. Concurrent reads are then as safe as on an eagerly
+ * parsed map, and once everything is decoded reads cost one volatile load.
+ * Writes still need external synchronization, as with any other Map.
+ *
+ * headMap/tailMap/subMap return copies rather than live views.
+ */
+public class FieldArrayMap extends AbstractMap<Field, SerializedType> implements SortedMap<Field, SerializedType> {
+	private static final int DEFAULT_CAPACITY = 8;
+	
+	private int[] ordinals;
+	private Field[] keys;
+	private SerializedType[] values;
+	private int size;
+	private int modCount;
+	/**
+	 * Number of values still encoded. Only changed under the lock while reading;
+	 * a reader that sees 0 also sees every value written back before it dropped.
+	 */
+	private volatile int encoded;
+	
+	public FieldArrayMap() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	public FieldArrayMap(int capacity) {
+		ordinals = new int[capacity];
+		keys = new Field[capacity];
+		values = new SerializedType[capacity];
+	}
+	
+	/**
+	 * Copies the entries of source; values (including ones not decoded yet) are shared.
+	 */
+	public FieldArrayMap(FieldArrayMap source) {
+		int capacity = Math.max(DEFAULT_CAPACITY, source.size);
+		ordinals = Arrays.copyOf(source.ordinals, capacity);
+		keys = Arrays.copyOf(source.keys, capacity);
+		size = source.size;
+		synchronized (source) {
+			values = Arrays.copyOf(source.values, capacity);
+			int count = 0;
+			for (int i = 0; i < size; i++) {
+				if (values[i] instanceof EncodedValue) {
+					count++;
+				}
+			}
+			encoded = count;
+		}
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	@Override
+	public boolean containsKey(Object key) {
+		return key instanceof Field && indexOf((Field) key) >= 0;
+	}
+	
+	@Override
+	public SerializedType get(Object key) {
+		if (!(key instanceof Field)) {
+			return null;
+		}
+		int i = indexOf((Field) key);
+		return i >= 0 ? value(i) : null;
+	}
+	
+	/**
+	 * Like get, but returns a value that hasn't been read yet in its encoded form
+	 * instead of decoding it. Only for writing the value back out.
+	 */
+	SerializedType getEncoded(Field key) {
+		int i = indexOf(key);
+		return i >= 0 ? encodedAt(i) : null;
+	}
+	
+	Field keyAt(int i) {
+		return keys[i];
+	}
+	
+	/**
+	 * The i-th value in canonical order, left encoded if it hasn't been read yet
+	 * (see getEncoded).
+	 */
+	SerializedType encodedAt(int i) {
+		if (encoded == 0) {
+			return values[i];
+		}
+		synchronized (this) {
+			return values[i];
+		}
+	}
+	
+	@Override
+	public SerializedType put(Field key, SerializedType value) {
+		if (key == null) {
+			throw new NullPointerException();
+		}
+		int ordinal = key.ordinal();
+		// fast path: appending in canonical order
+		if (size == 0 || ordinals[size - 1] < ordinal) {
+			insertAt(size, key, value);
+			return null;
+		}
+		int i = search(ordinal);
+		if (i >= 0) {
+			SerializedType old = value(i);
+			set(i, value);
+			return old;
+		}
+		insertAt(-(i + 1), key, value);
+		return null;
+	}
+	
+	@Override
+	public SerializedType remove(Object key) {
+		if (!(key instanceof Field)) {
+			return null;
+		}
+		int i = indexOf((Field) key);
+		if (i < 0) {
+			return null;
+		}
+		SerializedType old = value(i);
+		removeAt(i);
+		return old;
+	}
+	
+	@Override
+	public void clear() {
+		Arrays.fill(keys, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+		encoded = 0;
+		modCount++;
+	}
+	
+	@Override
+	public Comparator<? super Field> comparator() {
+		// natural enum (ordinal) order
+		return null;
+	}
+	
+	@Override
+	public Field firstKey() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return keys[0];
+	}
+	
+	@Override
+	public Field lastKey() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return keys[size - 1];
+	}
+	
+	@Override
+	public SortedMap<Field, SerializedType> subMap(Field fromKey, Field toKey) {
+		return copyRange(fromKey.ordinal(), toKey.ordinal());
+	}
+	
+	@Override
+	public SortedMap<Field, SerializedType> headMap(Field toKey) {
+		return copyRange(Integer.MIN_VALUE, toKey.ordinal());
+	}
+	
+	@Override
+	public SortedMap<Field, SerializedType> tailMap(Field fromKey) {
+		return copyRange(fromKey.ordinal(), Integer.MAX_VALUE);
+	}
+	
+	@Override
+	public Set<Field> keySet() {
+		return new AbstractSet<Field>() {
+			@Override
+			public Iterator<Field> iterator() {
+				return new Itr<Field>() {
+					@Override
+					Field element(int i) {
+						return keys[i];
+					}
+				};
+			}
+			
+			@Override
+			public int size() {
+				return size;
+			}
+			
+			@Override
+			public boolean contains(Object o) {
+				return containsKey(o);
+			}
+		};
+	}
+	
+	@Override
+	public Set<Map.Entry<Field, SerializedType>> entrySet() {
+		return new AbstractSet<Map.Entry<Field, SerializedType>>() {
+			@Override
+			public Iterator<Map.Entry<Field, SerializedType>> iterator() {
+				return new Itr<Map.Entry<Field, SerializedType>>() {
+					@Override
+					Map.Entry<Field, SerializedType> element(int i) {
+						return new Entry(i);
+					}
+				};
+			}
+			
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+	
+	private SerializedType value(int i) {
+		if (encoded == 0) {
+			return values[i];
+		}
+		synchronized (this) {
+			SerializedType value = values[i];
+			if (value instanceof EncodedValue) {
+				value = ((EncodedValue) value).decode();
+				values[i] = value;
+				encoded--;
+			}
+			return value;
+		}
+	}
+	
+	private void set(int i, SerializedType value) {
+		if (values[i] instanceof EncodedValue) {
+			encoded--;
+		}
+		values[i] = value;
+		if (value instanceof EncodedValue) {
+			encoded++;
+		}
+	}
+	
+	private int indexOf(Field field) {
+		return search(field.ordinal());
+	}
+	
+	private int search(int ordinal) {
+		int lo = 0;
+		int hi = size - 1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int v = ordinals[mid];
+			if (v < ordinal) {
+				lo = mid + 1;
+			} else if (v > ordinal) {
+				hi = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(lo + 1);
+	}
+	
+	private void insertAt(int i, Field key, SerializedType value) {
+		if (size == keys.length) {
+			int capacity = Math.max(DEFAULT_CAPACITY, size * 2);
+			ordinals = Arrays.copyOf(ordinals, capacity);
+			keys = Arrays.copyOf(keys, capacity);
+			values = Arrays.copyOf(values, capacity);
+		}
+		int moved = size - i;
+		if (moved > 0) {
+			System.arraycopy(ordinals, i, ordinals, i + 1, moved);
+			System.arraycopy(keys, i, keys, i + 1, moved);
+			System.arraycopy(values, i, values, i + 1, moved);
+		}
+		ordinals[i] = key.ordinal();
+		keys[i] = key;
+		values[i] = value;
+		if (value instanceof EncodedValue) {
+			encoded++;
+		}
+		size++;
+		modCount++;
+	}
+	
+	private void removeAt(int i) {
+		if (values[i] instanceof EncodedValue) {
+			encoded--;
+		}
+		int moved = size - i - 1;
+		if (moved > 0) {
+			System.arraycopy(ordinals, i + 1, ordinals, i, moved);
+			System.arraycopy(keys, i + 1, keys, i, moved);
+			System.arraycopy(values, i + 1, values, i, moved);
+		}
+		size--;
+		keys[size] = null;
+		values[size] = null;
+		modCount++;
+	}
+	
+	private FieldArrayMap copyRange(int from, int to) {
+		FieldArrayMap copy = new FieldArrayMap(Math.max(1, size));
+		for (int i = 0; i < size; i++) {
+			if (ordinals[i] >= from && ordinals[i] < to) {
+				copy.insertAt(copy.size, keys[i], encodedAt(i));
+			}
+		}
+		return copy;
+	}
+	
+	private abstract class Itr<E> implements Iterator<E> {
+		int next;
+		int last = -1;
+		int expectedModCount = modCount;
+		
+		abstract E element(int i);
+		
+		@Override
+		public boolean hasNext() {
+			return next < size;
+		}
+		
+		@Override
+		public E next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (next >= size) {
+				throw new NoSuchElementException();
+			}
+			last = next++;
+			return element(last);
+		}
+		
+		@Override
+		public void remove() {
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(last);
+			next = last;
+			last = -1;
+			expectedModCount = modCount;
+		}
+	}
+	
+	private class Entry implements Map.Entry<Field, SerializedType> {
+		private final int index;
+		
+		Entry(int index) {
+			this.index = index;
+		}
+		
+		@Override
+		public Field getKey() {
+			return keys[index];
+		}
+		
+		@Override
+		public SerializedType getValue() {
+			return value(index);
+		}
+		
+		@Override
+		public SerializedType setValue(SerializedType value) {
+			SerializedType old = value(index);
+			set(index, value);
+			return old;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return getKey().equals(e.getKey()) && (getValue() == null ? e.getValue() == null : getValue().equals(e.getValue()));
+		}
+		
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ (getValue() == null ? 0 : getValue().hashCode());
+		}
+		
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+}
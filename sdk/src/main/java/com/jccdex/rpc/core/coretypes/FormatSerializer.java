@@ -0,0 +1,187 @@
+package com.jccdex.rpc.core.coretypes;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.jccdex.core.serialized.BytesSink;
+import com.jccdex.rpc.core.fields.Field;
+import com.jccdex.rpc.core.formats.Format;
+import com.jccdex.rpc.core.formats.LEFormat;
+import com.jccdex.rpc.core.formats.TxFormat;
+import com.jccdex.rpc.core.serialized.BinarySerializer;
+import com.jccdex.rpc.core.serialized.ByteArraySink;
+import com.jccdex.rpc.core.serialized.SerializedType;
+
+/**
+ * Serializer for the objects of one TxFormat or LEFormat.
+ *
+ * The header bytes and encoding of every field the format allows are worked
+ * out once, when the formats are loaded, into a table indexed by field ordinal.
+ * Writing an object is then a single walk over its (already canonically
+ * ordered) field arrays: no filter objects, no iterator, no per field lookup
+ * and no type switch. Fields the format doesn't know fall back to the generic
+ * BinarySerializer, so the output is always the same as STObject's.
+ */
+public final class FormatSerializer {
+	private static final int FIXED = 0, VL = 1, OBJECT = 2, ARRAY = 3;
+
+	private static final byte[] OBJECT_END = Field.ObjectEndMarker.getBytes();
+	private static final byte[] ARRAY_END = Field.ArrayEndMarker.getBytes();
+
+	private static final Map<Format, FormatSerializer> serializers = new HashMap<Format, FormatSerializer>();
+
+	static {
+		for (TxFormat format : TxFormat.formats.values()) {
+			serializers.put(format, new FormatSerializer(format));
+		}
+		for (LEFormat format : LEFormat.formats.values()) {
+			serializers.put(format, new FormatSerializer(format));
+		}
+	}
+
+	/**
+	 * @return the serializer for format, or null for objects without one
+	 */
+	public static FormatSerializer forFormat(Format format) {
+		return format == null ? null : serializers.get(format);
+	}
+
+	private final Format format;
+	// indexed by Field.ordinal(), null for fields outside the format
+	private final byte[][] headers;
+	private final int[] kinds;
+	private final boolean[] signing;
+
+	private FormatSerializer(Format format) {
+		this.format = format;
+		int fields = Field.values().length;
+		headers = new byte[fields][];
+		kinds = new int[fields];
+		signing = new boolean[fields];
+		for (Field field : format.requirements().keySet()) {
+			if (!field.isSerialized()) {
+				continue;
+			}
+			int i = field.ordinal();
+			headers[i] = field.getBytes();
+			signing[i] = field.isSigningField();
+			if (field.isVLEncoded()) {
+				kinds[i] = VL;
+			} else {
+				switch (field.getType()) {
+					case STObject:
+						kinds[i] = OBJECT;
+						break;
+					case STArray:
+						kinds[i] = ARRAY;
+						break;
+					default:
+						kinds[i] = FIXED;
+						break;
+				}
+			}
+		}
+	}
+
+	public Format format() {
+		return format;
+	}
+
+	/**
+	 * Writes every serialized field, same as so.toBytesSink(to).
+	 */
+	public void write(STObject so, BytesSink to) {
+		write(so, to, false, null);
+	}
+
+	/**
+	 * Writes the signing fields only, same as toBytesSink with an isSigningField filter.
+	 */
+	public void writeSigning(STObject so, BytesSink to) {
+		write(so, to, true, null);
+	}
+
+	/**
+	 * Writes the signing fields and finds where a field left out of signing
+	 * (normally TxnSignature) goes, so the full blob can be put together from
+	 * these bytes once the signature is known, without serializing again.
+	 *
+	 * @return the position in `to` at which `insert` belongs, or -1 if the object
+	 *         has other fields that aren't signed (e.g. Signers), in which case
+	 *         the blob must be serialized in full
+	 */
+	public int writeSigning(STObject so, ByteArraySink to, Field insert) {
+		return write(so, to, true, insert);
+	}
+
+	/**
+	 * @return where `insert` belongs (0 when there's nothing to insert), or -1
+	 *         if a field other than `insert` was left out for not being signed
+	 */
+	private int write(STObject so, BytesSink to, boolean signingOnly, Field insert) {
+		FieldArrayMap fields = so.fields;
+		ByteArraySink direct = to instanceof ByteArraySink ? (ByteArraySink) to : null;
+		BinarySerializer generic = null;
+		boolean complete = true;
+		int insertAt = -1;
+		int size = fields.size();
+		for (int i = 0; i < size; i++) {
+			Field field = fields.keyAt(i);
+			int ordinal = field.ordinal();
+			if (insert != null && insertAt < 0 && ordinal > insert.ordinal()) {
+				insertAt = direct.bytesLength();
+			}
+			byte[] header = headers[ordinal];
+			SerializedType value = fields.encodedAt(i);
+			if (header == null) {
+				// not part of the format
+				if (!field.isSerialized() || (signingOnly && !field.isSigningField())) {
+					complete &= field == insert || !field.isSerialized();
+					continue;
+				}
+				if (generic == null) {
+					generic = new BinarySerializer(to);
+				}
+				generic.add(field, value);
+				continue;
+			}
+			if (signingOnly && !signing[ordinal]) {
+				complete &= field == insert;
+				continue;
+			}
+			to.add(header);
+			switch (kinds[ordinal]) {
+				case VL:
+					if (direct != null) {
+						int mark = direct.beginLengthEncoded();
+						value.toBytesSink(direct);
+						direct.endLengthEncoded(mark);
+					} else {
+						if (generic == null) {
+							generic = new BinarySerializer(to);
+						}
+						generic.addLengthEncoded(value);
+					}
+					break;
+				case OBJECT:
+					value.toBytesSink(to);
+					to.add(OBJECT_END);
+					break;
+				case ARRAY:
+					value.toBytesSink(to);
+					to.add(ARRAY_END);
+					break;
+				default:
+					value.toBytesSink(to);
+					break;
+			}
+		}
+		if (!complete) {
+			return -1;
+		}
+		if (insert == null) {
+			return 0;
+		}
+		return insertAt < 0 ? direct.bytesLength() : insertAt;
+	}
+}
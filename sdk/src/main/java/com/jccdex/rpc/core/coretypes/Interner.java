@@ -0,0 +1,50 @@
+package com.jccdex.rpc.core.coretypes;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.jccdex.rpc.core.coretypes.hash.Hash;
+
+/**
+ * A bounded cache of immutable hash values, looked up by their bytes.
+ *
+ * The table is direct mapped: a key's hash picks exactly one slot and a new
+ * entry simply replaces whatever was there. Lookups and inserts never lock and
+ * the table never grows, yet the handful of accounts and currencies that show
+ * up over and over again in a ledger stream stay resident. Threads racing on
+ * the same key at worst build equal values twice.
+ *
+ * Nothing is keyed by the strings values are parsed from: what an address or
+ * currency code means depends on Config (the alphabet, the native currency),
+ * which can change at any time.
+ */
+final class Interner<T extends Hash<?>> {
+	private final int mask;
+	private final AtomicReferenceArray<T> byBytes;
+
+	/**
+	 * @param size number of slots, rounded up to a power of two
+	 */
+	Interner(int size) {
+		int slots = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+		mask = slots - 1;
+		byBytes = new AtomicReferenceArray<T>(slots);
+	}
+
+	T get(byte[] bytes) {
+		T value = byBytes.get(slot(Arrays.hashCode(bytes)));
+		if (value != null && Arrays.equals(value.bytes(), bytes)) {
+			return value;
+		}
+		return null;
+	}
+
+	T intern(T value) {
+		byBytes.lazySet(slot(Arrays.hashCode(value.bytes())), value);
+		return value;
+	}
+
+	private int slot(int hash) {
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+}
@@ -45,8 +45,8 @@ public class Issue implements Comparable<Issue> {
      *       respectively?
      */
     public static Issue from160s(Hash160 currency, Hash160 issuer) {
-        return new Issue(new Currency(currency.bytes()),
-                new AccountID(issuer.toBytes()));
+        return new Issue(Currency.translate.newInstance(currency.bytes()),
+                AccountID.fromBytes(issuer.toBytes()));
     }
 
     public Currency currency() {
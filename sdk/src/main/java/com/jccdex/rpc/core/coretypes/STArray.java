@@ -90,6 +90,15 @@ public class STArray extends ArrayList<STObject> implements SerializedType {
 
     public STArray(){}
 
+    /**
+     * Splits an encoded array into lazily parsed elements, see STObject.lazy
+     */
+    public static STArray lazy(byte[] bytes, int offset, int length) {
+        STArray stArray = new STArray();
+        EncodedValue.index(stArray, bytes, offset, length);
+        return stArray;
+    }
+
     public static STArrayField starrayField(final Field f) {
         return new STArrayField(){ @Override public Field getField() {return f;}};
     }
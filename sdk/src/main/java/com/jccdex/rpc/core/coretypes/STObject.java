@@ -2,8 +2,8 @@ package com.jccdex.rpc.core.coretypes;
 
 import java.util.EnumMap;
 import java.util.Iterator;
-import java.util.TreeMap;
 
+import com.jccdex.core.encoding.common.B16;
 import com.jccdex.core.serialized.BytesSink;
 import org.json.JSONObject;
 
@@ -43,8 +43,14 @@ import com.jccdex.rpc.core.serialized.enums.LedgerEntryType;
 import com.jccdex.rpc.core.serialized.enums.TransactionType;
 
 public class STObject implements SerializedType, Iterable<Field> {
-	// Internally the fields are stored in a TreeMap
-	public static class FieldsMap extends TreeMap<Field, SerializedType> {
+	// Internally the fields are stored in arrays sorted by Field ordinal
+	public static class FieldsMap extends FieldArrayMap {
+		public FieldsMap() {
+		}
+		
+		public FieldsMap(FieldsMap source) {
+			super(source);
+		}
 	}
 	
 	// There's no nice predicates
@@ -75,6 +81,33 @@ public class STObject implements SerializedType, Iterable<Field> {
 		return STObject.translate.fromHex(hex);
 	}
 	
+	/**
+	 * Parses an object lazily: field offsets are indexed up front, values are
+	 * decoded the first time they are read. Nested objects and arrays are lazy
+	 * too, so reading a few top level fields never touches the rest.
+	 *
+	 * The bytes are referenced, not copied, and must not be modified afterwards.
+	 * Like the eager parse the result is formatted, e.g. a Transaction or
+	 * TransactionMeta.
+	 *
+	 * Only field headers and lengths are checked up front: a value that doesn't
+	 * decode throws when the field is first read, not here. Callers that need
+	 * malformed input rejected at parse time should use the eager translate path.
+	 */
+	public static STObject lazy(byte[] bytes) {
+		return lazy(bytes, 0, bytes.length);
+	}
+	
+	public static STObject lazy(byte[] bytes, int offset, int length) {
+		STObject so = new STObject();
+		EncodedValue.index(so, bytes, offset, length);
+		return STObject.formatted(so);
+	}
+	
+	public static STObject lazyHex(String hex) {
+		return lazy(B16.decode(hex));
+	}
+	
 	@Override
 	public Iterator<Field> iterator() {
 		return fields.keySet().iterator();
@@ -95,6 +128,17 @@ public class STObject implements SerializedType, Iterable<Field> {
 		return STObjectFormatter.doFormatted(source);
 	}
 	
+	/**
+	 * @return a shallow copy, of the same subclass, with a field map of its own.
+	 *         Values are shared, so only top level fields may be changed
+	 *         independently.
+	 */
+	public STObject copy() {
+		STObject copy = formatted(new STObject(new FieldsMap(fields)));
+		copy.format = format;
+		return copy;
+	}
+	
 	public Format getFormat() {
 		if (format == null) {
 			computeFormat();
@@ -349,7 +393,8 @@ public class STObject implements SerializedType, Iterable<Field> {
 		BinarySerializer serializer = new BinarySerializer(to);
 		for (Field field : this) {
 			if (p.evaluate(field)) {
-				SerializedType value = fields.get(field);
+				// values not read yet are written back from their source bytes
+				SerializedType value = fields.getEncoded(field);
 				serializer.add(field, value);
 			}
 		}
@@ -357,6 +402,12 @@ public class STObject implements SerializedType, Iterable<Field> {
 	
 	@Override
 	public void toBytesSink(BytesSink to) {
+		// transactions and ledger entries go through their format's precompiled layout
+		FormatSerializer serializer = FormatSerializer.forFormat(format);
+		if (serializer != null) {
+			serializer.write(this, to);
+			return;
+		}
 		toBytesSink(to, new FieldFilter() {
 			@Override
 			public boolean evaluate(Field field) {
@@ -0,0 +1,58 @@
+package com.jccdex.rpc.core.coretypes.hash;
+
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+
+/**
+ * Per thread pool of MessageDigests for one algorithm and provider.
+ *
+ * MessageDigest.getInstance goes through the synchronized provider lookup on
+ * every call, which adds up once SHAMaps, indexes and signing hash thousands of
+ * times a second. Hashers borrow a digest here and hand it back once they have
+ * finished. A thread keeps a stack of them rather than a single one because
+ * hashing nests: a SHAMap inner node is still being hashed while its children
+ * are.
+ */
+final class DigestPool {
+	private static final int MAX_IDLE = 64;
+
+	private final String algorithm;
+	private final String provider;
+	private final ThreadLocal<ArrayDeque<MessageDigest>> idle = new ThreadLocal<ArrayDeque<MessageDigest>>() {
+		@Override
+		protected ArrayDeque<MessageDigest> initialValue() {
+			return new ArrayDeque<MessageDigest>();
+		}
+	};
+
+	/**
+	 * @param provider the provider name, or null for the JDK's default
+	 */
+	DigestPool(String algorithm, String provider) {
+		this.algorithm = algorithm;
+		this.provider = provider;
+	}
+
+	MessageDigest acquire() {
+		MessageDigest digest = idle.get().pollFirst();
+		if (digest != null) {
+			return digest;
+		}
+		try {
+			return provider == null ? MessageDigest.getInstance(algorithm) : MessageDigest.getInstance(algorithm, provider);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Takes back a digest from acquire(), reset; it must not be used afterwards.
+	 */
+	void release(MessageDigest digest) {
+		digest.reset();
+		ArrayDeque<MessageDigest> digests = idle.get();
+		if (digests.size() < MAX_IDLE) {
+			digests.addFirst(digest);
+		}
+	}
+}
@@ -6,15 +6,49 @@ import com.jccdex.core.serialized.BytesSink;
 import com.jccdex.rpc.core.coretypes.hash.prefixes.Prefix;
 import com.jccdex.rpc.core.serialized.SerializedType;
 
+/**
+ * The first 256 bits of a SHA-512.
+ *
+ * Construction is cheap: the MessageDigest is borrowed from a per thread pool
+ * and handed back by finish(), after which the hasher starts over (borrowing
+ * again) if it is fed more bytes.
+ */
 public class HalfSha512 implements BytesSink {
+    /**
+     * Where SHA-512 comes from. Both give the same digests; recent JDKs compile
+     * their own to the CPU's SHA-512 instructions where there are any.
+     */
+    public enum Provider {
+        BOUNCY_CASTLE(org.bouncycastle.jce.provider.BouncyCastleProvider.PROVIDER_NAME),
+        JDK(null);
+
+        final DigestPool pool;
+
+        Provider(String name) {
+            pool = new DigestPool("SHA-512", name);
+        }
+    }
+
+    private static volatile Provider defaultProvider = Provider.BOUNCY_CASTLE;
+
+    public static void setProvider(Provider provider) {
+        defaultProvider = provider;
+    }
+
+    public static Provider getProvider() {
+        return defaultProvider;
+    }
+
+    private final Provider provider;
+    // null while nothing has been hashed since the last finish()
     MessageDigest messageDigest;
 
     public HalfSha512() {
-        try {
-            messageDigest = MessageDigest.getInstance("SHA-512", org.bouncycastle.jce.provider.BouncyCastleProvider.PROVIDER_NAME);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        this(defaultProvider);
+    }
+
+    public HalfSha512(Provider provider) {
+        this.provider = provider;
     }
 
     public static HalfSha512 prefixed256(Prefix bytes) {
@@ -24,24 +58,45 @@ public class HalfSha512 implements BytesSink {
     }
 
     public void update(byte[] bytes) {
-        messageDigest.update(bytes);
+        digest().update(bytes);
+    }
+
+    public void update(byte[] bytes, int offset, int length) {
+        digest().update(bytes, offset, length);
     }
 
     public void update(Hash256 hash) {
-        messageDigest.update(hash.bytes());
+        digest().update(hash.bytes());
     }
 
+    /**
+     * The underlying digest, only valid until finish() or reset()
+     */
     public MessageDigest digest() {
+        if (messageDigest == null) {
+            messageDigest = provider.pool.acquire();
+        }
         return messageDigest;
     }
 
+    /**
+     * Discards everything hashed so far.
+     */
+    public void reset() {
+        if (messageDigest != null) {
+            provider.pool.release(messageDigest);
+            messageDigest = null;
+        }
+    }
+
     public Hash256 finish() {
         byte[] half = digestBytes();
         return new Hash256(half);
     }
 
     private byte[] digestBytes() {
-        byte[] digest = messageDigest.digest();
+        byte[] digest = digest().digest();
+        reset();
         byte[] half = new byte[32];
         System.arraycopy(digest, 0, half, 0, 32);
         return half;
@@ -53,16 +108,16 @@ public class HalfSha512 implements BytesSink {
 
     @Override
     public void add(byte aByte) {
-        messageDigest.update(aByte);
+        digest().update(aByte);
     }
 
     @Override
     public void add(byte[] bytes) {
-        messageDigest.update(bytes);
+        digest().update(bytes);
     }
 
     public void update(Prefix prefix) {
-        messageDigest.update(prefix.bytes());
+        digest().update(prefix.bytes());
     }
 
     public HalfSha512 add(SerializedType st) {
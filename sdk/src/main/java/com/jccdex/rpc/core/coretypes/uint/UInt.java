@@ -5,11 +5,14 @@ import java.math.BigInteger;
 import com.jccdex.core.encoding.common.B16;
 import com.jccdex.core.serialized.BytesSink;
 import com.jccdex.rpc.core.serialized.BinaryParser;
+import com.jccdex.rpc.core.serialized.ByteArraySink;
 import com.jccdex.rpc.core.serialized.SerializedType;
 import com.jccdex.rpc.core.serialized.TypeTranslator;
 
 abstract public class UInt<Subclass extends UInt> extends Number implements SerializedType, Comparable<UInt> {
-	private BigInteger value;
+	// Widths are fixed at 64 bits or less, so the value lives in a long.
+	// UInt64 treats it as unsigned, the narrower types as a plain long.
+	private long value;
 	public static BigInteger Max8 = new BigInteger("256"), Max16 = new BigInteger("65536"), Max32 = new BigInteger("4294967296"),
 	        Max64 = new BigInteger("18446744073709551616");
 	
@@ -18,7 +21,15 @@ abstract public class UInt<Subclass extends UInt> extends Number implements Seri
 	}
 	
 	public UInt(byte[] bytes) {
-		setValue(new BigInteger(1, bytes));
+		if (bytes.length > 8) {
+			setValue(new BigInteger(1, bytes));
+		} else {
+			long v = 0;
+			for (byte b : bytes) {
+				v = v << 8 | b & 0xFF;
+			}
+			value = v;
+		}
 	}
 	
 	public UInt(BigInteger bi) {
@@ -26,7 +37,11 @@ abstract public class UInt<Subclass extends UInt> extends Number implements Seri
 	}
 	
 	public UInt(Number s) {
-		setValue(BigInteger.valueOf(s.longValue()));
+		value = s.longValue();
+	}
+	
+	public UInt(long value) {
+		this.value = value;
 	}
 	
 	public UInt(String s) {
@@ -39,7 +54,7 @@ abstract public class UInt<Subclass extends UInt> extends Number implements Seri
 	
 	@Override
 	public String toString() {
-		return value.toString();
+		return isUnsigned() ? Long.toUnsignedString(value) : Long.toString(value);
 	}
 	
 	public UInt() {
@@ -49,45 +64,70 @@ abstract public class UInt<Subclass extends UInt> extends Number implements Seri
 	
 	public abstract Subclass instanceFrom(BigInteger n);
 	
+	public abstract Subclass instanceFrom(long n);
+	
 	public boolean isValid(BigInteger n) {
 		return !((bitLength() / 8) > getByteWidth());
 	}
 	
+	/**
+	 * @throws ArithmeticException if the sum doesn't fit in 64 bits (unsigned for UInt64)
+	 */
 	public Subclass add(UInt val) {
-		return instanceFrom(value.add(val.value));
+		long sum = value + val.value;
+		if (isUnsigned() || val.isUnsigned() ? Long.compareUnsigned(sum, value) < 0 : ((value ^ sum) & (val.value ^ sum)) < 0) {
+			throw new ArithmeticException("UInt overflow: " + this + " + " + val);
+		}
+		return instanceFrom(sum);
 	}
 	
 	public Subclass subtract(UInt val) {
-		return instanceFrom(value.subtract(val.value));
+		return instanceFrom(value - val.value);
 	}
 	
+	/**
+	 * @throws ArithmeticException if the product doesn't fit in 64 bits (unsigned for UInt64)
+	 */
 	public Subclass multiply(UInt val) {
-		return instanceFrom(value.multiply(val.value));
+		long product = value * val.value;
+		boolean overflow;
+		if (isUnsigned() || val.isUnsigned()) {
+			overflow = value != 0 && Long.divideUnsigned(product, value) != val.value;
+		} else {
+			overflow = value != 0 && (product / value != val.value || value == -1 && val.value == Long.MIN_VALUE);
+		}
+		if (overflow) {
+			throw new ArithmeticException("UInt overflow: " + this + " * " + val);
+		}
+		return instanceFrom(product);
 	}
 	
 	public Subclass divide(UInt val) {
-		return instanceFrom(value.divide(val.value));
+		return instanceFrom(isUnsigned() ? Long.divideUnsigned(value, val.value) : value / val.value);
 	}
 	
 	public Subclass or(UInt val) {
-		return instanceFrom(value.or(val.value));
+		return instanceFrom(value | val.value);
 	}
 	
 	public Subclass shiftLeft(int n) {
-		return instanceFrom(value.shiftLeft(n));
+		return instanceFrom(value << n);
 	}
 	
 	public Subclass shiftRight(int n) {
-		return instanceFrom(value.shiftRight(n));
+		return instanceFrom(isUnsigned() ? value >>> n : value >> n);
 	}
 	
 	public int bitLength() {
-		return value.bitLength();
+		return value < 0 && !isUnsigned() ? BigInteger.valueOf(value).bitLength() : 64 - Long.numberOfLeadingZeros(value);
 	}
 	
 	@Override
 	public int compareTo(UInt val) {
-		return value.compareTo(val.value);
+		if (isUnsigned() || val.isUnsigned()) {
+			return Long.compareUnsigned(value, val.value);
+		}
+		return Long.compare(value, val.value);
 	}
 	
 	@Override
@@ -100,84 +140,107 @@ abstract public class UInt<Subclass extends UInt> extends Number implements Seri
 	}
 	
 	public boolean equals(UInt x) {
-		return value.equals(x.value);
+		return value == x.value;
+	}
+	
+	@Override
+	public int hashCode() {
+		return Long.hashCode(value);
 	}
 	
 	public BigInteger min(BigInteger val) {
-		return value.min(val);
+		return bigInteger().min(val);
 	}
 	
 	public BigInteger max(BigInteger val) {
-		return value.max(val);
+		return bigInteger().max(val);
 	}
 	
 	public String toString(int radix) {
-		return value.toString(radix);
+		return isUnsigned() ? Long.toUnsignedString(value, radix) : Long.toString(value, radix);
 	}
 	
 	public byte[] toByteArray() {
-		int length = getByteWidth();
-		{
-			byte[] bytes = value.toByteArray();
-			if (bytes[0] == 0) {
-				if (bytes.length - 1 > length) {
-					throw new IllegalArgumentException("standard length exceeded for value");
-				}
-				byte[] tmp = new byte[length];
-				System.arraycopy(bytes, 1, tmp, tmp.length - (bytes.length - 1), bytes.length - 1);
-				return tmp;
-			} else {
-				if (bytes.length == length) {
-					return bytes;
-				}
-				if (bytes.length > length) {
-					throw new IllegalArgumentException("standard length exceeded for value");
-				}
-				byte[] tmp = new byte[length];
-				System.arraycopy(bytes, 0, tmp, tmp.length - bytes.length, bytes.length);
-				return tmp;
-			}
+		byte[] bytes = new byte[getByteWidth()];
+		long v = checkedValue();
+		for (int i = bytes.length - 1; i >= 0; i--) {
+			bytes[i] = (byte) v;
+			v >>>= 8;
 		}
+		return bytes;
+	}
+	
+	/**
+	 * Writes the value big endian, byte by byte when the sink takes single bytes cheaply
+	 */
+	void writeTo(BytesSink to) {
+		if (!(to instanceof ByteArraySink)) {
+			to.add(toByteArray());
+			return;
+		}
+		long v = checkedValue();
+		for (int shift = (getByteWidth() - 1) * 8; shift >= 0; shift -= 8) {
+			to.add((byte) (v >>> shift));
+		}
+	}
+	
+	private long checkedValue() {
+		int bits = getByteWidth() * 8;
+		// negative ints (e.g. flags with the top bit set) are written as their low bytes
+		if (bits < 64 && value >>> bits != 0 && value >> bits - 1 != -1) {
+			throw new IllegalArgumentException("standard length exceeded for value");
+		}
+		return value;
+	}
+	
+	/**
+	 * UInt64 values use all 64 bits of the long
+	 */
+	private boolean isUnsigned() {
+		return getByteWidth() >= 8;
 	}
 	
 	abstract public Object value();
 	
 	public BigInteger bigInteger() {
-		return value;
+		if (value < 0 && isUnsigned()) {
+			return BigInteger.valueOf(value >>> 1).shiftLeft(1).or(BigInteger.valueOf(value & 1));
+		}
+		return BigInteger.valueOf(value);
 	}
 	
 	@Override
 	public int intValue() {
-		return value.intValue();
+		return (int) value;
 	}
 	
 	@Override
 	public long longValue() {
-		return value.longValue();
+		return value;
 	}
 	
 	@Override
 	public double doubleValue() {
-		return value.doubleValue();
+		return value < 0 && isUnsigned() ? bigInteger().doubleValue() : value;
 	}
 	
 	@Override
 	public float floatValue() {
-		return value.floatValue();
+		return (float) doubleValue();
 	}
 	
 	@Override
 	public byte byteValue() {
-		return value.byteValue();
+		return (byte) value;
 	}
 	
 	@Override
 	public short shortValue() {
-		return value.shortValue();
+		return (short) value;
 	}
 	
 	public void setValue(BigInteger value) {
-		this.value = value;
+		this.value = value.longValue();
 	}
 	
 	public <T extends UInt> boolean lte(T sequence) {
@@ -185,22 +248,35 @@ abstract public class UInt<Subclass extends UInt> extends Number implements Seri
 	}
 	
 	public boolean testBit(int f) {
-		// TODO, optimized ;) // move to Uint32
-		return value.testBit(f);
+		return f < 64 ? (value >>> f & 1) != 0 : value < 0 && !isUnsigned();
 	}
 	
 	public boolean isZero() {
-		return value.signum() == 0;
+		return value == 0;
 	}
 	
 	static public abstract class UINTTranslator<T extends UInt> extends TypeTranslator<T> {
 		public abstract T newInstance(BigInteger i);
 		
+		public abstract T newInstance(long i);
+		
 		public abstract int byteWidth();
 		
 		@Override
 		public T fromParser(BinaryParser parser, Integer hint) {
-			return newInstance(new BigInteger(1, parser.read(byteWidth())));
+			// read fixed widths in place instead of copying into a byte[] first
+			switch (byteWidth()) {
+				case 1:
+					return newInstance(parser.readUInt8());
+				case 2:
+					return newInstance(parser.readUInt16());
+				case 4:
+					return newInstance(parser.readUInt32());
+				case 8:
+					return newInstance(parser.readUInt64());
+				default:
+					return newInstance(new BigInteger(1, parser.read(byteWidth())));
+			}
 		}
 		
 		@Override
@@ -214,13 +290,15 @@ abstract public class UInt<Subclass extends UInt> extends Number implements Seri
 		
 		@Override
 		public T fromLong(long aLong) {
-			return newInstance(BigInteger.valueOf(aLong));
+			return newInstance(aLong);
 		}
 		
 		@Override
 		public T fromString(String value) {
-			int radix = byteWidth() <= 4 ? 10 : 16;
-			return newInstance(new BigInteger(value, radix));
+			if (byteWidth() <= 4) {
+				return newInstance(Long.parseLong(value));
+			}
+			return newInstance(Long.parseUnsignedLong(value, 16));
 		}
 		
 		@Override
@@ -235,7 +313,7 @@ abstract public class UInt<Subclass extends UInt> extends Number implements Seri
 		
 		@Override
 		public void toBytesSink(T obj, BytesSink to) {
-			to.add(obj.toByteArray());
+			obj.writeTo(to);
 		}
 	}
 }
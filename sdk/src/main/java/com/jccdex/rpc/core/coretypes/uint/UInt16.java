@@ -17,6 +17,11 @@ public class UInt16 extends UInt<UInt16> {
             return new UInt16(i);
         }
 
+        @Override
+        public UInt16 newInstance(long i) {
+            return new UInt16(i);
+        }
+
         @Override
         public int byteWidth() {
             return 2;
@@ -35,6 +40,10 @@ public class UInt16 extends UInt<UInt16> {
         super(s);
     }
 
+    public UInt16(long value) {
+        super(value);
+    }
+
     public UInt16(String s) {
         super(s);
     }
@@ -53,6 +62,11 @@ public class UInt16 extends UInt<UInt16> {
         return new UInt16(n);
     }
 
+    @Override
+    public UInt16 instanceFrom(long n) {
+        return new UInt16(n);
+    }
+
     @Override
     public Integer value() {
         return intValue();
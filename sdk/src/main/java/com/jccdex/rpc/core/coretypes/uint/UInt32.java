@@ -17,6 +17,11 @@ public class UInt32 extends UInt<UInt32> {
             return new UInt32(i);
         }
 
+        @Override
+        public UInt32 newInstance(long i) {
+            return new UInt32(i);
+        }
+
         @Override
         public int byteWidth() {
             return 4;
@@ -34,6 +39,10 @@ public class UInt32 extends UInt<UInt32> {
     public UInt32(Number s) {
         super(s);
     }
+
+    public UInt32(long value) {
+        super(value);
+    }
     public UInt32(String s) {
         super(s);
     }
@@ -52,6 +61,11 @@ public class UInt32 extends UInt<UInt32> {
         return new UInt32(n);
     }
 
+    @Override
+    public UInt32 instanceFrom(long n) {
+        return new UInt32(n);
+    }
+
     @Override
     public Long value() {
         return longValue();
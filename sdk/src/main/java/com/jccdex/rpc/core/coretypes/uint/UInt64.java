@@ -17,6 +17,11 @@ public class UInt64 extends UInt<UInt64> {
             return new UInt64(i);
         }
 
+        @Override
+        public UInt64 newInstance(long i) {
+            return new UInt64(i);
+        }
+
         @Override
         public int byteWidth() {
             return 8;
@@ -35,6 +40,10 @@ public class UInt64 extends UInt<UInt64> {
         super(s);
     }
 
+    public UInt64(long value) {
+        super(value);
+    }
+
     public UInt64(String s) {
         super(s);
     }
@@ -53,6 +62,11 @@ public class UInt64 extends UInt<UInt64> {
         return new UInt64(n);
     }
 
+    @Override
+    public UInt64 instanceFrom(long n) {
+        return new UInt64(n);
+    }
+
     @Override
     public BigInteger value() {
         return bigInteger();
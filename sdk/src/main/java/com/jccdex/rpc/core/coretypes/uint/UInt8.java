@@ -17,6 +17,11 @@ public class UInt8 extends UInt<UInt8> {
             return new UInt8(i);
         }
 
+        @Override
+        public UInt8 newInstance(long i) {
+            return new UInt8(i);
+        }
+
         @Override
         public int byteWidth() {
             return 1;
@@ -35,6 +40,10 @@ public class UInt8 extends UInt<UInt8> {
         super(s);
     }
 
+    public UInt8(long value) {
+        super(value);
+    }
+
     public UInt8(String s) {
         super(s);
     }
@@ -53,6 +62,11 @@ public class UInt8 extends UInt<UInt8> {
         return new UInt8(n);
     }
 
+    @Override
+    public UInt8 instanceFrom(long n) {
+        return new UInt8(n);
+    }
+
     @Override
     public Short value() {
         return shortValue();
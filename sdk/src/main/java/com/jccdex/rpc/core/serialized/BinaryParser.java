@@ -13,6 +13,16 @@ public class BinaryParser {
 		this.bytes = bytes;
 	}
 	
+	/**
+	 * Parses bytes[offset, offset + length). pos() and size() are positions in the
+	 * whole array, so offsets read here can be used against it directly.
+	 */
+	public BinaryParser(byte[] bytes, int offset, int length) {
+		this.size = offset + length;
+		this.bytes = bytes;
+		this.cursor = offset;
+	}
+	
 	public BinaryParser(int size) {
 		this.size = size;
 	}
@@ -37,6 +47,26 @@ public class BinaryParser {
 		return ret;
 	}
 	
+	public int readUInt8() {
+		return readOneInt();
+	}
+	
+	public int readUInt16() {
+		return readOneInt() << 8 | readOneInt();
+	}
+	
+	public long readUInt32() {
+		return (long) readUInt16() << 16 | readUInt16();
+	}
+	
+	/**
+	 * Reads 8 big-endian bytes in place. Values above Long.MAX_VALUE come back
+	 * negative, use Long.toUnsignedString or mask as needed.
+	 */
+	public long readUInt64() {
+		return readUInt32() << 32 | readUInt32();
+	}
+	
 	public Field readField() {
 		int fieldCode = readFieldCode();
 		Field field = Field.fromCode(fieldCode);
@@ -89,8 +89,21 @@ public class BinarySerializer {
     }
 
     public void addLengthEncoded(SerializedType value) {
-        BytesList bytes = new BytesList();
-        value.toBytesSink(bytes);
-        addLengthEncoded(bytes);
+        if (sink instanceof ByteArraySink) {
+            // write in place and patch the length prefix afterwards
+            ByteArraySink bytes = (ByteArraySink) sink;
+            int mark = bytes.beginLengthEncoded();
+            value.toBytesSink(bytes);
+            bytes.endLengthEncoded(mark);
+            return;
+        }
+        ByteArraySink bytes = ByteArraySink.acquire();
+        try {
+            value.toBytesSink(bytes);
+            add(encodeVL(bytes.bytesLength()));
+            bytes.writeTo(sink);
+        } finally {
+            bytes.release();
+        }
     }
 }
@@ -0,0 +1,64 @@
+package com.jccdex.rpc.core.serialized;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * BinaryParser over a heap or direct ByteBuffer. Reads go through a private
+ * duplicate, so the caller's buffer position is never touched, and primitives
+ * are decoded in place rather than from copied bytes.
+ *
+ * There is deliberately no zero-copy slice reader: Hash256, AccountID, Currency
+ * and the like own an immutable byte[] that ends up as a map and interner key,
+ * so a view over the input would have to be copied anyway, and would otherwise
+ * pin or alias a buffer the caller may reuse. A view also costs about as much
+ * to allocate as the 20-32 byte copy it replaces. Amount reads its mantissa in
+ * place with readUInt64.
+ */
+public class BufferBinaryParser extends BinaryParser {
+	private final ByteBuffer buffer;
+	private final int offset;
+	
+	public BufferBinaryParser(ByteBuffer buffer) {
+		super(buffer.remaining());
+		this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		this.offset = buffer.position();
+	}
+	
+	@Override
+	public byte readOne() {
+		return buffer.get(offset + cursor++);
+	}
+	
+	@Override
+	public byte[] read(int n) {
+		byte[] ret = new byte[n];
+		// The duplicate is ours alone, so a relative bulk get is safe and
+		// avoids allocating a view per read
+		buffer.position(offset + cursor);
+		buffer.get(ret);
+		cursor += n;
+		return ret;
+	}
+	
+	@Override
+	public int readUInt16() {
+		int value = buffer.getShort(offset + cursor) & 0xFFFF;
+		cursor += 2;
+		return value;
+	}
+	
+	@Override
+	public long readUInt32() {
+		long value = buffer.getInt(offset + cursor) & 0xFFFFFFFFL;
+		cursor += 4;
+		return value;
+	}
+	
+	@Override
+	public long readUInt64() {
+		long value = buffer.getLong(offset + cursor);
+		cursor += 8;
+		return value;
+	}
+}
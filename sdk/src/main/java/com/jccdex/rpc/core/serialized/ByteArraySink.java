@@ -0,0 +1,170 @@
+package com.jccdex.rpc.core.serialized;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import com.jccdex.core.serialized.BytesSink;
+import com.jccdex.rpc.core.coretypes.hash.HalfSha512;
+
+/**
+ * Contiguous, growable BytesSink.
+ *
+ * Unlike BytesList it does not allocate per add, and a VL length prefix can be
+ * reserved before a value is written and patched once its length is known, so
+ * nested VL fields need no intermediate sink.
+ *
+ * Instances can be borrowed from a per-thread pool with acquire() and must then
+ * be handed back with release(); nothing obtained from array() may be kept after that.
+ */
+public class ByteArraySink implements BytesSink {
+	private static final int DEFAULT_CAPACITY = 256;
+	/**
+	 * Larger buffers are not kept in the pool, so one huge object doesn't pin memory per thread
+	 */
+	private static final int MAX_POOLED_CAPACITY = 64 * 1024;
+	
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+	
+	private static final ThreadLocal<ByteArraySink> POOL = new ThreadLocal<ByteArraySink>() {
+		@Override
+		protected ByteArraySink initialValue() {
+			return new ByteArraySink();
+		}
+	};
+	
+	private byte[] buffer;
+	private int len;
+	private boolean pooled;
+	private boolean inUse;
+	
+	public ByteArraySink() {
+		this(DEFAULT_CAPACITY);
+	}
+	
+	public ByteArraySink(int capacity) {
+		buffer = new byte[capacity];
+	}
+	
+	/**
+	 * Borrows this thread's pooled sink, or a fresh one if it is already borrowed
+	 * (e.g. by an enclosing serialization on the same thread).
+	 */
+	public static ByteArraySink acquire() {
+		ByteArraySink sink = POOL.get();
+		if (sink.inUse) {
+			return new ByteArraySink();
+		}
+		sink.inUse = true;
+		sink.pooled = true;
+		return sink;
+	}
+	
+	/**
+	 * Returns a sink obtained from acquire() to the pool; a no-op for unpooled sinks.
+	 */
+	public void release() {
+		len = 0;
+		if (pooled) {
+			if (buffer.length > MAX_POOLED_CAPACITY) {
+				buffer = new byte[DEFAULT_CAPACITY];
+			}
+			inUse = false;
+		}
+	}
+	
+	@Override
+	public void add(byte aByte) {
+		ensureCapacity(len + 1);
+		buffer[len++] = aByte;
+	}
+	
+	@Override
+	public void add(byte[] bytes) {
+		add(bytes, 0, bytes.length);
+	}
+	
+	public void add(byte[] bytes, int offset, int length) {
+		ensureCapacity(len + length);
+		System.arraycopy(bytes, offset, buffer, len, length);
+		len += length;
+	}
+	
+	/**
+	 * Reserves room for a VL length prefix.
+	 * 
+	 * @return the mark to pass to endLengthEncoded once the value is written
+	 */
+	public int beginLengthEncoded() {
+		ensureCapacity(len + 1);
+		return len++;
+	}
+	
+	/**
+	 * Writes the VL prefix for everything added since beginLengthEncoded(mark).
+	 * One byte was reserved, which covers values up to 192 bytes; longer values
+	 * are shifted right to make room for the 2 or 3 byte prefix.
+	 */
+	public void endLengthEncoded(int mark) {
+		int start = mark + 1;
+		byte[] prefix = BinarySerializer.encodeVL(len - start);
+		int extra = prefix.length - 1;
+		if (extra > 0) {
+			ensureCapacity(len + extra);
+			System.arraycopy(buffer, start, buffer, start + extra, len - start);
+			len += extra;
+		}
+		System.arraycopy(prefix, 0, buffer, mark, prefix.length);
+	}
+	
+	public int bytesLength() {
+		return len;
+	}
+	
+	/**
+	 * The backing array, valid from 0 to bytesLength(); not a copy.
+	 */
+	public byte[] array() {
+		return buffer;
+	}
+	
+	public byte[] bytes() {
+		return Arrays.copyOf(buffer, len);
+	}
+	
+	public String bytesHex() {
+		char[] hex = new char[len * 2];
+		for (int i = 0; i < len; i++) {
+			int b = buffer[i] & 0xFF;
+			hex[i * 2] = HEX[b >>> 4];
+			hex[i * 2 + 1] = HEX[b & 0x0F];
+		}
+		return new String(hex);
+	}
+	
+	public void updateDigest(MessageDigest digest) {
+		digest.update(buffer, 0, len);
+	}
+	
+	/**
+	 * Copies the contents into another sink.
+	 */
+	public void writeTo(BytesSink to) {
+		if (to instanceof ByteArraySink) {
+			((ByteArraySink) to).add(buffer, 0, len);
+		} else if (to instanceof HalfSha512) {
+			((HalfSha512) to).update(buffer, 0, len);
+		} else {
+			to.add(bytes());
+		}
+	}
+	
+	public void reset() {
+		len = 0;
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if (capacity > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length * 2));
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package com.jccdex.rpc.core.serialized;
 
+import java.nio.ByteBuffer;
+
 import com.jccdex.core.encoding.common.B16;
 import com.jccdex.core.serialized.BytesSink;
 import org.json.JSONArray;
@@ -99,6 +101,13 @@ public abstract class TypeTranslator<T extends SerializedType> {
 		return fromParser(new BinaryParser(b));
 	}
 	
+	/**
+	 * Parses from the buffer's remaining bytes without copying the input.
+	 */
+	public T fromBuffer(ByteBuffer buffer) {
+		return fromParser(new BufferBinaryParser(buffer));
+	}
+	
 	public T fromHex(String hex) {
 		return fromBytes(B16.decode(hex));
 	}
@@ -120,14 +129,22 @@ public abstract class TypeTranslator<T extends SerializedType> {
 	}
 	
 	public byte[] toBytes(T obj) {
-		BytesList to = new BytesList();
-		toBytesSink(obj, to);
-		return to.bytes();
+		ByteArraySink to = ByteArraySink.acquire();
+		try {
+			toBytesSink(obj, to);
+			return to.bytes();
+		} finally {
+			to.release();
+		}
 	}
 	
 	public String toHex(T obj) {
-		BytesList to = new BytesList();
-		toBytesSink(obj, to);
-		return to.bytesHex();
+		ByteArraySink to = ByteArraySink.acquire();
+		try {
+			toBytesSink(obj, to);
+			return to.bytesHex();
+		} finally {
+			to.release();
+		}
 	}
 }
@@ -287,6 +287,13 @@ public enum EngineResult implements SerializedType {
 	public static Boolean isPastSeq(EngineResult result) {
 		return ((result == tefPAST_SEQ) || (result == terPRE_SEQ));
 	}
+
+	/**
+	 * tes与tec类结果已写入账本,交易的sequence被消耗
+	 */
+	public static Boolean isClaimed(EngineResult result) {
+		return (result.class_ == tesSUCCESS) || (result.class_ == tecCLAIM);
+	}
 	
 	public EngineResult resultClass() {
 		return class_;
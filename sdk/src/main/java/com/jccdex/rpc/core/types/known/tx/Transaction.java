@@ -3,13 +3,15 @@ package com.jccdex.rpc.core.types.known.tx;
 import java.util.List;
 
 import com.jccdex.core.crypto.ecdsa.IKeyPair;
-import com.jccdex.rpc.core.serialized.BytesList;
+import com.jccdex.core.serialized.BytesSink;
+import com.jccdex.rpc.core.serialized.ByteArraySink;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import com.jccdex.rpc.core.coretypes.AccountID;
 import com.jccdex.rpc.core.coretypes.Amount;
 import com.jccdex.rpc.core.coretypes.Blob;
+import com.jccdex.rpc.core.coretypes.FormatSerializer;
 import com.jccdex.rpc.core.coretypes.STArray;
 import com.jccdex.rpc.core.coretypes.STObject;
 import com.jccdex.rpc.core.coretypes.hash.HalfSha512;
@@ -59,25 +61,33 @@ public class Transaction extends STObject {
 	
 	public Hash256 signingHash() {
 		HalfSha512 signing = HalfSha512.prefixed256(HashPrefix.txSign);
-		toBytesSink(signing, new FieldFilter() {
-			@Override
-			public boolean evaluate(Field a) {
-				return a.isSigningField();
-			}
-		});
+		signingFieldsToBytesSink(signing);
 		return signing.finish();
 	}
 	
 	public byte[] signingData() {
-		BytesList bl = new BytesList();
-		bl.add(HashPrefix.txSign.bytes);
-		toBytesSink(bl, new FieldFilter() {
+		ByteArraySink bl = ByteArraySink.acquire();
+		try {
+			bl.add(HashPrefix.txSign.bytes);
+			signingFieldsToBytesSink(bl);
+			return bl.bytes();
+		} finally {
+			bl.release();
+		}
+	}
+	
+	private void signingFieldsToBytesSink(BytesSink to) {
+		FormatSerializer serializer = FormatSerializer.forFormat(getFormat());
+		if (serializer != null) {
+			serializer.writeSigning(this, to);
+			return;
+		}
+		toBytesSink(to, new FieldFilter() {
 			@Override
 			public boolean evaluate(Field a) {
 				return a.isSigningField();
 			}
 		});
-		return bl.bytes();
 	}
 
 	public Boolean getGuomi() {
@@ -118,6 +118,14 @@ public class TransactionResult implements Comparable<TransactionResult> {
 	}
 	
 	public static TransactionResult fromJSON(JSONObject json) {
+		return fromJSON(json, false);
+	}
+	
+	/**
+	 * @param lazy decode binary tx and meta on first read (see STObject.lazy), in
+	 *             which case a malformed field only throws when it is read
+	 */
+	public static TransactionResult fromJSON(JSONObject json, boolean lazy) {
 		boolean binary;
 		String metaKey = json.has("meta") ? "meta" : "metaData";
 		String txKey = json.has("transaction") ? "transaction" : json.has("tx") ? "tx" : json.has("tx_blob") ? "tx_blob" : null;
@@ -130,7 +138,7 @@ public class TransactionResult implements Comparable<TransactionResult> {
 			// This should parse the `hash` field
 			txn = (Transaction) STObject.fromJSONObject(json);
 		} else {
-			txn = (Transaction) parseObject(json, txKey, binary);
+			txn = (Transaction) parseObject(json, txKey, binary, lazy);
 			if (json.has("hash")) {
 				txn.put(Hash256.hash, Hash256.fromHex(json.getString("hash")));
 			} else if (binary) {
@@ -138,7 +146,7 @@ public class TransactionResult implements Comparable<TransactionResult> {
 				txn.put(Hash256.hash, Index.transactionID(decode));
 			}
 		}
-		TransactionMeta meta = (TransactionMeta) parseObject(json, metaKey, binary);
+		TransactionMeta meta = (TransactionMeta) parseObject(json, metaKey, binary, lazy);
 		long ledger_index = json.optLong("ledger_index", 0);
 		if (ledger_index == 0 && !binary) {
 			ledger_index = json.getJSONObject(txKey).getLong("ledger_index");
@@ -150,16 +158,28 @@ public class TransactionResult implements Comparable<TransactionResult> {
 		return tr;
 	}
 	
-	private static STObject parseObject(JSONObject json, String key, boolean binary) {
+	private static STObject parseObject(JSONObject json, String key, boolean binary, boolean lazy) {
 		if (binary) {
-			return STObject.translate.fromHex(json.getString(key));
+			return parseBinary(B16.decode(json.getString(key)), lazy);
 		} else {
 			JSONObject tx_json = json.getJSONObject(key);
 			return STObject.translate.fromJSONObject(tx_json);
 		}
 	}
 	
+	private static STObject parseBinary(byte[] bytes, boolean lazy) {
+		return lazy ? STObject.lazy(bytes) : STObject.translate.fromBytes(bytes);
+	}
+	
 	public TransactionResult(JSONObject json, Source resultMessageSource) {
+		this(json, resultMessageSource, false);
+	}
+	
+	/**
+	 * @param lazy decode binary tx and meta on first read (see STObject.lazy), in
+	 *             which case a malformed field only throws when it is read
+	 */
+	public TransactionResult(JSONObject json, Source resultMessageSource, boolean lazy) {
 		message = json;
 		if (resultMessageSource == Source.transaction_subscription_notification) {
 			engineResult = EngineResult.valueOf(json.getString("engine_result"));
@@ -225,8 +245,8 @@ public class TransactionResult implements Comparable<TransactionResult> {
 				boolean account_tx = resultMessageSource == Source.request_account_tx_binary;
 				String tx = json.getString(account_tx ? "tx_blob" : "tx");
 				byte[] decodedTx = B16.decode(tx);
-				meta = (TransactionMeta) STObject.translate.fromHex(json.getString("meta"));
-				this.txn = (Transaction) STObject.translate.fromBytes(decodedTx);
+				meta = (TransactionMeta) parseBinary(B16.decode(json.getString("meta")), lazy);
+				this.txn = (Transaction) parseBinary(decodedTx, lazy);
 				if (account_tx) {
 					hash = Index.transactionID(decodedTx);
 				} else {
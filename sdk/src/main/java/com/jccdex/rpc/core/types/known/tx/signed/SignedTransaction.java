@@ -5,24 +5,24 @@ import java.util.Arrays;
 import com.jccdex.core.crypto.ecdsa.IKeyPair;
 import com.jccdex.core.crypto.ecdsa.Seed;
 import com.jccdex.core.crypto.ecdsa.SeedSM;
-import com.jccdex.rpc.core.serialized.BytesList;
-import com.jccdex.rpc.core.serialized.MultiSink;
-import com.jccdex.core.utils.SM3;
+import com.jccdex.rpc.core.serialized.ByteArraySink;
 import com.jccdex.rpc.core.coretypes.Amount;
 import com.jccdex.rpc.core.coretypes.Blob;
-import com.jccdex.rpc.core.coretypes.STObject;
+import com.jccdex.rpc.core.coretypes.FormatSerializer;
 import com.jccdex.rpc.core.coretypes.hash.HalfSha512;
 import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import com.jccdex.rpc.core.coretypes.hash.Sm3;
 import com.jccdex.rpc.core.coretypes.hash.prefixes.HashPrefix;
 import com.jccdex.rpc.core.coretypes.uint.UInt32;
+import com.jccdex.rpc.core.fields.Field;
 import com.jccdex.rpc.core.serialized.enums.TransactionType;
 import com.jccdex.rpc.core.types.known.tx.Transaction;
 
 
 public class SignedTransaction {
     private SignedTransaction(Transaction of) {
-        // TODO: is this just over kill ?
-        txn = (Transaction) STObject.translate.fromBytes(of.toBytes());
+        // signing only sets top level fields, so the values can be shared
+        txn = (Transaction) of.copy();
         this.guomi = of.getGuomi();
     }
 
@@ -81,32 +81,51 @@ public class SignedTransaction {
         }
        
         txn.checkFormat();
-        signingData = txn.signingData();
-        //System.out.println("------------");
-        //System.out.println(JsonUtils.toJsonString(txn));
-        if (previousSigningData != null && Arrays.equals(signingData, previousSigningData)) {
-            return;
-        }
+        // one pass over the fields: the signing data, with the spot where
+        // TxnSignature goes noted so the blob is spliced rather than re-serialized
+        FormatSerializer serializer = FormatSerializer.forFormat(txn.getFormat());
+        ByteArraySink sink = ByteArraySink.acquire();
         try {
-            txn.txnSignature(new Blob(keyPair.signMessage(signingData)));
-            BytesList blob = new BytesList();
+            sink.add(HashPrefix.txSign.bytes);
+            int signatureAt = serializer.writeSigning(txn, sink, Field.TxnSignature);
+            signingData = sink.bytes();
+            //System.out.println("------------");
+            //System.out.println(JsonUtils.toJsonString(txn));
+            if (previousSigningData != null && Arrays.equals(signingData, previousSigningData)) {
+                return;
+            }
+            Blob signature = new Blob(keyPair.signMessage(signingData));
+            txn.txnSignature(signature);
+            // the signing bytes are in signingData now, so the sink is reused for the blob
+            sink.reset();
+            if (signatureAt < 0) {
+                txn.toBytesSink(sink);
+            } else {
+                int start = HashPrefix.txSign.bytes.length;
+                sink.add(signingData, start, signatureAt - start);
+                sink.add(Field.TxnSignature.getBytes());
+                int mark = sink.beginLengthEncoded();
+                signature.toBytesSink(sink);
+                sink.endLengthEncoded(mark);
+                sink.add(signingData, signatureAt, signingData.length - signatureAt);
+            }
+            tx_blob = sink.bytesHex();
             if(this.guomi) {
-                SM3 id = SM3.prefixed256(HashPrefix.transactionID.bytes());
-                txn.toBytesSink(new MultiSink(blob, id));
-                tx_blob = blob.bytesHex();
-                hash = new Hash256(id.finish());
+                Sm3 id = Sm3.prefixed256(HashPrefix.transactionID);
+                id.update(sink.array(), 0, sink.bytesLength());
+                hash = id.finish();
             } else {
                 HalfSha512 id = HalfSha512.prefixed256(HashPrefix.transactionID);
-                txn.toBytesSink(new MultiSink(blob, id));
-                tx_blob = blob.bytesHex();
+                id.update(sink.array(), 0, sink.bytesLength());
                 hash = id.finish();
             }
-
         } catch (Exception e) {
             // electric paranoia
             previousSigningData = null;
             throw new RuntimeException(e);
-        } /*else {*/
+        } finally {
+            sink.release();
+        }
         previousSigningData = signingData;
         // }
     }
@@ -12,10 +12,9 @@ import com.jccdex.rpc.core.types.known.sle.entries.DirectoryNode;
 import com.jccdex.rpc.core.types.known.sle.entries.OfferDirectory;
 import org.json.JSONArray;
 import org.json.JSONObject;
-import org.json.JSONTokener;
 import org.json.JSONWriter;
 
-import java.io.FileReader;
+import java.io.File;
 import java.io.IOException;
 import java.util.Iterator;
 
@@ -291,28 +290,36 @@ public class AccountState extends ShaMap {
         return (AccountState) super.copy();
     }
 
+    /**
+     * Streams the dump's entries into the tree, see LedgerDumpLoader.
+     */
     public static AccountState loadFromLedgerDump(String filePath) throws IOException {
-        FileReader reader = new FileReader(filePath);
-        JSONTokener tokenizer = new JSONTokener(reader);
-        JSONObject ledger = new JSONObject(tokenizer);
-        if (ledger.has("result")) {
-            ledger = ledger.getJSONObject("result");
-        }
-        if (ledger.has("ledger")) {
-            ledger = ledger.getJSONObject("ledger");
-        }
-        JSONArray array = ledger.getJSONArray("accountState");
-        reader.close();
-        return parseShaMap(array);
+        return new LedgerDumpLoader().load(new File(filePath));
     }
 
     public static AccountState parseShaMap(JSONArray array) {
-        AccountState map = new AccountState();
+        ShaMapBuilder builder = new ShaMapBuilder();
         for (int i = 0; i < array.length(); i++) {
             JSONObject jsonItem = array.getJSONObject(i);
-            map.addLE((LedgerEntry) STObject.fromJSONObject(jsonItem));
+            LedgerEntry entry = (LedgerEntry) STObject.fromJSONObject(jsonItem);
+            builder.add(entry.index(), new LedgerEntryItem(entry));
         }
-        return map;
+        return builder.build(new AccountState());
+    }
+
+    /**
+     * Builds the state tree of `entries` in one pass (see ShaMapBuilder),
+     * which is much faster than calling addLE for each of them.
+     */
+    public static AccountState fromEntries(Iterable<? extends LedgerEntry> entries, ShaMapBuilder builder) {
+        for (LedgerEntry entry : entries) {
+            builder.add(entry.index(), new LedgerEntryItem(entry));
+        }
+        return builder.build(new AccountState());
+    }
+
+    public static AccountState fromEntries(Iterable<? extends LedgerEntry> entries) {
+        return fromEntries(entries, new ShaMapBuilder());
     }
 
 }
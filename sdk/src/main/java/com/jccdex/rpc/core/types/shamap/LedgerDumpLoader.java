@@ -0,0 +1,170 @@
+package com.jccdex.rpc.core.types.shamap;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jccdex.rpc.core.coretypes.STObject;
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import com.jccdex.rpc.core.types.known.sle.LedgerEntry;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Loads the accountState of a ledger dump (the response of `ledger` with
+ * `accounts` set, or just its result or ledger object) into an AccountState.
+ *
+ * The dump is streamed rather than parsed into one JSONObject, and its
+ * entries go straight into a ShaMapBuilder, so apart from the tree being
+ * built only a single entry is held at a time. Entries may be JSON objects,
+ * or `{"data": <hex>, "index": <hex>}` as returned with `binary` set, which
+ * are decoded lazily.
+ */
+public class LedgerDumpLoader {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    public static final int DEFAULT_PROGRESS_INTERVAL = 100000;
+
+    public interface ProgressListener {
+        /**
+         * @param entries how many entries have been read so far
+         * @param bytes   how far into the dump they were
+         */
+        void onProgress(long entries, long bytes);
+    }
+
+    private ShaMapBuilder builder = new ShaMapBuilder();
+    private ProgressListener listener;
+    private int interval = DEFAULT_PROGRESS_INTERVAL;
+
+    public LedgerDumpLoader builder(ShaMapBuilder builder) {
+        this.builder = builder;
+        return this;
+    }
+
+    /**
+     * Has `listener` called every `interval` entries, and once at the end.
+     *
+     * @throws IllegalArgumentException if interval isn't positive
+     */
+    public LedgerDumpLoader progress(ProgressListener listener, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Progress interval must be positive: " + interval);
+        }
+        this.listener = listener;
+        this.interval = interval;
+        return this;
+    }
+
+    public AccountState load(File dump) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(dump)) {
+            return load(parser);
+        }
+    }
+
+    public AccountState load(InputStream dump) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(dump)) {
+            return load(parser);
+        }
+    }
+
+    private AccountState load(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT || !findAccountState(parser)) {
+            throw new IOException("No accountState in ledger dump");
+        }
+        long entries = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Unexpected " + parser.getCurrentToken() + " in accountState at "
+                        + parser.getCurrentLocation());
+            }
+            LedgerEntry entry = readEntry(parser);
+            builder.add(entry.index(), new LedgerEntryItem(entry));
+            entries++;
+            if (listener != null && entries % interval == 0) {
+                listener.onProgress(entries, parser.getCurrentLocation().getByteOffset());
+            }
+        }
+        if (listener != null) {
+            listener.onProgress(entries, parser.getCurrentLocation().getByteOffset());
+        }
+        return builder.build(new AccountState());
+    }
+
+    /**
+     * Moves the parser, which is at the start of an object, to the start of
+     * its accountState, looking into `result` and `ledger` objects.
+     *
+     * @return false if there isn't one, with the object skipped
+     */
+    private static boolean findAccountState(JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("accountState".equals(name) && token == JsonToken.START_ARRAY) {
+                return true;
+            }
+            if (("result".equals(name) || "ledger".equals(name)) && token == JsonToken.START_OBJECT) {
+                if (findAccountState(parser)) {
+                    return true;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return false;
+    }
+
+    private static LedgerEntry readEntry(JsonParser parser) throws IOException {
+        JSONObject json = readObject(parser);
+        if (json.has("data") && !json.has("LedgerEntryType")) {
+            LedgerEntry entry = (LedgerEntry) STObject.lazyHex(json.getString("data"));
+            entry.index(Hash256.fromHex(json.getString("index")));
+            return entry;
+        }
+        return (LedgerEntry) STObject.fromJSONObject(json);
+    }
+
+    private static JSONObject readObject(JsonParser parser) throws IOException {
+        JSONObject object = new JSONObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            object.put(name, readValue(parser));
+        }
+        return object;
+    }
+
+    /**
+     * The value at the parser's current token, as JSONTokener would have it.
+     */
+    private static Object readValue(JsonParser parser) throws IOException {
+        switch (parser.getCurrentToken()) {
+            case START_OBJECT:
+                return readObject(parser);
+            case START_ARRAY:
+                JSONArray array = new JSONArray();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    array.put(readValue(parser));
+                }
+                return array;
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return JSONObject.NULL;
+            default:
+                throw new IOException("Unexpected " + parser.getCurrentToken() + " at " + parser.getCurrentLocation());
+        }
+    }
+}
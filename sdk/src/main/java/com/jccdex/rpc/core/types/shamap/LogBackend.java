@@ -0,0 +1,193 @@
+package com.jccdex.rpc.core.types.shamap;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+
+/**
+ * A NodeStore backend that appends nodes to a single file.
+ *
+ * Each record is the 32 byte key, a 4 byte length and then the content. The
+ * file is only ever appended to, so it's never left inconsistent: a record
+ * cut short by a crash is dropped when the file is next opened. Records are
+ * found through an in memory open addressing table of the keys' first 8 bytes
+ * and the records' offsets, about 12 bytes a node rather than a map entry of
+ * objects; the full key is checked against the file before a record is
+ * returned. The table is rebuilt by scanning the file on open.
+ */
+public class LogBackend implements NodeStore.KeyValueBackend, Closeable {
+    private static final int HEADER = 32 + 4;
+
+    private final FileChannel channel;
+    private long end;
+
+    // open addressing, keyed by the first 8 bytes of a key (which is a hash)
+    private long[] prefixes;
+    private long[] offsets; // record offset + 1, 0 being an empty slot
+    private int size;
+
+    public LogBackend(File file) {
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            prefixes = new long[1024];
+            offsets = new long[1024];
+            recover();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void recover() throws IOException {
+        long length = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (end + HEADER <= length) {
+            header.clear();
+            readFully(header, end);
+            int contentLength = header.getInt(32);
+            if (contentLength < 0 || end + HEADER + contentLength > length) {
+                break;
+            }
+            index(header.getLong(0), end);
+            end += HEADER + contentLength;
+        }
+        if (end < length) {
+            channel.truncate(end);
+        }
+    }
+
+    @Override
+    public synchronized void put(Hash256 key, byte[] content) {
+        if (find(key) != -1) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER + content.length);
+        record.put(key.bytes()).putInt(content.length).put(content).flip();
+        try {
+            long offset = end;
+            while (record.hasRemaining()) {
+                channel.write(record, offset + record.position());
+            }
+            end += record.limit();
+            index(prefix(key), offset);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public byte[] get(Hash256 key) {
+        long offset;
+        synchronized (this) {
+            offset = find(key);
+        }
+        if (offset == -1) {
+            return null;
+        }
+        try {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            readFully(length, offset + 32);
+            ByteBuffer content = ByteBuffer.allocate(length.getInt(0));
+            readFully(content, offset + HEADER);
+            return content.array();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Forces everything put so far to disk.
+     */
+    public void sync() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return the offset of key's record, or -1 if there isn't one
+     */
+    private long find(Hash256 key) {
+        long prefix = prefix(key);
+        int mask = prefixes.length - 1;
+        for (int i = slot(prefix, mask); offsets[i] != 0; i = (i + 1) & mask) {
+            if (prefixes[i] == prefix && keyAt(offsets[i] - 1, key)) {
+                return offsets[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean keyAt(long offset, Hash256 key) {
+        ByteBuffer stored = ByteBuffer.allocate(32);
+        try {
+            readFully(stored, offset);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return Arrays.equals(stored.array(), key.bytes());
+    }
+
+    private void index(long prefix, long offset) {
+        if ((size + 1) * 4 > prefixes.length * 3) {
+            grow();
+        }
+        insert(prefix, offset + 1);
+        size++;
+    }
+
+    private void insert(long prefix, long offsetPlusOne) {
+        int mask = prefixes.length - 1;
+        int i = slot(prefix, mask);
+        while (offsets[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        prefixes[i] = prefix;
+        offsets[i] = offsetPlusOne;
+    }
+
+    private void grow() {
+        long[] oldPrefixes = prefixes, oldOffsets = offsets;
+        prefixes = new long[oldPrefixes.length * 2];
+        offsets = new long[oldOffsets.length * 2];
+        for (int i = 0; i < oldOffsets.length; i++) {
+            if (oldOffsets[i] != 0) {
+                insert(oldPrefixes[i], oldOffsets[i]);
+            }
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of log at " + position);
+            }
+        }
+    }
+
+    private static long prefix(Hash256 key) {
+        return ByteBuffer.wrap(key.bytes()).getLong();
+    }
+
+    private static int slot(long prefix, int mask) {
+        // keys are hashes already, so any of their bits will do
+        return (int) (prefix ^ (prefix >>> 32)) & mask;
+    }
+}
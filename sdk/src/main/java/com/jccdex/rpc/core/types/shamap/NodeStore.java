@@ -1,11 +1,32 @@
 package com.jccdex.rpc.core.types.shamap;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.jccdex.rpc.core.coretypes.STObject;
 import com.jccdex.rpc.core.coretypes.hash.HalfSha512;
 import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import com.jccdex.rpc.core.coretypes.uint.UInt32;
+import com.jccdex.rpc.core.serialized.BinaryParser;
+import com.jccdex.rpc.core.serialized.ByteArraySink;
+import com.jccdex.rpc.core.types.known.sle.LedgerEntry;
+import com.jccdex.rpc.core.types.known.tx.Transaction;
+import com.jccdex.rpc.core.types.known.tx.result.TransactionMeta;
+import com.jccdex.rpc.core.types.known.tx.result.TransactionResult;
 
 /**
-
- * This is a toy implementation for illustrative purposes.
+ * Stores ShaMap nodes keyed by their hash, and loads them back on demand.
+ *
+ * flush() writes a map's nodes out and drops them from the heap; inner nodes
+ * then only keep their children's hashes and load them through a bounded
+ * cache when they are walked or looked up. load() does the same for a map
+ * that only exists in the store. Nodes loaded from the store are never
+ * modified in place: maps backed by a store always copy on write, so changes
+ * are made to copies held by their (modified) parents until the next flush.
+ *
+ * See LogBackend for a persistent backend.
  */
 public class NodeStore {
     /**
@@ -18,9 +39,34 @@ public class NodeStore {
         byte[] get(Hash256 key);
     }
 
+    public static final int DEFAULT_CACHE_SIZE = 65536;
+
+    // Versions of nodes loaded from the store, which no map ever has, so they
+    // are always copied before being changed.
+    static final int STORED_VERSION = -2;
+
+    // What kind of node follows, like the type of rippled's NodeObject. This
+    // isn't part of what's hashed.
+    private static final byte INNER = 1, ACCOUNT_STATE = 2, TRANSACTION = 3, BYTES = 4;
+
     KeyValueBackend backend;
+    private final Map<Hash256, ShaMapNode> cache;
+
     public NodeStore(KeyValueBackend backend) {
+        this(backend, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize how many loaded nodes to keep on the heap
+     */
+    public NodeStore(KeyValueBackend backend, final int cacheSize) {
         this.backend = backend;
+        cache = Collections.synchronizedMap(new LinkedHashMap<Hash256, ShaMapNode>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Hash256, ShaMapNode> eldest) {
+                return size() > cacheSize;
+            }
+        });
     }
     /**
      * All data stored is keyed by the hash of it's contents.
@@ -61,4 +107,152 @@ public class NodeStore {
     public Hash256 set(byte[] content) {
         return storeContent(content);
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes every node of map that isn't stored yet, then lets go of them, so
+     * from then on the map loads its nodes from this store as needed.
+     *
+     * @return the root hash, to load() the map with later
+     */
+    public Hash256 flush(ShaMapInner map) {
+        flushInner(map);
+        map.doCoW = true;
+        return map.hash();
+    }
+
+    /**
+     * Points an empty map at a root previously flushed to this store.
+     */
+    public void load(ShaMapInner into, Hash256 root) {
+        if (!into.empty()) {
+            throw new IllegalStateException("Can only load into an empty map");
+        }
+        ShaMapNode node = node(root, 0);
+        if (!node.isInner()) {
+            throw new IllegalStateException(root + " isn't an inner node");
+        }
+        ShaMapInner inner = node.asInner();
+        into.stored = inner.stored.clone();
+        into.store = this;
+        into.slotBits = inner.slotBits;
+        into.hash = root;
+        into.doCoW = true;
+    }
+
+    private void flushInner(ShaMapInner inner) {
+        for (int i = 0; i < 16; i++) {
+            ShaMapNode branch = inner.branches[i];
+            if (branch == null) {
+                continue;
+            }
+            if (branch.isInner()) {
+                if (branch.asInner().version != STORED_VERSION) {
+                    flushInner(branch.asInner());
+                }
+            } else if (branch.asLeaf().version != STORED_VERSION) {
+                storeNode(branch);
+            }
+            if (inner.stored == null) {
+                inner.stored = new Hash256[16];
+            }
+            inner.stored[i] = branch.hash();
+            inner.branches[i] = null;
+        }
+        inner.store = this;
+        storeNode(inner);
+    }
+
+    private void storeNode(ShaMapNode node) {
+        ByteArraySink content = ByteArraySink.acquire();
+        try {
+            if (node.isInner()) {
+                content.add(INNER);
+            } else {
+                ShaMapItem item = node.asLeaf().item;
+                if (item instanceof LedgerEntryItem) {
+                    content.add(ACCOUNT_STATE);
+                } else if (item instanceof TransactionResultItem) {
+                    content.add(TRANSACTION);
+                    ((TransactionResultItem) item).result.ledgerIndex.toBytesSink(content);
+                } else if (item instanceof BytesItem) {
+                    content.add(BYTES);
+                } else {
+                    throw new IllegalArgumentException("Can't store " + item.getClass().getSimpleName());
+                }
+            }
+            node.toBytesSink(content);
+            backend.put(node.hash(), content.bytes());
+        } finally {
+            content.release();
+        }
+    }
+
+    /**
+     * The node with the given hash, from the cache or else the backend.
+     */
+    ShaMapNode node(Hash256 hash, int depth) {
+        ShaMapNode node = cache.get(hash);
+        if (node == null) {
+            byte[] content = backend.get(hash);
+            if (content == null) {
+                throw new IllegalStateException("Missing node " + hash);
+            }
+            node = decode(content, depth);
+            node.hash = hash;
+            cache.put(hash, node);
+        }
+        return node;
+    }
+
+    private ShaMapNode decode(byte[] content, int depth) {
+        int end = content.length - 32;
+        switch (content[0]) {
+            case INNER: {
+                ShaMapInner inner = new ShaMapInner(true, depth, STORED_VERSION);
+                inner.stored = new Hash256[16];
+                inner.store = this;
+                for (int i = 0; i < 16; i++) {
+                    int from = 1 + i * 32;
+                    Hash256 child = new Hash256(Arrays.copyOfRange(content, from, from + 32));
+                    if (!child.isZero()) {
+                        inner.stored[i] = child;
+                        inner.slotBits |= 1 << i;
+                    }
+                }
+                return inner;
+            }
+            case ACCOUNT_STATE: {
+                LedgerEntry entry = (LedgerEntry) STObject.lazy(content, 1, end - 1);
+                Hash256 index = index(content, end);
+                entry.index(index);
+                return leaf(index, new LedgerEntryItem(entry));
+            }
+            case TRANSACTION: {
+                long ledgerIndex = UInt32.translate.fromBytes(Arrays.copyOfRange(content, 1, 5)).longValue();
+                BinaryParser parser = new BinaryParser(content, 5, end - 5);
+                int size = parser.readVLLength();
+                Transaction txn = (Transaction) STObject.lazy(content, parser.pos(), size);
+                parser.skip(size);
+                size = parser.readVLLength();
+                TransactionMeta meta = (TransactionMeta) STObject.lazy(content, parser.pos(), size);
+                Hash256 index = index(content, end);
+                return leaf(index, new TransactionResultItem(new TransactionResult(ledgerIndex, index, txn, meta)));
+            }
+            case BYTES: {
+                return leaf(index(content, end), new BytesItem(Arrays.copyOfRange(content, 1, end)));
+            }
+            default:
+                throw new IllegalStateException("Unknown node type " + content[0]);
+        }
+    }
+
+    private static Hash256 index(byte[] content, int end) {
+        return new Hash256(Arrays.copyOfRange(content, end, end + 32));
+    }
+
+    private static ShaMapLeaf leaf(Hash256 index, ShaMapItem item) {
+        ShaMapLeaf leaf = new ShaMapLeaf(index, item);
+        leaf.version = STORED_VERSION;
+        return leaf;
+    }
+}
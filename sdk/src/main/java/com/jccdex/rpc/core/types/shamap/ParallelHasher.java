@@ -0,0 +1,97 @@
+package com.jccdex.rpc.core.types.shamap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+
+/**
+ * Hashes a ShaMap with independent subtrees hashed in parallel on a ForkJoinPool.
+ *
+ * An inner node's hash only depends on its children's, so every inner node above
+ * `forkDepth` forks its unhashed inner children off as tasks, hashes the rest
+ * itself, joins, and then hashes itself as usual from the (now cached) child
+ * hashes. Below `forkDepth` subtrees are hashed sequentially, and a map with
+ * fewer than `threshold` leaves isn't forked at all. Each node is still hashed
+ * exactly once, the same way, so the root is identical to map.hash().
+ *
+ * The map must not be modified while it's being hashed.
+ */
+public class ParallelHasher {
+    // 16^2 = 256 tasks, plenty to keep any common core count busy
+    public static final int DEFAULT_FORK_DEPTH = 2;
+    public static final int DEFAULT_THRESHOLD = 4096;
+
+    private final ForkJoinPool pool;
+    private final int forkDepth;
+    private final int threshold;
+
+    public ParallelHasher() {
+        this(ForkJoinPool.commonPool(), DEFAULT_FORK_DEPTH, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param forkDepth inner nodes at a lesser depth fork their children
+     * @param threshold maps with fewer leaves are hashed on the calling thread
+     */
+    public ParallelHasher(ForkJoinPool pool, int forkDepth, int threshold) {
+        this.pool = pool;
+        this.forkDepth = forkDepth;
+        this.threshold = threshold;
+    }
+
+    public Hash256 hash(ShaMapInner root) {
+        if (root.hash == null && countLeaves(root, threshold) >= threshold) {
+            pool.invoke(new HashTask(root));
+        }
+        return root.hash();
+    }
+
+    /**
+     * Counts leaves, but only until there are `limit` of them, so this stays
+     * cheap however big the map is.
+     */
+    private static int countLeaves(ShaMapInner inner, int limit) {
+        int count = 0;
+        for (int i = 0; i < 16 && count < limit; i++) {
+            ShaMapNode branch = inner.branches[i];
+            if (branch == null) {
+                continue;
+            }
+            if (branch.isLeaf()) {
+                count++;
+            } else {
+                count += countLeaves(branch.asInner(), limit - count);
+            }
+        }
+        return count;
+    }
+
+    private class HashTask extends RecursiveAction {
+        private final ShaMapInner inner;
+
+        HashTask(ShaMapInner inner) {
+            this.inner = inner;
+        }
+
+        @Override
+        protected void compute() {
+            if (inner.depth < forkDepth) {
+                List<HashTask> forked = new ArrayList<HashTask>();
+                for (ShaMapNode branch : inner.branches) {
+                    if (branch != null && branch.isInner() && branch.hash == null) {
+                        HashTask task = new HashTask(branch.asInner());
+                        task.fork();
+                        forked.add(task);
+                    }
+                }
+                for (int i = forked.size() - 1; i >= 0; i--) {
+                    forked.get(i).join();
+                }
+            }
+            inner.hash();
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.jccdex.rpc.core.types.shamap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+
+/**
+ * Builds a ShaMap from many items at once.
+ *
+ * Adding items one by one walks down from the root (and maybe splits a leaf)
+ * every time. Here the items are sorted by index instead (unless they were
+ * added in order already), so the items under any inner node are a contiguous
+ * run, and each inner node is filled in a single pass over its run, from the
+ * root down. Subtrees above `forkDepth` are built as ForkJoin tasks, and with
+ * `hash` set each inner node is hashed as soon as its subtree is complete, on
+ * the same thread, so the root hash comes out of the build.
+ *
+ * As with addItem, only the first of several items with the same index is
+ * kept. The result is identical to adding the items one by one.
+ */
+public class ShaMapBuilder {
+    private static final Comparator<ShaMapLeaf> BY_INDEX = new Comparator<ShaMapLeaf>() {
+        @Override
+        public int compare(ShaMapLeaf a, ShaMapLeaf b) {
+            return a.index.compareTo(b.index);
+        }
+    };
+
+    private final ForkJoinPool pool;
+    private final int forkDepth;
+    private final int threshold;
+    private final boolean hash;
+
+    private List<ShaMapLeaf> leaves = new ArrayList<ShaMapLeaf>();
+    private boolean sorted = true;
+
+    /**
+     * Builds in parallel on the common pool, leaving hashing for later.
+     */
+    public ShaMapBuilder() {
+        this(ForkJoinPool.commonPool(), ParallelHasher.DEFAULT_FORK_DEPTH, ParallelHasher.DEFAULT_THRESHOLD, false);
+    }
+
+    /**
+     * @param pool      null to build on the calling thread
+     * @param forkDepth inner nodes at a lesser depth fork their children
+     * @param threshold fewer items are built on the calling thread
+     * @param hash      whether to hash the map while building it
+     */
+    public ShaMapBuilder(ForkJoinPool pool, int forkDepth, int threshold, boolean hash) {
+        this.pool = pool;
+        this.forkDepth = forkDepth;
+        this.threshold = threshold;
+        this.hash = hash;
+    }
+
+    public ShaMapBuilder add(Hash256 index, ShaMapItem item) {
+        ShaMapLeaf leaf = new ShaMapLeaf(index, item);
+        int size = leaves.size();
+        if (sorted && size > 0 && leaves.get(size - 1).index.compareTo(index) > 0) {
+            sorted = false;
+        }
+        leaves.add(leaf);
+        return this;
+    }
+
+    public int size() {
+        return leaves.size();
+    }
+
+    /**
+     * Fills `map`, which must be empty, with everything added so far, and
+     * starts the builder over.
+     *
+     * @return map
+     */
+    public <T extends ShaMapInner> T build(T map) {
+        if (!map.empty()) {
+            throw new IllegalStateException("Can only build into an empty map");
+        }
+        ShaMapLeaf[] sortedLeaves = leaves.toArray(new ShaMapLeaf[leaves.size()]);
+        boolean parallel = pool != null && sortedLeaves.length >= threshold;
+        if (!sorted) {
+            // both sorts are stable, so the first of any duplicates stays first
+            if (parallel) {
+                Arrays.parallelSort(sortedLeaves, BY_INDEX);
+            } else {
+                Arrays.sort(sortedLeaves, BY_INDEX);
+            }
+        }
+        leaves = new ArrayList<ShaMapLeaf>();
+        sorted = true;
+
+        int count = dropDuplicates(sortedLeaves);
+        BuildTask root = new BuildTask(map, sortedLeaves, 0, count, parallel);
+        if (parallel) {
+            pool.invoke(root);
+        } else {
+            root.compute();
+        }
+        return map;
+    }
+
+    /**
+     * Moves the first of each run of leaves with the same index to the front.
+     *
+     * @return how many leaves are left
+     */
+    private static int dropDuplicates(ShaMapLeaf[] leaves) {
+        if (leaves.length == 0) {
+            return 0;
+        }
+        int count = 1;
+        for (int i = 1; i < leaves.length; i++) {
+            if (!leaves[i].index.equals(leaves[count - 1].index)) {
+                leaves[count++] = leaves[i];
+            }
+        }
+        return count;
+    }
+
+    private class BuildTask extends RecursiveAction {
+        private final ShaMapInner inner;
+        private final ShaMapLeaf[] leaves;
+        // all the leaves under `inner`, sharing its first `depth` nibblets
+        private final int from, to;
+        private final boolean fork;
+
+        BuildTask(ShaMapInner inner, ShaMapLeaf[] leaves, int from, int to, boolean fork) {
+            this.inner = inner;
+            this.leaves = leaves;
+            this.from = from;
+            this.to = to;
+            this.fork = fork;
+        }
+
+        @Override
+        protected void compute() {
+            List<BuildTask> forked = null;
+            int depth = inner.depth;
+            int i = from;
+            while (i < to) {
+                int nibblet = leaves[i].index.nibblet(depth);
+                int end = i + 1;
+                while (end < to && leaves[end].index.nibblet(depth) == nibblet) {
+                    end++;
+                }
+                ShaMapNode branch;
+                if (end - i == 1) {
+                    ShaMapLeaf leaf = leaves[i];
+                    leaf.version = inner.version;
+                    branch = leaf;
+                } else {
+                    ShaMapInner child = inner.makeInnerChild();
+                    boolean forkChild = fork && depth < forkDepth;
+                    BuildTask task = new BuildTask(child, leaves, i, end, forkChild);
+                    if (forkChild) {
+                        if (forked == null) {
+                            forked = new ArrayList<BuildTask>();
+                        }
+                        task.fork();
+                        forked.add(task);
+                    } else {
+                        task.compute();
+                    }
+                    branch = child;
+                }
+                inner.branches[nibblet] = branch;
+                inner.slotBits |= 1 << nibblet;
+                i = end;
+            }
+            if (forked != null) {
+                for (int j = forked.size() - 1; j >= 0; j--) {
+                    forked.get(j).join();
+                }
+            }
+            if (hash) {
+                inner.hash();
+            }
+        }
+    }
+}
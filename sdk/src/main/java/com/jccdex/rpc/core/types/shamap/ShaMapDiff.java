@@ -2,7 +2,11 @@ package com.jccdex.rpc.core.types.shamap;
 
 import com.jccdex.rpc.core.coretypes.hash.Hash256;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class ShaMapDiff {
     public ShaMap one, two;
@@ -20,7 +24,14 @@ public class ShaMapDiff {
     public void find() {
         one.hash();
         two.hash();
-        compare(one, two);
+        walk(one, two, collector());
+    }
+
+    /**
+     * As find(), comparing disjoint branches in parallel on `pool`
+     */
+    public void find(ForkJoinPool pool) {
+        walk(one, two, collector(), pool, ParallelHasher.DEFAULT_FORK_DEPTH);
     }
 
     public ShaMapDiff inverted() {
@@ -48,80 +59,170 @@ public class ShaMapDiff {
             if (!removed) throw new AssertionError();
         }
     }
-    private void compare(ShaMapInner a, ShaMapInner b) {
-        for (int i = 0; i < 16; i++) {
-            ShaMapNode aChild = a.getBranch(i);
-            ShaMapNode bChild = b.getBranch(i);
-
-            if (aChild == null && bChild != null) {
-                trackAdded(bChild);
-                // added in B
-            } else if (aChild != null && bChild == null) {
-                trackRemoved(aChild);
-                // removed from B
-            } else if (aChild != null && !aChild.hash().equals(bChild.hash())) {
-                boolean aleaf  = aChild.isLeaf(),
-                        bLeaf  = bChild.isLeaf();
-
-                if (aleaf && bLeaf) {
-                    ShaMapLeaf la = (ShaMapLeaf) aChild;
-                    ShaMapLeaf lb = (ShaMapLeaf) bChild;
+    /**
+     * Receives the differences found by walk(), as leaves of `one` and `two`.
+     * Must be thread safe when walking in parallel.
+     */
+    public interface Visitor {
+        void onAdded(ShaMapLeaf leaf);
+        void onModified(ShaMapLeaf before, ShaMapLeaf after);
+        void onDeleted(ShaMapLeaf leaf);
+    }
+
+    /**
+     * Walks what's added, modified and deleted in `two`, on the calling
+     * thread, in index order (other than a deletion found under an inner node
+     * that replaced a leaf, which comes after that node's leaves).
+     */
+    public static void walk(ShaMapInner one, ShaMapInner two, Visitor visitor) {
+        new Comparison(one, two, visitor, -1).compute();
+    }
+
+    /**
+     * As walk(one, two, visitor), but both maps are hashed with a
+     * ParallelHasher first, and then the children of differing inner nodes
+     * above `forkDepth` are compared as separate tasks, in no particular
+     * order.
+     */
+    public static void walk(ShaMapInner one, ShaMapInner two, Visitor visitor, ForkJoinPool pool, int forkDepth) {
+        ParallelHasher hasher = new ParallelHasher(pool, forkDepth, ParallelHasher.DEFAULT_THRESHOLD);
+        hasher.hash(one);
+        hasher.hash(two);
+        pool.invoke(new Comparison(one, two, visitor, forkDepth));
+    }
+
+    private Visitor collector() {
+        return new Visitor() {
+            @Override
+            public void onAdded(ShaMapLeaf leaf) {
+                synchronized (ShaMapDiff.this) {
+                    added.add(leaf.index);
+                }
+            }
+
+            @Override
+            public void onModified(ShaMapLeaf before, ShaMapLeaf after) {
+                synchronized (ShaMapDiff.this) {
+                    modified.add(after.index);
+                }
+            }
+
+            @Override
+            public void onDeleted(ShaMapLeaf leaf) {
+                synchronized (ShaMapDiff.this) {
+                    deleted.add(leaf.index);
+                }
+            }
+        };
+    }
+
+    /**
+     * Compares two inner nodes at the same depth, either of which may be
+     * null, standing for an empty one, so that whole subtrees added or
+     * deleted are walked (and forked) the same way as changed ones.
+     */
+    private static class Comparison extends RecursiveAction {
+        private final ShaMapInner a, b;
+        private final Visitor visitor;
+        private final int forkDepth;
+
+        Comparison(ShaMapInner a, ShaMapInner b, Visitor visitor, int forkDepth) {
+            this.a = a;
+            this.b = b;
+            this.visitor = visitor;
+            this.forkDepth = forkDepth;
+        }
+
+        @Override
+        protected void compute() {
+            int depth = a != null ? a.depth : b.depth;
+            boolean fork = depth < forkDepth;
+            List<Comparison> forked = null;
+
+            for (int i = 0; i < 16; i++) {
+                ShaMapNode aChild = a == null ? null : a.getBranch(i);
+                ShaMapNode bChild = b == null ? null : b.getBranch(i);
+
+                if (aChild == null && bChild == null) {
+                    continue;
+                }
+                if (aChild != null && bChild != null && aChild.hash().equals(bChild.hash())) {
+                    // identical subtrees
+                    continue;
+                }
+                boolean aLeaf = aChild != null && aChild.isLeaf(),
+                        bLeaf = bChild != null && bChild.isLeaf();
+
+                if (aLeaf && bLeaf) {
+                    ShaMapLeaf la = aChild.asLeaf();
+                    ShaMapLeaf lb = bChild.asLeaf();
                     if (la.index.equals(lb.index)) {
-                        modified.add(la.index);
+                        visitor.onModified(la, lb);
                     } else {
-                        deleted.add(la.index);
-                        added.add(lb.index);
+                        visitor.onDeleted(la);
+                        visitor.onAdded(lb);
                     }
-                } else if (aleaf /*&& bInner*/) {
-                    ShaMapLeaf la = (ShaMapLeaf) aChild;
-                    ShaMapInner ib = (ShaMapInner) bChild;
-                    trackAdded(ib);
-
-                    if (ib.hasLeaf(la.index)) {
-                        // because trackAdded would have added it
-                        added.remove(la.index);
-                        ShaMapLeaf leaf = ib.getLeaf(la.index);
-                        if (!leaf.hash().equals(la.hash())) {
-                            modified.add(la.index);
+                } else if (aLeaf) {
+                    compareLeaf(aChild.asLeaf(), bChild == null ? null : bChild.asInner(), true);
+                } else if (bLeaf) {
+                    compareLeaf(bChild.asLeaf(), aChild == null ? null : aChild.asInner(), false);
+                } else {
+                    Comparison task = new Comparison(aChild == null ? null : aChild.asInner(),
+                                                     bChild == null ? null : bChild.asInner(),
+                                                     visitor, forkDepth);
+                    if (fork) {
+                        if (forked == null) {
+                            forked = new ArrayList<Comparison>();
                         }
+                        task.fork();
+                        forked.add(task);
                     } else {
-                        deleted.add(la.index);
+                        task.compute();
                     }
-                } else if (bLeaf /*&& aInner*/) {
-                    ShaMapLeaf lb = (ShaMapLeaf) bChild;
-                    ShaMapInner ia = (ShaMapInner) aChild;
-                    trackRemoved(ia);
-
-                    if (ia.hasLeaf(lb.index)) {
-                        // because trackRemoved would have deleted it
-                        deleted.remove(lb.index);
-                        ShaMapLeaf leaf = ia.getLeaf(lb.index);
-                        if (!leaf.hash().equals(lb.hash())) {
-                            modified.add(lb.index);
-                        }
-                    } else {
-                        added.add(lb.index);
-                    }
-                } else /*if (aInner && bInner)*/ {
-                    compare((ShaMapInner) aChild, (ShaMapInner) bChild);
+                }
+            }
+            if (forked != null) {
+                for (int i = forked.size() - 1; i >= 0; i--) {
+                    forked.get(i).join();
                 }
             }
         }
-    }
-    private void trackRemoved(ShaMapNode child) {
-        child.walkAnyLeaves(new LeafWalker() {
-            @Override
-            public void onLeaf(ShaMapLeaf leaf) {
-                deleted.add(leaf.index);
+
+        /**
+         * A leaf on one side against an inner node, or nothing, on the other.
+         * Every leaf of the inner node is new to that side, except one with the
+         * same index, which is at most modified.
+         */
+        private void compareLeaf(final ShaMapLeaf leaf, ShaMapInner inner, final boolean leafInA) {
+            final boolean[] matched = {false};
+            if (inner != null) {
+                inner.walkLeaves(new LeafWalker() {
+                    @Override
+                    public void onLeaf(ShaMapLeaf other) {
+                        if (other.index.equals(leaf.index)) {
+                            matched[0] = true;
+                            if (!other.hash().equals(leaf.hash())) {
+                                if (leafInA) {
+                                    visitor.onModified(leaf, other);
+                                } else {
+                                    visitor.onModified(other, leaf);
+                                }
+                            }
+                        } else if (leafInA) {
+                            visitor.onAdded(other);
+                        } else {
+                            visitor.onDeleted(other);
+                        }
+                    }
+                });
             }
-        });
-    }
-    private void trackAdded(ShaMapNode child) {
-        child.walkAnyLeaves(new LeafWalker() {
-            @Override
-            public void onLeaf(ShaMapLeaf leaf) {
-                added.add(leaf.index);
+            if (!matched[0]) {
+                if (leafInA) {
+                    visitor.onDeleted(leaf);
+                } else {
+                    visitor.onAdded(leaf);
+                }
             }
-        });
+        }
     }
 }
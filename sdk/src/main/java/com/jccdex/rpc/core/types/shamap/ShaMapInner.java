@@ -13,6 +13,11 @@ public class ShaMapInner extends ShaMapNode implements Iterable<ShaMapNode> {
     int version = 0;
     boolean doCoW;
     protected ShaMapNode[] branches = new ShaMapNode[16];
+    // Maps backed by a NodeStore (see NodeStore.flush/load) keep only the hashes
+    // of children that are in the store, and load them through its cache when
+    // they're needed. Both null for maps held entirely on the heap.
+    Hash256[] stored;
+    NodeStore store;
 
     public ShaMapInner(int depth) {
         this(false, depth, 0);
@@ -27,6 +32,10 @@ public class ShaMapInner extends ShaMapNode implements Iterable<ShaMapNode> {
     protected ShaMapInner copy(int version) {
         ShaMapInner copy = makeInnerOfSameClass(depth);
         System.arraycopy(branches, 0, copy.branches, 0, branches.length);
+        if (stored != null) {
+            copy.stored = stored.clone();
+            copy.store = store;
+        }
         copy.slotBits = slotBits;
         copy.hash = hash;
         copy.version = version;
@@ -59,7 +68,8 @@ public class ShaMapInner extends ShaMapNode implements Iterable<ShaMapNode> {
     }
 
     public void walkLeaves(LeafWalker leafWalker) {
-        for (ShaMapNode branch : branches) {
+        for (int i = 0; i < 16; i++) {
+            ShaMapNode branch = branch(i);
             if (branch != null) {
                 if (branch.isInner()) {
                     branch.asInner().walkLeaves(leafWalker);
@@ -72,7 +82,8 @@ public class ShaMapInner extends ShaMapNode implements Iterable<ShaMapNode> {
 
     public void walkTree(TreeWalker treeWalker) {
         treeWalker.onInner(this);
-        for (ShaMapNode branch : branches) {
+        for (int i = 0; i < 16; i++) {
+            ShaMapNode branch = branch(i);
             if (branch != null) {
                 if (branch.isLeaf()) {
                     ShaMapLeaf ln = branch.asLeaf();
@@ -89,7 +100,8 @@ public class ShaMapInner extends ShaMapNode implements Iterable<ShaMapNode> {
     public void walkHashedTree(HashedTreeWalker walker) {
         walker.onInner(hash(), this);
 
-        for (ShaMapNode branch : branches) {
+        for (int i = 0; i < 16; i++) {
+            ShaMapNode branch = branch(i);
             if (branch != null) {
                 if (branch.isLeaf()) {
                     ShaMapLeaf ln = branch.asLeaf();
@@ -109,7 +121,8 @@ public class ShaMapInner extends ShaMapNode implements Iterable<ShaMapNode> {
         ShaMapLeaf leaf = null;
         int leaves = 0;
 
-        for (ShaMapNode branch : branches) {
+        for (int i = 0; i < 16; i++) {
+            ShaMapNode branch = branch(i);
             if (branch != null) {
                 if (branch.isInner()) {
                     leaf = null;
@@ -222,11 +235,30 @@ public class ShaMapInner extends ShaMapNode implements Iterable<ShaMapNode> {
     }
 
     public ShaMapNode getBranch(int i) {
-        return branches[i];
+        return branch(i);
     }
 
     public ShaMapNode branch(int i) {
-        return branches[i];
+        ShaMapNode branch = branches[i];
+        if (branch == null && stored != null && stored[i] != null) {
+            // not pinned here, so it can be evicted from the store's cache again
+            branch = store.node(stored[i], depth + 1);
+        }
+        return branch;
+    }
+
+    /**
+     * The hash of a child without loading it if it's only in the store
+     */
+    Hash256 branchHash(int i) {
+        ShaMapNode branch = branches[i];
+        if (branch != null) {
+            return branch.hash();
+        }
+        if (stored != null && stored[i] != null) {
+            return stored[i];
+        }
+        return null;
     }
 
     protected int selectBranch(Hash256 index) {
@@ -234,21 +266,27 @@ public class ShaMapInner extends ShaMapNode implements Iterable<ShaMapNode> {
     }
 
     public boolean hasLeaf(int i) {
-        return branches[i].isLeaf();
+        return branch(i).isLeaf();
     }
     public boolean hasInner(int i) {
-        return branches[i].isInner();
+        return branch(i).isInner();
     }
-    public boolean hasNone(int i) {return branches[i] == null;}
+    public boolean hasNone(int i) {return (slotBits & (1 << i)) == 0;}
 
     private void setBranch(int slot, ShaMapNode node) {
         slotBits = slotBits | (1 << slot);
         branches[slot] = node;
+        if (stored != null) {
+            stored[slot] = null;
+        }
         invalidate();
     }
 
     private void removeBranch(int slot) {
         branches[slot] = null;
+        if (stored != null) {
+            stored[slot] = null;
+        }
         slotBits = slotBits & ~(1 << slot);
     }
     public boolean empty() {
@@ -265,9 +303,10 @@ public class ShaMapInner extends ShaMapNode implements Iterable<ShaMapNode> {
 
     @Override
     public void toBytesSink(BytesSink sink) {
-        for (ShaMapNode branch : branches) {
-            if (branch != null) {
-                branch.hash().toBytesSink(sink);
+        for (int i = 0; i < 16; i++) {
+            Hash256 hash = branchHash(i);
+            if (hash != null) {
+                hash.toBytesSink(sink);
             } else {
                 Hash256.ZERO_256.toBytesSink(sink);
             }
@@ -320,12 +359,6 @@ public class ShaMapInner extends ShaMapNode implements Iterable<ShaMapNode> {
     }
 
     public int branchCount() {
-        int populated = 0;
-        for (ShaMapNode branch : branches) {
-            if (branch != null) {
-                populated ++;
-            }
-        }
-        return populated;
+        return Integer.bitCount(slotBits);
     }
 }
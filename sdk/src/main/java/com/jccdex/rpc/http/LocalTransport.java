@@ -0,0 +1,49 @@
+package com.jccdex.rpc.http;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 进程内传输层,请求直接交给handler处理,不经过网络,用于测试或模拟节点
+ */
+public class LocalTransport implements Transport {
+
+    /**
+     * 处理一个json请求
+     */
+    public interface Handler {
+        /**
+         * @param url 请求地址
+         * @param json 请求内容
+         * @return 响应内容
+         * @throws IOException 模拟网络异常
+         */
+        String handle(String url, String json) throws IOException;
+    }
+
+    private final Handler handler;
+
+    /**
+     * @param handler 请求处理器
+     */
+    public LocalTransport(Handler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public String post(String url, byte[] body) throws IOException {
+        return handler.handle(url, new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(String url, byte[] body) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        try {
+            future.complete(handler.handle(url, new String(body, StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
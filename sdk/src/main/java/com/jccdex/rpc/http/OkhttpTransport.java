@@ -0,0 +1,131 @@
+package com.jccdex.rpc.http;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * 基于OkHttp的传输层,连接池、分发器与超时设置只属于本实例,不同链的JccJingtum互不影响
+ */
+public class OkhttpTransport implements Transport, AutoCloseable {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final OkHttpClient client;
+    /**
+     * 单独设置了请求总时限的节点
+     */
+    private final Map<String, Long> callTimeouts;
+
+    public OkhttpTransport() {
+        this(new TransportOptions());
+    }
+
+    /**
+     * @param options 连接参数
+     */
+    public OkhttpTransport(TransportOptions options) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(options.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(options.getMaxRequestsPerHost());
+
+        this.client = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(options.getMaxIdleConnections(), options.getKeepAliveMillis(), TimeUnit.MILLISECONDS))
+                .dispatcher(dispatcher)
+                .protocols(protocols(options.getProtocol()))
+                .connectTimeout(options.getConnectTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .callTimeout(options.getCallTimeoutMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.callTimeouts = new HashMap<>(options.getNodeCallTimeouts());
+    }
+
+    /**
+     * @param client 已配置好的OkHttpClient
+     */
+    public OkhttpTransport(OkHttpClient client) {
+        this.client = client;
+        this.callTimeouts = Collections.emptyMap();
+    }
+
+    @Override
+    public String post(String url, byte[] body) throws IOException {
+        try (Response response = this.newCall(url, body).execute()) {
+            return response.body().string();
+        }
+    }
+
+    @Override
+    public CompletableFuture<String> postAsync(String url, byte[] body) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        this.newCall(url, body).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response res = response) {
+                    future.complete(res.body().string());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * 取消未完成的请求并关闭空闲连接
+     */
+    @Override
+    public void close() {
+        client.dispatcher().cancelAll();
+        client.connectionPool().evictAll();
+        client.dispatcher().executorService().shutdown();
+    }
+
+    private Call newCall(String url, byte[] body) {
+        Call call = client.newCall(request(url, body));
+        Long timeout = callTimeouts.get(url);
+        if (timeout != null) {
+            call.timeout().timeout(timeout, TimeUnit.MILLISECONDS);
+        }
+        return call;
+    }
+
+    private static Request request(String url, byte[] body) {
+        return new Request.Builder().url(url).post(RequestBody.create(JSON, body)).build();
+    }
+
+    private static List<Protocol> protocols(TransportOptions.Protocol protocol) {
+        switch (protocol) {
+            case HTTP_1_1:
+                return Collections.singletonList(Protocol.HTTP_1_1);
+            case H2C:
+                return Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE);
+            default:
+                return Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1);
+        }
+    }
+}
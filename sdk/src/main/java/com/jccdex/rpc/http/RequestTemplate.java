@@ -0,0 +1,162 @@
+package com.jccdex.rpc.http;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预编译的json-rpc请求模板
+ *
+ * 模板中的固定部分在创建时编码为字节,发送时只把参数写入一个大小正好的字节数组,
+ * 不构建json树也不经过String编码。模板中的 ? 为参数占位,参数按json字符串内容转义后写入,
+ * 放在引号内即为字符串参数,放在引号外可写入数字。
+ */
+public final class RequestTemplate {
+    /**
+     * 查询账号信息,参数: account
+     */
+    public static final RequestTemplate ACCOUNT_INFO = compile("{\"method\":\"account_info\",\"params\":[{\"account\":\"?\"}]}");
+    /**
+     * 查询交易,参数: transaction
+     */
+    public static final RequestTemplate TX = compile("{\"method\":\"tx\",\"params\":[{\"transaction\":\"?\",\"binary\":false}]}");
+    /**
+     * 提交交易,参数: tx_blob
+     */
+    public static final RequestTemplate SUBMIT = compile("{\"method\":\"submit\",\"params\":[{\"tx_blob\":\"?\"}]}");
+    /**
+     * 查询最新已验证账本,无参数
+     */
+    public static final RequestTemplate LEDGER_VALIDATED = compile("{\"method\":\"ledger\",\"params\":[{\"ledger_index\":\"validated\"}]}");
+    /**
+     * 查询指定账本及其交易hash,参数: ledger_index
+     */
+    public static final RequestTemplate LEDGER_TRANSACTIONS = compile("{\"method\":\"ledger\",\"params\":[{\"ledger_index\":?,\"transactions\":true}]}");
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[][] parts;
+    private final int fixedLength;
+
+    private RequestTemplate(byte[][] parts) {
+        this.parts = parts;
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        this.fixedLength = length;
+    }
+
+    /**
+     * @param template 请求模板,? 为参数占位
+     * @return 编译后的模板
+     */
+    public static RequestTemplate compile(String template) {
+        List<byte[]> parts = new ArrayList<>();
+        int start = 0;
+        int index;
+        while ((index = template.indexOf('?', start)) >= 0) {
+            parts.add(template.substring(start, index).getBytes(StandardCharsets.UTF_8));
+            start = index + 1;
+        }
+        parts.add(template.substring(start).getBytes(StandardCharsets.UTF_8));
+        return new RequestTemplate(parts.toArray(new byte[0][]));
+    }
+
+    /**
+     * @return 参数个数
+     */
+    public int arity() {
+        return parts.length - 1;
+    }
+
+    /**
+     * 生成请求内容
+     * @param values 参数,个数与模板占位一致
+     * @return utf-8编码的请求内容
+     */
+    public byte[] render(String... values) {
+        if (values.length != parts.length - 1) {
+            throw new IllegalArgumentException("模板需要" + (parts.length - 1) + "个参数");
+        }
+        int length = fixedLength;
+        for (String value : values) {
+            length += encodedLength(value);
+        }
+
+        byte[] body = new byte[length];
+        int pos = 0;
+        for (int i = 0; i < values.length; i++) {
+            System.arraycopy(parts[i], 0, body, pos, parts[i].length);
+            pos = write(values[i], body, pos + parts[i].length);
+        }
+        byte[] last = parts[values.length];
+        System.arraycopy(last, 0, body, pos, last.length);
+        return body;
+    }
+
+    /**
+     * 生成只有一个数字参数的请求内容
+     * @param value 参数
+     * @return utf-8编码的请求内容
+     */
+    public byte[] render(long value) {
+        return this.render(Long.toString(value));
+    }
+
+    private static int encodedLength(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                length += 2;
+            } else if (c < 0x20) {
+                length += 6;
+            } else if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static int write(String value, byte[] body, int pos) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                body[pos++] = '\\';
+                body[pos++] = (byte) c;
+            } else if (c < 0x20) {
+                body[pos++] = '\\';
+                body[pos++] = 'u';
+                body[pos++] = '0';
+                body[pos++] = '0';
+                body[pos++] = HEX[c >> 4];
+                body[pos++] = HEX[c & 0xf];
+            } else if (c < 0x80) {
+                body[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                body[pos++] = (byte) (0xc0 | (c >> 6));
+                body[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                body[pos++] = (byte) (0xf0 | (cp >> 18));
+                body[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                body[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                body[pos++] = (byte) (0x80 | (cp & 0x3f));
+            } else {
+                // 孤立的代理字符按3字节原样写入
+                body[pos++] = (byte) (0xe0 | (c >> 12));
+                body[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                body[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,101 @@
+package com.jccdex.rpc.http;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 相同请求合并: 同一个key同时只有一个请求在途,期间其他调用者共享这次请求的结果,
+ * 请求完成后不缓存结果,下一次调用重新请求
+ * @param <K> 请求参数,如地址或交易hash
+ * @param <V> 请求结果
+ */
+public class SingleFlight<K, V> {
+    private final String name;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * @param name 请求名称,如rpc方法名,用于统计
+     */
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 有相同key的请求在途时返回其结果,否则由本次调用发起请求
+     * @param key 请求参数
+     * @param request 发起请求
+     * @return 请求结果
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> request) {
+        calls.increment();
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            hits.increment();
+            return existing;
+        }
+
+        CompletableFuture<V> source;
+        try {
+            source = request.get();
+        } catch (RuntimeException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            return future;
+        }
+        source.whenComplete((value, err) -> {
+            // 先移除再通知等待者,之后的调用发起新的请求
+            inFlight.remove(key, future);
+            if (err != null) {
+                future.completeExceptionally(err);
+            } else {
+                future.complete(value);
+            }
+        });
+        return future;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 调用总数
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return 共享了在途请求的调用数
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 合并命中率
+     */
+    public double getHitRate() {
+        long total = calls.sum();
+        return total == 0 ? 0 : (double) hits.sum() / total;
+    }
+
+    /**
+     * @return 当前在途的请求数
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: calls=%d hits=%d hitRate=%.2f%% inFlight=%d",
+                name, getCalls(), getHits(), getHitRate() * 100, getInFlight());
+    }
+}
@@ -0,0 +1,49 @@
+package com.jccdex.rpc.http;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 向rpc节点发送json请求的传输层,每个JccJingtum实例持有自己的传输层
+ */
+public interface Transport {
+
+    /**
+     * 同步post请求
+     * @param url 请求地址
+     * @param body utf-8编码的json请求内容,调用后不再修改
+     * @return 响应内容
+     * @throws IOException 网络异常或超时
+     */
+    String post(String url, byte[] body) throws IOException;
+
+    /**
+     * 异步post请求,不占用调用者线程
+     * @param url 请求地址
+     * @param body utf-8编码的json请求内容,请求完成前不能修改
+     * @return 响应内容
+     */
+    CompletableFuture<String> postAsync(String url, byte[] body);
+
+    /**
+     * 同步post请求
+     * @param url 请求地址
+     * @param json 请求内容
+     * @return 响应内容
+     * @throws IOException 网络异常或超时
+     */
+    default String post(String url, String json) throws IOException {
+        return this.post(url, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 异步post请求,不占用调用者线程
+     * @param url 请求地址
+     * @param json 请求内容
+     * @return 响应内容
+     */
+    default CompletableFuture<String> postAsync(String url, String json) {
+        return this.postAsync(url, json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,145 @@
+package com.jccdex.rpc.http;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * OkhttpTransport的连接参数
+ */
+public class TransportOptions {
+    public enum Protocol {
+        /**
+         * 只使用HTTP/1.1
+         */
+        HTTP_1_1,
+        /**
+         * https节点通过ALPN协商HTTP/2,不支持时退回HTTP/1.1
+         */
+        HTTP_2,
+        /**
+         * 明文HTTP/2(h2c),节点必须支持prior knowledge
+         */
+        H2C
+    }
+
+    /**
+     * 连接池中最多保留的空闲连接数
+     */
+    private int maxIdleConnections = 5;
+    /**
+     * 空闲连接保留时间(毫秒)
+     */
+    private long keepAliveMillis = 5 * 60 * 1000;
+    private Protocol protocol = Protocol.HTTP_2;
+    /**
+     * 建立连接超时(毫秒)
+     */
+    private long connectTimeoutMillis = 10000;
+    /**
+     * 单次请求从发出到读完响应的总时限(毫秒),0表示不限制
+     */
+    private long callTimeoutMillis = 10000;
+    /**
+     * 单个节点的请求总时限(毫秒),覆盖callTimeoutMillis
+     */
+    private final Map<String, Long> nodeCallTimeouts = new HashMap<>();
+    /**
+     * 异步请求的最大并发数
+     */
+    private int maxRequests = 64;
+    /**
+     * 每个节点的异步请求最大并发数
+     */
+    private int maxRequestsPerHost = 16;
+
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public TransportOptions setMaxIdleConnections(int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+        return this;
+    }
+
+    public long getKeepAliveMillis() {
+        return keepAliveMillis;
+    }
+
+    public TransportOptions setKeepAliveMillis(long keepAliveMillis) {
+        this.keepAliveMillis = keepAliveMillis;
+        return this;
+    }
+
+    public Protocol getProtocol() {
+        return protocol;
+    }
+
+    public TransportOptions setProtocol(Protocol protocol) {
+        this.protocol = protocol;
+        return this;
+    }
+
+    public long getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public TransportOptions setConnectTimeoutMillis(long connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        return this;
+    }
+
+    public long getCallTimeoutMillis() {
+        return callTimeoutMillis;
+    }
+
+    public TransportOptions setCallTimeoutMillis(long callTimeoutMillis) {
+        this.callTimeoutMillis = callTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * @param url 节点地址,与rpcNodes中的一致
+     * @return 该节点的请求总时限(毫秒)
+     */
+    public long getCallTimeoutMillis(String url) {
+        Long timeout = nodeCallTimeouts.get(url);
+        return timeout == null ? callTimeoutMillis : timeout;
+    }
+
+    /**
+     * 为单个节点设置请求总时限,如较远或较慢的节点
+     * @param url 节点地址,与rpcNodes中的一致
+     * @param callTimeoutMillis 请求总时限(毫秒),0表示不限制
+     * @return this
+     */
+    public TransportOptions setCallTimeoutMillis(String url, long callTimeoutMillis) {
+        nodeCallTimeouts.put(url, callTimeoutMillis);
+        return this;
+    }
+
+    /**
+     * @return 单独设置了请求总时限的节点
+     */
+    public Map<String, Long> getNodeCallTimeouts() {
+        return Collections.unmodifiableMap(nodeCallTimeouts);
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public TransportOptions setMaxRequests(int maxRequests) {
+        this.maxRequests = maxRequests;
+        return this;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public TransportOptions setMaxRequestsPerHost(int maxRequestsPerHost) {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        return this;
+    }
+}
@@ -0,0 +1,342 @@
+package com.jccdex.rpc.pipeline;
+
+import java.util.ArrayList;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.jccdex.core.crypto.ecdsa.IKeyPair;
+import com.jccdex.core.crypto.ecdsa.Seed;
+import com.jccdex.core.crypto.ecdsa.SeedSM;
+import com.jccdex.rpc.JccJingtum;
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.hash.HalfSha512;
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import com.jccdex.rpc.core.coretypes.uint.UInt32;
+import com.jccdex.rpc.res.SubmitResult;
+import com.jccdex.rpc.sequence.SequenceManager;
+
+/**
+ * 批量转账流水线
+ *
+ * 转账依次经过 校验 -> 分配sequence -> 签名 -> 提交 四个阶段,阶段之间通过有界队列连接:
+ * <ul>
+ *     <li>校验阶段校验参数、推导发送者地址并构造交易</li>
+ *     <li>分配阶段由单线程通过JccJingtum的SequenceManager在本地为每个发送者分配sequence,不再逐笔查询节点</li>
+ *     <li>签名阶段由多个线程并行签名</li>
+ *     <li>提交阶段把交易异步发往节点,同一发送者的交易在上一笔得到节点的提交结果后才发出,
+ *     避免后一笔经其他节点先到达而返回terPRE_SEQ;不同发送者之间互不等待,因此同时可有大量交易在途</li>
+ * </ul>
+ * 交易失败后的sequence空缺与重新同步由SequenceManager处理。
+ */
+public class PaymentPipeline implements AutoCloseable {
+    /**
+     * 最多缓存的发送者数,超过后淘汰最久未使用的
+     */
+    private static final int MAX_SENDERS = 1024;
+
+    private final JccJingtum jccJingtum;
+    private final SequenceManager sequenceManager;
+    private final Semaphore inFlight;
+    private final long startNanos = System.nanoTime();
+
+    private final Stage validateStage;
+    private final Stage sequenceStage;
+    private final Stage signStage;
+    private final Stage submitStage;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    /**
+     * 密钥摘要到发送者地址,不保留密钥原文
+     */
+    private final Map<Hash256, String> addresses = lru(MAX_SENDERS);
+    /**
+     * 发送者地址到签名用的密钥对
+     */
+    private final Map<String, IKeyPair> keyPairs = lru(MAX_SENDERS);
+    /**
+     * 每个发送者最后一笔交易的提交完成信号,只在分配阶段的线程中访问
+     */
+    private final Map<String, CompletableFuture<Void>> lastDispatched = new HashMap<>();
+
+    /**
+     * @param jccJingtum 用于构造和提交交易的JccJingtum实例
+     */
+    public PaymentPipeline(JccJingtum jccJingtum) {
+        this(jccJingtum, 1024, Runtime.getRuntime().availableProcessors(), 4096);
+    }
+
+    /**
+     * @param jccJingtum 用于构造和提交交易的JccJingtum实例
+     * @param queueSize 每个阶段的队列长度
+     * @param signThreads 签名线程数
+     * @param maxInFlight 流水线中(含已发往节点尚未返回)的最大交易数,超过后payment调用阻塞
+     */
+    public PaymentPipeline(JccJingtum jccJingtum, int queueSize, int signThreads, int maxInFlight) {
+        this.jccJingtum = jccJingtum;
+        this.sequenceManager = jccJingtum.getSequenceManager();
+        this.inFlight = new Semaphore(maxInFlight);
+
+        submitStage = new Stage("submit", queueSize, null, true);
+        signStage = new Stage("sign", queueSize, submitStage, false);
+        sequenceStage = new Stage("sequence", queueSize, signStage, false);
+        validateStage = new Stage("validate", queueSize, sequenceStage, false);
+
+        start(validateStage, 1, this::validate);
+        start(sequenceStage, 1, this::allocate);
+        start(signStage, signThreads, this::sign);
+        start(submitStage, 1, this::submit);
+    }
+
+    /**
+     * 提交一笔转账,队列已满时阻塞
+     * @param secret 发送者钱包密钥
+     * @param receiver 接收者钱包地址
+     * @param pToken 转账Token
+     * @param pAmount 转账数量
+     * @param memos  交易备注(无就传"")
+     * @return 交易提交结果
+     */
+    public CompletableFuture<SubmitResult> payment(String secret, String receiver, String pToken, String pAmount, String memos) {
+        return this.payment(secret, receiver, pToken, pAmount, Config.ISSUER, memos);
+    }
+
+    /**
+     * 提交一笔转账,队列已满时阻塞
+     * @param secret 发送者钱包密钥
+     * @param receiver 接收者钱包地址
+     * @param pToken 转账Token
+     * @param pAmount 转账数量
+     * @param pIssuer 银关地址
+     * @param memos  交易备注(无就传"")
+     * @return 交易提交结果
+     */
+    public CompletableFuture<SubmitResult> payment(String secret, String receiver, String pToken, String pAmount, String pIssuer, String memos) {
+        PaymentTask task = new PaymentTask(secret, receiver, pToken, pAmount, pIssuer, memos);
+        if (!running) {
+            task.fail(new Exception("流水线已关闭"));
+            return task.result;
+        }
+        try {
+            inFlight.acquire();
+            task.result.whenComplete((result, err) -> inFlight.release());
+            validateStage.input.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.fail(e);
+        }
+        if (!running) {
+            //close()可能在入队前已清空队列
+            this.drain();
+        }
+        return task.result;
+    }
+
+    /**
+     * @return 各阶段的统计,按流水线顺序排列
+     */
+    public List<StageStats> stats() {
+        List<StageStats> stats = new ArrayList<>(4);
+        long elapsed = System.nanoTime() - startNanos;
+        stats.add(validateStage.stats(elapsed));
+        stats.add(sequenceStage.stats(elapsed));
+        stats.add(signStage.stats(elapsed));
+        stats.add(submitStage.stats(elapsed));
+        return stats;
+    }
+
+    /**
+     * 停止流水线线程,尚未提交的交易以失败结束
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        this.drain();
+        addresses.clear();
+        keyPairs.clear();
+    }
+
+    /**
+     * 以失败结束队列中的交易,已分配的sequence交还SequenceManager。
+     * 关闭后仍在入队的payment调用和阶段线程入队后也会调用,保证没有交易留在队列中
+     */
+    private void drain() {
+        Exception closed = new Exception("流水线已关闭");
+        for (Stage stage : new Stage[]{validateStage, sequenceStage, signStage, submitStage}) {
+            PaymentTask task;
+            while ((task = stage.input.poll()) != null) {
+                this.abort(stage, task, closed);
+            }
+        }
+    }
+
+    /**
+     * 交易在进入stage之前被放弃,此时已分配sequence的交还SequenceManager
+     */
+    private void abort(Stage stage, PaymentTask task, Exception e) {
+        if (stage == signStage || stage == submitStage) {
+            sequenceManager.released(task.sender, task.sequence);
+        }
+        task.fail(e);
+    }
+
+    private void validate(PaymentTask task) throws Exception {
+        Hash256 digest = digest(task.secret);
+        String sender = addresses.get(digest);
+        if (sender == null) {
+            sender = jccJingtum.getAddress(task.secret);
+            addresses.put(digest, sender);
+        }
+        task.sender = sender;
+        task.payment = jccJingtum.buildPayment(sender, task.receiver, task.token, task.amount, task.issuer, task.memos);
+    }
+
+    private void allocate(PaymentTask task) throws Exception {
+        task.sequence = sequenceManager.reserve(task.sender);
+        task.payment.sequence(new UInt32(task.sequence));
+
+        CompletableFuture<Void> previous = lastDispatched.put(task.sender, task.dispatched);
+        task.previous = previous == null ? CompletableFuture.completedFuture(null) : previous;
+    }
+
+    private void sign(PaymentTask task) {
+        try {
+            // 不用computeIfAbsent,避免推导密钥对时占住整个map的锁
+            IKeyPair keyPair = keyPairs.get(task.sender);
+            if (keyPair == null) {
+                keyPair = task.payment.getGuomi() ? SeedSM.fromBase58(task.secret).keyPair() : Seed.fromBase58(task.secret).keyPair();
+                keyPairs.put(task.sender, keyPair);
+            }
+            task.signed = task.payment.sign(keyPair);
+            task.secret = null;
+        } catch (RuntimeException e) {
+            sequenceManager.released(task.sender, task.sequence);
+            throw e;
+        }
+    }
+
+    /**
+     * 上一笔交易得到节点的提交结果后才发出本笔。
+     * 提交请求会分散到不同节点,只等上一笔发出不能保证节点按sequence顺序收到同一发送者的交易
+     */
+    private void submit(PaymentTask task) {
+        long start = System.nanoTime();
+        task.previous.thenRun(() -> jccJingtum.submitAsync(task.signed.tx_blob).whenComplete((result, err) -> {
+            submitStage.record(start, err == null);
+            if (err != null) {
+                sequenceManager.invalidate(task.sender);
+                task.result.completeExceptionally(err);
+            } else {
+                task.result.complete(result);
+            }
+            task.dispatched.complete(null);
+        }));
+    }
+
+    private static Hash256 digest(String secret) {
+        HalfSha512 hasher = new HalfSha512();
+        hasher.update(secret.getBytes(StandardCharsets.UTF_8));
+        return hasher.finish();
+    }
+
+    private static <K, V> Map<K, V> lru(final int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    private void start(Stage stage, int threads, Handler handler) {
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> stage.run(handler), "payment-pipeline-" + stage.name + "-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    private interface Handler {
+        void handle(PaymentTask task) throws Exception;
+    }
+
+    private class Stage {
+        final String name;
+        final BlockingQueue<PaymentTask> input;
+        final Stage next;
+        /**
+         * 异步阶段在交易完成时自行统计
+         */
+        final boolean async;
+        final LongAdder processed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder busyNanos = new LongAdder();
+
+        Stage(String name, int queueSize, Stage next, boolean async) {
+            this.name = name;
+            this.input = new ArrayBlockingQueue<>(queueSize);
+            this.next = next;
+            this.async = async;
+        }
+
+        void run(Handler handler) {
+            while (running) {
+                PaymentTask task;
+                try {
+                    task = input.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                long start = System.nanoTime();
+                try {
+                    handler.handle(task);
+                } catch (Exception e) {
+                    record(start, false);
+                    task.fail(e);
+                    continue;
+                }
+                if (!async) {
+                    record(start, true);
+                }
+
+                if (next != null) {
+                    try {
+                        next.input.put(task);
+                    } catch (InterruptedException e) {
+                        abort(next, task, e);
+                        return;
+                    }
+                    if (!running) {
+                        drain();
+                    }
+                }
+            }
+        }
+
+        void record(long start, boolean success) {
+            busyNanos.add(System.nanoTime() - start);
+            processed.increment();
+            if (!success) {
+                failed.increment();
+            }
+        }
+
+        StageStats stats(long elapsedNanos) {
+            return new StageStats(name, processed.sum(), failed.sum(), input.size(), busyNanos.sum(), elapsedNanos);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.jccdex.rpc.pipeline;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.jccdex.rpc.core.types.known.tx.signed.SignedTransaction;
+import com.jccdex.rpc.core.types.known.tx.txns.Payment;
+import com.jccdex.rpc.res.SubmitResult;
+
+/**
+ * 在流水线各阶段之间传递的一笔转账
+ */
+class PaymentTask {
+    /**
+     * 签名后清空,不在流水线中保留密钥
+     */
+    String secret;
+    final String receiver;
+    final String token;
+    final String amount;
+    final String issuer;
+    final String memos;
+
+    /**
+     * 转账结果,交易提交完成或任一阶段失败时完成
+     */
+    final CompletableFuture<SubmitResult> result = new CompletableFuture<>();
+
+    /**
+     * 本交易已得到节点的提交结果(或已确定不会发送),同一发送者的下一笔交易等待此信号
+     */
+    final CompletableFuture<Void> dispatched = new CompletableFuture<>();
+
+    String sender;
+    Payment payment;
+    long sequence;
+    CompletableFuture<Void> previous;
+    SignedTransaction signed;
+
+    PaymentTask(String secret, String receiver, String token, String amount, String issuer, String memos) {
+        this.secret = secret;
+        this.receiver = receiver;
+        this.token = token;
+        this.amount = amount;
+        this.issuer = issuer;
+        this.memos = memos;
+    }
+
+    void fail(Throwable e) {
+        dispatched.complete(null);
+        result.completeExceptionally(e);
+    }
+}
@@ -0,0 +1,70 @@
+package com.jccdex.rpc.pipeline;
+
+/**
+ * 流水线单个阶段的统计快照
+ */
+public class StageStats {
+    private final String name;
+    private final long processed;
+    private final long failed;
+    private final int queued;
+    private final long busyNanos;
+    private final long elapsedNanos;
+
+    StageStats(String name, long processed, long failed, int queued, long busyNanos, long elapsedNanos) {
+        this.name = name;
+        this.processed = processed;
+        this.failed = failed;
+        this.queued = queued;
+        this.busyNanos = busyNanos;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return 阶段名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return 已处理的交易数(含失败)
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * @return 处理失败的交易数
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return 等待进入该阶段的交易数
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * @return 流水线启动以来该阶段每秒处理的交易数
+     */
+    public double getThroughput() {
+        return elapsedNanos <= 0 ? 0 : processed * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return 每笔交易在该阶段的平均耗时(微秒)
+     */
+    public double getAverageMicros() {
+        return processed == 0 ? 0 : busyNanos / 1e3 / processed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: processed=%d failed=%d queued=%d throughput=%.1f/s avg=%.1fus",
+                name, processed, failed, queued, getThroughput(), getAverageMicros());
+    }
+}
@@ -0,0 +1,99 @@
+package com.jccdex.rpc.res;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * 账本查询(ledger)结果
+ */
+public class LedgerResult {
+    private static final String SUCCESS_CODE = "success";
+
+    /**
+     * 请求状态
+     */
+    private String status;
+    /**
+     * 账本是否已被验证
+     */
+    private boolean validated;
+    /**
+     * 账本序号
+     */
+    private long ledgerIndex;
+    /**
+     * 账本中的交易hash(请求时transactions为true且expand为false)
+     */
+    private List<String> transactions = new ArrayList<>();
+
+    /**
+     * 解析ledger接口返回的数据
+     * @param res ledger接口返回的json字符串
+     * @return 查询结果
+     * @throws IOException 返回数据无法解析
+     */
+    public static LedgerResult fromResponse(String res) throws IOException {
+        LedgerResult ledgerResult = new LedgerResult();
+        try (JsonParser parser = ResponseParser.openResult(res)) {
+            String name;
+            while ((name = ResponseParser.nextField(parser)) != null) {
+                if ("status".equals(name)) {
+                    ledgerResult.status = parser.getValueAsString();
+                } else if ("validated".equals(name)) {
+                    ledgerResult.validated = parser.getValueAsBoolean();
+                } else if ("ledger".equals(name) && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                    ledgerResult.readLedger(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return ledgerResult;
+    }
+
+    private void readLedger(JsonParser parser) throws IOException {
+        String name;
+        while ((name = ResponseParser.nextField(parser)) != null) {
+            if ("ledger_index".equals(name)) {
+                ledgerIndex = parser.getValueAsLong();
+            } else if ("transactions".equals(name) && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+                        transactions.add(parser.getText());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isValidated() {
+        return validated;
+    }
+
+    public long getLedgerIndex() {
+        return ledgerIndex;
+    }
+
+    public List<String> getTransactions() {
+        return transactions;
+    }
+
+    /**
+     * @return 请求成功且账本已被验证返回true
+     */
+    public boolean isConfirmed() {
+        return SUCCESS_CODE.equals(status) && validated;
+    }
+}
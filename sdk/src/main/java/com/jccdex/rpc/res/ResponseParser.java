@@ -0,0 +1,54 @@
+package com.jccdex.rpc.res;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * json-rpc返回数据的流式解析,只读取需要的字段,不构建整棵json树
+ */
+final class ResponseParser {
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private ResponseParser() {
+    }
+
+    /**
+     * 定位到返回数据的result对象
+     * @param res json-rpc返回的json字符串
+     * @return 位于result对象START_OBJECT处的解析器
+     * @throws IOException 数据不是json或不包含result对象
+     */
+    static JsonParser openResult(String res) throws IOException {
+        JsonParser parser = FACTORY.createParser(res);
+        if (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("result".equals(name) && token == JsonToken.START_OBJECT) {
+                    return parser;
+                }
+                parser.skipChildren();
+            }
+        }
+        parser.close();
+        throw new IOException("返回数据不包含result: " + res);
+    }
+
+    /**
+     * 移动到当前对象的下一个字段并读取其值的第一个token
+     * @param parser 解析器
+     * @return 字段名,当前对象结束时返回null
+     * @throws IOException 解析失败
+     */
+    static String nextField(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            return null;
+        }
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        return name;
+    }
+}
@@ -0,0 +1,96 @@
+package com.jccdex.rpc.res;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jccdex.rpc.core.serialized.enums.EngineResult;
+
+/**
+ * 交易提交(submit)结果
+ */
+public class SubmitResult {
+    /**
+     * 交易发起账号
+     */
+    private String account;
+    /**
+     * 交易序列号
+     */
+    private long sequence;
+    /**
+     * 交易hash
+     */
+    private String hash;
+    /**
+     * 节点返回的交易引擎结果
+     */
+    private EngineResult engineResult;
+    /**
+     * 节点返回的原始数据
+     */
+    private String response;
+
+    /**
+     * 解析submit接口返回的数据
+     * @param res submit接口返回的json字符串
+     * @return 提交结果,返回数据中没有engine_result_code时engineResult为null
+     * @throws IOException 返回数据无法解析
+     */
+    public static SubmitResult fromResponse(String res) throws IOException {
+        SubmitResult submitResult = new SubmitResult();
+        submitResult.response = res;
+        try (JsonParser parser = ResponseParser.openResult(res)) {
+            String name;
+            while ((name = ResponseParser.nextField(parser)) != null) {
+                if ("engine_result_code".equals(name)) {
+                    submitResult.engineResult = EngineResult.fromNumber(parser.getValueAsInt());
+                } else if ("tx_json".equals(name) && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                    submitResult.readTxJson(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return submitResult;
+    }
+
+    private void readTxJson(JsonParser parser) throws IOException {
+        String name;
+        while ((name = ResponseParser.nextField(parser)) != null) {
+            if ("Account".equals(name)) {
+                account = parser.getValueAsString();
+            } else if ("Sequence".equals(name)) {
+                sequence = parser.getValueAsLong();
+            } else if ("hash".equals(name)) {
+                hash = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public EngineResult getEngineResult() {
+        return engineResult;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    public boolean isSuccess() {
+        return engineResult != null && EngineResult.isSuccess(engineResult);
+    }
+}
@@ -0,0 +1,135 @@
+package com.jccdex.rpc.res;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.jccdex.rpc.core.serialized.enums.EngineResult;
+
+/**
+ * 交易查询(tx)结果
+ */
+public class TxResult {
+    private static final String SUCCESS_CODE = "success";
+
+    /**
+     * 请求状态
+     */
+    private String status;
+    /**
+     * 交易是否已被验证
+     */
+    private boolean validated;
+    /**
+     * 交易发起账号
+     */
+    private String account;
+    /**
+     * 交易序列号
+     */
+    private long sequence;
+    /**
+     * 交易hash
+     */
+    private String hash;
+    /**
+     * 交易所在账本序号
+     */
+    private long ledgerIndex;
+    /**
+     * 交易执行结果(meta.TransactionResult)
+     */
+    private EngineResult engineResult;
+    /**
+     * 节点返回的原始数据
+     */
+    private String response;
+
+    /**
+     * 解析tx接口返回的数据
+     * @param res tx接口返回的json字符串
+     * @return 查询结果
+     * @throws IOException 返回数据无法解析
+     */
+    public static TxResult fromResponse(String res) throws IOException {
+        TxResult txResult = new TxResult();
+        txResult.response = res;
+        try (JsonParser parser = ResponseParser.openResult(res)) {
+            String name;
+            while ((name = ResponseParser.nextField(parser)) != null) {
+                if ("status".equals(name)) {
+                    txResult.status = parser.getValueAsString();
+                } else if ("validated".equals(name)) {
+                    txResult.validated = parser.getValueAsBoolean();
+                } else if ("Account".equals(name)) {
+                    txResult.account = parser.getValueAsString();
+                } else if ("Sequence".equals(name)) {
+                    txResult.sequence = parser.getValueAsLong();
+                } else if ("hash".equals(name)) {
+                    txResult.hash = parser.getValueAsString();
+                } else if ("ledger_index".equals(name)) {
+                    txResult.ledgerIndex = parser.getValueAsLong();
+                } else if ("meta".equals(name) && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                    txResult.readMeta(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return txResult;
+    }
+
+    private void readMeta(JsonParser parser) throws IOException {
+        String name;
+        while ((name = ResponseParser.nextField(parser)) != null) {
+            if ("TransactionResult".equals(name)) {
+                try {
+                    engineResult = EngineResult.valueOf(parser.getValueAsString());
+                } catch (IllegalArgumentException e) {
+                    engineResult = null;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isValidated() {
+        return validated;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public long getLedgerIndex() {
+        return ledgerIndex;
+    }
+
+    public EngineResult getEngineResult() {
+        return engineResult;
+    }
+
+    public String getResponse() {
+        return response;
+    }
+
+    /**
+     * @return 请求成功且交易已被验证返回true
+     */
+    public boolean isConfirmed() {
+        return SUCCESS_CODE.equals(status) && validated;
+    }
+}
@@ -0,0 +1,286 @@
+package com.jccdex.rpc.sequence;
+
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 线程安全的账号sequence管理
+ *
+ * 每个账号单独加锁,不同账号之间互不阻塞。对每个账号记录:
+ * <ul>
+ *     <li>下一个可分配的sequence</li>
+ *     <li>已分配、结果未知的sequence(pending)</li>
+ *     <li>已分配但交易确定没有上链的sequence(gap),再次分配时优先复用,以填补链上的空缺</li>
+ * </ul>
+ * 交易失败时只把该账号标记为过期,下次分配前仅对该账号重新查询account_info(查询不持有账号锁),
+ * 本地仍在途的sequence不会被丢弃;链上sequence到本地next之间既不在途、也没有结果的sequence记为gap。
+ */
+public class SequenceManager {
+    /**
+     * 每个账号最多记录的已上链sequence数
+     */
+    private static final int MAX_APPLIED = 1024;
+
+    /**
+     * 从链上查询账号的下一个sequence
+     */
+    public interface SequenceLoader {
+        long load(String address) throws Exception;
+    }
+
+    private final SequenceLoader loader;
+    private final Map<String, AccountSequence> accounts = new ConcurrentHashMap<>();
+
+    public SequenceManager(SequenceLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * 获取账号下一个可用的sequence,不占用
+     * @param address 钱包地址
+     * @return sequence
+     * @throws Exception 查询链上sequence失败
+     */
+    public long current(String address) throws Exception {
+        AccountSequence account = account(address);
+        load(address, account);
+        synchronized (account) {
+            return account.gaps.isEmpty() ? account.next : account.gaps.first();
+        }
+    }
+
+    /**
+     * 占用一个sequence
+     * @param address 钱包地址
+     * @return 占用的sequence
+     * @throws Exception 查询链上sequence失败
+     */
+    public long reserve(String address) throws Exception {
+        AccountSequence account = account(address);
+        load(address, account);
+        synchronized (account) {
+            long sequence;
+            if (account.gaps.isEmpty()) {
+                sequence = account.next++;
+            } else {
+                sequence = account.gaps.first();
+                account.gaps.remove(sequence);
+            }
+            account.pending.add(sequence);
+            return sequence;
+        }
+    }
+
+    /**
+     * 连续占用n个sequence,不复用gap
+     * @param address 钱包地址
+     * @param n 数量
+     * @return 占用的第一个sequence
+     * @throws Exception 查询链上sequence失败
+     */
+    public long reserve(String address, int n) throws Exception {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        AccountSequence account = account(address);
+        load(address, account);
+        synchronized (account) {
+            long first = account.next;
+            for (long sequence = first; sequence < first + n; sequence++) {
+                account.pending.add(sequence);
+            }
+            account.next = first + n;
+            return first;
+        }
+    }
+
+    /**
+     * 交易已上链(tes/tec),sequence被消耗
+     * @param address 钱包地址
+     * @param sequence 交易的sequence
+     */
+    public void applied(String address, long sequence) {
+        AccountSequence account = account(address);
+        synchronized (account) {
+            account.pending.remove(sequence);
+            account.gaps.remove(sequence);
+            account.applied.add(sequence);
+            if (account.applied.size() > MAX_APPLIED) {
+                account.applied.pollFirst();
+            }
+            if (account.loaded && account.next <= sequence) {
+                account.next = sequence + 1;
+            }
+        }
+    }
+
+    /**
+     * 交易确定没有上链(包括重试用尽、网络异常、确认超时),sequence记为gap,之后优先分配
+     * @param address 钱包地址
+     * @param sequence 交易的sequence
+     */
+    public void released(String address, long sequence) {
+        AccountSequence account = account(address);
+        synchronized (account) {
+            boolean reserved = account.pending.remove(sequence) || account.applied.remove(sequence);
+            if (reserved && sequence < account.next) {
+                account.gaps.add(sequence);
+            }
+        }
+    }
+
+    /**
+     * 标记账号的本地sequence与链上不一致,下次使用前重新同步
+     * @param address 钱包地址
+     */
+    public void invalidate(String address) {
+        AccountSequence account = accounts.get(address);
+        if (account != null) {
+            synchronized (account) {
+                account.stale = true;
+                account.generation++;
+            }
+        }
+    }
+
+    /**
+     * 立即从链上同步账号的sequence
+     * @param address 钱包地址
+     * @throws Exception 查询链上sequence失败
+     */
+    public void resync(String address) throws Exception {
+        AccountSequence account = account(address);
+        synchronized (account) {
+            account.stale = true;
+            account.generation++;
+        }
+        load(address, account);
+    }
+
+    /**
+     * 手动设置账号下一个sequence,清除该账号的本地记录
+     * @param address 钱包地址
+     * @param next 下一个sequence
+     */
+    public void set(String address, long next) {
+        AccountSequence account = account(address);
+        synchronized (account) {
+            account.next = next;
+            account.pending.clear();
+            account.gaps.clear();
+            account.applied.clear();
+            account.chainApplied = false;
+            account.loaded = true;
+            account.stale = false;
+            account.generation++;
+        }
+    }
+
+    /**
+     * @param address 钱包地址
+     * @return 已分配但确定没有上链、等待复用的sequence
+     */
+    public SortedSet<Long> gaps(String address) {
+        AccountSequence account = accounts.get(address);
+        if (account == null) {
+            return new TreeSet<>();
+        }
+        synchronized (account) {
+            return new TreeSet<>(account.gaps);
+        }
+    }
+
+    /**
+     * @param address 钱包地址
+     * @return 已分配、结果未知的sequence
+     */
+    public SortedSet<Long> pending(String address) {
+        AccountSequence account = accounts.get(address);
+        if (account == null) {
+            return new TreeSet<>();
+        }
+        synchronized (account) {
+            return new TreeSet<>(account.pending);
+        }
+    }
+
+    private AccountSequence account(String address) {
+        return accounts.computeIfAbsent(address, key -> new AccountSequence());
+    }
+
+    /**
+     * 需要时从链上同步账号的sequence。查询不持有account锁,避免阻塞同一账号的applied/released;
+     * 查询期间账号再次被标记过期时,同步结果照常使用,但仍保留过期标记。
+     */
+    private void load(String address, AccountSequence account) throws Exception {
+        long generation;
+        synchronized (account) {
+            if (account.loaded && !account.stale) {
+                return;
+            }
+            generation = account.generation;
+        }
+
+        long chain = loader.load(address);
+
+        synchronized (account) {
+            sync(account, chain);
+            if (account.generation == generation) {
+                account.stale = false;
+            }
+        }
+    }
+
+    /**
+     * 调用者持有account锁。链上sequence之前的记录都已消耗;[chain, next)之间既不在途、
+     * 也没有结果的sequence(失败后未释放)记为gap,紧挨next的gap直接退回next。
+     */
+    private void sync(AccountSequence account, long chain) {
+        account.pending.headSet(chain).clear();
+        account.gaps.headSet(chain).clear();
+        // 上次同步时已记为上链的sequence,这次链上仍停在它,说明该交易被丢弃(如tesSUCCESS后未进入账本)
+        if (account.chainApplied && chain == account.chain) {
+            account.applied.remove(chain);
+        }
+        account.applied.headSet(chain).clear();
+        account.chain = chain;
+        account.chainApplied = account.applied.contains(chain);
+
+        if (!account.loaded || account.next < chain) {
+            account.next = chain;
+        }
+        for (long sequence = chain; sequence < account.next; sequence++) {
+            if (!account.pending.contains(sequence) && !account.applied.contains(sequence)) {
+                account.gaps.add(sequence);
+            }
+        }
+        while (!account.gaps.isEmpty() && account.gaps.last() == account.next - 1) {
+            account.gaps.pollLast();
+            account.next--;
+        }
+        account.loaded = true;
+    }
+
+    private static class AccountSequence {
+        long next;
+        boolean loaded;
+        boolean stale;
+        /**
+         * 每次标记过期时递增,用于判断同步期间是否又被标记过期
+         */
+        long generation;
+        /**
+         * 上次同步时的链上sequence,以及当时它是否已记为上链
+         */
+        long chain;
+        boolean chainApplied;
+        final TreeSet<Long> pending = new TreeSet<>();
+        final TreeSet<Long> gaps = new TreeSet<>();
+        /**
+         * 已上链(tes/tec)、链上sequence可能尚未反映的sequence
+         */
+        final TreeSet<Long> applied = new TreeSet<>();
+    }
+}
@@ -0,0 +1,184 @@
+package com.jccdex.rpc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.jccdex.core.encoding.common.B16;
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.AccountID;
+import com.jccdex.rpc.core.coretypes.LedgerTransactions;
+import com.jccdex.rpc.core.coretypes.STObject;
+import com.jccdex.rpc.core.coretypes.hash.HalfSha512;
+import com.jccdex.rpc.core.coretypes.hash.prefixes.HashPrefix;
+import com.jccdex.rpc.core.types.known.tx.Transaction;
+import com.jccdex.rpc.http.LocalTransport;
+import com.jccdex.rpc.res.SubmitResult;
+import org.junit.Test;
+
+/**
+ * 交易提交与确认对各种节点响应的处理,以及失败后sequence是否复用,节点由LocalTransport模拟
+ *
+ * 除另行说明外,交易使用LedgerTransactions中Sequence为56的支付交易。
+ */
+public class JccJingtumSubmitTest {
+    private static final String BLOB = LedgerTransactions.TRANSACTIONS[1][0];
+    private static final String ACCOUNT_INFO = "{\"result\":{\"status\":\"success\",\"account_data\":{\"Sequence\":57}}}";
+    private static final String SECRET = "ssEEef7JHubPGTCLwTLkuu4oqKtD6";
+    private static final String RECEIVER = AccountID.fromBytes(B16.decode("7908A7F0EDD48EA896C3580A399F0EE78611C8E3")).address();
+    private static final Pattern TX_BLOB = Pattern.compile("\"tx_blob\":\"([0-9A-F]+)\"");
+    private static final Pattern LEDGER_INDEX = Pattern.compile("\"ledger_index\":(\\d+)");
+
+    static {
+        Config.initBouncy();
+    }
+
+    private static String sender() {
+        return ((Transaction) STObject.fromHex(BLOB)).account().address();
+    }
+
+    private static JccJingtum jingtum(String submitResponse) {
+        ArrayList<String> urls = new ArrayList<>(Arrays.asList("http://local"));
+        return new JccJingtum(false, urls, new LocalTransport((url, json) -> {
+            if (json.contains("account_info")) {
+                return ACCOUNT_INFO;
+            }
+            if (submitResponse == null) {
+                throw new IOException("connection reset");
+            }
+            return submitResponse;
+        }));
+    }
+
+    private static Throwable failure(CompletableFuture<SubmitResult> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("提交应当失败");
+        return null;
+    }
+
+    /**
+     * 模拟提交并确认交易的节点: 已验证账本为100,交易在confirmAt账本中上链,小于0表示不上链
+     */
+    private static class Ledgers implements LocalTransport.Handler {
+        final long confirmAt;
+        volatile String blob;
+
+        Ledgers(long confirmAt) {
+            this.confirmAt = confirmAt;
+        }
+
+        @Override
+        public String handle(String url, String json) {
+            if (json.contains("account_info")) {
+                return ACCOUNT_INFO;
+            }
+            Matcher matcher = TX_BLOB.matcher(json);
+            if (matcher.find()) {
+                blob = matcher.group(1);
+                Transaction txn = (Transaction) STObject.fromHex(blob);
+                return "{\"result\":{\"engine_result\":\"tesSUCCESS\",\"engine_result_code\":0,\"tx_json\":{\"Account\":\""
+                        + txn.account().address() + "\",\"Sequence\":" + txn.sequence().longValue() + "}}}";
+            }
+            matcher = LEDGER_INDEX.matcher(json);
+            long index = matcher.find() ? Long.parseLong(matcher.group(1)) : 100;
+            String hashes = index == confirmAt ? "\"" + hash(blob) + "\"" : "";
+            return "{\"result\":{\"status\":\"success\",\"validated\":true,"
+                    + "\"ledger\":{\"ledger_index\":" + index + ",\"transactions\":[" + hashes + "]}}}";
+        }
+    }
+
+    private static String hash(String blob) {
+        HalfSha512 id = HalfSha512.prefixed256(HashPrefix.transactionID);
+        id.update(B16.decode(blob));
+        return id.finish().toHex();
+    }
+
+    @Test
+    public void testSuccessWithoutTxJson() throws Exception {
+        JccJingtum jingtum = jingtum("{\"result\":{\"engine_result\":\"tesSUCCESS\",\"engine_result_code\":0}}");
+        SubmitResult result = jingtum.submitAsync(BLOB).get(5, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess());
+    }
+
+    @Test
+    public void testFailureWithoutTxJson() throws Exception {
+        // 响应中没有发送者,不能修改本地sequence,但future必须完成
+        JccJingtum jingtum = jingtum("{\"result\":{\"engine_result\":\"tecNO_DST\",\"engine_result_code\":124}}");
+        assertTrue(failure(jingtum.submitAsync(BLOB)).getMessage().contains("tecNO_DST"));
+    }
+
+    @Test
+    public void testRejectedSequenceIsReused() throws Exception {
+        String sender = sender();
+        // tem类结果没有写入账本,sequence可以复用
+        JccJingtum jingtum = jingtum("{\"result\":{\"engine_result\":\"temDST_IS_SRC\",\"engine_result_code\":-279,"
+                + "\"tx_json\":{\"Account\":\"" + sender + "\",\"Sequence\":56}}}");
+        jingtum.getSequenceManager().set(sender, 56);
+        assertEquals(56, jingtum.getSequenceManager().reserve(sender));
+
+        failure(jingtum.submitAsync(BLOB));
+        assertEquals(new TreeSet<>(Arrays.asList(56L)), jingtum.getSequenceManager().gaps(sender));
+    }
+
+    @Test
+    public void testNetworkErrorsDoNotReuseSequence() throws Exception {
+        String sender = sender();
+        JccJingtum jingtum = jingtum(null);
+        jingtum.getSequenceManager().set(sender, 56);
+        assertEquals(56, jingtum.getSequenceManager().reserve(sender));
+
+        // 每次重试都是网络异常,交易可能已被节点接受
+        failure(jingtum.submitAsync(BLOB));
+        assertTrue(jingtum.getSequenceManager().gaps(sender).isEmpty());
+        assertEquals(57, jingtum.getSequenceManager().reserve(sender));
+    }
+
+    @Test
+    public void testCheckedPaymentSetsLastLedgerSequence() throws Exception {
+        Ledgers ledgers = new Ledgers(101);
+        JccJingtum jingtum = new JccJingtum(false, new ArrayList<>(Arrays.asList("http://local")), new LocalTransport(ledgers));
+        assertTrue(jingtum.paymentWithCheckAsync(SECRET, RECEIVER, "SWT", "1", Config.ISSUER, "").get(10, TimeUnit.SECONDS).isSuccess());
+        // 已验证账本之后的第5个账本
+        assertEquals(105, ((Transaction) STObject.fromHex(ledgers.blob)).lastLedgerSequence().longValue());
+    }
+
+    @Test
+    public void testExpiredPaymentReleasesSequence() throws Exception {
+        Ledgers ledgers = new Ledgers(-1);
+        JccJingtum jingtum = new JccJingtum(false, new ArrayList<>(Arrays.asList("http://local")), new LocalTransport(ledgers));
+        failure(jingtum.paymentWithCheckAsync(SECRET, RECEIVER, "SWT", "1", Config.ISSUER, ""));
+        // 账本105已验证且交易不在其中,sequence可以复用
+        String sender = jingtum.getAddress(SECRET);
+        assertEquals(new TreeSet<>(Arrays.asList(57L)), jingtum.getSequenceManager().gaps(sender));
+    }
+
+    @Test
+    public void testUnlimitedTimeoutKeepsSequence() throws Exception {
+        // Sequence为1187、没有LastLedgerSequence的支付交易
+        String blob = LedgerTransactions.TRANSACTIONS[0][0];
+        Transaction txn = (Transaction) STObject.fromHex(blob);
+        assertTrue(txn.lastLedgerSequence() == null);
+        String sender = txn.account().address();
+        JccJingtum jingtum = new JccJingtum(false, new ArrayList<>(Arrays.asList("http://local")), new LocalTransport(new Ledgers(-1)));
+        jingtum.getSequenceManager().set(sender, 1187);
+        assertEquals(1187, jingtum.getSequenceManager().reserve(sender));
+
+        // 确认超时后交易仍可能上链,sequence不能复用
+        failure(jingtum.submitWithCheckAsync(blob, hash(blob)));
+        assertTrue(jingtum.getSequenceManager().gaps(sender).isEmpty());
+    }
+}
@@ -0,0 +1,82 @@
+package com.jccdex.rpc.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import com.jccdex.core.encoding.common.B16;
+import com.jccdex.rpc.core.coretypes.LedgerTransactions;
+import com.jccdex.rpc.core.coretypes.STObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 解析账本中的交易及其元数据(LedgerTransactions): byte[]上的BinaryParser与heap/direct
+ * ByteBuffer上的BufferBinaryParser对比,main方法附带gc profiler,输出每次解析的分配量
+ * (gc.alloc.rate.norm),每次操作解析全部交易与元数据
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryParserBenchmark {
+    /**
+     * 已上链的IOU转账交易(含签名)
+     */
+    static final String PAYMENT = "1200002280000000240000000361D4838D7EA4C6800000000000000000000000000055534400000000004B4E9C06F24296074F7BC48F92A97916C6DC5EA968400000000000000A732103AB40A0490F9B7ED8DF29D246BF2D6269820A0EE7742ACDD457BEA7C7D0931EDB74473045022100D184EB4AE5956FF600E7536EE459345C7BBCF097A84CC61A93B9AF7197EDB98702201CEA8009B7BEEBAA2AACC0359B41C427C1C5B550A4CA4B80CF2174AF2D6D5DCE81144B4E9C06F24296074F7BC48F92A97916C6DC5EA983143E9D4A2B8AA0780F682D136F7A56D6724EF53754";
+
+    private byte[][] bytes;
+    private ByteBuffer[] heap;
+    private ByteBuffer[] direct;
+
+    @Setup
+    public void setup() {
+        int count = LedgerTransactions.TRANSACTIONS.length * 2;
+        bytes = new byte[count][];
+        heap = new ByteBuffer[count];
+        direct = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            bytes[i] = B16.decode(LedgerTransactions.TRANSACTIONS[i / 2][i % 2]);
+            heap[i] = ByteBuffer.wrap(bytes[i]);
+            direct[i] = ByteBuffer.allocateDirect(bytes[i].length);
+            direct[i].put(bytes[i]).flip();
+        }
+    }
+
+    @Benchmark
+    public void byteArray(Blackhole blackhole) {
+        for (byte[] blob : bytes) {
+            blackhole.consume(STObject.translate.fromBytes(blob));
+        }
+    }
+
+    @Benchmark
+    public void heapBuffer(Blackhole blackhole) {
+        for (ByteBuffer blob : heap) {
+            blackhole.consume(STObject.translate.fromBuffer(blob));
+        }
+    }
+
+    @Benchmark
+    public void directBuffer(Blackhole blackhole) {
+        for (ByteBuffer blob : direct) {
+            blackhole.consume(STObject.translate.fromBuffer(blob));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(BinaryParserBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.jccdex.rpc.benchmark;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import com.jccdex.rpc.core.types.shamap.ParallelHasher;
+import com.jccdex.rpc.core.types.shamap.ShaMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 100万个叶子的SHAMap根哈希: 单线程与ParallelHasher(ForkJoinPool.commonPool)对比,
+ * 每次调用前清空所有节点缓存的哈希(不计入耗时)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ParallelShaMapBenchmark {
+    @Param({"1000000"})
+    public int leaves;
+
+    @Param({"2"})
+    public int forkDepth;
+
+    private ShaMap map;
+    private ParallelHasher hasher;
+
+    @Setup
+    public void setup() {
+        Config.initBouncy();
+        map = ShaMapBenchmark.randomMap(leaves);
+        hasher = new ParallelHasher(ForkJoinPool.commonPool(), forkDepth, ParallelHasher.DEFAULT_THRESHOLD);
+        if (!hasher.hash(map).equals(sequentialRoot())) {
+            throw new IllegalStateException("并行计算的根哈希与单线程不一致");
+        }
+    }
+
+    private Hash256 sequentialRoot() {
+        ShaMapBenchmark.invalidate(map);
+        return map.hash();
+    }
+
+    @Setup(Level.Invocation)
+    public void invalidate() {
+        ShaMapBenchmark.invalidate(map);
+    }
+
+    @Benchmark
+    public Hash256 sequential() {
+        return map.hash();
+    }
+
+    @Benchmark
+    public Hash256 parallel() {
+        return hasher.hash(map);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ParallelShaMapBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,59 @@
+package com.jccdex.rpc.benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.jccdex.rpc.http.RequestTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * submit请求体生成: 原先的ObjectMapper + ObjectNode方式与RequestTemplate对比
+ *
+ * 运行: 以main方法启动,或加 -prof gc 查看每次调用的分配量
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestTemplateBenchmark {
+    private final String txBlob = "12000022800000002400000001614000000000989680684000000000002710732102"
+            + "C13075B18C87032D2BD8EAAB1E8C5B9E8F5E4A4C3FD0ED8AB2E2C7B3D0C1A5F4744730450221009C2A";
+
+    @Benchmark
+    public byte[] objectMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode data = mapper.createObjectNode();
+        ObjectNode object = mapper.createObjectNode();
+        object.put("tx_blob", txBlob);
+        ArrayList<ObjectNode> params = new ArrayList<>();
+        params.add(object);
+        ArrayNode array = mapper.valueToTree(params);
+        data.put("method", "submit");
+        data.set("params", array);
+        return data.toString().getBytes();
+    }
+
+    @Benchmark
+    public byte[] template() {
+        return RequestTemplate.SUBMIT.render(txBlob);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(RequestTemplateBenchmark.class.getSimpleName()).build()).run();
+    }
+}
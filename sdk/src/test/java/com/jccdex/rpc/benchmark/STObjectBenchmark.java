@@ -0,0 +1,195 @@
+package com.jccdex.rpc.benchmark;
+
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import com.jccdex.core.encoding.common.B16;
+import com.jccdex.rpc.core.coretypes.AccountID;
+import com.jccdex.rpc.core.coretypes.Amount;
+import com.jccdex.rpc.core.coretypes.Blob;
+import com.jccdex.rpc.core.coretypes.Currency;
+import com.jccdex.rpc.core.coretypes.STArray;
+import com.jccdex.rpc.core.coretypes.STObject;
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import com.jccdex.rpc.core.coretypes.uint.UInt32;
+import com.jccdex.rpc.core.coretypes.uint.UInt64;
+import com.jccdex.rpc.core.fields.Field;
+import com.jccdex.rpc.core.serialized.SerializedType;
+import com.jccdex.rpc.core.serialized.enums.EngineResult;
+import com.jccdex.rpc.core.serialized.enums.LedgerEntryType;
+import com.jccdex.rpc.core.serialized.enums.TransactionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Payment、OfferCreate与交易元数据(metadata)的解析和序列化。
+ * 在修改STObject字段存储的提交之前与之后各运行一次得到前后对比;
+ * map*方法在同一次运行中对比TreeMap与FieldsMap按解析顺序写入、按字段读取和遍历的开销。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class STObjectBenchmark {
+    @Param({"payment", "offerCreate", "meta"})
+    public String kind;
+
+    private byte[] bytes;
+    private STObject object;
+    private Map.Entry<Field, SerializedType>[] entries;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        if ("payment".equals(kind)) {
+            object = STObject.fromHex(BinaryParserBenchmark.PAYMENT);
+        } else if ("offerCreate".equals(kind)) {
+            object = offerCreate();
+        } else {
+            object = meta();
+        }
+        bytes = object.toBytes();
+        object = STObject.translate.fromBytes(bytes);
+        // 复制一份,避免依赖被测map的entry实现
+        entries = object.getFields().entrySet().stream()
+                .map(e -> new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue()))
+                .toArray(Map.Entry[]::new);
+    }
+
+    @Benchmark
+    public STObject parse() {
+        return STObject.translate.fromBytes(bytes);
+    }
+
+    /**
+     * 扫描账本时通常只读取的几个字段,对比完整解析与延迟解析
+     */
+    @Benchmark
+    public void scan(Blackhole bh) {
+        read(STObject.translate.fromBytes(bytes), bh);
+    }
+
+    @Benchmark
+    public void lazyScan(Blackhole bh) {
+        read(STObject.lazy(bytes), bh);
+    }
+
+    private static void read(STObject so, Blackhole bh) {
+        bh.consume(so.get(Field.TransactionType));
+        bh.consume(so.get(Field.Account));
+        bh.consume(so.get(Field.Destination));
+        bh.consume(so.get(Field.Amount));
+        bh.consume(so.get(Field.TransactionResult));
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return object.toBytes();
+    }
+
+    @Benchmark
+    public void mapTreeMap(Blackhole bh) {
+        TreeMap<Field, SerializedType> map = new TreeMap<>();
+        fill(map, bh);
+    }
+
+    @Benchmark
+    public void mapFieldsMap(Blackhole bh) {
+        STObject.FieldsMap map = new STObject.FieldsMap();
+        fill(map, bh);
+    }
+
+    private void fill(Map<Field, SerializedType> map, Blackhole bh) {
+        for (Map.Entry<Field, SerializedType> entry : entries) {
+            map.put(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Field, SerializedType> entry : entries) {
+            bh.consume(map.get(entry.getKey()));
+        }
+        for (Field field : map.keySet()) {
+            bh.consume(field);
+        }
+    }
+
+    private static AccountID account(int seed) {
+        byte[] bytes = new byte[20];
+        Arrays.fill(bytes, (byte) seed);
+        return AccountID.fromAddressBytes(bytes);
+    }
+
+    private static Hash256 hash(int seed) {
+        byte[] bytes = new byte[32];
+        Arrays.fill(bytes, (byte) seed);
+        return new Hash256(bytes);
+    }
+
+    private static STObject offerCreate() {
+        STObject tx = new STObject();
+        tx.put(Field.TransactionType, TransactionType.OfferCreate);
+        tx.put(Field.Flags, new UInt32(0x80000000L));
+        tx.put(Field.Sequence, new UInt32(1024));
+        tx.put(Field.TakerPays, new Amount(new BigDecimal("1234.5678"), Currency.fromString("CNY"), account(2)));
+        tx.put(Field.TakerGets, new Amount(new BigDecimal("100")));
+        tx.put(Field.Fee, new Amount(new BigDecimal("0.01")));
+        tx.put(Field.SigningPubKey, new Blob(B16.decode("03AB40A0490F9B7ED8DF29D246BF2D6269820A0EE7742ACDD457BEA7C7D0931EDB")));
+        tx.put(Field.TxnSignature, new Blob(new byte[71]));
+        tx.put(Field.Account, account(1));
+        return tx;
+    }
+
+    private static STObject meta() {
+        STArray nodes = new STArray();
+        for (int i = 0; i < 6; i++) {
+            STObject previous = new STObject();
+            previous.put(Field.Balance, new Amount(new BigDecimal("10" + i)));
+            previous.put(Field.Sequence, new UInt32(10 + i));
+
+            STObject fields = new STObject();
+            fields.put(Field.Flags, new UInt32(0));
+            fields.put(Field.Sequence, new UInt32(11 + i));
+            fields.put(Field.OwnerCount, new UInt32(i));
+            fields.put(Field.Balance, new Amount(new BigDecimal("9" + i)));
+            fields.put(Field.Account, account(i));
+
+            STObject modified = new STObject();
+            modified.put(Field.LedgerEntryType, LedgerEntryType.AccountRoot);
+            modified.put(Field.PreviousTxnLgrSeq, new UInt32(100 + i));
+            modified.put(Field.PreviousTxnID, hash(i));
+            modified.put(Field.LedgerIndex, hash(i + 16));
+            modified.put(Field.FinalFields, fields);
+            modified.put(Field.PreviousFields, previous);
+            modified.put(Field.OwnerNode, new UInt64(0));
+
+            STObject node = new STObject();
+            node.put(Field.ModifiedNode, modified);
+            nodes.add(node);
+        }
+        STObject meta = new STObject();
+        meta.put(Field.TransactionIndex, new UInt32(3));
+        meta.put(Field.AffectedNodes, nodes);
+        meta.put(Field.TransactionResult, EngineResult.tesSUCCESS);
+        return meta;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(STObjectBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+}
@@ -0,0 +1,105 @@
+package com.jccdex.rpc.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.hash.HalfSha512;
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import com.jccdex.rpc.core.types.shamap.BytesItem;
+import com.jccdex.rpc.core.types.shamap.ShaMap;
+import com.jccdex.rpc.core.types.shamap.ShaMapInner;
+import com.jccdex.rpc.core.types.shamap.ShaMapLeaf;
+import com.jccdex.rpc.core.types.shamap.TreeWalker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * SHAMap根哈希: 10万个叶子,每次先清空所有节点缓存的哈希再从叶子重新计算到根,
+ * 分别使用BouncyCastle和JDK的SHA-512实现
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShaMapBenchmark {
+    private static final int LEAVES = 100000;
+
+    @Param({"BOUNCY_CASTLE", "JDK"})
+    public String provider;
+
+    private ShaMap map;
+    private HalfSha512.Provider previous;
+
+    /**
+     * 清空叶子和内部节点缓存的哈希
+     */
+    private static final TreeWalker INVALIDATE = new TreeWalker() {
+        @Override
+        public void onLeaf(ShaMapLeaf leaf) {
+            leaf.invalidate();
+        }
+
+        @Override
+        public void onInner(ShaMapInner inner) {
+            inner.invalidate();
+        }
+    };
+
+    @Setup
+    public void setup() {
+        Config.initBouncy();
+        previous = HalfSha512.getProvider();
+        HalfSha512.setProvider(HalfSha512.Provider.valueOf(provider));
+        map = randomMap(LEAVES);
+    }
+
+    /**
+     * 随机索引的叶子,内容大小与账本中常见的AccountRoot/Offer条目相近
+     */
+    static ShaMap randomMap(int leaves) {
+        Random random = new Random(42);
+        ShaMap map = new ShaMap();
+        for (int i = 0; i < leaves; i++) {
+            byte[] index = new byte[32];
+            random.nextBytes(index);
+            byte[] item = new byte[100 + random.nextInt(100)];
+            random.nextBytes(item);
+            map.addItem(new Hash256(index), new BytesItem(item));
+        }
+        return map;
+    }
+
+    static void invalidate(ShaMap map) {
+        map.walkTree(INVALIDATE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        HalfSha512.setProvider(previous);
+    }
+
+    @Benchmark
+    public Hash256 rootHash() {
+        invalidate(map);
+        return map.hash();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ShaMapBenchmark.class.getSimpleName()).addProfiler("gc").build()).run();
+    }
+}
@@ -0,0 +1,93 @@
+package com.jccdex.rpc.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import com.jccdex.rpc.core.types.shamap.BytesItem;
+import com.jccdex.rpc.core.types.shamap.ParallelHasher;
+import com.jccdex.rpc.core.types.shamap.ShaMap;
+import com.jccdex.rpc.core.types.shamap.ShaMapBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 由100万个无序的条目建立SHAMap并计算根哈希: 逐个addItem,与ShaMapBuilder
+ * 单线程/并行(ForkJoinPool.commonPool)批量建树对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ShaMapBuilderBenchmark {
+    @Param({"1000000"})
+    public int items;
+
+    private Hash256[] indexes;
+    private BytesItem[] values;
+
+    @Setup
+    public void setup() {
+        Config.initBouncy();
+        Random random = new Random(42);
+        indexes = new Hash256[items];
+        values = new BytesItem[items];
+        for (int i = 0; i < items; i++) {
+            byte[] index = new byte[32];
+            random.nextBytes(index);
+            byte[] item = new byte[100 + random.nextInt(100)];
+            random.nextBytes(item);
+            indexes[i] = new Hash256(index);
+            values[i] = new BytesItem(item);
+        }
+        if (!build(new ShaMapBuilder()).equals(addItems())) {
+            throw new IllegalStateException("批量建树的根哈希与逐个添加不一致");
+        }
+    }
+
+    private Hash256 build(ShaMapBuilder builder) {
+        for (int i = 0; i < items; i++) {
+            builder.add(indexes[i], values[i]);
+        }
+        return builder.build(new ShaMap()).hash();
+    }
+
+    @Benchmark
+    public Hash256 addItems() {
+        ShaMap map = new ShaMap();
+        for (int i = 0; i < items; i++) {
+            map.addItem(indexes[i], values[i]);
+        }
+        return map.hash();
+    }
+
+    @Benchmark
+    public Hash256 sequential() {
+        return build(new ShaMapBuilder(null, 0, 0, true));
+    }
+
+    @Benchmark
+    public Hash256 parallel() {
+        return build(new ShaMapBuilder(ForkJoinPool.commonPool(), ParallelHasher.DEFAULT_FORK_DEPTH,
+                ParallelHasher.DEFAULT_THRESHOLD, true));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(ShaMapBuilderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,199 @@
+package com.jccdex.rpc.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.jccdex.rpc.http.LocalTransport;
+import org.junit.Test;
+
+/**
+ * ResponseCache的淘汰、溢出到磁盘,以及CachingTransport缓存哪些返回数据
+ */
+public class ResponseCacheTest {
+
+    private static String key(int i) {
+        return "{\"method\":\"tx\",\"params\":[{\"transaction\":\"" + i + "\"}]}";
+    }
+
+    private static File tempDir() throws Exception {
+        File dir = Files.createTempDirectory("response-cache").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private static void delete(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testLruEntries() {
+        ResponseCache cache = new ResponseCache(3, Long.MAX_VALUE, ResponseCache.Eviction.LRU, null);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        // 访问a后b成为最久未访问的条目
+        assertEquals("1", cache.get("a"));
+        cache.put("d", "4");
+        assertEquals(3, cache.size());
+        assertEquals(null, cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals("4", cache.get("d"));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(4, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testLruBytes() {
+        String value = new String(new char[100]);
+        // 每个条目2*(1+100)+64字节,只放得下2条
+        long entry = 2 * (1 + 100) + 64;
+        ResponseCache cache = new ResponseCache(100, 2 * entry + 1, ResponseCache.Eviction.LRU, null);
+        cache.put("a", value);
+        cache.put("b", value);
+        assertEquals(2 * entry, cache.weight());
+        cache.put("c", value);
+        assertEquals(2, cache.size());
+        assertEquals(2 * entry, cache.weight());
+        assertEquals(null, cache.get("a"));
+
+        // 单条超出上限的不缓存,也不挤掉已有条目
+        cache.put("d", new String(new char[1000]));
+        assertEquals(null, cache.get("d"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void testTinyLfuResistsScan() {
+        int hot = 50;
+        ResponseCache lru = new ResponseCache(100, Long.MAX_VALUE, ResponseCache.Eviction.LRU, null);
+        ResponseCache lfu = new ResponseCache(100, Long.MAX_VALUE, ResponseCache.Eviction.TINY_LFU, null);
+        for (ResponseCache cache : new ResponseCache[]{lru, lfu}) {
+            for (int i = 0; i < hot; i++) {
+                cache.put(key(i), "hot");
+            }
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < hot; i++) {
+                    cache.get(key(i));
+                }
+            }
+            // 一次性扫描大量只访问一次的条目
+            for (int i = hot; i < hot + 500; i++) {
+                if (cache.get(key(i)) == null) {
+                    cache.put(key(i), "cold");
+                }
+            }
+            assertTrue(cache.size() <= 100);
+        }
+
+        int lruKept = 0;
+        int lfuKept = 0;
+        for (int i = 0; i < hot; i++) {
+            lruKept += lru.get(key(i)) != null ? 1 : 0;
+            lfuKept += lfu.get(key(i)) != null ? 1 : 0;
+        }
+        assertEquals(0, lruKept);
+        assertTrue("TINY_LFU保留的常用条目: " + lfuKept, lfuKept >= hot * 9 / 10);
+    }
+
+    @Test
+    public void testSpill() throws Exception {
+        File dir = tempDir();
+        try {
+            ResponseCache cache = new ResponseCache(2, Long.MAX_VALUE, ResponseCache.Eviction.LRU, dir);
+            cache.put("a", "1");
+            cache.put("b", "2");
+            cache.put("c", "3");
+            assertEquals(1, dir.listFiles().length);
+
+            // 内存未命中时从磁盘读回,并重新放入内存
+            assertEquals("1", cache.get("a"));
+            assertEquals(1, cache.getDiskHits());
+            assertEquals(0, cache.getMisses());
+            assertEquals(2, cache.size());
+            assertEquals("1", cache.get("a"));
+            assertEquals(1, cache.getDiskHits());
+            // 读回a时淘汰的b也写入磁盘
+            assertEquals(2, dir.listFiles().length);
+            assertEquals("2", cache.get("b"));
+            // 读回b时淘汰的c也写入磁盘
+            assertEquals(3, dir.listFiles().length);
+
+            // 同一目录的新缓存可以读到之前溢出的条目
+            ResponseCache reopened = new ResponseCache(2, Long.MAX_VALUE, ResponseCache.Eviction.TINY_LFU, dir);
+            assertEquals("1", reopened.get("a"));
+            assertEquals(null, reopened.get("x"));
+            assertEquals(1, reopened.getDiskHits());
+            assertEquals(1, reopened.getMisses());
+            assertEquals(0.5, reopened.getHitRate(), 0);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testSpillFileContent() throws Exception {
+        File dir = tempDir();
+        try {
+            ResponseCache cache = new ResponseCache(1, Long.MAX_VALUE, ResponseCache.Eviction.LRU, dir);
+            cache.put("a", "中文备注");
+            cache.put("b", "2");
+            File[] files = dir.listFiles();
+            assertEquals(1, files.length);
+            assertEquals(64, files[0].getName().length());
+            assertEquals("中文备注", new String(Files.readAllBytes(files[0].toPath()), StandardCharsets.UTF_8));
+            // 没有遗留临时文件
+            assertTrue(files[0].getName().indexOf('.') < 0);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testCachingTransport() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        CachingTransport transport = new CachingTransport(new LocalTransport((url, json) -> {
+            requests.incrementAndGet();
+            if (json.contains("\"pending\"")) {
+                return "{\"result\":{\"status\":\"success\",\"validated\":false}}";
+            }
+            return "{\"result\":{\"status\":\"success\",\"validated\":true,\"ledger_index\":8123101}}";
+        }), new ResponseCache(100, 1 << 20));
+
+        String tx = "{\"method\":\"tx\",\"params\":[{\"transaction\":\"validated\"}]}";
+        String pending = "{\"method\":\"tx\",\"params\":[{\"transaction\":\"pending\"}]}";
+        String byIndex = "{\"method\":\"ledger\",\"params\":[{\"ledger_index\":8123101}]}";
+        String latest = "{\"method\":\"ledger\",\"params\":[{\"ledger_index\":\"validated\"}]}";
+        String info = "{\"method\":\"server_info\",\"params\":[{}]}";
+        for (int i = 0; i < 2; i++) {
+            transport.post("http://a", tx.getBytes(StandardCharsets.UTF_8));
+            transport.postAsync("http://b", byIndex.getBytes(StandardCharsets.UTF_8)).get();
+        }
+        // 已验证的tx和指定序号的账本只请求一次,与节点无关
+        assertEquals(2, requests.get());
+
+        for (String json : new String[]{pending, latest, info}) {
+            transport.post("http://a", json.getBytes(StandardCharsets.UTF_8));
+            transport.postAsync("http://a", json.getBytes(StandardCharsets.UTF_8)).get();
+        }
+        assertEquals(8, requests.get());
+        assertEquals(2, transport.getCache().size());
+    }
+}
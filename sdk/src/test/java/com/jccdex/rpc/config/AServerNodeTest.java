@@ -0,0 +1,165 @@
+package com.jccdex.rpc.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * 节点熔断、探测与选择策略
+ *
+ * 请求的延迟通过向success()/failure()传入更早的开始时间模拟,不发出网络请求。
+ */
+public class AServerNodeTest {
+    private static final String A = "http://a";
+    private static final String B = "http://b";
+    private static final String C = "http://c";
+
+    private static AServerNode nodes(NodeSelector selector, long openMillis, String... urls) {
+        return new AServerNode(new ArrayList<>(Arrays.asList(urls)), selector, 2, openMillis) {
+        };
+    }
+
+    private static void succeed(NodeHealth node, long millis) {
+        long start = node.start();
+        node.success(start - TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static void failure(NodeHealth node) {
+        node.failure(node.start());
+    }
+
+    @Test
+    public void testOpensAfterThreshold() throws Exception {
+        AServerNode server = nodes(NodeSelector.RANDOM, 60000, A, B);
+        NodeHealth a = server.node(A);
+        failure(a);
+        assertEquals(NodeHealth.State.CLOSED, a.getState());
+        failure(a);
+        assertEquals(NodeHealth.State.OPEN, a.getState());
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(B, server.selectUrl());
+        }
+        // 熔断的节点排在最后,仍可作为最后的尝试
+        assertEquals(Arrays.asList(B, A), server.candidateUrls());
+
+        // 成功的请求清零连续失败次数
+        NodeHealth b = server.node(B);
+        failure(b);
+        succeed(b, 1);
+        failure(b);
+        assertEquals(NodeHealth.State.CLOSED, b.getState());
+    }
+
+    @Test
+    public void testAllOpenFallsBackInOrder() throws Exception {
+        AServerNode server = nodes(NodeSelector.RANDOM, 60000, A, B);
+        for (NodeHealth node : server.getNodes()) {
+            failure(node);
+            failure(node);
+        }
+        assertEquals(A, server.selectUrl());
+        assertEquals(Arrays.asList(A, B), server.candidateUrls());
+    }
+
+    @Test
+    public void testSingleProbePerNode() throws Exception {
+        AServerNode server = nodes(NodeSelector.RANDOM, 50, A, B);
+        for (NodeHealth node : server.getNodes()) {
+            failure(node);
+            failure(node);
+        }
+        Thread.sleep(80);
+
+        // 两个节点各由一个调用者探测,探测在途时不再交给其他请求
+        assertEquals(A, server.selectUrl());
+        assertEquals(Arrays.asList(B), server.candidateUrls());
+        for (int i = 0; i < 5; i++) {
+            try {
+                server.selectUrl();
+                fail("探测在途时不应返回节点");
+            } catch (Exception e) {
+                assertEquals("没有可用的服务器", e.getMessage());
+            }
+        }
+
+        succeed(server.node(A), 1);
+        failure(server.node(B));
+        assertEquals(NodeHealth.State.CLOSED, server.node(A).getState());
+        // 探测失败立即重新熔断
+        assertEquals(NodeHealth.State.OPEN, server.node(B).getState());
+        assertEquals(A, server.selectUrl());
+        assertEquals(Arrays.asList(A, B), server.candidateUrls());
+    }
+
+    @Test
+    public void testProbeWaitsForCooldown() throws Exception {
+        AServerNode server = nodes(NodeSelector.RANDOM, 60000, A);
+        NodeHealth a = server.node(A);
+        failure(a);
+        failure(a);
+        assertFalse(a.tryProbe());
+        assertFalse(a.isProbing());
+        assertEquals(NodeHealth.State.OPEN, a.getState());
+    }
+
+    @Test
+    public void testEwmaPrefersLowLatency() throws Exception {
+        AServerNode server = nodes(NodeSelector.EWMA, 60000, A, B, C);
+        succeed(server.node(A), 30);
+        succeed(server.node(B), 5);
+        succeed(server.node(C), 10);
+        assertEquals(B, server.selectUrl());
+        assertEquals(Arrays.asList(B, C, A), server.candidateUrls());
+
+        // 在途请求使分数升高
+        server.node(B).start();
+        server.node(B).start();
+        assertEquals(C, server.selectUrl());
+    }
+
+    @Test
+    public void testLeastOutstanding() throws Exception {
+        AServerNode server = nodes(NodeSelector.LEAST_OUTSTANDING, 60000, A, B, C);
+        server.node(A).start();
+        server.node(B).start();
+        server.node(B).start();
+        assertEquals(C, server.selectUrl());
+        server.node(C).start();
+        server.node(C).start();
+        assertEquals(A, server.selectUrl());
+    }
+
+    @Test
+    public void testPowerOfTwoNeverPicksWorst() throws Exception {
+        AServerNode server = nodes(NodeSelector.POWER_OF_TWO, 60000, A, B, C);
+        succeed(server.node(A), 5);
+        succeed(server.node(B), 10);
+        succeed(server.node(C), 50);
+        int[] picks = new int[2];
+        for (int i = 0; i < 300; i++) {
+            String url = server.selectUrl();
+            assertTrue(!C.equals(url));
+            picks[A.equals(url) ? 0 : 1]++;
+        }
+        assertTrue(picks[0] > picks[1]);
+    }
+
+    @Test
+    public void testFailurePenalty() {
+        AServerNode server = nodes(NodeSelector.EWMA, 60000, A, B);
+        failure(server.node(A));
+        succeed(server.node(B), 100);
+        assertTrue(server.node(A).getLatencyMillis() >= 1000);
+        assertEquals(1, server.node(A).getFailures());
+        assertEquals(1, server.node(B).getSuccesses());
+        assertEquals(0, server.node(B).getOutstanding());
+    }
+}
@@ -0,0 +1,150 @@
+package com.jccdex.rpc.confirm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * ConfirmationTracker按账本确认交易,以及各种失败是否能确定交易不会上链
+ *
+ * 模拟的链每收到一次对尚未验证账本的请求就验证一个新账本。
+ */
+public class ConfirmationTrackerTest {
+    private static final String HASH = "C6A4F0E5D7B4A9D3A1F7E2C8B5D4A3F2E1D0C9B8A7F6E5D4C3B2A1F0E9D8C7B6";
+    private static final Pattern LEDGER_INDEX = Pattern.compile("\"ledger_index\":(\\d+)");
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "confirmation-tracker-test");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 模拟的链
+     */
+    private static class Chain {
+        long validated = 100;
+        /**
+         * 账本序号到其中的交易
+         */
+        final Map<Long, String> transactions = new HashMap<>();
+        /**
+         * 节点缺少的账本
+         */
+        final Set<Long> missing = new HashSet<>();
+        /**
+         * 为false时不再验证新账本
+         */
+        boolean advancing = true;
+
+        synchronized CompletableFuture<String> request(byte[] data) {
+            String json = new String(data, StandardCharsets.UTF_8);
+            Matcher matcher = LEDGER_INDEX.matcher(json);
+            long index = matcher.find() ? Long.parseLong(matcher.group(1)) : validated;
+            if (index > validated || missing.contains(index)) {
+                if (advancing) {
+                    validated++;
+                }
+                return CompletableFuture.completedFuture("{\"result\":{\"status\":\"error\",\"error\":\"lgrNotFound\"}}");
+            }
+            String hashes = transactions.containsKey(index) ? "\"" + transactions.get(index) + "\"" : "";
+            return CompletableFuture.completedFuture("{\"result\":{\"status\":\"success\",\"validated\":true,"
+                    + "\"ledger\":{\"ledger_index\":" + index + ",\"transactions\":[" + hashes + "]}}}");
+        }
+    }
+
+    private ConfirmationTracker tracker(Chain chain, long maxWaitMillis) {
+        return new ConfirmationTracker(chain::request, timer, 2, 5, maxWaitMillis);
+    }
+
+    private static Throwable failure(CompletableFuture<Long> future) throws Exception {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("确认应当失败");
+        return null;
+    }
+
+    @Test
+    public void testConfirmedInLedger() throws Exception {
+        Chain chain = new Chain();
+        chain.transactions.put(103L, HASH);
+        ConfirmationTracker tracker = tracker(chain, ConfirmationTracker.DEFAULT_MAX_WAIT_MILLIS);
+        // hash不区分大小写
+        assertEquals(103L, (long) tracker.track(HASH.toLowerCase(), 105).get(10, TimeUnit.SECONDS));
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void testExpiredAfterLastLedgerSequence() throws Exception {
+        ConfirmationTracker tracker = tracker(new Chain(), ConfirmationTracker.DEFAULT_MAX_WAIT_MILLIS);
+        Throwable error = failure(tracker.track(HASH, 104));
+        assertTrue(error instanceof TransactionExpiredException);
+        assertEquals(104, ((TransactionExpiredException) error).getLastLedgerSequence());
+    }
+
+    @Test
+    public void testNoLimitIsNotExpired() throws Exception {
+        // 未设置LastLedgerSequence,过了expiryLedgers个账本交易仍可能上链
+        ConfirmationTracker tracker = tracker(new Chain(), ConfirmationTracker.DEFAULT_MAX_WAIT_MILLIS);
+        Throwable error = failure(tracker.track(HASH));
+        assertFalse(error instanceof TransactionExpiredException);
+    }
+
+    @Test
+    public void testSkippedLedgerIsNotExpired() throws Exception {
+        Chain chain = new Chain();
+        chain.missing.add(102L);
+        ConfirmationTracker tracker = tracker(chain, ConfirmationTracker.DEFAULT_MAX_WAIT_MILLIS);
+        // 交易可能在被跳过的账本中
+        Throwable error = failure(tracker.track(HASH, 104));
+        assertFalse(error instanceof TransactionExpiredException);
+    }
+
+    @Test
+    public void testMaxWaitIsNotExpired() throws Exception {
+        Chain chain = new Chain();
+        chain.advancing = false;
+        ConfirmationTracker tracker = tracker(chain, 50);
+        Throwable error = failure(tracker.track(HASH, 104));
+        assertFalse(error instanceof TransactionExpiredException);
+        assertEquals(0, tracker.size());
+    }
+
+    @Test
+    public void testManyTransactionsOneLedgerScan() throws Exception {
+        Chain chain = new Chain();
+        Map<String, Long> expected = new HashMap<>();
+        for (long ledger = 101; ledger <= 103; ledger++) {
+            String hash = HASH.substring(0, 58) + "000" + ledger;
+            chain.transactions.put(ledger, hash);
+            expected.put(hash, ledger);
+        }
+        ConfirmationTracker tracker = tracker(chain, ConfirmationTracker.DEFAULT_MAX_WAIT_MILLIS);
+        Map<String, CompletableFuture<Long>> futures = new HashMap<>();
+        for (String hash : expected.keySet()) {
+            futures.put(hash, tracker.track(hash, 110));
+        }
+        for (Map.Entry<String, CompletableFuture<Long>> entry : futures.entrySet()) {
+            assertEquals(expected.get(entry.getKey()), entry.getValue().get(10, TimeUnit.SECONDS));
+        }
+    }
+}
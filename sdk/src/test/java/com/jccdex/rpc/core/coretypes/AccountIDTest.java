@@ -0,0 +1,65 @@
+package com.jccdex.rpc.core.coretypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.jccdex.core.encoding.B58IdentiferCodecs;
+import com.jccdex.core.encoding.base58.B58;
+import com.jccdex.core.encoding.common.B16;
+import com.jccdex.rpc.config.Config;
+import org.junit.Test;
+
+/**
+ * AccountID的地址延迟编码、共享实例,以及切换字母表后的行为
+ */
+public class AccountIDTest {
+    /**
+     * 与默认字母表只交换了j和r
+     */
+    private static final String OTHER_ALPHABET = "rpshnaf39wBUDNEGHJKLM4PQRST7VWXYZ2bcdeCg65jkm8oFqi1tuvAxyz";
+    private static final byte[] BYTES = B16.decode("7908A7F0EDD48EA896C3580A399F0EE78611C8E3");
+
+    private static String encode(String alphabet, byte[] bytes) {
+        return new B58IdentiferCodecs(new B58(alphabet, false)).encodeAddress(bytes);
+    }
+
+    @Test
+    public void testSharedInstances() {
+        String address = encode(Config.DEFAULT_ALPHABET, BYTES);
+        AccountID fromBytes = AccountID.fromBytes(BYTES.clone());
+        AccountID fromAddress = AccountID.fromAddress(address);
+        assertTrue(fromBytes == fromAddress);
+        // 同一地址再次查询命中缓存
+        assertTrue(fromAddress == AccountID.fromAddress(new String(address)));
+        assertEquals(address, fromBytes.address());
+        assertEquals(address, fromBytes.toString());
+        assertEquals(address, AccountID.fromString(B16.toString(BYTES)).address());
+    }
+
+    @Test
+    public void testAlphabetCapturedAtConstruction() {
+        String address = encode(Config.DEFAULT_ALPHABET, BYTES);
+        String other = encode(OTHER_ALPHABET, BYTES);
+        // 创建时尚未编码地址
+        AccountID created = new AccountID(BYTES.clone());
+        AccountID shared = AccountID.fromBytes(BYTES.clone());
+        Config.setAlphabet(OTHER_ALPHABET);
+        try {
+            // 按创建时的字母表编码,不受之后的设置影响
+            assertEquals(address, created.address());
+            assertEquals(address, shared.address());
+
+            AccountID current = AccountID.fromBytes(BYTES.clone());
+            assertTrue(current != shared);
+            assertEquals(shared, current);
+            assertEquals(other, current.address());
+            assertTrue(AccountID.fromAddress(other) == current);
+            assertEquals(other, AccountID.fromAddress(other).toString());
+        } finally {
+            Config.setAlphabet(Config.DEFAULT_ALPHABET);
+        }
+        // 切回原字母表后不会拿到按其他字母表编码的实例
+        assertEquals(address, AccountID.fromBytes(BYTES.clone()).address());
+        assertEquals(address, AccountID.fromAddress(address).address());
+    }
+}
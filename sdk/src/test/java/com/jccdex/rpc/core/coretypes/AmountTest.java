@@ -0,0 +1,226 @@
+package com.jccdex.rpc.core.coretypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import com.jccdex.core.encoding.common.B16;
+import org.junit.Test;
+
+/**
+ * Amount的定点实现与BigDecimal实现的对比(随机属性测试)
+ *
+ * 参照结果按原实现计算: 加减为精确结果, 乘除按MATH_CONTEXT保留16位有效数字,
+ * 然后按roundValue对原生/非原生金额取整; 序列化按BigDecimal计算mantissa和exponent。
+ */
+public class AmountTest {
+    private static final int ITERATIONS = 20000;
+    private static final BigDecimal DROPS = BigDecimal.TEN.pow(6);
+
+    private final Random random = new Random(20240601);
+    private final Currency currency = Currency.fromString("CNY");
+    private final AccountID issuer = AccountID.fromAddressBytes(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19, 20});
+
+    private interface Operation {
+        Amount fixed(Amount a, Amount b);
+
+        BigDecimal reference(BigDecimal a, BigDecimal b);
+    }
+
+    @Test
+    public void testAdd() {
+        check(new Operation() {
+            @Override
+            public Amount fixed(Amount a, Amount b) {
+                return a.add(b);
+            }
+
+            @Override
+            public BigDecimal reference(BigDecimal a, BigDecimal b) {
+                return a.add(b);
+            }
+        });
+    }
+
+    @Test
+    public void testSubtract() {
+        check(new Operation() {
+            @Override
+            public Amount fixed(Amount a, Amount b) {
+                return a.subtract(b);
+            }
+
+            @Override
+            public BigDecimal reference(BigDecimal a, BigDecimal b) {
+                return a.subtract(b);
+            }
+        });
+    }
+
+    @Test
+    public void testMultiply() {
+        check(new Operation() {
+            @Override
+            public Amount fixed(Amount a, Amount b) {
+                return a.multiply(b);
+            }
+
+            @Override
+            public BigDecimal reference(BigDecimal a, BigDecimal b) {
+                return a.multiply(b, Amount.MATH_CONTEXT);
+            }
+        });
+    }
+
+    @Test
+    public void testDivide() {
+        check(new Operation() {
+            @Override
+            public Amount fixed(Amount a, Amount b) {
+                return a.divide(b);
+            }
+
+            @Override
+            public BigDecimal reference(BigDecimal a, BigDecimal b) {
+                return a.divide(b, Amount.MATH_CONTEXT);
+            }
+        });
+    }
+
+    @Test
+    public void testCompare() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            Amount a = next(random.nextInt(3) == 0);
+            Amount b = next(random.nextInt(3) == 0);
+            assertEquals(a + " vs " + b, Integer.signum(a.value().compareTo(b.value())), Integer.signum(a.compareTo(b)));
+        }
+    }
+
+    @Test
+    public void testBinary() {
+        for (int i = 0; i < ITERATIONS; i++) {
+            boolean isNative = random.nextInt(3) == 0;
+            Amount a = next(isNative);
+            if (!isNative && (a.exponent() < -96 || a.exponent() > 80)) {
+                continue;
+            }
+            String hex = referenceHex(a.value(), isNative);
+            assertEquals(a.toString(), hex, a.toHex());
+
+            Amount parsed = Amount.translate.fromHex(hex);
+            assertEquals(hex, a.value(), parsed.value());
+            assertEquals(hex, hex, parsed.toHex());
+        }
+    }
+
+    private void check(Operation operation) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            boolean isNative = random.nextInt(3) == 0;
+            Amount a = next(isNative);
+            Amount b = next(random.nextInt(3) == 0 ? !isNative : isNative);
+            String args = a.toTextFull() + ", " + b.toTextFull();
+
+            BigDecimal expected;
+            try {
+                expected = Amount.roundValue(operation.reference(a.value(), b.value()), isNative).stripTrailingZeros();
+                if (isNative) {
+                    new Amount(expected);
+                }
+            } catch (ArithmeticException | Amount.PrecisionError e) {
+                try {
+                    operation.fixed(a, b);
+                    fail(args + " should throw " + e);
+                } catch (ArithmeticException | Amount.PrecisionError expectedError) {
+                    assertEquals(args, e.getClass(), expectedError.getClass());
+                }
+                continue;
+            }
+            Amount actual = operation.fixed(a, b);
+            assertEquals(args, expected, actual.value());
+            assertEquals(args, isNative, actual.isNative());
+            if (isNative || actual.exponent() >= -96 && actual.exponent() <= 80) {
+                assertEquals(args, referenceHex(expected, isNative), actual.toHex());
+            }
+        }
+    }
+
+    /**
+     * 随机金额, 包括0、10的幂、全9和以5结尾等取整边界, 一半经过二进制解析
+     */
+    private Amount next(boolean isNative) {
+        BigDecimal value = isNative ? nextNative() : nextIOU();
+        if (random.nextBoolean()) {
+            value = value.negate();
+        }
+        Amount amount = isNative ? new Amount(value) : new Amount(value, currency, issuer);
+        if (random.nextBoolean() && (isNative || amount.exponent() >= -96 && amount.exponent() <= 80)) {
+            amount = Amount.translate.fromBytes(amount.toBytes());
+        }
+        return amount;
+    }
+
+    private BigDecimal nextIOU() {
+        int exponent = random.nextInt(4) == 0 ? random.nextInt(170) - 90 : random.nextInt(30) - 20;
+        return BigDecimal.valueOf(nextDigits(1 + random.nextInt(16)), -exponent);
+    }
+
+    private BigDecimal nextNative() {
+        long drops = nextDigits(1 + random.nextInt(17));
+        if (drops > 100000000000000000L) {
+            drops /= 10;
+        }
+        return BigDecimal.valueOf(drops, 6);
+    }
+
+    private long nextDigits(int digits) {
+        long value = 0;
+        switch (random.nextInt(10)) {
+            case 0:
+                return 0;
+            case 1:
+                return BigInteger.TEN.pow(digits - 1).longValue();
+            case 2:
+                return BigInteger.TEN.pow(digits).longValue() - 1;
+            case 3:
+                for (int i = 1; i < digits; i++) {
+                    value = value * 10 + random.nextInt(10);
+                }
+                return value * 10 + 5;
+            default:
+                for (int i = 0; i < digits; i++) {
+                    value = value * 10 + random.nextInt(10);
+                }
+                return value;
+        }
+    }
+
+    private String referenceHex(BigDecimal value, boolean isNative) {
+        value = value.stripTrailingZeros();
+        BigInteger packed;
+        if (isNative) {
+            packed = value.multiply(DROPS).toBigIntegerExact().abs();
+            if (value.signum() >= 0) {
+                packed = packed.setBit(62);
+            }
+        } else if (value.signum() == 0) {
+            packed = BigInteger.ONE.shiftLeft(63);
+        } else {
+            int exponent = -16 + value.precision() - value.scale();
+            BigInteger mantissa = value.scaleByPowerOfTen(-exponent).toBigIntegerExact().abs();
+            int header = 512 + (value.signum() > 0 ? 256 : 0) + 97 + exponent;
+            packed = mantissa.or(BigInteger.valueOf(header).shiftLeft(54));
+        }
+        byte[] bytes = new byte[8];
+        byte[] raw = packed.toByteArray();
+        int length = Math.min(raw.length, 8);
+        System.arraycopy(raw, raw.length - length, bytes, 8 - length, length);
+        String hex = B16.toString(bytes);
+        if (!isNative) {
+            hex += currency.toHex() + issuer.toHex();
+        }
+        return hex;
+    }
+}
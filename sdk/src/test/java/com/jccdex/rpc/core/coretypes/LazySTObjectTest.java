@@ -0,0 +1,172 @@
+package com.jccdex.rpc.core.coretypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.jccdex.core.encoding.common.B16;
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.fields.Field;
+import com.jccdex.rpc.core.types.known.tx.result.AffectedNode;
+import com.jccdex.rpc.core.types.known.tx.result.TransactionMeta;
+import com.jccdex.rpc.core.types.known.tx.result.TransactionResult;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * STObject.lazy与完整解析(STObject.fromHex)对比
+ *
+ * 包括未读取任何字段、只读取部分字段以及全部展开后的序列化与JSON。
+ */
+public class LazySTObjectTest {
+    static {
+        Config.initBouncy();
+    }
+
+    @Test
+    public void testUntouchedRoundTrip() {
+        for (String[] transaction : LedgerTransactions.TRANSACTIONS) {
+            for (String hex : transaction) {
+                assertEquals(hex, STObject.lazyHex(hex).toHex());
+            }
+        }
+    }
+
+    @Test
+    public void testJSONMatchesEager() {
+        for (String[] transaction : LedgerTransactions.TRANSACTIONS) {
+            for (String hex : transaction) {
+                STObject eager = STObject.fromHex(hex);
+                STObject lazy = STObject.lazyHex(hex);
+                assertEquals(eager.getClass(), lazy.getClass());
+                assertTrue(eager.toJSONObject().similar(lazy.toJSONObject()));
+                assertEquals(hex, lazy.toHex());
+            }
+        }
+    }
+
+    @Test
+    public void testFieldsDecodedOnDemand() {
+        for (String[] transaction : LedgerTransactions.TRANSACTIONS) {
+            for (String hex : transaction) {
+                STObject eager = STObject.fromHex(hex);
+                STObject lazy = STObject.lazyHex(hex);
+                // 每次只展开一个字段,其余字段保持未解码
+                for (Field field : eager) {
+                    assertEquals(eager.get(field).toHex(), lazy.get(field).toHex());
+                    assertEquals(hex, lazy.toHex());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMetaAffectedNodes() {
+        for (String[] transaction : LedgerTransactions.TRANSACTIONS) {
+            TransactionMeta eager = (TransactionMeta) STObject.fromHex(transaction[1]);
+            TransactionMeta lazy = (TransactionMeta) STObject.lazyHex(transaction[1]);
+            assertEquals(eager.engineResult(), lazy.engineResult());
+            assertEquals(transaction[1], lazy.toHex());
+
+            StringBuilder expected = new StringBuilder();
+            StringBuilder actual = new StringBuilder();
+            for (AffectedNode node : eager.affectedNodes()) {
+                expected.append(node.ledgerEntryType()).append(node.nodeAsFinal().toHex());
+            }
+            for (AffectedNode node : lazy.affectedNodes()) {
+                actual.append(node.ledgerEntryType()).append(node.nodeAsFinal().toHex());
+            }
+            assertEquals(expected.toString(), actual.toString());
+        }
+    }
+
+    @Test
+    public void testSliceOfLargerArray() {
+        for (String[] transaction : LedgerTransactions.TRANSACTIONS) {
+            byte[] tx = B16.decode(transaction[0]);
+            byte[] meta = B16.decode(transaction[1]);
+            byte[] both = new byte[tx.length + meta.length + 2];
+            System.arraycopy(tx, 0, both, 1, tx.length);
+            System.arraycopy(meta, 0, both, 1 + tx.length, meta.length);
+
+            assertEquals(transaction[0], STObject.lazy(both, 1, tx.length).toHex());
+            assertTrue(STObject.fromHex(transaction[1]).toJSONObject()
+                    .similar(STObject.lazy(both, 1 + tx.length, meta.length).toJSONObject()));
+        }
+    }
+
+    private static String affectedNodes(TransactionMeta meta) {
+        StringBuilder nodes = new StringBuilder();
+        for (AffectedNode node : meta.affectedNodes()) {
+            nodes.append(node.ledgerEntryType()).append(node.nodeAsFinal().toHex());
+        }
+        return nodes.toString();
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 20; round++) {
+                for (String[] transaction : LedgerTransactions.TRANSACTIONS) {
+                    String expected = affectedNodes((TransactionMeta) STObject.fromHex(transaction[1]));
+                    // 多个线程同时读取同一个未解码的对象
+                    TransactionMeta shared = (TransactionMeta) STObject.lazyHex(transaction[1]);
+                    CountDownLatch start = new CountDownLatch(1);
+                    List<Future<String>> results = new ArrayList<>();
+                    for (int i = 0; i < threads; i++) {
+                        results.add(pool.submit((Callable<String>) () -> {
+                            start.await();
+                            return affectedNodes(shared);
+                        }));
+                    }
+                    start.countDown();
+                    for (Future<String> result : results) {
+                        assertEquals(expected, result.get());
+                    }
+                    assertEquals(transaction[1], shared.toHex());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testMalformedValue() throws Exception {
+        // AffectedNodes中的LedgerEntryType改为不存在的类型,字段头和长度仍然有效
+        String meta = LedgerTransactions.TRANSACTIONS[0][1];
+        int i = meta.indexOf("110061");
+        String malformed = meta.substring(0, i) + "1100FE" + meta.substring(i + 6);
+        JSONObject json = new JSONObject().put("tx", LedgerTransactions.TRANSACTIONS[0][0]).put("meta", malformed)
+                .put("ledger_index", 8123101).put("hash", "C6A4F0E5D7B4A9D3A1F7E2C8B5D4A3F2E1D0C9B8A7F6E5D4C3B2A1F0E9D8C7B6");
+
+        // 默认完整解析,格式错误在解析时抛出
+        try {
+            TransactionResult.fromJSON(json);
+            fail("完整解析应当抛出异常");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("LedgerEntryType"));
+        }
+
+        // 延迟解析只在读到该字段时抛出
+        TransactionResult lazy = TransactionResult.fromJSON(json, true);
+        assertEquals(LedgerTransactions.TRANSACTIONS[0][0].length() / 2, lazy.txn.toBytes().length);
+        try {
+            affectedNodes(lazy.meta);
+            fail("读取格式错误的字段应当抛出异常");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("LedgerEntryType"));
+        }
+        assertEquals(malformed, lazy.meta.toHex());
+    }
+}
@@ -0,0 +1,33 @@
+package com.jccdex.rpc.core.coretypes;
+
+/**
+ * 账本中的交易及其元数据(二进制hex),供解析相关的测试与benchmark共用
+ *
+ * 按原有的STObject实现由JSON序列化得到,覆盖PathSet、嵌套的STArray/STObject
+ * (AffectedNodes中的FinalFields/PreviousFields/NewFields)、Vector256和Memos。
+ */
+public final class LedgerTransactions {
+    /**
+     * {交易, 元数据}
+     */
+    public static final String[][] TRANSACTIONS = {
+            // 含路径、SendMax和两条Memo的IOU转账,修改了账户、两条信任线和路径上的挂单
+            {"120000228000000024000004A361D504756A75317000000000000000000000000000434E5900000000004D58636E79848F9AA5B0BBC6D1DCE7F2FD08131E68400000000000271069D4C620E0DC3CD000000000000000000000000000555344000000000028333E49545F6A75808B96A1ACB7C2CDD8E3EEF9732103AB40A0490F9B7ED8DF29D246BF2D6269820A0EE7742ACDD457BEA7C7D0931EDB74473045022100D184EB4AE5956FF600E7536EE459345C7BBCF097A84CC61A93B9AF7197EDB98702201CEA8009B7BEEBAA2AACC0359B41C427C1C5B550A4CA4B80CF2174AF2D6D5DCE811425303B46515C67727D88939EA9B4BFCAD5E0EBF683144A55606B76818C97A2ADB8C3CED9E4EFFA05101BF9EA7C056F726465727D0E4F524445522D32303234303630317E0A746578742F706C61696EE1EA7C047265663A7D06E8BDACE8B4A67E0A746578742F706C61696EE1F1011210000000000000000000000000000000000000000030000000000000000000000000434E5900000000004D58636E79848F9AA5B0BBC6D1DCE7F2FD08131EFF01030E19242F3A45505B66717C87929DA8B3BEC9D430000000000000000000000000434E5900000000004D58636E79848F9AA5B0BBC6D1DCE7F2FD08131E00",
+                    "201C00000004F8E511006125007BF2DD55484F565D646B727980878E959CA3AAB1B8BFC6CDD4DBE2E9F0F7FE050C131A2156131A21282F363D444B525960676E757C838A91989FA6ADB4BBC2C9D0D7DEE5ECE624000004A3624000000005E33188E1E7220000000024000004A42D00000003624000000005E30A78811425303B46515C67727D88939EA9B4BFCAD5E0EBF6E1E1E511007225007BF278558F969DA4ABB2B9C0C7CED5DCE3EAF1F8FF060D141B222930373E454C535A616856252C333A41484F565D646B727980878E959CA3AAB1B8BFC6CDD4DBE2E9F0F7FEE66295038D7EA4C68000000000000000000000000000434E590000000000000B16212C37424D58636E79848F9AA5B0BBC6D1E1E722000200003700000000000000003800000000000000006294DD661193843000000000000000000000000000434E590000000000000B16212C37424D58636E79848F9AA5B0BBC6D166D7038D7EA4C68000000000000000000000000000434E59000000000025303B46515C67727D88939EA9B4BFCAD5E0EBF6678000000000000000000000000000000000000000434E5900000000004D58636E79848F9AA5B0BBC6D1DCE7F2FD08131EE1E1E511007225007BF27855A1A8AFB6BDC4CBD2D9E0E7EEF5FC030A11181F262D343B424950575E656C737A56373E454C535A61686F767D848B9299A0A7AEB5BCC3CAD1D8DFE6EDF4FB020910E66295038D7EA4C68000000000000000000000000000434E590000000000000B16212C37424D58636E79848F9AA5B0BBC6D1E1E7220002000037000000000000000038000000000000000062950802E919F7F000000000000000000000000000434E590000000000000B16212C37424D58636E79848F9AA5B0BBC6D166D7038D7EA4C68000000000000000000000000000434E5900000000004A55606B76818C97A2ADB8C3CED9E4EFFA05101B678000000000000000000000000000000000000000434E5900000000004D58636E79848F9AA5B0BBC6D1DCE7F2FD08131EE1E1E511006F25007BF26E557E858C939AA1A8AFB6BDC4CBD2D9E0E7EEF5FC030A11181F262D343B42495057564950575E656C737A81888F969DA4ABB2B9C0C7CED5DCE3EAF1F8FF060D141B22E6644000000154C27F4065D5438D7EA4C68000000000000000000000000000434E5900000000004D58636E79848F9AA5B0BBC6D1DCE7F2FD08131EE1E72200000000240000004D3300000000000000003400000000000000015010B3BAC1C8CFD6DDE4EBF2F900070E151C232A31383F464D545B626970777E858C64400000012A05F20065D51F1187FA8F9000000000000000000000000000434E5900000000004D58636E79848F9AA5B0BBC6D1DCE7F2FD08131E8114030E19242F3A45505B66717C87929DA8B3BEC9D4E1E1F1031000"},
+            // 带一条Memo的SWT转账
+            {"12000022000000002400000038201B007BF2E661400000000EE6B28068400000000000000A732103AB40A0490F9B7ED8DF29D246BF2D6269820A0EE7742ACDD457BEA7C7D0931EDB74473045022100D184EB4AE5956FF600E7536EE459345C7BBCF097A84CC61A93B9AF7197EDB98702201CEA8009B7BEEBAA2AACC0359B41C427C1C5B550A4CA4B80CF2174AF2D6D5DCE81146F7A85909BA6B1BCC7D2DDE8F3FE09141F2A35408314949FAAB5C0CBD6E1ECF7020D18232E39444F5A65F9EA7C04746573747D0568656C6C6F7E0A746578742F706C61696EE1F1",
+                    "201C00000000F8E511006125007BF2AA5590979EA5ACB3BAC1C8CFD6DDE4EBF2F900070E151C232A31383F464D545B6269565B626970777E858C939AA1A8AFB6BDC4CBD2D9E0E7EEF5FC030A11181F262D34E6240000003862400000003B9ACA00E1E7220000000024000000392D0000000062400000002CB4177681146F7A85909BA6B1BCC7D2DDE8F3FE09141F2A3540E1E1E511006125007BEE9055A2A9B0B7BEC5CCD3DAE1E8EFF6FD040B121920272E353C434A51585F666D747B566D747B828990979EA5ACB3BAC1C8CFD6DDE4EBF2F900070E151C232A31383F46E62400000003624000000005F5E100E1E7220000000024000000032D00000001624000000014DC93808114949FAAB5C0CBD6E1ECF7020D18232E39444F5A65E1E1F1031000"},
+            // 经平台下的挂单,部分成交,新建了挂单与目录节点
+            {"12000722000800002400000CE664D50AA87BEE538000000000000000000000000000434E5900000000004D58636E79848F9AA5B0BBC6D1DCE7F2FD08131E654000000059682F00684000000000002710732103AB40A0490F9B7ED8DF29D246BF2D6269820A0EE7742ACDD457BEA7C7D0931EDB74473045022100D184EB4AE5956FF600E7536EE459345C7BBCF097A84CC61A93B9AF7197EDB98702201CEA8009B7BEEBAA2AACC0359B41C427C1C5B550A4CA4B80CF2174AF2D6D5DCE8114B9C4CFDAE5F0FB06111C27323D48535E69747F8A8D14DEE9F4FF0A15202B36414C57626D78838E99A4AFF9EA7C056F666665727D0533303020437E0A746578742F706C61696EE1F1",
+                    "201C00000007F8E311006F567F868D949BA2A9B0B7BEC5CCD3DAE1E8EFF6FD040B121920272E353C434A5158E822000200002400000CE65010B4BBC2C9D0D7DEE5ECF3FA01080F161D242B323940474E555C636A71787F868D64D5071AFD498D0000000000000000000000000000434E5900000000004D58636E79848F9AA5B0BBC6D1DCE7F2FD08131E65400000003B9ACA008114B9C4CFDAE5F0FB06111C27323D48535E69747F8A8D14DEE9F4FF0A15202B36414C57626D78838E99A4AFE1E1E311006456B4BBC2C9D0D7DEE5ECF3FA01080F161D242B323940474E555C636A71787F868DE8364F0AA87BEE53800058B4BBC2C9D0D7DEE5ECF3FA01080F161D242B323940474E555C636A71787F868D01110000000000000000000000004E5943000000000002114D58636E79848F9AA5B0BBC6D1DCE7F2FD08131EE1E1E511006456E9F0F7FE050C131A21282F363D444B525960676E757C838A91989FA6ADB4BBC2E7220000000058E9F0F7FE050C131A21282F363D444B525960676E757C838A91989FA6ADB4BBC28214B9C4CFDAE5F0FB06111C27323D48535E69747F8A0113407F868D949BA2A9B0B7BEC5CCD3DAE1E8EFF6FD040B121920272E353C434A51581E252C333A41484F565D646B727980878E959CA3AAB1B8BFC6CDD4DBE2E9F0F7E1E1E511006125007BF2BE55888F969DA4ABB2B9C0C7CED5DCE3EAF1F8FF060D141B222930373E454C535A6156535A61686F767D848B9299A0A7AEB5BCC3CAD1D8DFE6EDF4FB020910171E252CE62400000CE6624000000218711A00E1E722000000002400000CE72D000000056240000001FAA38DF08114B9C4CFDAE5F0FB06111C27323D48535E69747F8AE1E1E511007225007BF27855FB020910171E252C333A41484F565D646B727980878E959CA3AAB1B8BFC6CDD45691989FA6ADB4BBC2C9D0D7DEE5ECF3FA01080F161D242B323940474E555C636AE6628000000000000000000000000000000000000000434E590000000000000B16212C37424D58636E79848F9AA5B0BBC6D1E1E722000200003700000000000000003800000000000000006295038D7EA4C68000000000000000000000000000434E590000000000000B16212C37424D58636E79848F9AA5B0BBC6D166D7038D7EA4C68000000000000000000000000000434E590000000000B9C4CFDAE5F0FB06111C27323D48535E69747F8A678000000000000000000000000000000000000000434E5900000000004D58636E79848F9AA5B0BBC6D1DCE7F2FD08131EE1E1F1031000"},
+            // 撤单,删除了挂单和空的目录节点
+            {"12000822000000002400000CE7201900000CDA684000000000002710732103AB40A0490F9B7ED8DF29D246BF2D6269820A0EE7742ACDD457BEA7C7D0931EDB74473045022100D184EB4AE5956FF600E7536EE459345C7BBCF097A84CC61A93B9AF7197EDB98702201CEA8009B7BEEBAA2AACC0359B41C427C1C5B550A4CA4B80CF2174AF2D6D5DCE8114B9C4CFDAE5F0FB06111C27323D48535E69747F8AF9EA7C0663616E63656C7D007E0A746578742F706C61696EE1F1",
+                    "201C00000002F8E411006F25007BF08455D8DFE6EDF4FB020910171E252C333A41484F565D646B727980878E959CA3AAB156A3AAB1B8BFC6CDD4DBE2E9F0F7FE050C131A21282F363D444B525960676E757CE722000000002400000CDA33000000000000000034000000000000000050100D141B222930373E454C535A61686F767D848B9299A0A7AEB5BCC3CAD1D8DFE6644000000017D7840065D4D1C37937E08000000000000000000000000000555344000000000028333E49545F6A75808B96A1ACB7C2CDD8E3EEF98114B9C4CFDAE5F0FB06111C27323D48535E69747F8AE1E1E4110064560D141B222930373E454C535A61686F767D848B9299A0A7AEB5BCC3CAD1D8DFE6E72200000000365A071AFD498D0000580D141B222930373E454C535A61686F767D848B9299A0A7AEB5BCC3CAD1D8DFE6011100000000000000000000000000000000000000000211000000000000000000000000000000000000000003110000000000000000000000005553440000000000041128333E49545F6A75808B96A1ACB7C2CDD8E3EEF9E1E1E511006125007BF2DD55ACB3BAC1C8CFD6DDE4EBF2F900070E151C232A31383F464D545B626970777E8556777E858C939AA1A8AFB6BDC4CBD2D9E0E7EEF5FC030A11181F262D343B424950E62400000CE76240000001FAA38DF0E1E722000000002400000CE82D000000046240000001FAA366E08114B9C4CFDAE5F0FB06111C27323D48535E69747F8AE1E1F1031000"},
+            // tecPATH_DRY失败、只扣了手续费的转账
+            {"1200002280000000240000000C61D3038D7EA4C68000000000000000000000000000555344000000000028333E49545F6A75808B96A1ACB7C2CDD8E3EEF9684000000000002710732103AB40A0490F9B7ED8DF29D246BF2D6269820A0EE7742ACDD457BEA7C7D0931EDB74473045022100D184EB4AE5956FF600E7536EE459345C7BBCF097A84CC61A93B9AF7197EDB98702201CEA8009B7BEEBAA2AACC0359B41C427C1C5B550A4CA4B80CF2174AF2D6D5DCE811497A2ADB8C3CED9E4EFFA05101B26313C47525D688314BCC7D2DDE8F3FE09141F2A35404B56616C77828D",
+                    "201C00000009F8E511006125007BEAA855EAF1F8FF060D141B222930373E454C535A61686F767D848B9299A0A7AEB5BCC356B5BCC3CAD1D8DFE6EDF4FB020910171E252C333A41484F565D646B727980878EE6240000000C624000000001312D00E1E72200000000240000000D2D000000016240000000013105F0811497A2ADB8C3CED9E4EFFA05101B26313C47525D68E1E1F1031080"}
+    };
+
+    private LedgerTransactions() {
+    }
+}
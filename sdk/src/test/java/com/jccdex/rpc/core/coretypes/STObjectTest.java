@@ -0,0 +1,59 @@
+package com.jccdex.rpc.core.coretypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.fields.Field;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * 按Field.ordinal()排序的数组存储: 账本交易与元数据的二进制/JSON往返
+ *
+ * LedgerTransactions由原TreeMap实现序列化得到,解析后重新序列化必须逐字节一致。
+ */
+public class STObjectTest {
+    static {
+        Config.initBouncy();
+    }
+
+    @Test
+    public void testBinaryRoundTrip() {
+        for (String[] transaction : LedgerTransactions.TRANSACTIONS) {
+            for (String hex : transaction) {
+                assertEquals(hex, STObject.fromHex(hex).toHex());
+            }
+        }
+    }
+
+    @Test
+    public void testJSONRoundTrip() {
+        for (String[] transaction : LedgerTransactions.TRANSACTIONS) {
+            for (String hex : transaction) {
+                JSONObject json = STObject.fromHex(hex).toJSONObject();
+                // JSON中的字段无序,重建时逐个插入
+                STObject rebuilt = STObject.fromJSONObject(json);
+                assertEquals(hex, rebuilt.toHex());
+                assertTrue(json.similar(rebuilt.toJSONObject()));
+            }
+        }
+    }
+
+    @Test
+    public void testFieldsInCanonicalOrder() {
+        for (String[] transaction : LedgerTransactions.TRANSACTIONS) {
+            for (String hex : transaction) {
+                STObject object = STObject.fromHex(hex);
+                int count = 0;
+                Field last = null;
+                for (Field field : object) {
+                    assertTrue(last == null || last.ordinal() < field.ordinal());
+                    last = field;
+                    count++;
+                }
+                assertEquals(object.getFields().size(), count);
+            }
+        }
+    }
+}
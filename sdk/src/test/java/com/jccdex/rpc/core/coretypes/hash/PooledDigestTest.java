@@ -0,0 +1,121 @@
+package com.jccdex.rpc.core.coretypes.hash;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.jccdex.core.encoding.common.B16;
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.hash.prefixes.HashPrefix;
+import org.junit.Test;
+
+/**
+ * 线程内复用MessageDigest的HalfSha512和Sm3
+ *
+ * 嵌套使用、reset和finish之后继续使用时,结果与每次新建MessageDigest一致。
+ */
+public class PooledDigestTest {
+    static {
+        Config.initBouncy();
+    }
+
+    private final Random random = new Random(20240601);
+
+    private static Hash256 reference(byte[]... parts) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-512");
+        for (byte[] part : parts) {
+            digest.update(part);
+        }
+        return new Hash256(Arrays.copyOf(digest.digest(), 32));
+    }
+
+    private byte[] randomBytes() {
+        byte[] bytes = new byte[random.nextInt(300)];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testSm3Vector() {
+        Sm3 sm3 = new Sm3();
+        sm3.update("abc".getBytes(StandardCharsets.US_ASCII));
+        Hash256 expected = new Hash256(B16.decode("66c7f0f462eeedd9d1f2d46bdc10e4e24167c4875cf2f7a2297da02b8f4ba8e0"));
+        assertEquals(expected, sm3.finish());
+
+        // finish之后重新开始
+        sm3.add((byte) 'a');
+        sm3.add("bc".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(expected, sm3.finish());
+
+        sm3.update("discarded".getBytes(StandardCharsets.US_ASCII));
+        sm3.reset();
+        sm3.update("xabcx".getBytes(StandardCharsets.US_ASCII), 1, 3);
+        assertEquals(expected, sm3.finish());
+    }
+
+    @Test
+    public void testProvidersAgree() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            byte[] bytes = randomBytes();
+            Hash256 expected = reference(bytes);
+            for (HalfSha512.Provider provider : HalfSha512.Provider.values()) {
+                HalfSha512 half = new HalfSha512(provider);
+                half.update(bytes);
+                assertEquals(provider.name(), expected, half.finish());
+            }
+        }
+    }
+
+    @Test
+    public void testNestedAndReset() throws Exception {
+        byte[][] parts = new byte[80][];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = randomBytes();
+        }
+        HalfSha512.Provider[] providers = HalfSha512.Provider.values();
+        // 嵌套层数超过池中保留的数量,两种实现交替使用
+        HalfSha512[] hashers = new HalfSha512[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            hashers[i] = new HalfSha512(providers[i % providers.length]);
+            hashers[i].update(parts[i]);
+            if (i % 3 == 0) {
+                // reset丢弃已写入的内容,归还的digest不能残留数据
+                hashers[i].update(randomBytes());
+                hashers[i].reset();
+                hashers[i].update(parts[i]);
+            }
+        }
+        for (int i = parts.length - 1; i >= 0; i--) {
+            hashers[i].add(parts[i]);
+            assertEquals("depth " + i, reference(parts[i], parts[i]), hashers[i].finish());
+        }
+
+        // 归还后再借出的digest从空状态开始
+        for (HalfSha512.Provider provider : providers) {
+            for (int i = 0; i < parts.length; i++) {
+                HalfSha512 half = new HalfSha512(provider);
+                half.update(parts[i]);
+                assertEquals(reference(parts[i]), half.finish());
+            }
+        }
+    }
+
+    @Test
+    public void testPrefixed() throws Exception {
+        byte[] bytes = randomBytes();
+        HalfSha512.Provider previous = HalfSha512.getProvider();
+        try {
+            for (HalfSha512.Provider provider : HalfSha512.Provider.values()) {
+                HalfSha512.setProvider(provider);
+                HalfSha512 half = HalfSha512.prefixed256(HashPrefix.transactionID);
+                half.update(bytes);
+                assertEquals(reference(HashPrefix.transactionID.bytes(), bytes), half.finish());
+            }
+        } finally {
+            HalfSha512.setProvider(previous);
+        }
+    }
+}
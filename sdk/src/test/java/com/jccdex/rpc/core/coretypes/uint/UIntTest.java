@@ -0,0 +1,139 @@
+package com.jccdex.rpc.core.coretypes.uint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * long实现的UInt与BigInteger计算结果对比
+ *
+ * UInt64按无符号64位计算,超出范围的加法和乘法抛出ArithmeticException,不回绕。
+ */
+public class UIntTest {
+    private static final int ITERATIONS = 20000;
+    private static final BigInteger MAX64 = UInt.Max64.subtract(BigInteger.ONE);
+
+    private final Random random = new Random(20240601);
+
+    /**
+     * 各种位数的随机值,包括高位为1的值
+     */
+    private long randomValue() {
+        int bits = random.nextInt(65);
+        return bits == 0 ? 0 : random.nextLong() >>> (64 - bits);
+    }
+
+    private interface Operation {
+        UInt64 apply(UInt64 a, UInt64 b);
+
+        BigInteger reference(BigInteger a, BigInteger b);
+    }
+
+    private void check(Operation operation) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            UInt64 a = new UInt64(randomValue());
+            UInt64 b = new UInt64(randomValue());
+            BigInteger expected = operation.reference(a.bigInteger(), b.bigInteger());
+            try {
+                UInt64 result = operation.apply(a, b);
+                assertTrue(a + " " + b, expected.compareTo(MAX64) <= 0);
+                assertEquals(expected, result.bigInteger());
+                assertEquals(expected.toString(), result.toString());
+            } catch (ArithmeticException e) {
+                assertTrue(a + " " + b, expected.compareTo(MAX64) > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testUInt64Add() {
+        check(new Operation() {
+            @Override
+            public UInt64 apply(UInt64 a, UInt64 b) {
+                return a.add(b);
+            }
+
+            @Override
+            public BigInteger reference(BigInteger a, BigInteger b) {
+                return a.add(b);
+            }
+        });
+    }
+
+    @Test
+    public void testUInt64Multiply() {
+        check(new Operation() {
+            @Override
+            public UInt64 apply(UInt64 a, UInt64 b) {
+                return a.multiply(b);
+            }
+
+            @Override
+            public BigInteger reference(BigInteger a, BigInteger b) {
+                return a.multiply(b);
+            }
+        });
+    }
+
+    @Test
+    public void testUInt64Boundaries() {
+        UInt64 max = new UInt64(MAX64);
+        assertEquals("18446744073709551615", max.toString());
+        assertEquals(MAX64, new UInt64(-2L).add(new UInt64(1)).bigInteger());
+        // 超过Long.MAX_VALUE仍在无符号范围内
+        assertEquals(BigInteger.ONE.shiftLeft(63), new UInt64(Long.MAX_VALUE).add(new UInt64(1)).bigInteger());
+        assertEquals(BigInteger.ONE.shiftLeft(63), new UInt64(1L << 32).multiply(new UInt64(1L << 31)).bigInteger());
+        assertEquals(max, max.multiply(new UInt64(1)));
+        assertEquals(UInt64.ZERO, max.multiply(UInt64.ZERO));
+
+        for (UInt64[] operands : new UInt64[][]{{max, new UInt64(1)}, {new UInt64(1L << 63), new UInt64(1L << 63)}}) {
+            try {
+                operands[0].add(operands[1]);
+                fail("加法溢出应当抛出异常");
+            } catch (ArithmeticException e) {
+                assertTrue(e.getMessage().contains(operands[0].toString()));
+            }
+        }
+        for (UInt64[] operands : new UInt64[][]{{max, new UInt64(2)}, {new UInt64(1L << 32), new UInt64(1L << 32)}}) {
+            try {
+                operands[0].multiply(operands[1]);
+                fail("乘法溢出应当抛出异常");
+            } catch (ArithmeticException e) {
+                assertTrue(e.getMessage().contains(operands[1].toString()));
+            }
+        }
+
+        assertTrue(max.compareTo(new UInt64(Long.MAX_VALUE)) > 0);
+        assertEquals(new UInt64(Long.MAX_VALUE), max.divide(new UInt64(2)));
+        assertEquals("FFFFFFFFFFFFFFFF", UInt64.translate.toString(max));
+    }
+
+    @Test
+    public void testUInt32() {
+        UInt32 max = new UInt32(4294967295L);
+        assertEquals("FFFFFFFF", UInt32.translate.toString(max));
+        // 结果超出4字节时与原实现一样在序列化时报错
+        UInt32 sum = max.add(new UInt32(1));
+        assertEquals(4294967296L, sum.longValue());
+        try {
+            sum.toByteArray();
+            fail("超出4字节应当抛出异常");
+        } catch (IllegalArgumentException e) {
+            assertEquals("standard length exceeded for value", e.getMessage());
+        }
+        assertEquals(8589934590L, max.multiply(new UInt32(2)).longValue());
+        try {
+            // 4字节以下的类型按有符号long计算
+            max.multiply(max);
+            fail("超出long范围应当抛出异常");
+        } catch (ArithmeticException e) {
+            assertTrue(e.getMessage().startsWith("UInt overflow"));
+        }
+        assertEquals(57, new UInt32(56).add(new UInt32(1)).intValue());
+    }
+}
@@ -0,0 +1,198 @@
+package com.jccdex.rpc.core.serialized;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import com.jccdex.core.encoding.common.B16;
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.Blob;
+import com.jccdex.rpc.core.coretypes.STObject;
+import com.jccdex.rpc.core.coretypes.hash.HalfSha512;
+import com.jccdex.rpc.core.fields.Field;
+import org.junit.Test;
+
+/**
+ * ByteArraySink的写入、VL长度前缀回填与线程内复用
+ *
+ * 结果与BytesList及BinarySerializer.encodeVL逐字节对比。
+ */
+public class ByteArraySinkTest {
+    static {
+        Config.initBouncy();
+    }
+
+    /**
+     * 各档VL长度前缀的边界
+     */
+    private static final int[] VL_LENGTHS = {0, 1, 192, 193, 194, 12480, 12481, 12482, 918744};
+
+    private static byte[] filled(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + 7);
+        }
+        return bytes;
+    }
+
+    @Test
+    public void testAddGrowsPastCapacity() {
+        ByteArraySink sink = new ByteArraySink(2);
+        BytesList list = new BytesList();
+        for (int i = 0; i < 300; i++) {
+            sink.add((byte) i);
+            list.add((byte) i);
+        }
+        byte[] chunk = filled(1000);
+        sink.add(chunk);
+        list.add(chunk);
+        sink.add(chunk, 10, 5);
+        list.add(Arrays.copyOfRange(chunk, 10, 15));
+
+        assertEquals(list.bytesLength(), sink.bytesLength());
+        assertArrayEquals(list.bytes(), sink.bytes());
+        assertEquals(list.bytesHex(), sink.bytesHex());
+        assertEquals(B16.toString(sink.bytes()), sink.bytesHex());
+        assertTrue(sink.array().length >= sink.bytesLength());
+
+        sink.reset();
+        assertEquals(0, sink.bytesLength());
+        assertEquals("", sink.bytesHex());
+    }
+
+    @Test
+    public void testLengthEncoded() {
+        for (int length : VL_LENGTHS) {
+            // 预留的1字节前缀不够时内容右移
+            ByteArraySink sink = new ByteArraySink(4);
+            sink.add((byte) 0xAA);
+            int mark = sink.beginLengthEncoded();
+            byte[] value = filled(length);
+            sink.add(value);
+            sink.endLengthEncoded(mark);
+            sink.add((byte) 0xBB);
+
+            BytesList expected = new BytesList();
+            expected.add((byte) 0xAA);
+            expected.add(BinarySerializer.encodeVL(length));
+            expected.add(value);
+            expected.add((byte) 0xBB);
+            assertArrayEquals("length " + length, expected.bytes(), sink.bytes());
+
+            BinaryParser parser = new BinaryParser(sink.bytes());
+            parser.skip(1);
+            assertEquals(length, parser.readVLLength());
+        }
+    }
+
+    @Test
+    public void testNestedLengthEncoded() {
+        ByteArraySink sink = new ByteArraySink();
+        int outer = sink.beginLengthEncoded();
+        sink.add(filled(100));
+        int inner = sink.beginLengthEncoded();
+        sink.add(filled(200));
+        sink.endLengthEncoded(inner);
+        sink.endLengthEncoded(outer);
+
+        BytesList expectedInner = new BytesList();
+        expectedInner.add(BinarySerializer.encodeVL(200));
+        expectedInner.add(filled(200));
+        byte[] innerBytes = expectedInner.bytes();
+        BytesList expected = new BytesList();
+        expected.add(BinarySerializer.encodeVL(100 + innerBytes.length));
+        expected.add(filled(100));
+        expected.add(innerBytes);
+        assertArrayEquals(expected.bytes(), sink.bytes());
+    }
+
+    @Test
+    public void testSerializerMatchesBytesList() {
+        for (int length : new int[]{0, 192, 193, 12481}) {
+            STObject memo = new STObject();
+            memo.put(Field.MemoData, new Blob(filled(length)));
+            memo.put(Field.MemoType, new Blob(filled(3)));
+
+            BytesList list = new BytesList();
+            new BinarySerializer(list).add(Field.MemoData, memo.get(Field.MemoData));
+            ByteArraySink sink = new ByteArraySink();
+            new BinarySerializer(sink).add(Field.MemoData, memo.get(Field.MemoData));
+            assertArrayEquals(list.bytes(), sink.bytes());
+
+            byte[] bytes = memo.toBytes();
+            assertEquals(B16.toString(bytes), STObject.translate.fromBytes(bytes).toHex());
+        }
+    }
+
+    @Test
+    public void testWriteToAndDigest() throws Exception {
+        ByteArraySink sink = new ByteArraySink();
+        byte[] content = filled(500);
+        sink.add(content);
+
+        ByteArraySink copy = new ByteArraySink();
+        copy.add((byte) 1);
+        sink.writeTo(copy);
+        BytesList list = new BytesList();
+        sink.writeTo(list);
+        assertArrayEquals(content, list.bytes());
+        assertEquals(501, copy.bytesLength());
+        assertArrayEquals(content, Arrays.copyOfRange(copy.bytes(), 1, 501));
+
+        HalfSha512 half = new HalfSha512();
+        sink.writeTo(half);
+        HalfSha512 expected = new HalfSha512();
+        expected.update(content);
+        assertEquals(expected.finish(), half.finish());
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        sink.updateDigest(digest);
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(content), digest.digest());
+    }
+
+    @Test
+    public void testAcquireRelease() {
+        ByteArraySink first = ByteArraySink.acquire();
+        first.add((byte) 1);
+        // 同一线程内嵌套使用时拿到新的实例
+        ByteArraySink nested = ByteArraySink.acquire();
+        assertTrue(nested != first);
+        nested.release();
+        first.release();
+
+        ByteArraySink again = ByteArraySink.acquire();
+        assertTrue(again == first);
+        // release后内容清空
+        assertEquals(0, again.bytesLength());
+
+        // 超出上限的大缓冲区不留在池中
+        again.add(new byte[128 * 1024]);
+        byte[] large = again.array();
+        again.release();
+        ByteArraySink after = ByteArraySink.acquire();
+        assertTrue(after == first);
+        assertTrue(after.array() != large);
+        assertTrue(after.array().length < large.length);
+        after.release();
+    }
+
+    @Test
+    public void testPoolIsPerThread() throws Exception {
+        ByteArraySink mine = ByteArraySink.acquire();
+        try {
+            ByteArraySink[] other = new ByteArraySink[1];
+            Thread thread = new Thread(() -> {
+                other[0] = ByteArraySink.acquire();
+                other[0].release();
+            });
+            thread.start();
+            thread.join();
+            assertTrue(other[0] != mine);
+        } finally {
+            mine.release();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.jccdex.rpc.core.types.known.tx.signed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+
+import com.jccdex.core.crypto.ecdsa.IKeyPair;
+import com.jccdex.core.encoding.common.B16;
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.AccountID;
+import com.jccdex.rpc.core.coretypes.Amount;
+import com.jccdex.rpc.core.coretypes.Currency;
+import com.jccdex.rpc.core.coretypes.STArray;
+import com.jccdex.rpc.core.coretypes.uint.UInt32;
+import com.jccdex.rpc.core.fields.Field;
+import com.jccdex.rpc.core.types.known.tx.Transaction;
+import com.jccdex.rpc.core.types.known.tx.txns.OfferCancel;
+import com.jccdex.rpc.core.types.known.tx.txns.OfferCreate;
+import com.jccdex.rpc.core.types.known.tx.txns.Payment;
+import org.json.JSONArray;
+import org.junit.Test;
+
+/**
+ * 签名结果与原实现(序列化后重新解析出副本,再分别序列化签名数据和tx_blob)逐字节对比
+ *
+ * 密钥对固定公钥,签名取签名数据的SHA-512,因此向量与具体的签名算法无关。
+ * 国密的交易哈希按SM3(HashPrefix.transactionID + tx_blob)计算。
+ */
+public class SignedTransactionTest {
+    private static final byte[] PUBLIC_KEY = B16.decode("0330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD020");
+    private static final AccountID SENDER = AccountID.fromBytes(B16.decode("B5F762798A53D543A014CAF8B297CFF8F2F937E8"));
+    private static final AccountID RECEIVER = AccountID.fromBytes(B16.decode("7908A7F0EDD48EA896C3580A399F0EE78611C8E3"));
+    private static final AccountID ISSUER = AccountID.fromBytes(B16.decode("A582E432BFC48EEDEF852C814EC57F3CD938BB2F"));
+    private static final AccountID PLATFORM = AccountID.fromBytes(B16.decode("DD39C650A96EDA48334E70CC4A85B8B2E8502CD3"));
+
+    /**
+     * 依次为transactions()中每笔交易的{signingData, tx_blob, hash}
+     */
+    private static final String[][] SECP256K1 = {
+            {"53545800120000228000000024000004A361D54462D5372B8E00000000000000000000000000434E590000000000A582E432BFC48EEDEF852C814EC57F3CD938BB2F68400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0208114B5F762798A53D543A014CAF8B297CFF8F2F937E883147908A7F0EDD48EA896C3580A399F0EE78611C8E3F9EA7C056F726465727D0E4F524445522D3230323430363031E1EA7D06E8BDACE8B4A6E1F1",
+                    "120000228000000024000004A361D54462D5372B8E00000000000000000000000000434E590000000000A582E432BFC48EEDEF852C814EC57F3CD938BB2F68400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0207440CB72535CD991233ADBF8D6E7DB84C2DD30DBB08FC196766BD3693656394E5F8E2E89456797F28F25D919A0BC9141FAC1DE358DE35CA7BE0B193D2CE47AABF0998114B5F762798A53D543A014CAF8B297CFF8F2F937E883147908A7F0EDD48EA896C3580A399F0EE78611C8E3F9EA7C056F726465727D0E4F524445522D3230323430363031E1EA7D06E8BDACE8B4A6E1F1",
+                    "68FE8B558ED3430D1F4A043BA6FC14B5BD90D7CF57C36E3B4ACCB9D8E33450A2"},
+            {"53545800120000228000000024000004A4201B007BF2E661400000000EE6B28068400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0208114B5F762798A53D543A014CAF8B297CFF8F2F937E883147908A7F0EDD48EA896C3580A399F0EE78611C8E3",
+                    "120000228000000024000004A4201B007BF2E661400000000EE6B28068400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD020744032455FB4271727965EE5307F17980235DCD36A1D58A762515186C33E45A58D73E238B79769A76380D996C6C18ED98C7A81A936C79F6F7E820D49E6E09335F2FF8114B5F762798A53D543A014CAF8B297CFF8F2F937E883147908A7F0EDD48EA896C3580A399F0EE78611C8E3",
+                    "D55A6ADF8AE31F1578CEAC67EC13CAC4C02860F6E99735C6DEE9097389E9E505"},
+            {"5354580012000722800000002400000CE664D50AA87BEE538000000000000000000000000000434E590000000000A582E432BFC48EEDEF852C814EC57F3CD938BB2F654000000059682F0068400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0208114B5F762798A53D543A014CAF8B297CFF8F2F937E88D14DD39C650A96EDA48334E70CC4A85B8B2E8502CD3F9EA7D053330302043E1F1",
+                    "12000722800000002400000CE664D50AA87BEE538000000000000000000000000000434E590000000000A582E432BFC48EEDEF852C814EC57F3CD938BB2F654000000059682F0068400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD020744083B5E40D6D43BA9348D2B1E9D5E270A5A2B129367BA81B11539F73D8BE39C4E2E38B488C56D6528DAD9474B2C379418DA4EDA94423CF5838420645B04C443FA78114B5F762798A53D543A014CAF8B297CFF8F2F937E88D14DD39C650A96EDA48334E70CC4A85B8B2E8502CD3F9EA7D053330302043E1F1",
+                    "C042AC0EFF20240416C9A8669E5F0346200A578DBD246DA4FBAB69BB2A618CB5"},
+            {"5354580012000822800000002400000CE7201900000CDA68400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0208114B5F762798A53D543A014CAF8B297CFF8F2F937E8F9EA7C0663616E63656C7D00E1F1",
+                    "12000822800000002400000CE7201900000CDA68400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0207440F0BFB9F67671A4EACA957E3DB3D33A23058A13B00561645F5C02B80403ED0970B58114CDEEA5214712E2A4D46E4C6B9DD3A6F2C87FD75B5F29BED67167E2D9578114B5F762798A53D543A014CAF8B297CFF8F2F937E8F9EA7C0663616E63656C7D00E1F1",
+                    "2DB52F329478F468E04E04234CE08FB1152382A903FCEFF03682263774334E8C"}
+    };
+
+    private static final String[][] GUOMI = {
+            {"53545800120000228000000024000004A361D54462D5372B8E00000000000000000000000000434E590000000000A582E432BFC48EEDEF852C814EC57F3CD938BB2F68400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0208114B5F762798A53D543A014CAF8B297CFF8F2F937E883147908A7F0EDD48EA896C3580A399F0EE78611C8E3F9EA7C056F726465727D0E4F524445522D3230323430363031E1EA7D06E8BDACE8B4A6E1F1",
+                    "120000228000000024000004A361D54462D5372B8E00000000000000000000000000434E590000000000A582E432BFC48EEDEF852C814EC57F3CD938BB2F68400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0207440CB72535CD991233ADBF8D6E7DB84C2DD30DBB08FC196766BD3693656394E5F8E2E89456797F28F25D919A0BC9141FAC1DE358DE35CA7BE0B193D2CE47AABF0998114B5F762798A53D543A014CAF8B297CFF8F2F937E883147908A7F0EDD48EA896C3580A399F0EE78611C8E3F9EA7C056F726465727D0E4F524445522D3230323430363031E1EA7D06E8BDACE8B4A6E1F1",
+                    "9AB65B82F66D92BAAD6B2266B0A253E427F14A283B22084CCA6EAA44E2C1E5A5"},
+            {"53545800120000228000000024000004A4201B007BF2E661400000000EE6B28068400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0208114B5F762798A53D543A014CAF8B297CFF8F2F937E883147908A7F0EDD48EA896C3580A399F0EE78611C8E3",
+                    "120000228000000024000004A4201B007BF2E661400000000EE6B28068400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD020744032455FB4271727965EE5307F17980235DCD36A1D58A762515186C33E45A58D73E238B79769A76380D996C6C18ED98C7A81A936C79F6F7E820D49E6E09335F2FF8114B5F762798A53D543A014CAF8B297CFF8F2F937E883147908A7F0EDD48EA896C3580A399F0EE78611C8E3",
+                    "FF4F81FCA5A009C4CC0BC53B17A47B696926F954DC8BB26056C0B2EC11BB2150"},
+            {"5354580012000722800000002400000CE664D50AA87BEE538000000000000000000000000000434E590000000000A582E432BFC48EEDEF852C814EC57F3CD938BB2F654000000059682F0068400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0208114B5F762798A53D543A014CAF8B297CFF8F2F937E88D14DD39C650A96EDA48334E70CC4A85B8B2E8502CD3F9EA7D053330302043E1F1",
+                    "12000722800000002400000CE664D50AA87BEE538000000000000000000000000000434E590000000000A582E432BFC48EEDEF852C814EC57F3CD938BB2F654000000059682F0068400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD020744083B5E40D6D43BA9348D2B1E9D5E270A5A2B129367BA81B11539F73D8BE39C4E2E38B488C56D6528DAD9474B2C379418DA4EDA94423CF5838420645B04C443FA78114B5F762798A53D543A014CAF8B297CFF8F2F937E88D14DD39C650A96EDA48334E70CC4A85B8B2E8502CD3F9EA7D053330302043E1F1",
+                    "F1211777ABDDD60537A66A80E0C0572B11AACCA3FED51A9691E6604A03CC5389"},
+            {"5354580012000822800000002400000CE7201900000CDA68400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0208114B5F762798A53D543A014CAF8B297CFF8F2F937E8F9EA7C0663616E63656C7D00E1F1",
+                    "12000822800000002400000CE7201900000CDA68400000000000000A73210330E7FC9D56BB25D6893BA3F317AE5BCF33B3291BD63DB32654A313222F7FD0207440F0BFB9F67671A4EACA957E3DB3D33A23058A13B00561645F5C02B80403ED0970B58114CDEEA5214712E2A4D46E4C6B9DD3A6F2C87FD75B5F29BED67167E2D9578114B5F762798A53D543A014CAF8B297CFF8F2F937E8F9EA7C0663616E63656C7D00E1F1",
+                    "F9C06A9F501784263049116F82320BA453011335201668F55A53613C0A182558"}
+    };
+
+    static {
+        Config.initBouncy();
+    }
+
+    static IKeyPair keyPair() {
+        return (IKeyPair) Proxy.newProxyInstance(IKeyPair.class.getClassLoader(), new Class<?>[]{IKeyPair.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "canonicalPubBytes":
+                            return PUBLIC_KEY.clone();
+                        case "signMessage":
+                            return MessageDigest.getInstance("SHA-512").digest((byte[]) args[0]);
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    static Transaction[] transactions(boolean guomi) {
+        Payment payment = new Payment(guomi);
+        payment.put(AccountID.Account, SENDER);
+        payment.put(AccountID.Destination, RECEIVER);
+        payment.put(Amount.Amount, new Amount(new BigDecimal("1234.5678"), Currency.fromString("CNY"), ISSUER));
+        payment.put(Amount.Fee, new Amount(new BigDecimal("0.00001")));
+        payment.flags(new UInt32(0));
+        payment.sequence(new UInt32(1187));
+        payment.memos(memos("[{\"Memo\":{\"MemoType\":\"6F72646572\",\"MemoData\":\"4F524445522D3230323430363031\"}},"
+                + "{\"Memo\":{\"MemoData\":\"E8BDACE8B4A6\"}}]"));
+
+        Payment nativePayment = new Payment(guomi);
+        nativePayment.put(AccountID.Account, SENDER);
+        nativePayment.put(AccountID.Destination, RECEIVER);
+        nativePayment.put(Amount.Amount, new Amount(new BigDecimal("250")));
+        nativePayment.put(Amount.Fee, new Amount(new BigDecimal("0.00001")));
+        nativePayment.flags(new UInt32(0));
+        nativePayment.sequence(new UInt32(1188));
+        nativePayment.lastLedgerSequence(new UInt32(8123110));
+
+        OfferCreate offerCreate = new OfferCreate(guomi);
+        offerCreate.put(AccountID.Account, SENDER);
+        offerCreate.put(AccountID.Platform, PLATFORM);
+        offerCreate.put(Amount.TakerPays, new Amount(new BigDecimal("300"), Currency.fromString("CNY"), ISSUER));
+        offerCreate.put(Amount.TakerGets, new Amount(new BigDecimal("1500")));
+        offerCreate.put(Amount.Fee, new Amount(new BigDecimal("0.00001")));
+        offerCreate.sequence(new UInt32(3302));
+        offerCreate.memos(memos("[{\"Memo\":{\"MemoData\":\"3330302043\"}}]"));
+
+        OfferCancel offerCancel = new OfferCancel(guomi);
+        offerCancel.put(AccountID.Account, SENDER);
+        offerCancel.put(UInt32.OfferSequence, new UInt32(3290));
+        offerCancel.put(Amount.Fee, new Amount(new BigDecimal("0.00001")));
+        offerCancel.sequence(new UInt32(3303));
+        offerCancel.memos(memos("[{\"Memo\":{\"MemoType\":\"63616E63656C\",\"MemoData\":\"\"}}]"));
+
+        return new Transaction[]{payment, nativePayment, offerCreate, offerCancel};
+    }
+
+    private static STArray memos(String json) {
+        return STArray.translate.fromJSONArray(new JSONArray(json));
+    }
+
+    @Test
+    public void testSecp256k1() {
+        check(transactions(false), SECP256K1);
+    }
+
+    @Test
+    public void testGuomi() {
+        check(transactions(true), GUOMI);
+    }
+
+    private static void check(Transaction[] transactions, String[][] vectors) {
+        assertEquals(vectors.length, transactions.length);
+        IKeyPair keyPair = keyPair();
+        for (int i = 0; i < transactions.length; i++) {
+            Transaction txn = transactions[i];
+            String before = txn.toHex();
+            SignedTransaction signed = txn.sign(keyPair);
+
+            assertEquals(vectors[i][0], B16.toString(signed.signingData));
+            assertEquals(vectors[i][1], signed.tx_blob);
+            assertEquals(vectors[i][2], signed.hash.toHex());
+            assertEquals(signed.tx_blob, signed.txn.toHex());
+
+            // 签名在副本上进行,调用者的交易不变
+            assertEquals(before, txn.toHex());
+            assertFalse(txn.has(Field.SigningPubKey));
+            assertFalse(txn.has(Field.TxnSignature));
+        }
+    }
+}
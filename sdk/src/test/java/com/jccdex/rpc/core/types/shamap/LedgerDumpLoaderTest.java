@@ -0,0 +1,144 @@
+package com.jccdex.rpc.core.types.shamap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.LedgerTransactions;
+import com.jccdex.rpc.core.coretypes.STObject;
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import com.jccdex.rpc.core.types.known.sle.LedgerEntry;
+import com.jccdex.rpc.core.types.known.tx.result.AffectedNode;
+import com.jccdex.rpc.core.types.known.tx.result.TransactionMeta;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * LedgerDumpLoader流式读取ledger返回数据的accountState,根哈希与AccountState.parseShaMap对比
+ *
+ * 状态条目取自LedgerTransactions元数据中各节点的最终状态。
+ */
+public class LedgerDumpLoaderTest {
+    static {
+        Config.initBouncy();
+    }
+
+    /**
+     * JSON格式的状态条目,每个index只保留最后一次的状态
+     */
+    private static JSONArray entries() {
+        Map<Hash256, LedgerEntry> entries = new LinkedHashMap<>();
+        for (String[] transaction : LedgerTransactions.TRANSACTIONS) {
+            TransactionMeta meta = (TransactionMeta) STObject.fromHex(transaction[1]);
+            for (AffectedNode node : meta.affectedNodes()) {
+                if (!node.isDeletedNode()) {
+                    LedgerEntry entry = node.nodeAsFinal();
+                    entries.put(entry.index(), entry);
+                }
+            }
+        }
+        JSONArray array = new JSONArray();
+        for (LedgerEntry entry : entries.values()) {
+            array.put(entry.toJSONObject());
+        }
+        return array;
+    }
+
+    /**
+     * binary为true时返回的{"data","index"}格式
+     */
+    private static JSONArray binary(JSONArray entries) {
+        JSONArray array = new JSONArray();
+        for (int i = 0; i < entries.length(); i++) {
+            LedgerEntry entry = (LedgerEntry) STObject.fromJSONObject(entries.getJSONObject(i));
+            array.put(new JSONObject().put("data", entry.toHex()).put("index", entry.index().toHex()));
+        }
+        return array;
+    }
+
+    private static AccountState load(LedgerDumpLoader loader, String dump) throws IOException {
+        return loader.load(new ByteArrayInputStream(dump.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testNestingAndEntryForms() throws Exception {
+        JSONArray entries = entries();
+        assertTrue(entries.length() > 10);
+        Hash256 expected = AccountState.parseShaMap(entries).hash();
+
+        JSONArray mixed = new JSONArray();
+        JSONArray binary = binary(entries);
+        for (int i = 0; i < entries.length(); i++) {
+            mixed.put(i % 2 == 0 ? entries.get(i) : binary.get(i));
+        }
+        for (JSONArray state : new JSONArray[]{entries, binary, mixed}) {
+            String[] dumps = {
+                    "{\"accountState\":" + state + "}",
+                    "{\"ledger\":{\"accepted\":true,\"accountState\":" + state + ",\"ledger_index\":\"8123101\"}}",
+                    // result之前其他对象中的accountState整体跳过
+                    "{\"id\":1,\"extra\":{\"accountState\":[]},\"result\":{\"ledger\":{\"closed\":true,\"transactions\":[],"
+                            + "\"accountState\":" + state + "},\"ledger_index\":8123101,\"status\":\"success\"}}",
+            };
+            for (String dump : dumps) {
+                AccountState loaded = load(new LedgerDumpLoader(), dump);
+                assertEquals(expected, loaded.hash());
+            }
+        }
+    }
+
+    @Test
+    public void testMissingAccountState() throws Exception {
+        for (String dump : new String[]{"{\"result\":{\"ledger\":{\"transactions\":[]}}}", "[]", "{\"accountState\":{}}"}) {
+            try {
+                load(new LedgerDumpLoader(), dump);
+                fail("没有accountState数组应当抛出异常: " + dump);
+            } catch (IOException e) {
+                assertEquals("No accountState in ledger dump", e.getMessage());
+            }
+        }
+        try {
+            load(new LedgerDumpLoader(), "{\"accountState\":[\"AB\"]}");
+            fail("条目不是对象应当抛出异常");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().startsWith("Unexpected VALUE_STRING"));
+        }
+    }
+
+    @Test
+    public void testProgress() throws Exception {
+        JSONArray entries = entries();
+        String dump = "{\"result\":{\"ledger\":{\"accountState\":" + binary(entries) + "}}}";
+        List<long[]> calls = new ArrayList<>();
+        load(new LedgerDumpLoader().progress((count, bytes) -> calls.add(new long[]{count, bytes}), 3), dump);
+
+        // 每3条一次,最后再调用一次
+        assertEquals(entries.length() / 3 + 1, calls.size());
+        for (int i = 0; i < calls.size() - 1; i++) {
+            assertEquals(3L * (i + 1), calls.get(i)[0]);
+            assertTrue(calls.get(i)[1] > 0 && calls.get(i)[1] <= calls.get(i + 1)[1]);
+        }
+        long[] last = calls.get(calls.size() - 1);
+        assertEquals(entries.length(), last[0]);
+        assertTrue(last[1] <= dump.length());
+
+        for (int interval : new int[]{0, -1}) {
+            try {
+                new LedgerDumpLoader().progress((count, bytes) -> {
+                }, interval);
+                fail("间隔必须为正数");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().endsWith(String.valueOf(interval)));
+            }
+        }
+    }
+}
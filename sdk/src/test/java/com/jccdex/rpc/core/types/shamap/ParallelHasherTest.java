@@ -0,0 +1,104 @@
+package com.jccdex.rpc.core.types.shamap;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import org.junit.Test;
+
+/**
+ * ParallelHasher计算的根哈希与ShaMap.hash()逐个节点计算的结果对比
+ *
+ * 阈值设为1,即使很小的树也会拆分成ForkJoin任务。
+ */
+public class ParallelHasherTest {
+    private final ParallelHasher hasher = new ParallelHasher(ForkJoinPool.commonPool(),
+            ParallelHasher.DEFAULT_FORK_DEPTH, 1);
+
+    static {
+        Config.initBouncy();
+    }
+
+    /**
+     * 随机顺序的条目,约十分之一与前一个共享前6个字节,使树中有较深的内部节点
+     */
+    static Hash256[] indexes(int count, long seed) {
+        Random random = new Random(seed);
+        Hash256[] indexes = new Hash256[count];
+        byte[] previous = new byte[32];
+        for (int i = 0; i < count; i++) {
+            byte[] index = new byte[32];
+            random.nextBytes(index);
+            if (i > 0 && random.nextInt(10) == 0) {
+                System.arraycopy(previous, 0, index, 0, 6);
+            }
+            indexes[i] = new Hash256(index);
+            previous = index;
+        }
+        return indexes;
+    }
+
+    static BytesItem[] items(int count, long seed) {
+        Random random = new Random(seed);
+        BytesItem[] items = new BytesItem[count];
+        for (int i = 0; i < count; i++) {
+            byte[] item = new byte[20 + random.nextInt(100)];
+            random.nextBytes(item);
+            items[i] = new BytesItem(item);
+        }
+        return items;
+    }
+
+    static ShaMap addItems(Hash256[] indexes, BytesItem[] items) {
+        ShaMap map = new ShaMap();
+        for (int i = 0; i < indexes.length; i++) {
+            map.addItem(indexes[i], items[i]);
+        }
+        return map;
+    }
+
+    @Test
+    public void testRootMatchesSequential() {
+        for (int count : new int[]{1, 2, 17, 300, 5000}) {
+            Hash256[] indexes = indexes(count, count);
+            BytesItem[] items = items(count, count);
+            Hash256 expected = addItems(indexes, items).hash();
+            assertEquals(expected, hasher.hash(addItems(indexes, items)));
+        }
+    }
+
+    @Test
+    public void testBelowThreshold() {
+        Hash256[] indexes = indexes(300, 7);
+        BytesItem[] items = items(300, 7);
+        ParallelHasher sequential = new ParallelHasher(ForkJoinPool.commonPool(),
+                ParallelHasher.DEFAULT_FORK_DEPTH, ParallelHasher.DEFAULT_THRESHOLD);
+        assertEquals(addItems(indexes, items).hash(), sequential.hash(addItems(indexes, items)));
+    }
+
+    @Test
+    public void testRehashAfterChanges() {
+        int count = 3000;
+        Hash256[] indexes = indexes(count, 11);
+        BytesItem[] items = items(count, 11);
+        BytesItem[] updates = items(count, 12);
+        ShaMap sequential = addItems(indexes, items);
+        ShaMap parallel = addItems(indexes, items);
+        sequential.hash();
+        hasher.hash(parallel);
+
+        // 只有改动路径上的内部节点需要重新计算
+        for (int i = 0; i < count; i += 7) {
+            sequential.updateItem(indexes[i], updates[i]);
+            parallel.updateItem(indexes[i], updates[i]);
+        }
+        for (int i = 3; i < count; i += 13) {
+            sequential.removeLeaf(indexes[i]);
+            parallel.removeLeaf(indexes[i]);
+        }
+        assertEquals(sequential.hash(), hasher.hash(parallel));
+    }
+}
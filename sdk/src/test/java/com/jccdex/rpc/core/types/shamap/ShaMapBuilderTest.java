@@ -0,0 +1,138 @@
+package com.jccdex.rpc.core.types.shamap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import org.junit.Test;
+
+/**
+ * ShaMapBuilder批量建树的根哈希与逐个addItem的结果对比
+ *
+ * 包括无序/有序输入、重复的index,以及写入NodeStore(LogBackend)后重新加载的树。
+ */
+public class ShaMapBuilderTest {
+    static {
+        Config.initBouncy();
+    }
+
+    private static ShaMapBuilder[] builders() {
+        return new ShaMapBuilder[]{
+                new ShaMapBuilder(null, 0, 0, true),
+                new ShaMapBuilder(ForkJoinPool.commonPool(), ParallelHasher.DEFAULT_FORK_DEPTH, 1, true),
+                // 建树时不计算哈希,之后由map.hash()计算
+                new ShaMapBuilder(ForkJoinPool.commonPool(), ParallelHasher.DEFAULT_FORK_DEPTH, 1, false),
+        };
+    }
+
+    private static ShaMap build(ShaMapBuilder builder, Hash256[] indexes, BytesItem[] items) {
+        for (int i = 0; i < indexes.length; i++) {
+            builder.add(indexes[i], items[i]);
+        }
+        return builder.build(new ShaMap());
+    }
+
+    @Test
+    public void testUnsortedInput() {
+        for (int count : new int[]{1, 2, 17, 300, 5000}) {
+            Hash256[] indexes = ParallelHasherTest.indexes(count, count);
+            BytesItem[] items = ParallelHasherTest.items(count, count);
+            Hash256 expected = ParallelHasherTest.addItems(indexes, items).hash();
+            for (ShaMapBuilder builder : builders()) {
+                assertEquals(expected, build(builder, indexes, items).hash());
+            }
+        }
+    }
+
+    @Test
+    public void testSortedInput() {
+        int count = 3000;
+        Hash256[] indexes = ParallelHasherTest.indexes(count, 5);
+        Arrays.sort(indexes);
+        BytesItem[] items = ParallelHasherTest.items(count, 5);
+        Hash256 expected = ParallelHasherTest.addItems(indexes, items).hash();
+        for (ShaMapBuilder builder : builders()) {
+            assertEquals(expected, build(builder, indexes, items).hash());
+        }
+    }
+
+    @Test
+    public void testDuplicatesKeepFirst() {
+        int count = 3000;
+        Hash256[] indexes = ParallelHasherTest.indexes(count, 9);
+        BytesItem[] items = ParallelHasherTest.items(count, 9);
+        Random random = new Random(9);
+        for (int i = 1; i < count; i++) {
+            if (random.nextInt(5) == 0) {
+                indexes[i] = indexes[random.nextInt(i)];
+            }
+        }
+        ShaMap expected = ParallelHasherTest.addItems(indexes, items);
+        for (ShaMapBuilder builder : builders()) {
+            ShaMap map = build(builder, indexes, items);
+            assertEquals(expected.hash(), map.hash());
+            for (Hash256 index : indexes) {
+                assertTrue(expected.getItem(index) == map.getItem(index));
+            }
+        }
+    }
+
+    @Test
+    public void testBuilderStartsOver() {
+        ShaMapBuilder builder = new ShaMapBuilder(null, 0, 0, true);
+        build(builder, ParallelHasherTest.indexes(100, 1), ParallelHasherTest.items(100, 1));
+        assertEquals(0, builder.size());
+
+        Hash256[] indexes = ParallelHasherTest.indexes(200, 2);
+        BytesItem[] items = ParallelHasherTest.items(200, 2);
+        assertEquals(ParallelHasherTest.addItems(indexes, items).hash(), build(builder, indexes, items).hash());
+    }
+
+    @Test
+    public void testStoreBacked() throws Exception {
+        int count = 5000;
+        Hash256[] indexes = ParallelHasherTest.indexes(count, 13);
+        BytesItem[] items = ParallelHasherTest.items(count, 13);
+        BytesItem[] updates = ParallelHasherTest.items(count, 14);
+        Hash256[] added = ParallelHasherTest.indexes(500, 15);
+        BytesItem[] addedItems = ParallelHasherTest.items(500, 15);
+
+        File file = File.createTempFile("shamap", ".log");
+        file.deleteOnExit();
+        Hash256 root;
+        try (LogBackend backend = new LogBackend(file)) {
+            ShaMap built = build(new ShaMapBuilder(), indexes, items);
+            root = new NodeStore(backend).flush(built);
+            backend.sync();
+        }
+        assertEquals(ParallelHasherTest.addItems(indexes, items).hash(), root);
+
+        try (LogBackend backend = new LogBackend(file)) {
+            // 缓存很小,修改时反复从文件加载节点
+            ShaMap loaded = new ShaMap();
+            new NodeStore(backend, 64).load(loaded, root);
+            assertEquals(root, loaded.hash());
+            for (int i = 0; i < count; i += 97) {
+                assertTrue(Arrays.equals(items[i].value(), ((BytesItem) loaded.getItem(indexes[i])).value()));
+            }
+
+            ShaMap expected = ParallelHasherTest.addItems(indexes, items);
+            for (int i = 0; i < count; i += 7) {
+                expected.updateItem(indexes[i], updates[i]);
+                loaded.updateItem(indexes[i], updates[i]);
+            }
+            for (int i = 0; i < added.length; i++) {
+                expected.addItem(added[i], addedItems[i]);
+                loaded.addItem(added[i], addedItems[i]);
+            }
+            ParallelHasher hasher = new ParallelHasher(ForkJoinPool.commonPool(), ParallelHasher.DEFAULT_FORK_DEPTH, 1);
+            assertEquals(expected.hash(), hasher.hash(loaded));
+        }
+    }
+}
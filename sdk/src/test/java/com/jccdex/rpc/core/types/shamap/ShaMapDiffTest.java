@@ -0,0 +1,305 @@
+package com.jccdex.rpc.core.types.shamap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.hash.Hash256;
+import org.junit.Test;
+
+/**
+ * ShaMapDiff的find()和find(pool)与原来逐层递归的实现结果一致
+ */
+public class ShaMapDiffTest {
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+
+    static {
+        Config.initBouncy();
+    }
+
+    /**
+     * 原来的实现,只用于对比结果
+     */
+    private static class PreviousDiff {
+        final TreeSet<Hash256> modified = new TreeSet<Hash256>();
+        final TreeSet<Hash256> deleted = new TreeSet<Hash256>();
+        final TreeSet<Hash256> added = new TreeSet<Hash256>();
+
+        PreviousDiff(ShaMap one, ShaMap two) {
+            one.hash();
+            two.hash();
+            compare(one, two);
+        }
+
+        private void compare(ShaMapInner a, ShaMapInner b) {
+            for (int i = 0; i < 16; i++) {
+                ShaMapNode aChild = a.getBranch(i);
+                ShaMapNode bChild = b.getBranch(i);
+
+                if (aChild == null && bChild != null) {
+                    trackAdded(bChild);
+                } else if (aChild != null && bChild == null) {
+                    trackRemoved(aChild);
+                } else if (aChild != null && !aChild.hash().equals(bChild.hash())) {
+                    boolean aleaf = aChild.isLeaf(),
+                            bLeaf = bChild.isLeaf();
+
+                    if (aleaf && bLeaf) {
+                        ShaMapLeaf la = (ShaMapLeaf) aChild;
+                        ShaMapLeaf lb = (ShaMapLeaf) bChild;
+                        if (la.index.equals(lb.index)) {
+                            modified.add(la.index);
+                        } else {
+                            deleted.add(la.index);
+                            added.add(lb.index);
+                        }
+                    } else if (aleaf) {
+                        ShaMapLeaf la = (ShaMapLeaf) aChild;
+                        ShaMapInner ib = (ShaMapInner) bChild;
+                        trackAdded(ib);
+
+                        if (ib.hasLeaf(la.index)) {
+                            added.remove(la.index);
+                            ShaMapLeaf leaf = ib.getLeaf(la.index);
+                            if (!leaf.hash().equals(la.hash())) {
+                                modified.add(la.index);
+                            }
+                        } else {
+                            deleted.add(la.index);
+                        }
+                    } else if (bLeaf) {
+                        ShaMapLeaf lb = (ShaMapLeaf) bChild;
+                        ShaMapInner ia = (ShaMapInner) aChild;
+                        trackRemoved(ia);
+
+                        if (ia.hasLeaf(lb.index)) {
+                            deleted.remove(lb.index);
+                            ShaMapLeaf leaf = ia.getLeaf(lb.index);
+                            if (!leaf.hash().equals(lb.hash())) {
+                                modified.add(lb.index);
+                            }
+                        } else {
+                            added.add(lb.index);
+                        }
+                    } else {
+                        compare((ShaMapInner) aChild, (ShaMapInner) bChild);
+                    }
+                }
+            }
+        }
+
+        private void trackRemoved(ShaMapNode child) {
+            child.walkAnyLeaves(new LeafWalker() {
+                @Override
+                public void onLeaf(ShaMapLeaf leaf) {
+                    deleted.add(leaf.index);
+                }
+            });
+        }
+
+        private void trackAdded(ShaMapNode child) {
+            child.walkAnyLeaves(new LeafWalker() {
+                @Override
+                public void onLeaf(ShaMapLeaf leaf) {
+                    added.add(leaf.index);
+                }
+            });
+        }
+    }
+
+    /**
+     * 以给定的16进制前缀开头,其余随机的索引
+     */
+    private static Hash256 index(String prefix, Random random) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        for (int i = 0; i < prefix.length(); i++) {
+            int nibble = Character.digit(prefix.charAt(i), 16);
+            int b = i / 2;
+            if (i % 2 == 0) {
+                bytes[b] = (byte) ((bytes[b] & 0x0F) | (nibble << 4));
+            } else {
+                bytes[b] = (byte) ((bytes[b] & 0xF0) | nibble);
+            }
+        }
+        return new Hash256(bytes);
+    }
+
+    private static BytesItem item(Random random) {
+        byte[] bytes = new byte[20 + random.nextInt(60)];
+        random.nextBytes(bytes);
+        return new BytesItem(bytes);
+    }
+
+    /**
+     * 两个方向分别用find()、find(pool)和原来的实现比较,并检查apply()把one变成two
+     */
+    private void assertSameAsPrevious(ShaMap one, ShaMap two) {
+        assertDirection(one, two);
+        assertDirection(two, one);
+    }
+
+    private void assertDirection(ShaMap one, ShaMap two) {
+        PreviousDiff expected = new PreviousDiff(one, two);
+
+        ShaMapDiff sequential = new ShaMapDiff(one, two);
+        sequential.find();
+        assertSets(expected, sequential);
+
+        ShaMapDiff parallel = new ShaMapDiff(one, two);
+        parallel.find(pool);
+        assertSets(expected, parallel);
+
+        ShaMap applied = one.copy();
+        sequential.apply(applied);
+        assertEquals(two.hash(), applied.hash());
+    }
+
+    private static void assertSets(PreviousDiff expected, ShaMapDiff actual) {
+        assertEquals(expected.added, actual.added);
+        assertEquals(expected.modified, actual.modified);
+        assertEquals(expected.deleted, actual.deleted);
+    }
+
+    @Test
+    public void testRandomChanges() {
+        for (int count : new int[]{1, 2, 17, 300, 3000}) {
+            Hash256[] indexes = ParallelHasherTest.indexes(count, count);
+            BytesItem[] items = ParallelHasherTest.items(count, count);
+            ShaMap one = ParallelHasherTest.addItems(indexes, items);
+            ShaMap two = ParallelHasherTest.addItems(indexes, items);
+
+            Random random = new Random(count);
+            for (int i = 0; i < count; i++) {
+                switch (random.nextInt(8)) {
+                    case 0:
+                        two.updateItem(indexes[i], item(random));
+                        break;
+                    case 1:
+                        two.removeLeaf(indexes[i]);
+                        break;
+                    case 2:
+                        // 与已有的索引共享前缀,原来的叶子下移到新的内部节点
+                        Hash256 near = index(indexes[i].toHex().substring(0, 1 + random.nextInt(6)), random);
+                        two.addItem(near, item(random));
+                        break;
+                    default:
+                        break;
+                }
+            }
+            for (int i = 0; i < count / 10 + 1; i++) {
+                two.addItem(index("", random), item(random));
+            }
+            assertSameAsPrevious(one, two);
+        }
+    }
+
+    @Test
+    public void testIdenticalMaps() {
+        Hash256[] indexes = ParallelHasherTest.indexes(500, 1);
+        BytesItem[] items = ParallelHasherTest.items(500, 1);
+        ShaMap one = ParallelHasherTest.addItems(indexes, items);
+        ShaMap two = ParallelHasherTest.addItems(indexes, items);
+
+        ShaMapDiff diff = new ShaMapDiff(one, two);
+        diff.find(pool);
+        assertTrue(diff.added.isEmpty());
+        assertTrue(diff.modified.isEmpty());
+        assertTrue(diff.deleted.isEmpty());
+        assertSameAsPrevious(one, two);
+    }
+
+    @Test
+    public void testLeafBecomesInner() {
+        Random random = new Random(2);
+        // 每个分支下只有一个叶子
+        List<Hash256> leaves = new ArrayList<Hash256>();
+        ShaMap one = new ShaMap();
+        for (int i = 0; i < 16; i++) {
+            Hash256 leaf = index(Integer.toHexString(i), random);
+            leaves.add(leaf);
+            one.addItem(leaf, item(random));
+        }
+
+        for (int depth = 1; depth < 5; depth++) {
+            String prefix = leaves.get(depth).toHex().substring(0, depth);
+            String other = leaves.get(depth + 4).toHex().substring(0, depth);
+            String gone = leaves.get(depth + 8).toHex().substring(0, depth);
+
+            // 叶子不变,同一位置多了兄弟节点
+            ShaMap unchanged = one.copy();
+            unchanged.addItem(index(prefix, random), item(random));
+            unchanged.addItem(index(prefix, random), item(random));
+            assertSameAsPrevious(one, unchanged);
+
+            // 叶子内容改变,同时位置变成内部节点
+            ShaMap modified = one.copy();
+            modified.updateItem(leaves.get(depth + 4), item(random));
+            modified.addItem(index(other, random), item(random));
+            assertSameAsPrevious(one, modified);
+
+            // 叶子删除,原位置换成只包含新叶子的内部节点
+            ShaMap replaced = one.copy();
+            replaced.removeLeaf(leaves.get(depth + 8));
+            replaced.addItem(index(gone, random), item(random));
+            replaced.addItem(index(gone, random), item(random));
+            assertSameAsPrevious(one, replaced);
+
+            // 叶子换成另一个叶子
+            ShaMap swapped = one.copy();
+            swapped.removeLeaf(leaves.get(depth));
+            swapped.addItem(index(prefix, random), item(random));
+            assertSameAsPrevious(one, swapped);
+        }
+    }
+
+    @Test
+    public void testSubtreesAddedAndRemoved() {
+        Random random = new Random(3);
+        ShaMap one = new ShaMap();
+        ShaMap two = new ShaMap();
+        for (int i = 0; i < 400; i++) {
+            BytesItem item = item(random);
+            Hash256 shared = index("", random);
+            one.addItem(shared, item);
+            two.addItem(shared, item);
+        }
+        // 分支5下较深的子树只在one中,分支A下较深的子树只在two中
+        for (int i = 0; i < 200; i++) {
+            one.addItem(index(i % 2 == 0 ? "5C3" : "5C", random), item(random));
+            two.addItem(index(i % 2 == 0 ? "A07" : "A0", random), item(random));
+        }
+        // 整个一级分支只在其中一边
+        ShaMap withoutBranch = new ShaMap();
+        ShaMap onlyBranch = new ShaMap();
+        for (int i = 0; i < 300; i++) {
+            Hash256 index = index(i % 3 == 0 ? "E" : "", random);
+            BytesItem item = item(random);
+            onlyBranch.addItem(index, item);
+            if (!index.toHex().startsWith("E")) {
+                withoutBranch.addItem(index, item);
+            }
+        }
+
+        assertSameAsPrevious(one, two);
+        assertSameAsPrevious(withoutBranch, onlyBranch);
+    }
+
+    @Test
+    public void testEmptyMap() {
+        Hash256[] indexes = ParallelHasherTest.indexes(1000, 4);
+        BytesItem[] items = ParallelHasherTest.items(1000, 4);
+        ShaMap full = ParallelHasherTest.addItems(indexes, items);
+
+        ShaMapDiff diff = new ShaMapDiff(new ShaMap(), full);
+        diff.find(pool);
+        assertEquals(1000, diff.added.size());
+        assertSameAsPrevious(new ShaMap(), full);
+    }
+}
@@ -0,0 +1,89 @@
+package com.jccdex.rpc.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+/**
+ * RequestTemplate生成的请求内容与逐字拼接/Jackson解析的结果对比
+ */
+public class RequestTemplateTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static String utf8(byte[] body) {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testBuiltinTemplates() {
+        assertEquals("{\"method\":\"account_info\",\"params\":[{\"account\":\"jHb9CJAWyB4jr91VRWn96DkukG4bwdtyTh\"}]}",
+                utf8(RequestTemplate.ACCOUNT_INFO.render("jHb9CJAWyB4jr91VRWn96DkukG4bwdtyTh")));
+        assertEquals("{\"method\":\"tx\",\"params\":[{\"transaction\":\"ABCD\",\"binary\":false}]}",
+                utf8(RequestTemplate.TX.render("ABCD")));
+        assertEquals("{\"method\":\"submit\",\"params\":[{\"tx_blob\":\"1200\"}]}",
+                utf8(RequestTemplate.SUBMIT.render("1200")));
+        assertEquals("{\"method\":\"ledger\",\"params\":[{\"ledger_index\":\"validated\"}]}",
+                utf8(RequestTemplate.LEDGER_VALIDATED.render()));
+        // 引号外的参数按数字写入
+        assertEquals("{\"method\":\"ledger\",\"params\":[{\"ledger_index\":8123101,\"transactions\":true}]}",
+                utf8(RequestTemplate.LEDGER_TRANSACTIONS.render(8123101)));
+        assertEquals(0, RequestTemplate.LEDGER_VALIDATED.arity());
+        assertEquals(1, RequestTemplate.SUBMIT.arity());
+    }
+
+    @Test
+    public void testEscapedValuesParseBack() throws Exception {
+        RequestTemplate template = RequestTemplate.compile("{\"a\":\"?\",\"b\":[\"?\"]}");
+        String[] values = {
+                "", "plain", "quote\"backslash\\", "line\nfeed\ttab\r\u0000\u001f", "中文备注", "emoji😀end", "é߿ࠀ￿"
+        };
+        for (String a : values) {
+            for (String b : values) {
+                byte[] body = template.render(a, b);
+                JsonNode node = MAPPER.readTree(body);
+                assertEquals(a, node.get("a").asText());
+                assertEquals(b, node.get("b").get(0).asText());
+                // 数组大小正好,末尾没有多余的字节
+                assertEquals('}', body[body.length - 1]);
+                assertEquals(body.length, utf8(body).getBytes(StandardCharsets.UTF_8).length);
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesStringEncoding() {
+        RequestTemplate template = RequestTemplate.compile("{\"memo\":\"?\"}");
+        for (String value : new String[]{"abc", "中文", "😀", "ü"}) {
+            assertEquals("{\"memo\":\"" + value + "\"}", utf8(template.render(value)));
+        }
+    }
+
+    @Test
+    public void testLoneSurrogate() {
+        RequestTemplate template = RequestTemplate.compile("\"?\"");
+        // 孤立的代理字符按3字节写入,长度计算与写入一致
+        assertEquals(5, template.render("\uD83D").length);
+        assertEquals(8, template.render("\uDE00\uD83D").length);
+    }
+
+    @Test
+    public void testArity() {
+        try {
+            RequestTemplate.SUBMIT.render("a", "b");
+            fail("参数个数与模板不一致");
+        } catch (IllegalArgumentException e) {
+            assertEquals("模板需要1个参数", e.getMessage());
+        }
+        try {
+            RequestTemplate.LEDGER_VALIDATED.render(1);
+            fail("参数个数与模板不一致");
+        } catch (IllegalArgumentException e) {
+            assertEquals("模板需要0个参数", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.jccdex.rpc.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * SingleFlight对相同key的在途请求合并
+ */
+public class SingleFlightTest {
+    private final SingleFlight<String, String> flight = new SingleFlight<>("tx");
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private CompletableFuture<String> request(CompletableFuture<String> source) {
+        requests.incrementAndGet();
+        return source;
+    }
+
+    @Test
+    public void testSharesInFlightRequest() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("A", () -> request(source));
+        CompletableFuture<String> second = flight.execute("A", () -> request(new CompletableFuture<>()));
+        // 不同的key各自请求
+        CompletableFuture<String> other = flight.execute("B", () -> request(CompletableFuture.completedFuture("b")));
+
+        assertTrue(first == second);
+        assertEquals(2, requests.get());
+        assertEquals("b", other.get());
+        assertEquals(1, flight.getInFlight());
+
+        source.complete("a");
+        assertEquals("a", second.get());
+        assertEquals(0, flight.getInFlight());
+        assertEquals(3, flight.getCalls());
+        assertEquals(1, flight.getHits());
+    }
+
+    @Test
+    public void testResultNotCached() throws Exception {
+        assertEquals("1", flight.execute("A", () -> request(CompletableFuture.completedFuture("1"))).get());
+        assertEquals("2", flight.execute("A", () -> request(CompletableFuture.completedFuture("2"))).get());
+        assertEquals(2, requests.get());
+        assertEquals(0, flight.getHits());
+    }
+
+    @Test
+    public void testFailureSharedThenRetried() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> first = flight.execute("A", () -> request(source));
+        CompletableFuture<String> second = flight.execute("A", () -> request(new CompletableFuture<>()));
+        source.completeExceptionally(new Exception("txnNotFound"));
+        for (CompletableFuture<String> future : new CompletableFuture[]{first, second}) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                assertEquals("txnNotFound", e.getCause().getMessage());
+            }
+            assertTrue(future.isCompletedExceptionally());
+        }
+
+        // 失败不缓存,下一次调用重新请求
+        assertEquals("ok", flight.execute("A", () -> request(CompletableFuture.completedFuture("ok"))).get());
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    public void testSupplierThrows() throws Exception {
+        CompletableFuture<String> failed = flight.execute("A", () -> {
+            throw new IllegalStateException("no node");
+        });
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals(0, flight.getInFlight());
+        assertEquals("ok", flight.execute("A", () -> request(CompletableFuture.completedFuture("ok"))).get());
+    }
+
+    @Test
+    public void testConcurrentCallers() throws Exception {
+        int threads = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 50; round++) {
+                CompletableFuture<String> source = new CompletableFuture<>();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<CompletableFuture<String>>> callers = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    callers.add(pool.submit(() -> {
+                        start.await();
+                        return flight.execute("A", () -> request(source));
+                    }));
+                }
+                start.countDown();
+                List<CompletableFuture<String>> results = new ArrayList<>();
+                for (Future<CompletableFuture<String>> caller : callers) {
+                    results.add(caller.get(10, TimeUnit.SECONDS));
+                }
+                source.complete("round" + round);
+                for (CompletableFuture<String> result : results) {
+                    assertEquals("round" + round, result.get());
+                }
+                // 每轮所有调用者都在请求完成前进入,只发出一次请求
+                assertEquals(round + 1, requests.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(50 * 16, flight.getCalls());
+        assertEquals(50 * 15, flight.getHits());
+    }
+}
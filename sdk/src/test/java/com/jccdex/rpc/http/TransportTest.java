@@ -0,0 +1,150 @@
+package com.jccdex.rpc.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.jccdex.rpc.JccJingtum;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.Test;
+
+/**
+ * 传输层参数与各实现的请求行为
+ *
+ * OkhttpTransport使用本机的HttpServer,不访问外部网络。
+ */
+public class TransportTest {
+
+    @Test
+    public void testOptionsNodeTimeout() {
+        TransportOptions options = new TransportOptions().setCallTimeoutMillis(3000).setCallTimeoutMillis("http://slow", 20000);
+        assertEquals(3000, options.getCallTimeoutMillis());
+        assertEquals(3000, options.getCallTimeoutMillis("http://fast"));
+        assertEquals(20000, options.getCallTimeoutMillis("http://slow"));
+        assertEquals(Collections.singletonMap("http://slow", 20000L), options.getNodeCallTimeouts());
+        try {
+            options.getNodeCallTimeouts().put("http://other", 1L);
+            fail("节点时限只能通过setCallTimeoutMillis设置");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(3000, options.getCallTimeoutMillis("http://other"));
+        }
+    }
+
+    @Test
+    public void testLocalTransport() throws Exception {
+        LocalTransport transport = new LocalTransport((url, json) -> {
+            if (url.endsWith("down")) {
+                throw new IOException("connection refused");
+            }
+            return url + " " + json;
+        });
+        assertEquals("http://a {}", transport.post("http://a", "{}"));
+        assertEquals("http://a {\"id\":1}", transport.postAsync("http://a", "{\"id\":1}").get());
+
+        try {
+            transport.post("http://down", "{}");
+            fail("应当抛出handler的异常");
+        } catch (IOException e) {
+            assertEquals("connection refused", e.getMessage());
+        }
+        // 异步请求的异常通过future返回,不直接抛出
+        CompletableFuture<String> future = transport.postAsync("http://down", "{}");
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testInjectedTransportIsKept() throws Exception {
+        LocalTransport transport = new LocalTransport((url, json) -> "{}");
+        JccJingtum jingtum = new JccJingtum(false, new ArrayList<>(Arrays.asList("http://a")), transport);
+        assertTrue(jingtum.getTransport() == transport);
+        // 外部传入的传输层由调用者关闭
+        jingtum.close();
+        assertEquals("{}", transport.post("http://a", "{}"));
+    }
+
+    @Test
+    public void testOkhttpOptionsApplied() {
+        TransportOptions options = new TransportOptions()
+                .setProtocol(TransportOptions.Protocol.HTTP_1_1)
+                .setConnectTimeoutMillis(1500)
+                .setCallTimeoutMillis(2500)
+                .setMaxRequests(8)
+                .setMaxRequestsPerHost(2);
+        try (OkhttpTransport transport = new OkhttpTransport(options)) {
+            OkHttpClient client = transport.getClient();
+            assertEquals(Collections.singletonList(Protocol.HTTP_1_1), client.protocols());
+            assertEquals(1500, client.connectTimeoutMillis());
+            assertEquals(2500, client.callTimeoutMillis());
+            assertEquals(8, client.dispatcher().getMaxRequests());
+            assertEquals(2, client.dispatcher().getMaxRequestsPerHost());
+        }
+        try (OkhttpTransport transport = new OkhttpTransport(new TransportOptions().setProtocol(TransportOptions.Protocol.H2C))) {
+            assertEquals(Collections.singletonList(Protocol.H2_PRIOR_KNOWLEDGE), transport.getClient().protocols());
+        }
+    }
+
+    @Test
+    public void testOkhttpRoundTripAndNodeTimeout() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = readAll(in);
+            }
+            if (exchange.getRequestURI().getPath().startsWith("/slow")) {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.sendResponseHeaders(200, request.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(request);
+            }
+        });
+        server.start();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+        TransportOptions options = new TransportOptions().setProtocol(TransportOptions.Protocol.HTTP_1_1)
+                .setCallTimeoutMillis(base + "/slow", 200);
+        try (OkhttpTransport transport = new OkhttpTransport(options)) {
+            String body = "{\"method\":\"server_info\",\"params\":[{}]}";
+            assertEquals(body, transport.post(base + "/", body));
+            assertEquals(body, transport.postAsync(base + "/", body).get(5, TimeUnit.SECONDS));
+
+            // 只有单独设置了时限的节点超时
+            try {
+                transport.postAsync(base + "/slow", body).get(5, TimeUnit.SECONDS);
+                fail("请求应当超时");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
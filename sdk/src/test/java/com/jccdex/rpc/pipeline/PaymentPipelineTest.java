@@ -0,0 +1,264 @@
+package com.jccdex.rpc.pipeline;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.jccdex.core.encoding.common.B16;
+import com.jccdex.rpc.JccJingtum;
+import com.jccdex.rpc.config.Config;
+import com.jccdex.rpc.core.coretypes.AccountID;
+import com.jccdex.rpc.core.coretypes.STObject;
+import com.jccdex.rpc.core.types.known.tx.Transaction;
+import com.jccdex.rpc.http.LocalTransport;
+import com.jccdex.rpc.http.Transport;
+import com.jccdex.rpc.res.SubmitResult;
+import org.junit.Test;
+
+/**
+ * PaymentPipeline的提交顺序、背压与关闭,节点由LocalTransport模拟
+ *
+ * 模拟节点只接受与发送者下一个sequence相同的交易,否则返回terPRE_SEQ。
+ */
+public class PaymentPipelineTest {
+    private static final String[] SECRETS = {
+            "ssEEef7JHubPGTCLwTLkuu4oqKtD6", "ssPFdoM4pZF1HSyrZ8ymnyxYzoE7h", "ssVvAZrAUj7dxFfLdaVvoVH2VTij2"};
+    private static final String RECEIVER = AccountID.fromBytes(B16.decode("7908A7F0EDD48EA896C3580A399F0EE78611C8E3")).address();
+    private static final Pattern TX_BLOB = Pattern.compile("\"tx_blob\":\"([0-9A-F]+)\"");
+
+    static {
+        Config.initBouncy();
+    }
+
+    /**
+     * 模拟节点,记录同一发送者在上一笔提交返回前又收到下一笔的次数
+     */
+    private static class Node implements LocalTransport.Handler {
+        /**
+         * 为false时接受任意sequence
+         */
+        final boolean ordered;
+        final Map<String, Long> next = new HashMap<>();
+        final Map<String, List<Long>> received = new HashMap<>();
+        final Map<String, Boolean> busy = new ConcurrentHashMap<>();
+        final AtomicInteger overlaps = new AtomicInteger();
+        volatile CountDownLatch gate = new CountDownLatch(0);
+
+        Node(boolean ordered) {
+            this.ordered = ordered;
+        }
+
+        @Override
+        public String handle(String url, String json) throws IOException {
+            Matcher matcher = TX_BLOB.matcher(json);
+            if (!matcher.find()) {
+                throw new IOException("unexpected request " + json);
+            }
+            Transaction txn = (Transaction) STObject.fromHex(matcher.group(1));
+            String sender = txn.account().address();
+            long sequence = txn.sequence().longValue();
+            if (busy.put(sender, Boolean.TRUE) != null) {
+                overlaps.incrementAndGet();
+            }
+            try {
+                gate.await();
+                synchronized (this) {
+                    received.computeIfAbsent(sender, key -> new ArrayList<>()).add(sequence);
+                    if (ordered && next.getOrDefault(sender, 1L) != sequence) {
+                        return response("terPRE_SEQ", -92, sender, sequence);
+                    }
+                    next.put(sender, sequence + 1);
+                }
+                return response("tesSUCCESS", 0, sender, sequence);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            } finally {
+                busy.remove(sender);
+            }
+        }
+
+        private static String response(String result, int code, String sender, long sequence) {
+            return "{\"result\":{\"engine_result\":\"" + result + "\",\"engine_result_code\":" + code
+                    + ",\"tx_json\":{\"Account\":\"" + sender + "\",\"Sequence\":" + sequence + "}}}";
+        }
+    }
+
+    /**
+     * 在线程池中随机延迟后再交给节点处理,使不同交易的响应乱序返回
+     */
+    private static Transport delayed(LocalTransport local, ExecutorService pool) {
+        Random random = new Random(7);
+        return new Transport() {
+            @Override
+            public String post(String url, byte[] body) throws IOException {
+                return local.post(url, body);
+            }
+
+            @Override
+            public CompletableFuture<String> postAsync(String url, byte[] body) {
+                long delay = random.nextInt(3);
+                return CompletableFuture.supplyAsync(() -> {
+                    try {
+                        Thread.sleep(delay);
+                        return local.post(url, body);
+                    } catch (IOException | InterruptedException e) {
+                        throw new CompletionException(e);
+                    }
+                }, pool);
+            }
+        };
+    }
+
+    private static JccJingtum jingtum(Transport transport) throws Exception {
+        JccJingtum jingtum = new JccJingtum(false, new ArrayList<>(Arrays.asList("http://a", "http://b")), transport);
+        for (String secret : SECRETS) {
+            jingtum.getSequenceManager().set(jingtum.getAddress(secret), 1);
+        }
+        return jingtum;
+    }
+
+    private static boolean failed(CompletableFuture<SubmitResult> future) throws Exception {
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
+    @Test
+    public void testSubmitsInSequenceOrder() throws Exception {
+        Node node = new Node(true);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        JccJingtum jingtum = jingtum(delayed(new LocalTransport(node), pool));
+        List<CompletableFuture<SubmitResult>> futures = new ArrayList<>();
+        try (PaymentPipeline pipeline = new PaymentPipeline(jingtum, 16, 4, 64)) {
+            for (int i = 0; i < 40; i++) {
+                for (String secret : SECRETS) {
+                    futures.add(pipeline.payment(secret, RECEIVER, "SWT", "1", ""));
+                }
+            }
+            for (CompletableFuture<SubmitResult> future : futures) {
+                assertTrue(future.get(10, TimeUnit.SECONDS).isSuccess());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(0, node.overlaps.get());
+        for (String secret : SECRETS) {
+            List<Long> received = node.received.get(jingtum.getAddress(secret));
+            assertEquals(40, received.size());
+            for (int i = 0; i < received.size(); i++) {
+                assertEquals(i + 1L, (long) received.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testInFlightLimitBlocksCaller() throws Exception {
+        Node node = new Node(true);
+        node.gate = new CountDownLatch(1);
+        JccJingtum jingtum = jingtum(new LocalTransport(node));
+        try (PaymentPipeline pipeline = new PaymentPipeline(jingtum, 4, 1, 2)) {
+            List<CompletableFuture<SubmitResult>> futures = new ArrayList<>();
+            CountDownLatch accepted = new CountDownLatch(3);
+            Thread caller = new Thread(() -> {
+                for (int i = 0; i < 3; i++) {
+                    futures.add(pipeline.payment(SECRETS[0], RECEIVER, "SWT", "1", ""));
+                    accepted.countDown();
+                }
+            });
+            caller.start();
+
+            // 节点没有返回前,第三笔要等前面的交易完成才能进入流水线
+            assertFalse(accepted.await(300, TimeUnit.MILLISECONDS));
+            assertEquals(1, accepted.getCount());
+
+            node.gate.countDown();
+            assertTrue(accepted.await(10, TimeUnit.SECONDS));
+            caller.join();
+            for (CompletableFuture<SubmitResult> future : futures) {
+                assertTrue(future.get(10, TimeUnit.SECONDS).isSuccess());
+            }
+        }
+    }
+
+    @Test
+    public void testCloseFailsQueuedPayments() throws Exception {
+        Node node = new Node(true);
+        node.gate = new CountDownLatch(1);
+        JccJingtum jingtum = jingtum(new LocalTransport(node));
+        PaymentPipeline pipeline = new PaymentPipeline(jingtum, 16, 2, 64);
+        List<CompletableFuture<SubmitResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(pipeline.payment(SECRETS[0], RECEIVER, "SWT", "1", ""));
+        }
+        Thread.sleep(200);
+        pipeline.close();
+        assertTrue(failed(pipeline.payment(SECRETS[0], RECEIVER, "SWT", "1", "")));
+
+        // 已发往节点的第一笔正常完成,其余以失败结束,没有交易一直挂起
+        node.gate.countDown();
+        assertFalse(failed(futures.get(0)));
+        int failures = 0;
+        for (CompletableFuture<SubmitResult> future : futures) {
+            if (failed(future)) {
+                failures++;
+            }
+        }
+        assertTrue(failures > 0);
+    }
+
+    @Test
+    public void testCloseWhilePaymentsEnqueue() throws Exception {
+        JccJingtum jingtum = jingtum(new LocalTransport(new Node(false)));
+        for (int round = 0; round < 20; round++) {
+            PaymentPipeline pipeline = new PaymentPipeline(jingtum, 2, 2, 1024);
+            List<CompletableFuture<SubmitResult>> futures = new ArrayList<>();
+            ExecutorService callers = Executors.newFixedThreadPool(4);
+            for (int i = 0; i < 4; i++) {
+                String secret = SECRETS[i % SECRETS.length];
+                callers.execute(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        CompletableFuture<SubmitResult> future = pipeline.payment(secret, RECEIVER, "SWT", "1", "");
+                        synchronized (futures) {
+                            futures.add(future);
+                        }
+                    }
+                });
+            }
+            Thread.sleep(round % 5);
+            pipeline.close();
+            callers.shutdown();
+            assertTrue(callers.awaitTermination(10, TimeUnit.SECONDS));
+
+            // 与close并发入队的交易也必须完成
+            synchronized (futures) {
+                for (CompletableFuture<SubmitResult> future : futures) {
+                    failed(future);
+                    assertTrue(future.isDone());
+                }
+            }
+        }
+    }
+}
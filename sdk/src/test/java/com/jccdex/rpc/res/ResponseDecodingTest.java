@@ -0,0 +1,104 @@
+package com.jccdex.rpc.res;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.jccdex.rpc.core.serialized.enums.EngineResult;
+import org.junit.Test;
+
+/**
+ * tx、ledger、submit接口返回数据的流式解析
+ *
+ * 只读取result下用到的字段,嵌套的对象和数组整体跳过,其中的同名字段不影响结果。
+ */
+public class ResponseDecodingTest {
+    private static final String ACCOUNT = "jHb9CJAWyB4jr91VRWn96DkukG4bwdtyTh";
+    private static final String HASH = "C6A4F0E5D7B4A9D3A1F7E2C8B5D4A3F2E1D0C9B8A7F6E5D4C3B2A1F0E9D8C7B6";
+
+    @Test
+    public void testTxResult() throws IOException {
+        String res = "{\"id\":1,\"result\":{\"Account\":\"" + ACCOUNT + "\",\"Amount\":{\"currency\":\"CNY\",\"value\":\"1\"},"
+                + "\"Memos\":[{\"Memo\":{\"Account\":\"jOther\",\"Sequence\":1}}],\"Sequence\":57,\"hash\":\"" + HASH + "\","
+                + "\"ledger_index\":8123101,\"meta\":{\"AffectedNodes\":[{\"ModifiedNode\":{\"LedgerIndex\":\"AB\"}}],"
+                + "\"TransactionIndex\":3,\"TransactionResult\":\"tesSUCCESS\"},\"status\":\"success\",\"validated\":true}}";
+        TxResult result = TxResult.fromResponse(res);
+        assertTrue(result.isConfirmed());
+        assertEquals(ACCOUNT, result.getAccount());
+        assertEquals(57, result.getSequence());
+        assertEquals(HASH, result.getHash());
+        assertEquals(8123101, result.getLedgerIndex());
+        assertEquals(EngineResult.tesSUCCESS, result.getEngineResult());
+        assertEquals(res, result.getResponse());
+    }
+
+    @Test
+    public void testTxNotValidated() throws IOException {
+        TxResult pending = TxResult.fromResponse("{\"result\":{\"status\":\"success\",\"validated\":false,"
+                + "\"meta\":{\"TransactionResult\":\"tecUNKNOWN_RESULT\"}}}");
+        assertFalse(pending.isConfirmed());
+        // 不认识的结果码不抛出异常
+        assertEquals(null, pending.getEngineResult());
+
+        TxResult notFound = TxResult.fromResponse("{\"result\":{\"error\":\"txnNotFound\",\"status\":\"error\",\"validated\":true}}");
+        assertFalse(notFound.isConfirmed());
+    }
+
+    @Test
+    public void testLedgerResult() throws IOException {
+        LedgerResult result = LedgerResult.fromResponse("{\"result\":{\"ledger\":{\"accepted\":true,\"ledger_index\":\"8123101\","
+                + "\"close_time\":1,\"transactions\":[\"" + HASH + "\",{\"hash\":\"skipped\"},\"AB\"]},"
+                + "\"ledger_index\":8123101,\"status\":\"success\",\"validated\":true}}");
+        assertTrue(result.isConfirmed());
+        assertEquals(8123101, result.getLedgerIndex());
+        // 展开的交易对象不是hash,跳过
+        assertEquals(Arrays.asList(HASH, "AB"), result.getTransactions());
+
+        LedgerResult missing = LedgerResult.fromResponse("{\"result\":{\"error\":\"lgrNotFound\",\"status\":\"error\"}}");
+        assertFalse(missing.isConfirmed());
+        assertTrue(missing.getTransactions().isEmpty());
+    }
+
+    @Test
+    public void testSubmitResult() throws IOException {
+        SubmitResult result = SubmitResult.fromResponse("{\"result\":{\"engine_result\":\"terPRE_SEQ\",\"engine_result_code\":-92,"
+                + "\"engine_result_message\":\"Missing/inapplicable prior transaction.\",\"status\":\"success\",\"tx_blob\":\"1200\","
+                + "\"tx_json\":{\"Account\":\"" + ACCOUNT + "\",\"Memos\":[{\"Memo\":{\"Sequence\":1}}],\"Sequence\":58,"
+                + "\"hash\":\"" + HASH + "\"}}}");
+        assertEquals(EngineResult.terPRE_SEQ, result.getEngineResult());
+        assertFalse(result.isSuccess());
+        assertEquals(ACCOUNT, result.getAccount());
+        assertEquals(58, result.getSequence());
+        assertEquals(HASH, result.getHash());
+
+        // tooBusy等没有交易结果
+        SubmitResult busy = SubmitResult.fromResponse("{\"result\":{\"error\":\"tooBusy\",\"status\":\"error\"}}");
+        assertEquals(null, busy.getEngineResult());
+        assertEquals(null, busy.getAccount());
+        assertFalse(busy.isSuccess());
+    }
+
+    @Test
+    public void testResultAfterOtherFields() throws IOException {
+        // result不在第一个字段,之前的对象整体跳过
+        TxResult result = TxResult.fromResponse("{\"jsonrpc\":\"2.0\",\"extra\":{\"result\":1,\"status\":\"error\"},"
+                + "\"result\":{\"status\":\"success\",\"validated\":true}}");
+        assertTrue(result.isConfirmed());
+    }
+
+    @Test
+    public void testMissingResult() {
+        for (String res : new String[]{"{\"error\":\"noNetwork\"}", "{\"result\":\"success\"}", "[]"}) {
+            try {
+                TxResult.fromResponse(res);
+                fail("没有result对象应当抛出异常: " + res);
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains(res));
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.jccdex.rpc.sequence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * SequenceManager的分配、释放、gap复用与重新同步
+ *
+ * 链上sequence由测试直接给出,不访问节点。
+ */
+public class SequenceManagerTest {
+    private static final String ADDRESS = "jHb9CJAWyB4jr91VRWn96DkukG4bwdtyTh";
+
+    private volatile long chain = 10;
+    private final AtomicInteger loads = new AtomicInteger();
+    private final SequenceManager manager = new SequenceManager(address -> {
+        loads.incrementAndGet();
+        return chain;
+    });
+
+    @Test
+    public void testReserveIsSequential() throws Exception {
+        assertEquals(10, manager.reserve(ADDRESS));
+        assertEquals(11, manager.reserve(ADDRESS));
+        assertEquals(12, manager.reserve(ADDRESS, 3));
+        assertEquals(15, manager.current(ADDRESS));
+        assertEquals(new TreeSet<>(Arrays.asList(10L, 11L, 12L, 13L, 14L)), manager.pending(ADDRESS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testReleasedSequenceIsReused() throws Exception {
+        long first = manager.reserve(ADDRESS);
+        long second = manager.reserve(ADDRESS);
+        manager.released(ADDRESS, first);
+        assertEquals(new TreeSet<>(Arrays.asList(first)), manager.gaps(ADDRESS));
+
+        assertEquals(first, manager.current(ADDRESS));
+        assertEquals(first, manager.reserve(ADDRESS));
+        assertEquals(second + 1, manager.reserve(ADDRESS));
+        assertTrue(manager.gaps(ADDRESS).isEmpty());
+    }
+
+    @Test
+    public void testAppliedAdvancesNext() throws Exception {
+        manager.set(ADDRESS, 10);
+        manager.applied(ADDRESS, 12);
+        assertTrue(manager.pending(ADDRESS).isEmpty());
+        assertEquals(13, manager.current(ADDRESS));
+    }
+
+    @Test
+    public void testResyncKeepsPending() throws Exception {
+        manager.reserve(ADDRESS, 4);
+        manager.applied(ADDRESS, 10);
+        manager.applied(ADDRESS, 11);
+
+        chain = 12;
+        manager.invalidate(ADDRESS);
+        assertEquals(14, manager.current(ADDRESS));
+        assertEquals(new TreeSet<>(Arrays.asList(12L, 13L)), manager.pending(ADDRESS));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testResyncWithoutPendingFollowsChain() throws Exception {
+        manager.reserve(ADDRESS, 3);
+        manager.released(ADDRESS, 10);
+        manager.released(ADDRESS, 11);
+        manager.released(ADDRESS, 12);
+
+        manager.invalidate(ADDRESS);
+        assertEquals(10, manager.reserve(ADDRESS));
+        assertEquals(11, manager.reserve(ADDRESS));
+        assertTrue(manager.gaps(ADDRESS).isEmpty());
+    }
+
+    @Test
+    public void testResyncReissuesFailedSequence() throws Exception {
+        // 10失败,11、12仍在途,链上停在10
+        manager.reserve(ADDRESS, 3);
+        manager.released(ADDRESS, 10);
+        manager.invalidate(ADDRESS);
+
+        assertEquals(10, manager.reserve(ADDRESS));
+        assertEquals(new TreeSet<>(Arrays.asList(10L, 11L, 12L)), manager.pending(ADDRESS));
+        assertEquals(13, manager.reserve(ADDRESS));
+    }
+
+    @Test
+    public void testResyncDropsRecordsBelowChain() throws Exception {
+        manager.reserve(ADDRESS, 5);
+        manager.released(ADDRESS, 11);
+
+        chain = 13;
+        manager.resync(ADDRESS);
+        assertEquals(new TreeSet<>(Arrays.asList(13L, 14L)), manager.pending(ADDRESS));
+        assertTrue(manager.gaps(ADDRESS).isEmpty());
+        assertEquals(15, manager.current(ADDRESS));
+    }
+
+    @Test
+    public void testDroppedAppliedSequenceIsReissued() throws Exception {
+        manager.reserve(ADDRESS, 2);
+        manager.applied(ADDRESS, 10);
+        manager.applied(ADDRESS, 11);
+
+        // 链上可能还没有反映刚上链的交易
+        manager.resync(ADDRESS);
+        assertEquals(12, manager.current(ADDRESS));
+
+        // 再次同步仍停在10,10并没有上链
+        manager.resync(ADDRESS);
+        assertEquals(10, manager.reserve(ADDRESS));
+        assertEquals(12, manager.reserve(ADDRESS));
+    }
+
+    @Test
+    public void testLoadDoesNotHoldLock() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        SequenceManager blocking = new SequenceManager(address -> {
+            loading.countDown();
+            proceed.await();
+            return 10;
+        });
+        blocking.set(ADDRESS, 10);
+        blocking.reserve(ADDRESS);
+        blocking.invalidate(ADDRESS);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> reserved = executor.submit(() -> blocking.reserve(ADDRESS));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            // 查询account_info期间可以处理同一账号的交易结果
+            blocking.applied(ADDRESS, 10);
+            proceed.countDown();
+            assertEquals(11, (long) reserved.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentReserveHasNoDuplicates() throws Exception {
+        int threads = 8;
+        int perThread = 2000;
+        Set<Long> reserved = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int seed = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        long sequence = manager.reserve(ADDRESS);
+                        if (!reserved.add(sequence)) {
+                            duplicates.incrementAndGet();
+                        }
+                        // 部分交易失败,释放的sequence被其他线程复用
+                        if ((i + seed) % 7 == 0) {
+                            reserved.remove(sequence);
+                            manager.released(ADDRESS, sequence);
+                        } else if ((i + seed) % 50 == 0) {
+                            manager.invalidate(ADDRESS);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, duplicates.get());
+        TreeSet<Long> all = new TreeSet<>(reserved);
+        all.addAll(manager.gaps(ADDRESS));
+        // 占用的与等待复用的sequence连续,没有丢失
+        assertEquals(10, (long) all.first());
+        assertEquals(all.size(), all.last() - all.first() + 1);
+        assertEquals(all.last() + 1, manager.reserve(ADDRESS, 1));
+    }
+}